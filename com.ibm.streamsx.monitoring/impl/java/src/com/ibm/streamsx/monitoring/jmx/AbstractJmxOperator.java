@@ -14,9 +14,14 @@ import java.io.InputStreamReader;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.MalformedURLException;
+import java.security.GeneralSecurityException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+import javax.management.Notification;
+import javax.management.NotificationListener;
+import javax.management.remote.JMXConnector;
 import javax.management.remote.JMXConnectorFactory;
 import javax.management.remote.JMXServiceURL;
 
@@ -31,8 +36,12 @@ import com.ibm.streams.operator.OperatorContext;
 import com.ibm.streams.operator.ProcessingElement;
 import com.ibm.streams.operator.metrics.Metric;
 import com.ibm.streams.operator.metrics.Metric.Kind;
+import com.ibm.streams.operator.metrics.OperatorMetrics;
 import com.ibm.streams.operator.model.CustomMetric;
 import com.ibm.streams.operator.model.Parameter;
+import com.ibm.streamsx.monitoring.jmx.internal.JmxConnectionManager;
+import com.ibm.streamsx.monitoring.jmx.internal.JmxConnectionPool;
+import com.ibm.streamsx.monitoring.jmx.internal.JmxDataRetriever;
 
 /**
  * Abstract class for the JMX operators.
@@ -77,6 +86,35 @@ public abstract class AbstractJmxOperator extends AbstractOperator {
 			+ " If the **applicationConfigurationName** parameter is specified, "
 			+ "the application configuration can override this parameter value.";	
 	
+	protected static final String DESC_PARAM_JMX_CONNECTION_BACKOFF = 
+			"Specifies the time in seconds after which a JMX server is tried "
+			+ "again after a failed connection attempt or a broken connection. "
+			+ "The time doubles with every consecutive failure of the same "
+			+ "server, and is randomized by up to 50 percent, so that several "
+			+ "operators do not reconnect at the same time. The value 0.0 "
+			+ "disables the backoff, so a failed server is tried again "
+			+ "immediately. The value must not be negative. The default is 1.0.";
+
+	protected static final String DESC_PARAM_JMX_CONNECTION_MAX_BACKOFF = 
+			"Specifies the maximum time in seconds after which a JMX server is "
+			+ "tried again. The value must not be negative. The default is 60.0.";
+
+	protected static final String DESC_PARAM_JMX_CONNECTION_PROBE_PERIOD = 
+			"Specifies the period in seconds in which the preferred JMX server, "
+			+ "which is the last one in the **connectionURL** list, is probed "
+			+ "while the operator is connected to another server. As soon as "
+			+ "the preferred server accepts connections again, the operator "
+			+ "switches back to it. The value 0.0 disables switching back. The "
+			+ "default is 30.0.";
+
+	protected static final String DESC_PARAM_JMX_CONNECTION_POOL_SIZE = 
+			"Specifies the number of JMX connections to the JMX server. Each "
+			+ "job is assigned to one connection by its job ID, so that the "
+			+ "jobs can be scanned and their notifications delivered in "
+			+ "parallel. For each connection, the number of calls and their "
+			+ "average latency are exported as metrics nJMXCalls_<n> and "
+			+ "jmxCallLatencyMicros_<n>. The default is 1.";
+
 	protected static final Object PARAMETER_CONNECTION_URL = "connectionURL";
 	
 	protected static final Object PARAMETER_USER = "user";
@@ -110,6 +148,20 @@ public abstract class AbstractJmxOperator extends AbstractOperator {
 	private Metric isConnected;
 	private Metric nJMXConnectionAttempts;
 	private Metric nBrokenJMXConnections;
+	private Metric jmxConnectionBackoffMillis;
+	private Metric nJMXConnectionFailovers;
+	private Metric activeJMXEndpointIndex;
+
+	/**
+	 * The JMX environment of the last connection setup, which is used to
+	 * probe the preferred JMX server.
+	 */
+	private Map<String, Object> _jmxEnvironment = null;
+
+	/**
+	 * Set if probing the preferred JMX server is scheduled.
+	 */
+	private boolean _isProbeScheduled = false;
 
     public Metric get_nJMXConnectionAttempts() {
         return this.nJMXConnectionAttempts;
@@ -122,6 +174,18 @@ public abstract class AbstractJmxOperator extends AbstractOperator {
     public Metric get_nBrokenJMXConnections() {
         return this.nBrokenJMXConnections;
     }
+
+    public Metric get_jmxConnectionBackoffMillis() {
+        return this.jmxConnectionBackoffMillis;
+    }
+
+    public Metric get_nJMXConnectionFailovers() {
+        return this.nJMXConnectionFailovers;
+    }
+
+    public Metric get_activeJMXEndpointIndex() {
+        return this.activeJMXEndpointIndex;
+    }
     
     @CustomMetric(name="nBrokenJMXConnections", kind = Kind.COUNTER, description = "Number of broken JMX connections that have occurred. Notifications may have been lost.")
     public void set_nConnectionLosts(Metric nBrokenJMXConnections) {
@@ -133,6 +197,21 @@ public abstract class AbstractJmxOperator extends AbstractOperator {
         this.nJMXConnectionAttempts = nConnectionAttempts;
     }
     
+    @CustomMetric(name="jmxConnectionBackoffMillis", kind = Kind.GAUGE, description = "Time in milliseconds until the next JMX connection attempt is allowed. Value 0 indicates, that a JMX server can be tried immediately.")
+    public void set_jmxConnectionBackoffMillis(Metric jmxConnectionBackoffMillis) {
+        this.jmxConnectionBackoffMillis = jmxConnectionBackoffMillis;
+    }
+
+    @CustomMetric(name="nJMXConnectionFailovers", kind = Kind.COUNTER, description = "Number of times that the operator connected to another JMX server than before.")
+    public void set_nJMXConnectionFailovers(Metric nJMXConnectionFailovers) {
+        this.nJMXConnectionFailovers = nJMXConnectionFailovers;
+    }
+
+    @CustomMetric(name="activeJMXEndpointIndex", kind = Kind.GAUGE, description = "Position of the JMX server in the connectionURL list that the operator is connected to, starting with 0. Value -1 indicates, that no connection was established yet.")
+    public void set_activeJMXEndpointIndex(Metric activeJMXEndpointIndex) {
+        this.activeJMXEndpointIndex = activeJMXEndpointIndex;
+    }
+
     @CustomMetric(name="isConnected", kind = Kind.GAUGE, description = "Value 1 indicates, that this operator is connected to JMX service. Otherwise value 0 is set, if no connection is established.")
     public void set_isConnected(Metric isConnected) {
         this.isConnected = isConnected;
@@ -185,6 +264,38 @@ public abstract class AbstractJmxOperator extends AbstractOperator {
 	public void setApplicationConfigurationName(String applicationConfigurationName) {
 		_operatorConfiguration.set_applicationConfigurationName(applicationConfigurationName);
 	}
+
+	@Parameter(
+			optional=true,
+			description=AbstractJmxOperator.DESC_PARAM_JMX_CONNECTION_BACKOFF
+			)
+	public void setJmxConnectionBackoff(Double jmxConnectionBackoff) {
+		_operatorConfiguration.set_jmxConnectionBackoff(jmxConnectionBackoff);
+	}
+
+	@Parameter(
+			optional=true,
+			description=AbstractJmxOperator.DESC_PARAM_JMX_CONNECTION_MAX_BACKOFF
+			)
+	public void setJmxConnectionMaxBackoff(Double jmxConnectionMaxBackoff) {
+		_operatorConfiguration.set_jmxConnectionMaxBackoff(jmxConnectionMaxBackoff);
+	}
+
+	@Parameter(
+			optional=true,
+			description=AbstractJmxOperator.DESC_PARAM_JMX_CONNECTION_POOL_SIZE
+			)
+	public void setJmxConnectionPoolSize(Integer jmxConnectionPoolSize) {
+		_operatorConfiguration.set_jmxConnectionPoolSize(jmxConnectionPoolSize);
+	}
+
+	@Parameter(
+			optional=true,
+			description=AbstractJmxOperator.DESC_PARAM_JMX_CONNECTION_PROBE_PERIOD
+			)
+	public void setJmxConnectionProbePeriod(Double jmxConnectionProbePeriod) {
+		_operatorConfiguration.set_jmxConnectionProbePeriod(jmxConnectionProbePeriod);
+	}
 	
 	/**
 	 * Initialize this operator. Called once before any tuples are processed.
@@ -238,7 +349,13 @@ public abstract class AbstractJmxOperator extends AbstractOperator {
 			}
 		}
 		_operatorConfiguration.set_defaultFilterInstance(_operatorConfiguration.get_instanceId());
-		
+
+		if (_operatorConfiguration.get_jmxConnectionBackoff() < 0.0 || _operatorConfiguration.get_jmxConnectionMaxBackoff() < 0.0) {
+			throw new com.ibm.streams.operator.DataException("The " + context.getName() + " operator requires the parameters 'jmxConnectionBackoff' and 'jmxConnectionMaxBackoff' to be 0.0 or more.");
+		}
+		_operatorConfiguration.set_jmxConnectionManager(new JmxConnectionManager(_operatorConfiguration.get_jmxConnectionBackoff(), _operatorConfiguration.get_jmxConnectionMaxBackoff()));
+		get_activeJMXEndpointIndex().setValue(-1);
+		createJMXConnectionPoolMetrics();
 	}	
 	
 	/**
@@ -346,27 +463,262 @@ public abstract class AbstractJmxOperator extends AbstractOperator {
 			env.put("jmx.remote.tls.enabled.protocols", sslOption);
 		}
 
+		/*
+		 * The metrics snapshots of the jobs are downloaded from the JMX
+		 * server with the credentials and the protocol of the JMX connection.
+		 */
+		if (_operatorConfiguration.get_batchedMetricsRetrieval()) {
+			double callTimeout = _operatorConfiguration.get_jmxCallTimeout();
+			int timeout = (callTimeout > 0.0) ? (int)Math.max(1L, Math.round(callTimeout * 1000.0)) : 0;
+			try {
+				_operatorConfiguration.set_jmxDataRetriever(new JmxDataRetriever(user, password, sslOption, timeout));
+			}
+			catch (GeneralSecurityException e) {
+				_trace.warn("The metrics snapshots cannot be downloaded with sslOption " + sslOption + ", retrieve the metrics per MXBean: " + e);
+				_operatorConfiguration.set_jmxDataRetriever(null);
+			}
+		}
+
 		/*
 		 * Setup the JMX connector and MBean connection.
 		 */
 		String[] urls = connectionURL.split(","); // comma separated list of JMX servers is supported
 		// In Streaming Analytics service the variable urls contains 3 JMX servers. The third JMX is the prefered one. 
-		for (int i=urls.length-1; i>=0; i--) {
+		JmxConnectionManager manager = _operatorConfiguration.get_jmxConnectionManager();
+		manager.setUrls(urls);
+		_jmxEnvironment = env;
+		IOException error = null;
+		JMXConnector connector = null;
+		String url = null;
+		for (JmxConnectionManager.Endpoint endpoint : manager.getCandidates()) {
+			long start = System.nanoTime();
 			try {
 				get_nJMXConnectionAttempts().increment(); // update metric
-				_trace.info("Connect to : " + urls[i]);
-				_operatorConfiguration.set_jmxConnector(JMXConnectorFactory.connect(new JMXServiceURL(urls[i]), env));
-				get_isConnected().setValue(1);
-				break; // exit loop here since a valid connection is established, otherwise exception is thrown.
+				_trace.info("Connect to : " + endpoint.getUrl());
+				connector = JMXConnectorFactory.connect(new JMXServiceURL(endpoint.getUrl()), env);
+				manager.connected(endpoint, System.nanoTime() - start, true);
+				url = endpoint.getUrl();
+				break; // exit loop here since a valid connection is established, otherwise try the next endpoint.
 			} catch (IOException e) {
 				_trace.error("connect failed: " + e.getMessage());
-				if (i == 0) {
-					get_isConnected().setValue(0);
-					throw e;
+				manager.failed(endpoint);
+				error = e;
+			}
+		}
+		updateJMXConnectionMetrics();
+		if (connector == null) {
+			get_isConnected().setValue(0);
+			if (error == null) {
+				error = new IOException("All JMX servers are backing off for another " + manager.getBackoff() + " ms");
+			}
+			throw error;
+		}
+		_operatorConfiguration.set_jmxConnector(connector);
+		get_isConnected().setValue(1);
+		JmxConnectionPool previous = setupJMXConnectionPool(connector, url, env);
+		if (previous != null) {
+			// The previous connection is lost, so its handlers are not bound anymore.
+			previous.closeSecondaryConnectors();
+		}
+		scheduleJMXEndpointProbe(urls.length);
+	}
+
+	/**
+	 * Connect to the preferred JMX server, which recovered while the operator
+	 * is connected to another server. Unlike {@link #setupJMXConnection()},
+	 * no other server is tried, and the current connection and the
+	 * connection state are kept if the preferred server cannot be connected.
+	 * 
+	 * @return
+	 * The previous connector, which the caller closes after the handlers are
+	 * bound to the new connection. The previous connection pool is replaced
+	 * but not closed either.
+	 * 
+	 * @throws IOException
+	 * Throws if a switch is not pending or the preferred server cannot be
+	 * connected.
+	 */
+	protected JMXConnector switchToPreferredJMXEndpoint() throws IOException {
+		JmxConnectionManager manager = _operatorConfiguration.get_jmxConnectionManager();
+		JmxConnectionManager.Endpoint endpoint = manager.getSwitchBackCandidate();
+		if (endpoint == null) {
+			throw new IOException("The preferred JMX server is not available");
+		}
+		JMXConnector connector = null;
+		long latency = 0;
+		try {
+			get_nJMXConnectionAttempts().increment(); // update metric
+			_trace.info("Connect to the preferred JMX server: " + endpoint.getUrl());
+			long start = System.nanoTime();
+			connector = JMXConnectorFactory.connect(new JMXServiceURL(endpoint.getUrl()), _jmxEnvironment);
+			latency = System.nanoTime() - start;
+			setupJMXConnectionPool(connector, endpoint.getUrl(), _jmxEnvironment);
+		}
+		catch (IOException e) {
+			manager.failed(endpoint);
+			if (connector != null) {
+				try {
+					connector.close();
 				}
+				catch (IOException ignore) {
+				}
+			}
+			throw e;
+		}
+		manager.connected(endpoint, latency, true);
+		JMXConnector previous = _operatorConfiguration.get_jmxConnector();
+		_operatorConfiguration.set_jmxConnector(connector);
+		updateJMXConnectionMetrics();
+		return previous;
+	}
+
+	/**
+	 * Create the pool of connectors to the JMX server that the operator is
+	 * connected to. The primary connector is the first one of the pool. If
+	 * a further connector cannot be established, its slot uses the primary
+	 * connection, so the jobs keep their slots. If the primary connector
+	 * cannot be used, the previous pool is kept. If a further connection is
+	 * lost, the connection is reported as lost.
+	 * 
+	 * @return
+	 * The previous pool, or null. The caller closes its further connectors
+	 * after the handlers are bound to the new pool.
+	 */
+	private JmxConnectionPool setupJMXConnectionPool(JMXConnector connector, String url, Map<String, Object> env) throws IOException {
+		JmxConnectionPool pool = new JmxConnectionPool(connector, _operatorConfiguration.get_jmxConnectionPoolSize(), new NotificationListener() {
+			@Override
+			public void handleNotification(Notification notification, Object handback) {
+				connectionLost();
+			}
+		});
+		JmxConnectionPool previous = _operatorConfiguration.get_jmxConnectionPool();
+		for (int i = 1; i < _operatorConfiguration.get_jmxConnectionPoolSize(); i++) {
+			try {
+				get_nJMXConnectionAttempts().increment(); // update metric
+				pool.set(i, JMXConnectorFactory.connect(new JMXServiceURL(url), env));
+			}
+			catch (IOException e) {
+				// The remaining slots use the primary connection as well.
+				_trace.warn("Pooled JMX connection " + i + " to " + url + " cannot be established, the slots " + i + " to " + (pool.size() - 1) + " use the primary connection: " + e.getMessage());
+				break;
+			}
+		}
+		_operatorConfiguration.set_jmxConnectionPool(pool);
+		_operatorConfiguration.set_mbeanServerConnection(pool.getConnection());
+		return previous;
+	}
+
+	/**
+	 * Create the usage and latency metrics of the pooled JMX connections.
+	 */
+	private void createJMXConnectionPoolMetrics() {
+		int poolSize = _operatorConfiguration.get_jmxConnectionPoolSize();
+		if (poolSize < 2) {
+			return;
+		}
+		OperatorMetrics metrics = getOperatorContext().getMetrics();
+		for (int i = 0; i < poolSize; i++) {
+			metrics.createCustomMetric("nJMXCalls_" + i, "Number of JMX calls over the pooled JMX connection " + i + ".", Kind.COUNTER);
+			metrics.createCustomMetric("jmxCallLatencyMicros_" + i, "Average latency of the JMX calls over the pooled JMX connection " + i + " in microseconds.", Kind.GAUGE);
+		}
+	}
+
+	/**
+	 * Update the usage and latency metrics of the pooled JMX connections.
+	 */
+	protected void updateJMXConnectionPoolMetrics() {
+		JmxConnectionPool pool = _operatorConfiguration.get_jmxConnectionPool();
+		if (pool == null || _operatorConfiguration.get_jmxConnectionPoolSize() < 2) {
+			return;
+		}
+		OperatorMetrics metrics = getOperatorContext().getMetrics();
+		for (int i = 0; i < pool.size(); i++) {
+			metrics.getCustomMetric("nJMXCalls_" + i).setValue(pool.getCalls(i));
+			metrics.getCustomMetric("jmxCallLatencyMicros_" + i).setValue(pool.getAverageLatency(i));
+		}
+	}
+
+	/**
+	 * Determine whether a JMX server can be tried now, or whether all
+	 * servers are backing off after failed attempts.
+	 */
+	protected boolean isJMXConnectionRetryDue() {
+		JmxConnectionManager manager = _operatorConfiguration.get_jmxConnectionManager();
+		updateJMXConnectionMetrics();
+		return (manager == null) || manager.isRetryDue();
+	}
+
+	/**
+	 * Called if the JMX connection is lost, for example if a pooled
+	 * connection fails.
+	 */
+	protected void connectionLost() {
+		jmxConnectionBroken();
+	}
+
+	/**
+	 * Record that the JMX connection is broken, so that the server backs off
+	 * and another server is tried first.
+	 */
+	protected void jmxConnectionBroken() {
+		JmxConnectionManager manager = _operatorConfiguration.get_jmxConnectionManager();
+		if (manager != null) {
+			manager.connectionLost();
+			updateJMXConnectionMetrics();
+		}
+	}
+
+	private void updateJMXConnectionMetrics() {
+		JmxConnectionManager manager = _operatorConfiguration.get_jmxConnectionManager();
+		if (manager != null) {
+			get_jmxConnectionBackoffMillis().setValue(manager.getBackoff());
+			get_nJMXConnectionFailovers().setValue(manager.getFailovers());
+			get_activeJMXEndpointIndex().setValue(manager.getActiveIndex());
+		}
+	}
+
+	/**
+	 * Start probing the preferred JMX server in the background, if several
+	 * servers are specified.
+	 */
+	private synchronized void scheduleJMXEndpointProbe(int nUrls) {
+		double probePeriod = _operatorConfiguration.get_jmxConnectionProbePeriod();
+		if (_isProbeScheduled || nUrls < 2 || probePeriod <= 0.0) {
+			return;
+		}
+		_isProbeScheduled = true;
+		long period = (long)(probePeriod * 1000.0);
+		getOperatorContext().getScheduledExecutorService().scheduleWithFixedDelay(
+				new Runnable() {
+					@Override
+					public void run() {
+						probePreferredJMXEndpoint();
+					}
+				}, period, period, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Connect to the preferred JMX server if the operator is connected to
+	 * another server. The probe connection is closed immediately. If the
+	 * probe succeeds, the operator switches back with its next connection
+	 * setup.
+	 */
+	private void probePreferredJMXEndpoint() {
+		JmxConnectionManager manager = _operatorConfiguration.get_jmxConnectionManager();
+		JmxConnectionManager.Endpoint endpoint = manager.getProbeCandidate();
+		if (endpoint == null) {
+			return;
+		}
+		long start = System.nanoTime();
+		try (JMXConnector connector = JMXConnectorFactory.connect(new JMXServiceURL(endpoint.getUrl()), _jmxEnvironment)) {
+			manager.probeSucceeded(endpoint, System.nanoTime() - start);
+		}
+		catch (IOException e) {
+			if (_trace.isDebugEnabled()) {
+				_trace.debug("probe of " + endpoint.getUrl() + " failed: " + e.getMessage());
 			}
+			manager.failed(endpoint);
 		}
-		_operatorConfiguration.set_mbeanServerConnection(_operatorConfiguration.get_jmxConnector().getMBeanServerConnection());
 	}
 	
 
@@ -11,19 +11,35 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.ObjectName;
+import javax.management.remote.JMXConnector;
 
 import org.apache.log4j.Logger;
 
 import com.ibm.streams.operator.OperatorContext;
 import com.ibm.streams.operator.OutputTuple;
 import com.ibm.streams.operator.StreamingOutput;
+import com.ibm.streams.operator.metrics.Metric;
+import com.ibm.streams.operator.metrics.Metric.Kind;
+import com.ibm.streams.operator.model.CustomMetric;
+import com.ibm.streams.operator.model.Parameter;
 import com.ibm.streamsx.monitoring.jmx.OperatorConfiguration.OpType;
 import com.ibm.streamsx.monitoring.jmx.internal.ConnectionNotificationTupleContainer;
 import com.ibm.streamsx.monitoring.jmx.internal.InstanceHandler;
+import com.ibm.streamsx.monitoring.jmx.internal.JmxConnectionManager;
+import com.ibm.streamsx.monitoring.jmx.internal.JmxConnectionPool;
 import com.ibm.streamsx.monitoring.jmx.internal.JobStatusTupleContainer;
 import com.ibm.streamsx.monitoring.jmx.internal.LogTupleContainer;
 import com.ibm.streamsx.monitoring.jmx.internal.MetricsTupleContainer;
+import com.ibm.streamsx.monitoring.jmx.internal.NotificationOverflowPolicy;
+import com.ibm.streamsx.monitoring.jmx.internal.TupleEmitter;
 import com.ibm.streamsx.monitoring.jmx.internal.filters.Filters;
 
 /**
@@ -52,6 +68,34 @@ public abstract class AbstractJmxSource extends AbstractJmxOperator {
 			+ "type."
 			;
 	
+	protected static final String DESC_PARAM_NOTIFICATION_QUEUE_SIZE = 
+			"Specifies the maximum number of notification tuples that are "
+			+ "queued per output port until they are submitted. A single "
+			+ "thread per port submits the queued tuples in the order of "
+			+ "the notifications. The value must be 1 or more. The default is 10000.";
+
+	protected static final String DESC_PARAM_NOTIFICATION_OVERFLOW_POLICY = 
+			"Specifies how to continue if the notification queue is full. "
+			+ "Supported policies are the following string values:\\n"
+			+ "\\n"
+			+ "* **block** (default)\\n"
+			+ "\\n"
+			+ "  The notification is delayed until the queue has room, so no notification is lost.\\n"
+			+ "\\n"
+			+ "* **dropOldest**\\n"
+			+ "\\n"
+			+ "  The oldest queued notification is dropped.\\n"
+			+ "\\n"
+			+ "* **coalesce**\\n"
+			+ "\\n"
+			+ "  The oldest queued notification that the new one supersedes is "
+			+ "dropped, for example, an older notification of the same type for "
+			+ "the same job and PE. If there is no such notification, the oldest "
+			+ "one is dropped.\\n"
+			+ "\\n"
+			+ "The number of dropped notifications is exported as metric "
+			+ "nDroppedNotifications.";
+
 	public static final String AUTHENTICATION_DESC =
 			"\\n"+
 			"\\n+ Supported Authentication Schemes" +
@@ -87,6 +131,18 @@ public abstract class AbstractJmxSource extends AbstractJmxOperator {
 	
 	protected InstanceHandler _instanceHandler = null;
 
+	/**
+	 * The object name pattern that matches all instances of the domain.
+	 */
+	private static final String INSTANCE_QUERY = "com.ibm.streams.management:type=instance,*";
+
+	/**
+	 * If instances are discovered (discoverInstances parameter is set), the
+	 * handlers of the further instances that match the filters. The handler
+	 * of the configured instance is {@link #_instanceHandler}.
+	 */
+	protected Map<String /* instanceId */, InstanceHandler> _discoveredInstanceHandlers = new ConcurrentHashMap<>();
+
 	/**
 	 * If the application configuration is used (applicationConfigurationName
 	 * parameter is set), save the active filterDocument (as JSON string) to
@@ -94,6 +150,49 @@ public abstract class AbstractJmxSource extends AbstractJmxOperator {
 	 */
 	protected String activeFilterDocumentFromApplicationConfiguration = null;
 
+	/**
+	 * The emitters that submit the notification tuples of the output ports.
+	 */
+	private List<TupleEmitter> _tupleEmitters = new ArrayList<>();
+
+	private Metric nQueuedNotifications;
+
+	private Metric nDroppedNotifications;
+
+	public Metric get_nQueuedNotifications() {
+		return nQueuedNotifications;
+	}
+
+	public Metric get_nDroppedNotifications() {
+		return nDroppedNotifications;
+	}
+
+	@CustomMetric(name="nQueuedNotifications", kind = Kind.GAUGE, description = "Number of notification tuples that are queued and not yet submitted.")
+	public void set_nQueuedNotifications(Metric nQueuedNotifications) {
+		this.nQueuedNotifications = nQueuedNotifications;
+	}
+
+	@CustomMetric(name="nDroppedNotifications", kind = Kind.COUNTER, description = "Number of notification tuples that are dropped because the notification queue is full.")
+	public void set_nDroppedNotifications(Metric nDroppedNotifications) {
+		this.nDroppedNotifications = nDroppedNotifications;
+	}
+
+	@Parameter(
+			optional=true,
+			description=AbstractJmxSource.DESC_PARAM_NOTIFICATION_QUEUE_SIZE
+			)
+	public void setNotificationQueueSize(Integer notificationQueueSize) {
+		_operatorConfiguration.set_notificationQueueSize(notificationQueueSize);
+	}
+
+	@Parameter(
+			optional=true,
+			description=AbstractJmxSource.DESC_PARAM_NOTIFICATION_OVERFLOW_POLICY
+			)
+	public void setNotificationOverflowPolicy(String policy) {
+		_operatorConfiguration.set_notificationOverflowPolicy(NotificationOverflowPolicy.valueOf(policy));
+	}
+
 	/**
 	 * Initialize this operator. Called once before any tuples are processed.
 	 * @param context OperatorContext for this operator.
@@ -105,6 +204,10 @@ public abstract class AbstractJmxSource extends AbstractJmxOperator {
 		// Must call super.initialize(context) to correctly setup an operator.
 		super.initialize(context);
 
+		if (_operatorConfiguration.get_notificationQueueSize() < 1) {
+			throw new com.ibm.streams.operator.DataException("The " + context.getName() + " operator requires a notificationQueueSize parameter value of 1 or more, but the value is " + _operatorConfiguration.get_notificationQueueSize() + ".");
+		}
+
 		/*
 		 * Establish connections or resources to communicate an external system
 		 * or data store. The configuration information for this comes from
@@ -121,10 +224,10 @@ public abstract class AbstractJmxSource extends AbstractJmxOperator {
 		
 		final StreamingOutput<OutputTuple> port = getOutput(0);
 		if (OpType.JOB_STATUS_SOURCE == _operatorConfiguration.get_OperatorType()) {
-			_operatorConfiguration.set_tupleContainerJobStatusSource(new JobStatusTupleContainer(getOperatorContext(), port));
+			_operatorConfiguration.set_tupleContainerJobStatusSource(new JobStatusTupleContainer(port, newTupleEmitter(port)));
 		}
 		if (OpType.LOG_SOURCE == _operatorConfiguration.get_OperatorType()) {
-			_operatorConfiguration.set_tupleContainerLogSource(new LogTupleContainer(getOperatorContext(), port));
+			_operatorConfiguration.set_tupleContainerLogSource(new LogTupleContainer(port, newTupleEmitter(port)));
 		}
 		if (OpType.METRICS_SOURCE == _operatorConfiguration.get_OperatorType()) {			
 			_operatorConfiguration.set_tupleContainerMetricsSource(new MetricsTupleContainer(port));
@@ -132,7 +235,7 @@ public abstract class AbstractJmxSource extends AbstractJmxOperator {
 		// check if second output port is present
 		if (1 < context.getNumberOfStreamingOutputs()) {
 			final StreamingOutput<OutputTuple> port1 = getOutput(1);
-			_operatorConfiguration.set_tupleContainerConnectionNotification(new ConnectionNotificationTupleContainer(getOperatorContext(), port1));
+			_operatorConfiguration.set_tupleContainerConnectionNotification(new ConnectionNotificationTupleContainer(port1, newTupleEmitter(port1)));
 		}
 		
 		setupJMXConnection();
@@ -144,6 +247,29 @@ public abstract class AbstractJmxSource extends AbstractJmxOperator {
 		scanInstance();
 	}
 
+	/**
+	 * Create the emitter that queues the notification tuples of the output
+	 * port and submits them with a thread of its own.
+	 */
+	private TupleEmitter newTupleEmitter(StreamingOutput<OutputTuple> port) {
+		TupleEmitter emitter = new TupleEmitter(getOperatorContext().getThreadFactory(), port, _operatorConfiguration.get_notificationQueueSize(), _operatorConfiguration.get_notificationOverflowPolicy(), get_nQueuedNotifications(), get_nDroppedNotifications());
+		_tupleEmitters.add(emitter);
+		return emitter;
+	}
+
+	/**
+	 * Shutdown this operator. The emitters submit the queued notification
+	 * tuples and stop, and the operator waits for them with a bounded wait.
+	 * @throws Exception Operator failure, will cause the enclosing PE to terminate.
+	 */
+	@Override
+	public synchronized void shutdown() throws Exception {
+		for (TupleEmitter emitter : _tupleEmitters) {
+			emitter.close();
+		}
+		super.shutdown();
+	}
+
 	/**
 	 * Detects whether the filterDocument in the application configuration
 	 * changed if the applicationConfigurationName parameter is specified. 
@@ -167,10 +293,27 @@ public abstract class AbstractJmxSource extends AbstractJmxOperator {
 				}
 			}
 			if (isChanged) {
-				_instanceHandler.close();
-				_instanceHandler = null;
 				setupFilters();
-				scanInstance();
+				/*
+				 * Create or close only the handlers whose filter match result
+				 * changed, and keep the state of the others. If there is no
+				 * instance handler, the JMX connection is being
+				 * re-established and the new filters are used then.
+				 */
+				InstanceHandler instanceHandler = _instanceHandler;
+				if (instanceHandler != null) {
+					try {
+						instanceHandler.applyFilters();
+						for (InstanceHandler handler : _discoveredInstanceHandlers.values()) {
+							handler.applyFilters();
+						}
+					}
+					catch (Exception e) {
+						// Apply the filter document again with the next check.
+						activeFilterDocumentFromApplicationConfiguration = null;
+						throw e;
+					}
+				}
 			}
 		}
 	}
@@ -179,6 +322,123 @@ public abstract class AbstractJmxSource extends AbstractJmxOperator {
 		_instanceHandler = new InstanceHandler(_operatorConfiguration, _operatorConfiguration.get_instanceId());
 	}
 
+	/**
+	 * If the discoverInstances parameter is set, query the instances of the
+	 * domain, create handlers for new instances that match the filters, and
+	 * close the handlers of instances that were removed or do not match the
+	 * filters anymore. An instance that cannot be accessed is tried again
+	 * with the next discovery.
+	 * 
+	 * @throws Exception
+	 * Throws if the instances cannot be queried.
+	 */
+	protected void discoverInstances() throws Exception {
+		if (!_operatorConfiguration.get_discoverInstances()) {
+			return;
+		}
+		Set<ObjectName> objNames = _operatorConfiguration.get_mbeanServerConnection().queryNames(new ObjectName(INSTANCE_QUERY), null);
+		Set<String> instanceIds = new HashSet<>();
+		for (ObjectName objName : objNames) {
+			String instanceId = objName.getKeyProperty("name");
+			if (instanceId == null) {
+				continue;
+			}
+			if (instanceId.startsWith("\"")) {
+				instanceId = ObjectName.unquote(instanceId);
+			}
+			if (instanceId.equals(_operatorConfiguration.get_instanceId()) || !_operatorConfiguration.get_filters().matchesInstanceId(instanceId)) {
+				continue;
+			}
+			instanceIds.add(instanceId);
+			if (!_discoveredInstanceHandlers.containsKey(instanceId)) {
+				try {
+					_discoveredInstanceHandlers.put(instanceId, new InstanceHandler(_operatorConfiguration, instanceId));
+					_trace.info("The " + instanceId + " instance is discovered and is therefore, monitored.");
+				}
+				catch (Exception e) {
+					_trace.warn("The discovered " + instanceId + " instance cannot be monitored: " + e);
+				}
+			}
+		}
+		for (String instanceId : _discoveredInstanceHandlers.keySet()) {
+			if (!instanceIds.contains(instanceId)) {
+				_trace.info("The " + instanceId + " instance is removed or does not meet the filter criteria and is therefore, not monitored anymore.");
+				closeQuietly(_discoveredInstanceHandlers.remove(instanceId));
+			}
+		}
+	}
+
+	/**
+	 * Check the connection of each discovered instance. The configured
+	 * instance is checked by the caller, so that a broken JMX connection is
+	 * detected before the discovered instances are checked.
+	 */
+	protected void healthCheckDiscoveredInstances() {
+		for (Map.Entry<String, InstanceHandler> entry : _discoveredInstanceHandlers.entrySet()) {
+			try {
+				entry.getValue().healthCheck();
+			}
+			catch (Exception e) {
+				discoveredInstanceFailed(entry.getKey(), entry.getValue(), e);
+			}
+		}
+	}
+
+	/**
+	 * Close the handler of a discovered instance that failed, while the
+	 * configured instance is accessible. The instance is discovered again
+	 * with the next discovery, and the other instances are not affected.
+	 */
+	protected void discoveredInstanceFailed(String instanceId, InstanceHandler handler, Exception e) {
+		_trace.warn("The discovered " + instanceId + " instance failed and is discovered again: " + e);
+		if (_discoveredInstanceHandlers.remove(instanceId, handler)) {
+			closeQuietly(handler);
+		}
+	}
+
+	private static void closeQuietly(InstanceHandler handler) {
+		try {
+			handler.close();
+		}
+		catch (Exception ignore) {
+		}
+	}
+
+	/**
+	 * Bind the existing handler tree to the re-established JMX connection,
+	 * so that the metric evaluators keep their state. If there is no handler
+	 * tree, or rebinding fails, a new handler tree is created.
+	 */
+	protected void rebindInstance() {
+		if (_instanceHandler != null) {
+			try {
+				_instanceHandler.rebind();
+			}
+			catch (Exception e) {
+				_trace.warn("Cannot rebind the handlers to the new JMX connection, scan the instance again", e);
+				try {
+					_instanceHandler.close();
+				}
+				catch (Exception ignore) {
+				}
+				_instanceHandler = null;
+			}
+		}
+		for (String instanceId : _discoveredInstanceHandlers.keySet()) {
+			try {
+				_discoveredInstanceHandlers.get(instanceId).rebind();
+			}
+			catch (Exception e) {
+				// Discovered again with the next scan.
+				_trace.warn("Cannot rebind the handlers of the " + instanceId + " instance to the new JMX connection: " + e);
+				closeQuietly(_discoveredInstanceHandlers.remove(instanceId));
+			}
+		}
+		if (_instanceHandler == null) {
+			scanInstance();
+		}
+	}
+
 	/**
 	 * Converts the path to absolute path.
 	 */
@@ -252,11 +512,70 @@ public abstract class AbstractJmxSource extends AbstractJmxOperator {
 		catch (Exception ignore) {
 		}
 		_instanceHandler = null;
+		for (String instanceId : _discoveredInstanceHandlers.keySet()) {
+			closeQuietly(_discoveredInstanceHandlers.remove(instanceId));
+		}
+		connectionLost();
+	}
+
+	/**
+	 * Update the metrics to indicate that the JMX connection is broken. The
+	 * handler tree is kept, so that it can be bound to the new connection.
+	 */
+	@Override
+	protected void connectionLost() {
 		if (1 == get_isConnected().getValue()) {
 			// update metric to indicate connection is broken
 			get_nBrokenJMXConnections().increment();
 			// update metric to indicate that we are not connected
 			get_isConnected().setValue(0);
+			jmxConnectionBroken();
+		}
+	}
+
+	/**
+	 * Determine whether the preferred JMX server recovered while the operator
+	 * is connected to another server.
+	 */
+	protected boolean isJMXSwitchBackPending() {
+		JmxConnectionManager manager = _operatorConfiguration.get_jmxConnectionManager();
+		return (manager != null) && manager.isSwitchBackPending();
+	}
+
+	/**
+	 * Connect to the recovered preferred JMX server, bind the handlers to the
+	 * new connection, and close the previous connection and the further
+	 * connectors of the previous pool afterwards. If the new connection
+	 * cannot be established, the previous one is kept.
+	 */
+	protected void switchJMXEndpoint() {
+		JmxConnectionPool previousPool = _operatorConfiguration.get_jmxConnectionPool();
+		JMXConnector previous = null;
+		try {
+			previous = switchToPreferredJMXEndpoint();
+		}
+		catch (IOException e) {
+			_trace.warn("Cannot switch to the preferred JMX server, keep the current connection: " + e.getMessage());
+			return;
+		}
+		rebindInstance();
+		if (previous != null) {
+			try {
+				if (_instanceHandler != null) {
+					// A deliberate close is not reported as connection notification.
+					previous.removeConnectionNotificationListener(_instanceHandler);
+				}
+			}
+			catch (Exception ignore) {
+			}
+			try {
+				previous.close();
+			}
+			catch (Exception ignore) {
+			}
+		}
+		if (previousPool != null) {
+			previousPool.closeSecondaryConnectors();
 		}
 	}
 	
@@ -7,15 +7,32 @@
 
 package com.ibm.streamsx.monitoring.jmx;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
 import javax.management.MBeanServerConnection;
 import javax.management.remote.JMXConnector;
 
 import com.ibm.streamsx.monitoring.jmx.internal.ConnectionNotificationTupleContainer;
 import com.ibm.streamsx.monitoring.jmx.internal.DeltaMetricEvaluator;
 import com.ibm.streamsx.monitoring.jmx.internal.EmitMetricTupleMode;
+import com.ibm.streamsx.monitoring.jmx.internal.HeartbeatMetricEvaluator;
 import com.ibm.streamsx.monitoring.jmx.internal.IMetricEvaluator;
+import com.ibm.streamsx.monitoring.jmx.internal.JmxCallEngine;
+import com.ibm.streamsx.monitoring.jmx.internal.JmxConnectionManager;
+import com.ibm.streamsx.monitoring.jmx.internal.JmxConnectionPool;
+import com.ibm.streamsx.monitoring.jmx.internal.JmxDataRetriever;
+import com.ibm.streamsx.monitoring.jmx.internal.JobSharding;
+import com.ibm.streamsx.monitoring.jmx.internal.MetricStateStore;
 import com.ibm.streamsx.monitoring.jmx.internal.PeriodicMetricEvaluator;
+import com.ibm.streamsx.monitoring.jmx.internal.RelativeDeltaMetricEvaluator;
+import com.ibm.streamsx.monitoring.jmx.internal.NotificationOverflowPolicy;
+import com.ibm.streamsx.monitoring.jmx.internal.PeStatusCoalescer;
+import com.ibm.streamsx.monitoring.jmx.internal.ScanOverrunPolicy;
+import com.ibm.streamsx.monitoring.jmx.internal.ScanStatistics;
 import com.ibm.streamsx.monitoring.jmx.internal.filters.Filters;
+import com.ibm.streamsx.monitoring.jmx.internal.filters.MetricEmission;
 import com.ibm.streamsx.monitoring.jmx.internal.MetricsTupleContainer;
 import com.ibm.streamsx.monitoring.jmx.internal.JobStatusTupleContainer;
 import com.ibm.streamsx.monitoring.jmx.internal.LogTupleContainer;
@@ -70,12 +87,166 @@ public class OperatorConfiguration {
 	 */
 	private Double _scanPeriod = Double.valueOf(5.0);
 	
+	/**
+	 * Specifies how to continue if a scan does not complete before the next
+	 * scan is due. The default is to skip the missed scans.
+	 */
+	private ScanOverrunPolicy _scanOverrunPolicy = ScanOverrunPolicy.skipTick;
+
+	/**
+	 * The maximum number of notification tuples that are queued per output
+	 * port until they are submitted.
+	 */
+	private Integer _notificationQueueSize = Integer.valueOf(10000);
+
+	/**
+	 * Specifies how to continue if the notification queue is full. The
+	 * default is to wait, so no notification is lost.
+	 */
+	private NotificationOverflowPolicy _notificationOverflowPolicy = NotificationOverflowPolicy.block;
+
+	/**
+	 * Specifies the window in seconds within which the PE status
+	 * notifications of a PE are coalesced. The default is 0.0, which emits
+	 * each notification.
+	 */
+	private Double _coalescingWindow = Double.valueOf(0.0);
+
+	/**
+	 * Coalesces the PE status notifications, or null if each notification is
+	 * emitted.
+	 */
+	private PeStatusCoalescer _peStatusCoalescer = null;
+
+	/**
+	 * Specifies whether the scan period is adapted to the scan duration and
+	 * to the rate of changed metrics.
+	 */
+	private Boolean _adaptiveScanPeriod = Boolean.FALSE;
+
+	/**
+	 * Specifies the lower bound of the adaptive scan period in seconds. The
+	 * default is the scan period.
+	 */
+	private Double _minScanPeriod = null;
+
+	/**
+	 * Specifies the upper bound of the adaptive scan period in seconds. The
+	 * default is 12 times the scan period.
+	 */
+	private Double _maxScanPeriod = null;
+
+	/**
+	 * The wall-clock time of the current scan cycle in milliseconds.
+	 */
+	private long _scanTime = 0;
+
+	/**
+	 * Counts the evaluated and changed metrics of the current scan cycle.
+	 */
+	private ScanStatistics _scanStatistics = new ScanStatistics();
+
 	/**
 	 * Specifies the period after which a filter document update check is initiated. The
 	 * default is 5.0 seconds.
 	 */	
 	private Double _checkPeriod = Double.valueOf(5.0);
 
+	/**
+	 * Specifies the number of threads that scan jobs concurrently. The
+	 * default is 1, which scans the jobs one after the other.
+	 */
+	private Integer _scanThreads = Integer.valueOf(1);
+
+	/**
+	 * The executor that scans jobs concurrently, or null if the jobs are
+	 * scanned sequentially.
+	 */
+	private ExecutorService _scanExecutor = null;
+
+	/**
+	 * Specifies whether the metrics of a job are retrieved with one request
+	 * per job instead of one request per operator, PE, port, and connection.
+	 */
+	private Boolean _batchedMetricsRetrieval = Boolean.FALSE;
+
+	/**
+	 * Specifies the timeout of a JMX call in seconds. The default is 0.0,
+	 * which disables the JMX call engine, and calls are executed
+	 * synchronously without timeout.
+	 */
+	private Double _jmxCallTimeout = Double.valueOf(0.0);
+
+	/**
+	 * Specifies the number of JMX calls that are in flight at the same time
+	 * if the JMX call engine is enabled. The default is 4.
+	 */
+	private Integer _maxPendingJmxCalls = Integer.valueOf(4);
+
+	/**
+	 * The engine that executes JMX calls asynchronously with timeout, or
+	 * null if the calls are executed synchronously.
+	 */
+	private JmxCallEngine _jmxCallEngine = null;
+
+	/**
+	 * Downloads the metrics snapshots of the jobs with the credentials of the
+	 * JMX connection, or null if the metrics are retrieved per MXBean.
+	 */
+	private JmxDataRetriever _jmxDataRetriever = null;
+
+	/**
+	 * Specifies the time in seconds after which a failed JMX endpoint is
+	 * tried again. The time doubles with every consecutive failure.
+	 */
+	private Double _jmxConnectionBackoff = Double.valueOf(1.0);
+
+	/**
+	 * Specifies the maximum time in seconds after which a failed JMX
+	 * endpoint is tried again.
+	 */
+	private Double _jmxConnectionMaxBackoff = Double.valueOf(60.0);
+
+	/**
+	 * Specifies the period in seconds in which the preferred JMX endpoint is
+	 * probed while the operator is connected to another endpoint. The value
+	 * 0.0 disables switching back.
+	 */
+	private Double _jmxConnectionProbePeriod = Double.valueOf(30.0);
+
+	/**
+	 * Selects the JMX endpoint and tracks the health of the endpoints.
+	 */
+	private JmxConnectionManager _jmxConnectionManager = null;
+
+	/**
+	 * Specifies the number of JMX connections. The default is 1.
+	 */
+	private Integer _jmxConnectionPoolSize = Integer.valueOf(1);
+
+	/**
+	 * The connections to the JMX server that the jobs are assigned to.
+	 */
+	private JmxConnectionPool _jmxConnectionPool = null;
+
+	/**
+	 * Specifies whether all instances of the domain that match the filters
+	 * are monitored, in addition to the configured instance.
+	 */
+	private Boolean _discoverInstances = Boolean.FALSE;
+
+	/**
+	 * Specifies whether the jobs are distributed over the channels of the
+	 * parallel region that the operator is part of.
+	 */
+	private Boolean _jobSharding = Boolean.FALSE;
+
+	/**
+	 * The assignment of jobs to the channel of this operator, or null if all
+	 * jobs are monitored.
+	 */
+	private JobSharding _jobAssignment = null;
+
 	private JMXConnector _jmxConnector = null;
 	
 	private MBeanServerConnection _mbeanServerConnection = null;
@@ -93,6 +264,47 @@ public class OperatorConfiguration {
 	private ConnectionNotificationTupleContainer _tupleContainerConnectionNotification = null;
 
 	private EmitMetricTupleMode _emitMetricTuple = EmitMetricTupleMode.onChangedValue;
+
+	/**
+	 * The absolute change that causes a tuple in deadband mode, if the filter
+	 * document does not specify the deadband. The default is 1.
+	 */
+	private Double _metricDeadband = Double.valueOf(1.0);
+
+	/**
+	 * The change in percent of the last emitted value that causes a tuple in
+	 * relativeDeadband mode, if the filter document does not specify the
+	 * relative deadband. The default is 1.0 percent.
+	 */
+	private Double _metricRelativeDeadband = Double.valueOf(1.0);
+
+	/**
+	 * The period in seconds after which a tuple is emitted even if the value
+	 * did not change. The default is 0.0, which disables the heartbeat.
+	 */
+	private Double _metricHeartbeatPeriod = Double.valueOf(0.0);
+
+	/**
+	 * The evaluators of the emission settings that are in use. The evaluators
+	 * are stateless, so all metrics with the same settings share one.
+	 */
+	private Map<MetricEmission, IMetricEvaluator> _metricEvaluators = new ConcurrentHashMap<>();
+
+	/**
+	 * Specifies whether the metric state store keeps its columns outside of
+	 * the heap.
+	 */
+	private Boolean _metricStateOffHeap = Boolean.FALSE;
+
+	/**
+	 * Specifies whether per-second rates are derived for counter metrics.
+	 */
+	private Boolean _deriveCounterRates = Boolean.FALSE;
+
+	/**
+	 * The change detection state of all monitored metric series.
+	 */
+	private volatile MetricStateStore _metricStateStore = null;
 	
 	private OpType _opType = OpType.METRICS_SOURCE;
 
@@ -195,6 +407,210 @@ public class OperatorConfiguration {
 		this._scanPeriod = scanPeriod;
 	}
 
+	public ScanOverrunPolicy get_scanOverrunPolicy() {
+		return _scanOverrunPolicy;
+	}
+
+	public void set_scanOverrunPolicy(ScanOverrunPolicy scanOverrunPolicy) {
+		this._scanOverrunPolicy = scanOverrunPolicy;
+	}
+
+	public Integer get_notificationQueueSize() {
+		return _notificationQueueSize;
+	}
+
+	public void set_notificationQueueSize(Integer notificationQueueSize) {
+		this._notificationQueueSize = notificationQueueSize;
+	}
+
+	public NotificationOverflowPolicy get_notificationOverflowPolicy() {
+		return _notificationOverflowPolicy;
+	}
+
+	public void set_notificationOverflowPolicy(NotificationOverflowPolicy notificationOverflowPolicy) {
+		this._notificationOverflowPolicy = notificationOverflowPolicy;
+	}
+
+	public Double get_coalescingWindow() {
+		return _coalescingWindow;
+	}
+
+	public void set_coalescingWindow(Double coalescingWindow) {
+		this._coalescingWindow = coalescingWindow;
+	}
+
+	public PeStatusCoalescer get_peStatusCoalescer() {
+		return _peStatusCoalescer;
+	}
+
+	public void set_peStatusCoalescer(PeStatusCoalescer peStatusCoalescer) {
+		this._peStatusCoalescer = peStatusCoalescer;
+	}
+
+	public Boolean get_adaptiveScanPeriod() {
+		return _adaptiveScanPeriod;
+	}
+
+	public void set_adaptiveScanPeriod(Boolean adaptiveScanPeriod) {
+		this._adaptiveScanPeriod = adaptiveScanPeriod;
+	}
+
+	public Double get_minScanPeriod() {
+		return (_minScanPeriod != null) ? _minScanPeriod : _scanPeriod;
+	}
+
+	public void set_minScanPeriod(Double minScanPeriod) {
+		this._minScanPeriod = minScanPeriod;
+	}
+
+	public Double get_maxScanPeriod() {
+		return (_maxScanPeriod != null) ? _maxScanPeriod : Double.valueOf(_scanPeriod * 12.0);
+	}
+
+	public void set_maxScanPeriod(Double maxScanPeriod) {
+		this._maxScanPeriod = maxScanPeriod;
+	}
+
+	public long get_scanTime() {
+		return _scanTime;
+	}
+
+	public void set_scanTime(long scanTime) {
+		this._scanTime = scanTime;
+	}
+
+	public ScanStatistics get_scanStatistics() {
+		return _scanStatistics;
+	}
+
+	public Integer get_scanThreads() {
+		return _scanThreads;
+	}
+
+	public void set_scanThreads(Integer scanThreads) {
+		this._scanThreads = scanThreads;
+	}
+
+	public ExecutorService get_scanExecutor() {
+		return _scanExecutor;
+	}
+
+	public void set_scanExecutor(ExecutorService scanExecutor) {
+		this._scanExecutor = scanExecutor;
+	}
+
+	public Boolean get_batchedMetricsRetrieval() {
+		return _batchedMetricsRetrieval;
+	}
+
+	public void set_batchedMetricsRetrieval(Boolean batchedMetricsRetrieval) {
+		this._batchedMetricsRetrieval = batchedMetricsRetrieval;
+	}
+
+	public Double get_jmxCallTimeout() {
+		return _jmxCallTimeout;
+	}
+
+	public void set_jmxCallTimeout(Double jmxCallTimeout) {
+		this._jmxCallTimeout = jmxCallTimeout;
+	}
+
+	public Integer get_maxPendingJmxCalls() {
+		return _maxPendingJmxCalls;
+	}
+
+	public void set_maxPendingJmxCalls(Integer maxPendingJmxCalls) {
+		this._maxPendingJmxCalls = maxPendingJmxCalls;
+	}
+
+	public JmxCallEngine get_jmxCallEngine() {
+		return _jmxCallEngine;
+	}
+
+	public void set_jmxCallEngine(JmxCallEngine jmxCallEngine) {
+		this._jmxCallEngine = jmxCallEngine;
+	}
+
+	public JmxDataRetriever get_jmxDataRetriever() {
+		return _jmxDataRetriever;
+	}
+
+	public void set_jmxDataRetriever(JmxDataRetriever jmxDataRetriever) {
+		this._jmxDataRetriever = jmxDataRetriever;
+	}
+
+	public Double get_jmxConnectionBackoff() {
+		return _jmxConnectionBackoff;
+	}
+
+	public void set_jmxConnectionBackoff(Double jmxConnectionBackoff) {
+		this._jmxConnectionBackoff = jmxConnectionBackoff;
+	}
+
+	public Double get_jmxConnectionMaxBackoff() {
+		return _jmxConnectionMaxBackoff;
+	}
+
+	public void set_jmxConnectionMaxBackoff(Double jmxConnectionMaxBackoff) {
+		this._jmxConnectionMaxBackoff = jmxConnectionMaxBackoff;
+	}
+
+	public Double get_jmxConnectionProbePeriod() {
+		return _jmxConnectionProbePeriod;
+	}
+
+	public void set_jmxConnectionProbePeriod(Double jmxConnectionProbePeriod) {
+		this._jmxConnectionProbePeriod = jmxConnectionProbePeriod;
+	}
+
+	public JmxConnectionManager get_jmxConnectionManager() {
+		return _jmxConnectionManager;
+	}
+
+	public void set_jmxConnectionManager(JmxConnectionManager jmxConnectionManager) {
+		this._jmxConnectionManager = jmxConnectionManager;
+	}
+
+	public Integer get_jmxConnectionPoolSize() {
+		return _jmxConnectionPoolSize;
+	}
+
+	public void set_jmxConnectionPoolSize(Integer jmxConnectionPoolSize) {
+		this._jmxConnectionPoolSize = jmxConnectionPoolSize;
+	}
+
+	public Boolean get_discoverInstances() {
+		return _discoverInstances;
+	}
+
+	public void set_discoverInstances(Boolean discoverInstances) {
+		this._discoverInstances = discoverInstances;
+	}
+
+	public Boolean get_jobSharding() {
+		return _jobSharding;
+	}
+
+	public void set_jobSharding(Boolean jobSharding) {
+		this._jobSharding = jobSharding;
+	}
+
+	public JobSharding get_jobAssignment() {
+		return _jobAssignment;
+	}
+
+	public void set_jobAssignment(JobSharding jobAssignment) {
+		this._jobAssignment = jobAssignment;
+	}
+
+	public JmxConnectionPool get_jmxConnectionPool() {
+		return _jmxConnectionPool;
+	}
+
+	public void set_jmxConnectionPool(JmxConnectionPool jmxConnectionPool) {
+		this._jmxConnectionPool = jmxConnectionPool;
+	}
+
 	public JMXConnector get_jmxConnector() {
 		return _jmxConnector;
 	}
@@ -207,6 +623,14 @@ public class OperatorConfiguration {
 		return _mbeanServerConnection;
 	}
 
+	/**
+	 * Get the pooled connection that the job is assigned to.
+	 */
+	public MBeanServerConnection get_mbeanServerConnection(String jobId) {
+		JmxConnectionPool pool = _jmxConnectionPool;
+		return (pool != null) ? pool.getConnection(jobId) : _mbeanServerConnection;
+	}
+
 	public void set_mbeanServerConnection(MBeanServerConnection mbeanServerConnection) {
 		this._mbeanServerConnection = mbeanServerConnection;
 	}
@@ -251,19 +675,112 @@ public class OperatorConfiguration {
 		return _tupleContainerConnectionNotification;
 	}
 	
+	public Boolean get_deriveCounterRates() {
+		return _deriveCounterRates;
+	}
+
+	public void set_deriveCounterRates(Boolean deriveCounterRates) {
+		this._deriveCounterRates = deriveCounterRates;
+	}
+
+	public Boolean get_metricStateOffHeap() {
+		return _metricStateOffHeap;
+	}
+
+	public void set_metricStateOffHeap(Boolean metricStateOffHeap) {
+		this._metricStateOffHeap = metricStateOffHeap;
+	}
+
+	/**
+	 * Get the metric state store, which is created with the first access.
+	 */
+	public MetricStateStore get_metricStateStore() {
+		MetricStateStore store = _metricStateStore;
+		if (store == null) {
+			synchronized (this) {
+				if (_metricStateStore == null) {
+					_metricStateStore = new MetricStateStore(_metricStateOffHeap, _deriveCounterRates);
+				}
+				store = _metricStateStore;
+			}
+		}
+		return store;
+	}
+
 	public void set_emitMetricTuple(EmitMetricTupleMode mode) {
 		_emitMetricTuple = mode;
 	}
 
-	public IMetricEvaluator newDefaultMetricEvaluator() {
-		switch(_emitMetricTuple) {
-		case onChangedValue:
-			return new DeltaMetricEvaluator();
+	public Double get_metricDeadband() {
+		return _metricDeadband;
+	}
+
+	public void set_metricDeadband(Double metricDeadband) {
+		this._metricDeadband = metricDeadband;
+	}
+
+	public Double get_metricRelativeDeadband() {
+		return _metricRelativeDeadband;
+	}
+
+	public void set_metricRelativeDeadband(Double metricRelativeDeadband) {
+		this._metricRelativeDeadband = metricRelativeDeadband;
+	}
+
+	public Double get_metricHeartbeatPeriod() {
+		return _metricHeartbeatPeriod;
+	}
+
+	public void set_metricHeartbeatPeriod(Double metricHeartbeatPeriod) {
+		this._metricHeartbeatPeriod = metricHeartbeatPeriod;
+	}
+
+	/**
+	 * Get the evaluator that decides whether a tuple is emitted for the
+	 * metrics with the given emission settings. The settings that are not
+	 * specified are taken from the operator parameters. The evaluators are
+	 * stateless, the status of the series is held by the metric state store.
+	 * 
+	 * @param emission
+	 * The emission settings from the filter document, or null if the
+	 * operator parameters apply.
+	 */
+	public IMetricEvaluator get_metricEvaluator(MetricEmission emission) {
+		MetricEmission defaults = new MetricEmission(_emitMetricTuple, _metricDeadband, _metricRelativeDeadband, _metricHeartbeatPeriod);
+		emission = (emission != null) ? emission.inherit(defaults) : defaults;
+		IMetricEvaluator evaluator = _metricEvaluators.get(emission);
+		if (evaluator == null) {
+			evaluator = newMetricEvaluator(emission);
+			IMetricEvaluator existing = _metricEvaluators.putIfAbsent(emission, evaluator);
+			if (existing != null) {
+				evaluator = existing;
+			}
+		}
+		return evaluator;
+	}
+
+	private static IMetricEvaluator newMetricEvaluator(MetricEmission emission) {
+		IMetricEvaluator evaluator;
+		switch(emission.getMode()) {
 		case periodic:
-			return PeriodicMetricEvaluator.getSingleton();
+			evaluator = PeriodicMetricEvaluator.getSingleton();
+			break;
+		case deadband:
+			evaluator = new DeltaMetricEvaluator(emission.getDeadband());
+			break;
+		case relativeDeadband:
+			evaluator = new RelativeDeltaMetricEvaluator(emission.getRelativeDeadband());
+			break;
+		case onChangedValue:
 		default:
-			return null;
+			evaluator = new DeltaMetricEvaluator();
+			break;
+		}
+		if (emission.getMode() != EmitMetricTupleMode.periodic && emission.getHeartbeatPeriod() > 0.0) {
+			// A positive period below one millisecond is rounded up to one millisecond.
+			evaluator = new HeartbeatMetricEvaluator(evaluator, Math.max(1L, Math.round(emission.getHeartbeatPeriod() * 1000.0)));
 		}
+		return evaluator;
 	}
 	
 	public void set_defaultFilterInstance(String instance) {
@@ -7,26 +7,25 @@
 
 package com.ibm.streamsx.monitoring.jmx.internal;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.concurrent.Callable;
 
 import javax.management.ObjectName;
 import javax.management.Notification;
 import com.ibm.streams.operator.Attribute;
-import com.ibm.streams.operator.OperatorContext;
 import com.ibm.streams.operator.OutputTuple;
 import com.ibm.streams.operator.StreamSchema;
 import com.ibm.streams.operator.StreamingData.Punctuation;
 import com.ibm.streams.operator.StreamingOutput;
 import com.ibm.streams.operator.Tuple;
 import com.ibm.streams.operator.Type;
-import com.ibm.streams.operator.types.RString;
 import com.ibm.streams.operator.types.Timestamp;
 
 public class ConnectionNotificationTupleContainer {
 
-	private final OperatorContext _context;	
+	/**
+	 * Queues the tuples and submits them to the output port.
+	 */
+	private final TupleEmitter _emitter;
+
 	/**
 	 * The output port.
 	 */
@@ -62,9 +61,10 @@ public class ConnectionNotificationTupleContainer {
 	 * Determine the indexes of output attributes and verify their types.
 	 * 
 	 * @param port
+	 * @param emitter
 	 */
-	public ConnectionNotificationTupleContainer(OperatorContext context, StreamingOutput<OutputTuple> port) {
-		_context = context;
+	public ConnectionNotificationTupleContainer(StreamingOutput<OutputTuple> port, TupleEmitter emitter) {
+		_emitter = emitter;
 		// Create a tuple once.
 		_port = port;
 		
@@ -98,32 +98,33 @@ public class ConnectionNotificationTupleContainer {
 	}
 	
 	/**
-	 * Convert the notification to a tuple, using {@link #getAttributes(Notification, Object)}.
+	 * Convert the notification to a tuple, using {@link #setAttributes}.
 	 * @param notification Notification object.
 	 * @return Tuple to be submitted.
 	 */
 	public Tuple getTuple(
 			final Notification notification) {
-		return _port.getStreamSchema().getTuple(getAttributes(notification));
+		final OutputTuple tuple = _port.newTuple();
+		setAttributes(tuple, notification);
+		return tuple;
 	}
 	
 	/**
-	 * Convert the notification to a {@code Map} of attributes keyed by attribute name.
+	 * Set the attributes of the notification in the tuple, using the
+	 * attribute indexes that are determined in the constructor.
+	 * @param tuple Tuple to be submitted.
 	 * @param notification Notification object.
-	 * @return Map containing attributes
 	 */
-	protected Map<String, Object> getAttributes(final Notification notification) {
-		
-		final Map<String, Object> attributes = new HashMap<String, Object>();
+	protected void setAttributes(final OutputTuple tuple, final Notification notification) {
 	
 		if (_eventTimestampAttributeIndex != -1) {
-			attributes.put("eventTimestamp", Timestamp.getTimestamp(notification.getTimeStamp()));
+			tuple.setTimestamp(_eventTimestampAttributeIndex, Timestamp.getTimestamp(notification.getTimeStamp()));
 		}
 		if (_notifyTypeAttributeIndex != -1) {
-			attributes.put("notifyType", new RString(notification.getType()));
+			tuple.setString(_notifyTypeAttributeIndex, notification.getType());
 		}		
 		if (_sequenceAttributeIndex != -1) {
-			attributes.put("sequence", notification.getSequenceNumber());
+			tuple.setLong(_sequenceAttributeIndex, notification.getSequenceNumber());
 		}
 		if (_sourceAttributeIndex != -1) {
 			Object source = notification.getSource();
@@ -134,15 +135,13 @@ public class ConnectionNotificationTupleContainer {
 			else {
 				ssource = source.toString();
 			}
-			attributes.put("source", new RString(ssource));
+			tuple.setString(_sourceAttributeIndex, ssource);
 		}
 		if (_messageAttributeIndex != -1) {
 			if (notification.getMessage() != null) {
-				attributes.put("message", new RString(notification.getMessage()));
+				tuple.setString(_messageAttributeIndex, notification.getMessage());
 			}
 		}
-		
-		return attributes;
 	}		
 	
 	
@@ -151,12 +150,7 @@ public class ConnectionNotificationTupleContainer {
 	* @param tuple Tuple to be submitted.
 	*/
 	public void submit(final Tuple tuple) {
-		_context.getScheduledExecutorService().submit(new Callable<Object>() {
-			@Override
-			public Object call() throws Exception {
-				return _port.submit(tuple);
-			}
-		});        
+		_emitter.emit(tuple, (_emitter.isCoalescing() && _notifyTypeAttributeIndex != -1) ? tuple.getString(_notifyTypeAttributeIndex) : null);
 	}	
 
 }
@@ -12,32 +12,36 @@ import com.ibm.streams.management.Metric;
 /**
  * This metric evaluator marks a metric as submittable if the delta between
  * the last and the current value equals or exceeds the specified allowed
- * delta.
+ * delta. The last value is kept in the {@link MetricStateStore}, so the
+ * evaluator can be shared by all metric series.
  */
 public class DeltaMetricEvaluator implements IMetricEvaluator {
 
-	private long _delta = 1;
-	
-	private Long _lastValue = null;
+	/**
+	 * The allowed delta, which may be a fraction. The delta of the long
+	 * values is compared against it, so a delta of 2.5 requires a change
+	 * of 3.
+	 */
+	private double _delta = 1.0;
 	
 	public DeltaMetricEvaluator() {
 	}
 
-	public DeltaMetricEvaluator(long delta) {
-		if (delta <= 0) {
+	public DeltaMetricEvaluator(double delta) {
+		if (!(delta > 0.0)) {
 			throw new IllegalArgumentException("DeltaMetricEvaluator(delta=" + delta + ")");
 		}
 		_delta = delta;
 	}
 	
 	@Override
-	public boolean isSubmittable(Metric metric) {
-		return (_lastValue == null) || (Math.abs(_lastValue - metric.getValueAsLong()) >= _delta);
+	public boolean isSubmittable(Metric metric, MetricStateStore state, int id, long time) {
+		return !state.hasValue(id) || (Math.abs(state.getLastValue(id) - metric.getValueAsLong()) >= _delta);
 	}
 
 	@Override
-	public void updateStatus(Metric metric) {
-		_lastValue = metric.getValueAsLong();
+	public void updateStatus(Metric metric, MetricStateStore state, int id, long time) {
+		state.update(id, metric.getValueAsLong(), time);
 	}
 
 }
@@ -10,4 +10,6 @@ package com.ibm.streamsx.monitoring.jmx.internal;
 public enum EmitMetricTupleMode {
 	periodic,
 	onChangedValue,
+	deadband,
+	relativeDeadband,
 };
@@ -0,0 +1,52 @@
+//
+// ****************************************************************************
+// * Copyright (C) 2016, International Business Machines Corporation          *
+// * All rights reserved.                                                     *
+// ****************************************************************************
+//
+
+package com.ibm.streamsx.monitoring.jmx.internal;
+
+import com.ibm.streams.management.Metric;
+
+/**
+ * This metric evaluator marks a metric as submittable if the wrapped
+ * evaluator does, or if no tuple was submitted for the metric within the
+ * heartbeat period. This way, consumers can distinguish a metric whose
+ * value did not change from a metric that is not monitored anymore.
+ */
+public class HeartbeatMetricEvaluator implements IMetricEvaluator {
+
+	private IMetricEvaluator _evaluator;
+
+	/**
+	 * The heartbeat period in milliseconds.
+	 */
+	private long _period;
+
+	/**
+	 * @param evaluator
+	 * The evaluator that decides whether a changed value is submitted.
+	 * 
+	 * @param period
+	 * The heartbeat period in milliseconds.
+	 */
+	public HeartbeatMetricEvaluator(IMetricEvaluator evaluator, long period) {
+		if (period <= 0) {
+			throw new IllegalArgumentException("HeartbeatMetricEvaluator(period=" + period + ")");
+		}
+		_evaluator = evaluator;
+		_period = period;
+	}
+
+	@Override
+	public boolean isSubmittable(Metric metric, MetricStateStore state, int id, long time) {
+		return _evaluator.isSubmittable(metric, state, id, time) || !state.hasValue(id) || (time - state.getLastTime(id) >= _period);
+	}
+
+	@Override
+	public void updateStatus(Metric metric, MetricStateStore state, int id, long time) {
+		_evaluator.updateStatus(metric, state, id, time);
+	}
+
+}
@@ -10,7 +10,10 @@ package com.ibm.streamsx.monitoring.jmx.internal;
 import com.ibm.streams.management.Metric;
 
 /**
- *
+ * Decides whether a tuple is emitted for a metric. The evaluators do not
+ * hold any status data themselves. The status of each metric series is
+ * kept in the {@link MetricStateStore}, so one evaluator object serves all
+ * series.
  */
 public interface IMetricEvaluator {
 
@@ -20,10 +23,19 @@ public interface IMetricEvaluator {
 	 * @param metric
 	 * Specifies the current metric.
 	 * 
+	 * @param state
+	 * The store that holds the status of the metric series.
+	 * 
+	 * @param id
+	 * The ID of the metric series in the store.
+	 * 
+	 * @param time
+	 * The time of the current scan cycle.
+	 * 
 	 * @return
 	 * True if a tuple shall be emitted.
 	 */
-	public boolean isSubmittable(Metric metric);
+	public boolean isSubmittable(Metric metric, MetricStateStore state, int id, long time);
 	
 	/**
 	 * Save or update any status data that is needed to get a decision for
@@ -32,7 +44,16 @@ public interface IMetricEvaluator {
 	 * 
 	 * @param metric
 	 * Specifies the current metric.
+	 * 
+	 * @param state
+	 * The store that holds the status of the metric series.
+	 * 
+	 * @param id
+	 * The ID of the metric series in the store.
+	 * 
+	 * @param time
+	 * The time of the current scan cycle.
 	 */
-	public void updateStatus(Metric metric);
+	public void updateStatus(Metric metric, MetricStateStore state, int id, long time);
 	
 }
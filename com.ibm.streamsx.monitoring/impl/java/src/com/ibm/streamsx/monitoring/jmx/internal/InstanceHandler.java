@@ -15,12 +15,15 @@ import org.apache.log4j.Logger;
 
 import java.io.IOException;
 import java.math.BigInteger;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-
-import com.ibm.json.java.JSON;
-import com.ibm.json.java.JSONArray;
-import com.ibm.json.java.JSONObject;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import javax.management.InstanceNotFoundException;
 import javax.management.JMX;
@@ -29,6 +32,7 @@ import com.ibm.streams.management.Notifications;
 import com.ibm.streams.management.ObjectNameBuilder;
 import com.ibm.streams.management.instance.InstanceMXBean;
 import com.ibm.streams.management.job.JobMXBean;
+import com.ibm.streams.operator.OutputTuple;
 import com.ibm.streams.operator.Tuple;
 import com.ibm.streamsx.monitoring.jmx.OperatorConfiguration;
 import com.ibm.streamsx.monitoring.jmx.OperatorConfiguration.OpType;
@@ -64,7 +68,17 @@ public class InstanceHandler implements NotificationListener, Closeable {
 	
 	private InstanceMXBean _instance = null;
 
-	private Map<String /* jobId */, JobHandler> _jobHandlers = new HashMap<>();
+	/**
+	 * The job handlers are added and removed by notifications while the jobs
+	 * are scanned, therefore, a concurrent map is used.
+	 */
+	private Map<String /* jobId */, JobHandler> _jobHandlers = new ConcurrentHashMap<>();
+
+	/**
+	 * The names of the jobs that do not match the filters. If the filters
+	 * change, these jobs are evaluated again without requesting their name.
+	 */
+	private Map<String /* jobId */, String /* jobName */> _unmonitoredJobs = new ConcurrentHashMap<>();
 
 	public InstanceHandler(OperatorConfiguration operatorConfiguration, String instanceId) {
 
@@ -79,6 +93,22 @@ public class InstanceHandler implements NotificationListener, Closeable {
 		_objName = ObjectNameBuilder.instance(_instanceId);
 		_instance = JMX.newMXBeanProxy(_operatorConfiguration.get_mbeanServerConnection(), _objName, InstanceMXBean.class, true);
 		
+		addNotificationListener();
+
+		/*
+		 * Register existing jobs.
+		 */
+		for(String jobId : _instance.getJobs()) {
+			addValidJob(jobId);
+		}
+		
+	}
+
+	/**
+	 * Register to get instance-related notifications on the current JMX
+	 * connection.
+	 */
+	private void addNotificationListener() {
 		/*
 		 * Register to get instance-related notifications.
 		 */
@@ -99,25 +129,18 @@ public class InstanceHandler implements NotificationListener, Closeable {
 			e.printStackTrace();
 		}
 
-		if (null != _operatorConfiguration.get_tupleContainerConnectionNotification()) {
+		// Connection notifications are reported once, by the configured instance.
+		if (null != _operatorConfiguration.get_tupleContainerConnectionNotification() && _instanceId.equals(_operatorConfiguration.get_instanceId())) {
 			try {
 				if (_trace.isInfoEnabled()) {
 					_trace.info("JMXConnector.addConnectionNotificationListener()");
 				}
 				// listen for potential lost notifications
-				operatorConfiguration.get_jmxConnector().addConnectionNotificationListener(this, null, null);
+				_operatorConfiguration.get_jmxConnector().addConnectionNotificationListener(this, null, null);
 			} catch (Exception e) {
 				e.printStackTrace();
 			}
-		}		
-		
-		/*
-		 * Register existing jobs.
-		 */
-		for(String jobId : _instance.getJobs()) {
-			addValidJob(jobId);
 		}
-		
 	}
 
 	/**
@@ -179,13 +202,21 @@ public class InstanceHandler implements NotificationListener, Closeable {
 						_operatorConfiguration.get_tupleContainerJobStatusSource().submit(tuple);
 					}
 					
-					_jobHandlers.remove(jobId);
+					JobHandler handler = _jobHandlers.remove(jobId);
+					if (handler != null) {
+						// The MXBeans of the job are gone, so only the metric
+						// state of its handlers is released.
+						handler.releaseAll();
+					}
 					if (isInfoEnabled) {
 						_trace.info("received JOB_REMOVED notification for monitored job: jobId=" + jobId);
 					}
 				}
-				else if (isInfoEnabled) {
-					_trace.info("received JOB_REMOVED notification for job that is not monitored: jobId=" + jobId);
+				else {
+					_unmonitoredJobs.remove(jobId);
+					if (isInfoEnabled) {
+						_trace.info("received JOB_REMOVED notification for job that is not monitored: jobId=" + jobId);
+					}
 				}
 			}
 		}
@@ -194,59 +225,25 @@ public class InstanceHandler implements NotificationListener, Closeable {
 				(notification.getType().contains("com.ibm.streams.management.log.application"))) {
 				// emit tuple
 				try {
-					String instance = null;
-					String resource = null;
-					BigInteger pe = null;
-					BigInteger job = null;
-					String operator = null;
-					String text = null;
-					boolean messagesSkipped = false;
+					LogTupleContainer container = _operatorConfiguration.get_tupleContainerLogSource();
 					if (null != notification.getUserData()) {
-						if ((notification.getMessage() != null) && (notification.getMessage().length() > 0)) {
-							// javax.management.Notification[source=com.ibm.streams.management:type=domain,name="xxx"]
-							// [type=com.ibm.streams.management.log.application.error][message=xxx],
-							// userData={"instance":"xxx","resource":"xxx","pe":"1","domain":"xxx","job":"1","operator":"xxx"}
-							if (_trace.isDebugEnabled()) {
-								_trace.debug("parse userData");
-							}							
-							JSONObject obj = (JSONObject)JSON.parse(notification.getUserData().toString());
-							instance = obj.get("instance").toString();
-							resource = obj.get("resource").toString();
-							pe = new BigInteger(obj.get("pe").toString());
-							job = new BigInteger(obj.get("job").toString());
-							operator = obj.get("operator").toString();
+						// If the message of the notification is set, userData holds the message attributes:
+						// javax.management.Notification[source=com.ibm.streams.management:type=domain,name="xxx"]
+						// [type=com.ibm.streams.management.log.application.error][message=xxx],
+						// userData={"instance":"xxx","resource":"xxx","pe":"1","domain":"xxx","job":"1","operator":"xxx"}
+						// Else, the messages are part of userData:
+						// javax.management.Notification[source=com.ibm.streams.management:type=domain,name="xxx"]
+						// [type=com.ibm.streams.management.log.application.error][message=],
+						// userData={"messages":[{"instance":"xxx","resource":"xxx","pe":"xx","domain":"xxx","text":"xxx","job":"xx","operator":"xxx","timestamp":1515687171914}],"messagesSkipped":false}
+						if (_trace.isDebugEnabled()) {
+							_trace.debug("parse userData");
 						}
-						else {
-							// if message is not set then the message is part of userData
-							// javax.management.Notification[source=com.ibm.streams.management:type=domain,name="xxx"]
-							// [type=com.ibm.streams.management.log.application.error][message=],
-							// userData={"messages":[{"instance":"xxx","resource":"xxx","pe":"xx","domain":"xxx","text":"xxx","job":"xx","operator":"xxx","timestamp":1515687171914}],"messagesSkipped":false}
-							if (_trace.isDebugEnabled()) {
-								_trace.debug("parse userData for messages and messagesSkipped");
-							}							
-							JSONObject obj1 = (JSONObject)JSON.parse(notification.getUserData().toString());
-							messagesSkipped = (obj1.get("messagesSkipped").toString().equalsIgnoreCase("true")) ? true : false;
-							Object json = obj1.get("messages");
-							if (json instanceof JSONArray) {
-								for (Object obj : (JSONArray)json) {
-									if (obj instanceof JSONObject) {
-										JSONObject jsonobj = (JSONObject) obj;
-										instance = jsonobj.get("instance").toString();
-										resource = jsonobj.get("resource").toString();
-										pe = new BigInteger(jsonobj.get("pe").toString());
-										job = new BigInteger(jsonobj.get("job").toString());
-										operator = jsonobj.get("operator").toString();
-										text = jsonobj.get("text").toString();
-										final Tuple tuple = _operatorConfiguration.get_tupleContainerLogSource().getTuple(notification, instance, resource, pe, job, operator, text, messagesSkipped);
-										_operatorConfiguration.get_tupleContainerLogSource().submit(tuple);										
-									}
-								}
-							}							
+						for (OutputTuple tuple : LogUserDataParser.parse(notification, notification.getUserData().toString(), container)) {
+							container.submit(tuple);
 						}
 					}
-					if (text == null) {
-						final Tuple tuple = _operatorConfiguration.get_tupleContainerLogSource().getTuple(notification, instance, resource, pe, job, operator, text, messagesSkipped);
-						_operatorConfiguration.get_tupleContainerLogSource().submit(tuple);
+					else {
+						container.submit(container.newTuple(notification));
 					}
 				}
 				catch (Exception e) {
@@ -274,6 +271,16 @@ public class InstanceHandler implements NotificationListener, Closeable {
 		if (isDebugEnabled) {
 			_trace.debug("--> addValidJob(" + jobId + ")");
 		}
+		JobSharding jobAssignment = _operatorConfiguration.get_jobAssignment();
+		if (jobAssignment != null && !jobAssignment.isAssigned(jobId)) {
+			if (_trace.isInfoEnabled()) {
+				_trace.info("The following job is assigned to channel " + jobAssignment.getChannel(jobId) + " and is therefore, not monitored by " + jobAssignment + ": instance=" + _instanceId + ", jobId=" + jobId);
+			}
+			if (isDebugEnabled) {
+				_trace.debug("<-- addValidJob(" + jobId + ")");
+			}
+			return null;
+		}
 		// Registering the job must be done before attempting to access any of
 		// the job-related beans. 
 		_instance.registerJobById(jobId);
@@ -291,26 +298,174 @@ public class InstanceHandler implements NotificationListener, Closeable {
 			}
 		}
 		if (matches) {
-			_jobHandlers.put(jobId, new JobHandler(_operatorConfiguration, _instanceId, jobId));
+			JobHandler handler = new JobHandler(_operatorConfiguration, _instanceId, jobId);
+			if (_jobHandlers.putIfAbsent(jobId, handler) != null) {
+				// The job was added concurrently, for example by a
+				// notification while the filters are applied.
+				try {
+					handler.close();
+				}
+				catch (Exception e) {
+					_trace.warn("The duplicate handler of the job " + jobId + " cannot be closed: " + e);
+				}
+			}
+			_unmonitoredJobs.remove(jobId);
+		}
+		else {
+			_unmonitoredJobs.put(jobId, jobName);
 		}
 		if (isDebugEnabled) {
 			_trace.debug("<-- addValidJob(" + jobId + ")");
 		}
 		return jobName;
 	}
+
+	/**
+	 * Apply changed filters to the handler tree. Only the handlers whose
+	 * filter match result changed are created or closed. The other handlers,
+	 * their MXBean proxies, notification listeners, and metric evaluators
+	 * are kept.
+	 * 
+	 * @throws Exception
+	 * Throws if a job, operator, PE, or port cannot be accessed.
+	 */
+	public synchronized void applyFilters() throws Exception {
+		boolean isDebugEnabled = _trace.isDebugEnabled();
+		if (isDebugEnabled) {
+			_trace.debug("--> applyFilters(instance=" + _instanceId + ")");
+		}
+		for(String jobId : _jobHandlers.keySet()) {
+			JobHandler handler = _jobHandlers.get(jobId);
+			if (handler == null) {
+				continue;
+			}
+			if (_operatorConfiguration.get_filters().matchesJobName(_instanceId, handler.getJobName())) {
+				handler.applyFilters();
+			}
+			else {
+				if (_trace.isInfoEnabled()) {
+					_trace.info("The following job does not meet the changed filter criteria and is therefore, not monitored anymore: instance=" + _instanceId + ", job=" + handler.getJobName() + ", jobId=" + jobId);
+				}
+				_jobHandlers.remove(jobId);
+				_unmonitoredJobs.put(jobId, handler.getJobName());
+				handler.close();
+			}
+		}
+		for(String jobId : _unmonitoredJobs.keySet()) {
+			String jobName = _unmonitoredJobs.get(jobId);
+			if (jobName != null && _operatorConfiguration.get_filters().matchesJobName(_instanceId, jobName)) {
+				addValidJob(jobId);
+			}
+		}
+		if (isDebugEnabled) {
+			_trace.debug("<-- applyFilters(instance=" + _instanceId + ")");
+		}
+	}
 	
 	/**
-	 * Iterate all jobs to capture the job metrics.
+	 * Bind the handler tree to the re-established JMX connection. The MXBean
+	 * proxies and notification listeners are created again, while the
+	 * handlers and their metric evaluators are kept. Jobs are identified by
+	 * their job ID: Handlers of jobs that were cancelled while the connection
+	 * was down are dropped and release their metric state, and jobs that were submitted in the meantime are
+	 * added.
+	 * 
+	 * @throws Exception
+	 * Throws if the instance, a job, operator, PE, or port cannot be accessed.
+	 */
+	public synchronized void rebind() throws Exception {
+		boolean isDebugEnabled = _trace.isDebugEnabled();
+		if (isDebugEnabled) {
+			_trace.debug("--> rebind(instance=" + _instanceId + ")");
+		}
+		_instance = JMX.newMXBeanProxy(_operatorConfiguration.get_mbeanServerConnection(), _objName, InstanceMXBean.class, true);
+		addNotificationListener();
+		Set<String> jobIds = _instance.getJobs();
+		for(String jobId : _jobHandlers.keySet()) {
+			JobHandler handler = _jobHandlers.get(jobId);
+			if (handler == null) {
+				continue;
+			}
+			if (jobIds.contains(jobId)) {
+				// Registering the job must be done before accessing its beans.
+				_instance.registerJobById(jobId);
+				handler.rebind();
+			}
+			else {
+				// The listeners were registered on the broken connection, so
+				// only the metric state of the job's handlers is released.
+				if (_trace.isInfoEnabled()) {
+					_trace.info("The following job does not exist anymore after reconnecting: instance=" + _instanceId + ", job=" + handler.getJobName() + ", jobId=" + jobId);
+				}
+				if (_jobHandlers.remove(jobId, handler)) {
+					handler.releaseAll();
+				}
+			}
+		}
+		for(String jobId : _unmonitoredJobs.keySet()) {
+			if (!jobIds.contains(jobId)) {
+				_unmonitoredJobs.remove(jobId);
+			}
+		}
+		for(String jobId : jobIds) {
+			if (!_jobHandlers.containsKey(jobId) && !_unmonitoredJobs.containsKey(jobId)) {
+				addValidJob(jobId);
+			}
+		}
+		if (isDebugEnabled) {
+			_trace.debug("<-- rebind(instance=" + _instanceId + ")");
+		}
+	}
+
+	/**
+	 * Iterate all jobs to capture the job metrics. If a scan executor is
+	 * configured, the jobs are captured concurrently by its worker threads,
+	 * and this method returns after all jobs are captured.
+	 * <p>
+	 * Capturing and applying changed filters exclude each other.
+	 * </p>
 	 * @throws Exception 
 	 */
-	public void captureMetrics() throws Exception {
+	public synchronized void captureMetrics() throws Exception {
 		boolean isDebugEnabled = _trace.isDebugEnabled();
 		if (isDebugEnabled) {
 			_trace.debug("--> captureMetrics(instance=" + _instanceId + ")");
 		}
-		_operatorConfiguration.get_tupleContainerMetricsSource().setInstanceId(_instanceId);
-		for(String jobId : _jobHandlers.keySet()) {
-			_jobHandlers.get(jobId).captureMetrics();
+		ExecutorService executor = _operatorConfiguration.get_scanExecutor();
+		if (executor == null) {
+			for(JobHandler handler : _jobHandlers.values()) {
+				handler.captureMetrics();
+			}
+		}
+		else {
+			List<Future<Void>> futures = new ArrayList<>(_jobHandlers.size());
+			for(final JobHandler handler : _jobHandlers.values()) {
+				futures.add(executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws Exception {
+						handler.captureMetrics();
+						return null;
+					}
+				}));
+			}
+			/*
+			 * Wait for all jobs, even if one of them fails, so that no worker
+			 * uses the handlers when the caller reacts on the exception.
+			 */
+			Exception error = null;
+			for(Future<Void> future : futures) {
+				try {
+					future.get();
+				}
+				catch (ExecutionException e) {
+					if (error == null) {
+						error = (e.getCause() instanceof Exception) ? (Exception)e.getCause() : e;
+					}
+				}
+			}
+			if (error != null) {
+				throw error;
+			}
 		}
 		if (isDebugEnabled) {
 			_trace.debug("<-- captureMetrics(instance=" + _instanceId + ")");
@@ -331,7 +486,15 @@ public class InstanceHandler implements NotificationListener, Closeable {
 		_jobHandlers.clear();
 	}
 
-	public void healthCheck() {
+	/**
+	 * Check the connection of the instance and the pooled connections of
+	 * its jobs.
+	 *
+	 * @throws IOException
+	 * Throws if a pooled connection is lost, so that the connection is set
+	 * up again.
+	 */
+	public void healthCheck() throws IOException {
 		if (_trace.isDebugEnabled()) {
 			_trace.debug("healthCheck");
 		}
@@ -339,6 +502,10 @@ public class InstanceHandler implements NotificationListener, Closeable {
 		if (_trace.isDebugEnabled()) {
 			_trace.debug("InstanceMXBean.Status="+status.toString());
 		}
+		JmxConnectionPool pool = _operatorConfiguration.get_jmxConnectionPool();
+		if (pool != null && pool.isConnectionLost()) {
+			throw new IOException("A pooled JMX connection of instance " + _instanceId + " is lost");
+		}
 	}
 	
 }
@@ -0,0 +1,181 @@
+//
+// ****************************************************************************
+// * Copyright (C) 2016, International Business Machines Corporation          *
+// * All rights reserved.                                                     *
+// ****************************************************************************
+//
+
+package com.ibm.streamsx.monitoring.jmx.internal;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Executes remote JMX calls asynchronously by a bounded set of threads, so
+ * several calls can be in flight at the same time. Each call has a deadline
+ * that starts when a thread begins to execute the call, so the calls that
+ * wait in the queue for a free thread do not time out because of the queue.
+ * If the result is not available before the deadline, the call is cancelled
+ * and a {@link TimeoutException} is thrown to the caller only. A reply that
+ * arrives after the deadline is discarded.
+ * <p>
+ * Cancelling a call interrupts its thread, but a thread that is blocked in
+ * the socket I/O of the JMX connector is not interruptible. Such a thread
+ * stays busy until the connection delivers the reply or fails, and the
+ * engine has one thread less in the meantime. Therefore, the time that a
+ * call may wait in the queue is bounded, too: a call must start before all
+ * calls that were ahead of it in the queue could have run into their
+ * timeouts. Otherwise, the threads are considered stuck, and the call times
+ * out without being executed.
+ * </p>
+ */
+public class JmxCallEngine {
+
+	/**
+	 * Logger for tracing.
+	 */
+	private static Logger _trace = Logger.getLogger(JmxCallEngine.class.getName());
+
+	/**
+	 * A submitted call and its deadline.
+	 */
+	public static class PendingCall<T> {
+
+		private Future<T> _future = null;
+
+		/**
+		 * Released when a thread begins to execute the call.
+		 */
+		private final CountDownLatch _started = new CountDownLatch(1);
+
+		/**
+		 * The time when a thread began to execute the call.
+		 */
+		private long _startTime = 0;
+
+		/**
+		 * The time until which a thread must begin to execute the call.
+		 */
+		private long _startDeadline = 0;
+
+		/**
+		 * Cancel the call if its result is not needed anymore.
+		 */
+		public void cancel() {
+			_future.cancel(true);
+		}
+	}
+
+	private ThreadPoolExecutor _executor = null;
+
+	private int _nThreads = 0;
+
+	/**
+	 * The timeout of a call in nanoseconds.
+	 */
+	private long _timeout = 0;
+
+	/**
+	 * Number of calls that did not complete before their deadline.
+	 */
+	private AtomicLong _nTimeouts = new AtomicLong();
+
+	/**
+	 * @param threadFactory
+	 * Creates the threads that execute the calls.
+	 *
+	 * @param maxPendingCalls
+	 * The number of calls that are executed concurrently. Further calls are
+	 * queued.
+	 *
+	 * @param timeout
+	 * The timeout of a call in seconds.
+	 */
+	public JmxCallEngine(ThreadFactory threadFactory, int maxPendingCalls, double timeout) {
+		_nThreads = maxPendingCalls;
+		_executor = new ThreadPoolExecutor(maxPendingCalls, maxPendingCalls, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), threadFactory);
+		_timeout = (long)(timeout * 1000000000.0);
+	}
+
+	/**
+	 * Submit a call without waiting for its result.
+	 */
+	public <T> PendingCall<T> submit(final Callable<T> call) {
+		final PendingCall<T> pendingCall = new PendingCall<T>();
+		long nAhead = _executor.getQueue().size() + _executor.getActiveCount();
+		pendingCall._startDeadline = System.nanoTime() + _timeout * (nAhead / _nThreads + 1);
+		pendingCall._future = _executor.submit(new Callable<T>() {
+			@Override
+			public T call() throws Exception {
+				pendingCall._startTime = System.nanoTime();
+				pendingCall._started.countDown();
+				return call.call();
+			}
+		});
+		return pendingCall;
+	}
+
+	/**
+	 * Wait for the result of a submitted call until its deadline expires.
+	 *
+	 * @throws TimeoutException
+	 * Throws if the deadline expired, or if the call did not start in time
+	 * because the threads are stuck. The call is cancelled.
+	 *
+	 * @throws Exception
+	 * Throws the exception that the call has thrown.
+	 */
+	public <T> T get(PendingCall<T> call) throws Exception {
+		try {
+			if (!call._started.await(Math.max(0, call._startDeadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+				throw new TimeoutException();
+			}
+			return call._future.get(Math.max(0, call._startTime + _timeout - System.nanoTime()), TimeUnit.NANOSECONDS);
+		}
+		catch (TimeoutException | CancellationException e) {
+			// Discard a late reply.
+			call._future.cancel(true);
+			_nTimeouts.incrementAndGet();
+			if (_trace.isDebugEnabled()) {
+				_trace.debug("JMX call timed out");
+			}
+			throw new TimeoutException("The JMX call did not complete within " + TimeUnit.NANOSECONDS.toMillis(_timeout) + " ms");
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof Exception) {
+				throw (Exception)e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Submit a call and wait for its result until its deadline expires.
+	 */
+	public <T> T call(Callable<T> call) throws Exception {
+		return get(submit(call));
+	}
+
+	/**
+	 * Get the number of calls that did not complete before their deadline.
+	 */
+	public long getTimeouts() {
+		return _nTimeouts.get();
+	}
+
+	public void shutdown() {
+		_executor.shutdownNow();
+	}
+
+}
@@ -0,0 +1,375 @@
+//
+// ****************************************************************************
+// * Copyright (C) 2016, International Business Machines Corporation          *
+// * All rights reserved.                                                     *
+// ****************************************************************************
+//
+
+package com.ibm.streamsx.monitoring.jmx.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Selects the JMX endpoint to connect to if the connection URL specifies
+ * several JMX servers. For each endpoint, a health score and the connect
+ * latency are tracked as exponentially weighted moving averages.
+ * <p>
+ * The endpoints are tried in the following order: The preferred endpoint,
+ * which is the last one in the connection URL, if it is healthy, then the
+ * other healthy endpoints, fastest first, and finally the unhealthy ones.
+ * After a failed attempt, an endpoint is not tried again before its backoff
+ * time expired. The backoff time doubles with every consecutive failure up
+ * to a maximum, and is jittered, so several operators do not retry at the
+ * same time.
+ * </p><p>
+ * If the operator is connected to another endpoint than the preferred one,
+ * it probes the preferred endpoint periodically, see
+ * {@link #getProbeCandidate}. As soon as the preferred endpoint recovered,
+ * {@link #isSwitchBackPending} requests to switch back.
+ * </p>
+ */
+public class JmxConnectionManager {
+
+	/**
+	 * Logger for tracing.
+	 */
+	private static Logger _trace = Logger.getLogger(JmxConnectionManager.class.getName());
+
+	/**
+	 * The weight of the latest result in the health score.
+	 */
+	private static final double HEALTH_WEIGHT = 0.5;
+
+	/**
+	 * The weight of the latest connect time in the latency estimate.
+	 */
+	private static final double LATENCY_WEIGHT = 0.3;
+
+	/**
+	 * An endpoint is healthy if its health score reaches this value.
+	 */
+	private static final double HEALTHY_SCORE = 0.6;
+
+	/**
+	 * A JMX server and its connection history.
+	 */
+	public static class Endpoint {
+
+		private String _url = null;
+
+		/**
+		 * The position of the URL in the connection URL list.
+		 */
+		private int _index = 0;
+
+		/**
+		 * The health score between 0.0 (all recent attempts failed) and 1.0
+		 * (all recent attempts succeeded).
+		 */
+		private double _healthScore = 1.0;
+
+		/**
+		 * The estimated connect time in milliseconds, or a negative value if
+		 * no connection was established yet.
+		 */
+		private double _latency = -1.0;
+
+		private int _nConsecutiveFailures = 0;
+
+		/**
+		 * The time in milliseconds before which the endpoint is not tried
+		 * again.
+		 */
+		private long _nextAttemptTime = 0;
+
+		private Endpoint(String url, int index) {
+			_url = url;
+			_index = index;
+		}
+
+		public String getUrl() {
+			return _url;
+		}
+
+		public int getIndex() {
+			return _index;
+		}
+
+		private boolean isHealthy() {
+			return _healthScore >= HEALTHY_SCORE;
+		}
+
+		@Override
+		public String toString() {
+			return _url + " (health=" + _healthScore + ", latency=" + _latency + " ms)";
+		}
+	}
+
+	/**
+	 * The endpoints in order of preference.
+	 */
+	private List<Endpoint> _endpoints = new ArrayList<>();
+
+	private String[] _urls = new String[0];
+
+	private Endpoint _activeEndpoint = null;
+
+	/**
+	 * Set if the preferred endpoint recovered while the operator is connected
+	 * to another endpoint.
+	 */
+	private volatile boolean _isSwitchBackPending = false;
+
+	/**
+	 * The backoff time in milliseconds after the first failure.
+	 */
+	private long _initialBackoff = 0;
+
+	/**
+	 * The maximum backoff time in milliseconds.
+	 */
+	private long _maxBackoff = 0;
+
+	private Random _random = new Random();
+
+	private AtomicLong _nFailovers = new AtomicLong();
+
+	/**
+	 * @param initialBackoff
+	 * The backoff time in seconds after the first failed attempt, or 0 to
+	 * retry failed endpoints immediately.
+	 *
+	 * @param maxBackoff
+	 * The maximum backoff time in seconds.
+	 */
+	public JmxConnectionManager(double initialBackoff, double maxBackoff) {
+		_initialBackoff = (long)(initialBackoff * 1000.0);
+		_maxBackoff = Math.max(_initialBackoff, (long)(maxBackoff * 1000.0));
+	}
+
+	/**
+	 * Set the JMX server URLs. The connection history of URLs that were set
+	 * before is kept.
+	 *
+	 * @param urls
+	 * The URLs of the JMX servers. The last one is the preferred one.
+	 */
+	public synchronized void setUrls(String[] urls) {
+		if (Arrays.equals(_urls, urls)) {
+			return;
+		}
+		List<Endpoint> endpoints = new ArrayList<>();
+		for (int i = urls.length - 1; i >= 0; i--) {
+			Endpoint endpoint = new Endpoint(urls[i], i);
+			for (Endpoint previous : _endpoints) {
+				if (previous._url.equals(urls[i])) {
+					endpoint = previous;
+					endpoint._index = i;
+					break;
+				}
+			}
+			endpoints.add(endpoint);
+		}
+		_urls = urls.clone();
+		_endpoints = endpoints;
+		if (!_endpoints.contains(_activeEndpoint)) {
+			_activeEndpoint = null;
+		}
+	}
+
+	/**
+	 * Get the endpoints to try now, in the order in which they are tried.
+	 * Endpoints whose backoff time did not expire are not contained.
+	 */
+	public synchronized List<Endpoint> getCandidates() {
+		long now = System.currentTimeMillis();
+		final Endpoint preferred = getPreferredEndpoint();
+		List<Endpoint> candidates = new ArrayList<>();
+		for (Endpoint endpoint : _endpoints) {
+			if (endpoint._nextAttemptTime <= now) {
+				candidates.add(endpoint);
+			}
+		}
+		// The sort is stable, so endpoints without latency keep their order.
+		Collections.sort(candidates, new Comparator<Endpoint>() {
+			@Override
+			public int compare(Endpoint e1, Endpoint e2) {
+				if (e1.isHealthy() != e2.isHealthy()) {
+					return e1.isHealthy() ? -1 : 1;
+				}
+				if (!e1.isHealthy()) {
+					return Double.compare(e2._healthScore, e1._healthScore);
+				}
+				if (e1 == preferred || e2 == preferred) {
+					return (e1 == preferred) ? -1 : 1;
+				}
+				return Double.compare(latencyOf(e1), latencyOf(e2));
+			}
+		});
+		return candidates;
+	}
+
+	private static double latencyOf(Endpoint endpoint) {
+		return (endpoint._latency < 0) ? Double.MAX_VALUE : endpoint._latency;
+	}
+
+	/**
+	 * Record a successful connection attempt.
+	 *
+	 * @param latency
+	 * The connect time in nanoseconds.
+	 *
+	 * @param isActive
+	 * True if the connection is used by the operator, false if it was a
+	 * probe only.
+	 */
+	public synchronized void connected(Endpoint endpoint, long latency, boolean isActive) {
+		double millis = TimeUnit.NANOSECONDS.toMicros(latency) / 1000.0;
+		endpoint._latency = (endpoint._latency < 0) ? millis : (1.0 - LATENCY_WEIGHT) * endpoint._latency + LATENCY_WEIGHT * millis;
+		endpoint._healthScore = (1.0 - HEALTH_WEIGHT) * endpoint._healthScore + HEALTH_WEIGHT;
+		endpoint._nConsecutiveFailures = 0;
+		endpoint._nextAttemptTime = 0;
+		if (isActive) {
+			if (_activeEndpoint != null && _activeEndpoint != endpoint) {
+				_nFailovers.incrementAndGet();
+				_trace.warn("JMX connection fails over from " + _activeEndpoint.getUrl() + " to " + endpoint.getUrl());
+			}
+			_activeEndpoint = endpoint;
+			_isSwitchBackPending = false;
+		}
+		if (_trace.isDebugEnabled()) {
+			_trace.debug("connected: " + endpoint);
+		}
+	}
+
+	/**
+	 * Record a failed connection attempt, or the loss of the connection, and
+	 * start the backoff time of the endpoint.
+	 */
+	public synchronized void failed(Endpoint endpoint) {
+		endpoint._healthScore = (1.0 - HEALTH_WEIGHT) * endpoint._healthScore;
+		endpoint._nConsecutiveFailures++;
+		// An initial backoff time of 0 disables the backoff. A negative value
+		// results from an overflow of the doubled backoff time.
+		long backoff = _initialBackoff << Math.min(endpoint._nConsecutiveFailures - 1, 30);
+		if (backoff < 0 || backoff > _maxBackoff) {
+			backoff = _maxBackoff;
+		}
+		// Wait between half and the full backoff time.
+		backoff = backoff / 2 + (long)(_random.nextDouble() * (backoff / 2));
+		endpoint._nextAttemptTime = System.currentTimeMillis() + backoff;
+		if (endpoint == getPreferredEndpoint()) {
+			_isSwitchBackPending = false;
+		}
+		if (_trace.isDebugEnabled()) {
+			_trace.debug("failed: " + endpoint + ", retry in " + backoff + " ms");
+		}
+	}
+
+	/**
+	 * Record that the connection to the active endpoint is broken.
+	 */
+	public synchronized void connectionLost() {
+		if (_activeEndpoint != null) {
+			failed(_activeEndpoint);
+		}
+	}
+
+	/**
+	 * Determine whether any endpoint can be tried now.
+	 */
+	public synchronized boolean isRetryDue() {
+		return getBackoff() == 0;
+	}
+
+	/**
+	 * Get the time in milliseconds until the next endpoint can be tried.
+	 */
+	public synchronized long getBackoff() {
+		if (_endpoints.isEmpty()) {
+			return 0;
+		}
+		long now = System.currentTimeMillis();
+		long backoff = Long.MAX_VALUE;
+		for (Endpoint endpoint : _endpoints) {
+			backoff = Math.min(backoff, Math.max(0, endpoint._nextAttemptTime - now));
+		}
+		return backoff;
+	}
+
+	/**
+	 * Get the position of the active endpoint in the connection URL list, or
+	 * -1 if no connection was established yet.
+	 */
+	public synchronized int getActiveIndex() {
+		return (_activeEndpoint != null) ? _activeEndpoint.getIndex() : -1;
+	}
+
+	/**
+	 * Get the number of times that the operator connected to another
+	 * endpoint than before.
+	 */
+	public long getFailovers() {
+		return _nFailovers.get();
+	}
+
+	/**
+	 * Get the preferred endpoint if the operator is connected to another
+	 * endpoint and the backoff time of the preferred endpoint expired.
+	 *
+	 * @return
+	 * The endpoint to probe, or null if a probe is not required.
+	 */
+	public synchronized Endpoint getProbeCandidate() {
+		Endpoint preferred = getPreferredEndpoint();
+		if (preferred == null || _activeEndpoint == null || _activeEndpoint == preferred || _isSwitchBackPending) {
+			return null;
+		}
+		return (preferred._nextAttemptTime <= System.currentTimeMillis()) ? preferred : null;
+	}
+
+	/**
+	 * Record a successful probe of the preferred endpoint. The operator
+	 * switches back to it with its next connection setup.
+	 */
+	public synchronized void probeSucceeded(Endpoint endpoint, long latency) {
+		connected(endpoint, latency, false);
+		if (endpoint.isHealthy() && endpoint == getPreferredEndpoint() && _activeEndpoint != endpoint) {
+			_trace.info("The preferred JMX endpoint " + endpoint.getUrl() + " recovered");
+			_isSwitchBackPending = true;
+		}
+	}
+
+	/**
+	 * Determine whether the operator shall reconnect to the recovered
+	 * preferred endpoint.
+	 */
+	public boolean isSwitchBackPending() {
+		return _isSwitchBackPending;
+	}
+
+	/**
+	 * Get the preferred endpoint if it recovered while the operator is
+	 * connected to another endpoint.
+	 *
+	 * @return
+	 * The endpoint to switch back to, or null if a switch is not pending.
+	 */
+	public synchronized Endpoint getSwitchBackCandidate() {
+		return _isSwitchBackPending ? getPreferredEndpoint() : null;
+	}
+
+	private Endpoint getPreferredEndpoint() {
+		return _endpoints.isEmpty() ? null : _endpoints.get(0);
+	}
+
+}
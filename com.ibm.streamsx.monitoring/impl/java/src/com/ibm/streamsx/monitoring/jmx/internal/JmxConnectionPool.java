@@ -0,0 +1,260 @@
+//
+// ****************************************************************************
+// * Copyright (C) 2016, International Business Machines Corporation          *
+// * All rights reserved.                                                     *
+// ****************************************************************************
+//
+
+package com.ibm.streamsx.monitoring.jmx.internal;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.MBeanServerConnection;
+import javax.management.Notification;
+import javax.management.NotificationListener;
+import javax.management.remote.JMXConnectionNotification;
+import javax.management.remote.JMXConnector;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Holds several JMX connectors to the same JMX server, so that the jobs can
+ * be scanned, and their notifications delivered, over separate transport
+ * channels. Each job is assigned to one connection by its job ID, so all
+ * MXBeans and notification listeners of a job use the same connection.
+ * <p>
+ * The first connection is the primary one, which is used for the instance.
+ * The calls and their latency are counted per connection.
+ * </p><p>
+ * The pool has a fixed number of slots. If the connection of a slot cannot
+ * be established, the slot uses the primary connection, so the assignment
+ * of the jobs to the slots does not depend on the number of established
+ * connections.
+ * </p><p>
+ * The pool listens for the connection notifications of the further
+ * connectors. If one of them fails or is closed by the server, the pool
+ * reports the lost connection, so that the operator sets up the connection
+ * again. The primary connector is observed by the operator.
+ * </p>
+ */
+public class JmxConnectionPool {
+
+	/**
+	 * Logger for tracing.
+	 */
+	private static Logger _trace = Logger.getLogger(JmxConnectionPool.class.getName());
+
+	/**
+	 * A connector and the usage of its connection.
+	 */
+	private static class PooledConnection {
+
+		private JMXConnector _connector = null;
+
+		private MBeanServerConnection _connection = null;
+
+		private LongAdder _nCalls = new LongAdder();
+
+		private LongAdder _callTime = new LongAdder();
+
+		/**
+		 * The listener for the connection notifications of a further
+		 * connector, or null for the primary connector.
+		 */
+		private NotificationListener _listener = null;
+
+		private PooledConnection(JMXConnector connector) throws IOException {
+			_connector = connector;
+			final MBeanServerConnection connection = connector.getMBeanServerConnection();
+			_connection = (MBeanServerConnection)Proxy.newProxyInstance(MBeanServerConnection.class.getClassLoader(), new Class<?>[] { MBeanServerConnection.class }, new InvocationHandler() {
+				@Override
+				public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+					long start = System.nanoTime();
+					try {
+						return method.invoke(connection, args);
+					}
+					catch (InvocationTargetException e) {
+						throw e.getCause();
+					}
+					finally {
+						_callTime.add(System.nanoTime() - start);
+						_nCalls.increment();
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * The connection of each slot. Slots without a connection of their own
+	 * hold the primary connection.
+	 */
+	private PooledConnection[] _connections;
+
+	/**
+	 * Receives the failed and closed notifications of the further
+	 * connectors, or null.
+	 */
+	private NotificationListener _connectionListener;
+
+	/**
+	 * Whether one of the further connections failed or was closed by the
+	 * server.
+	 */
+	private volatile boolean _isConnectionLost = false;
+
+	/**
+	 * @param primary
+	 * The connector that is used for the instance and for the jobs that are
+	 * assigned to the first connection.
+	 *
+	 * @param size
+	 * The number of slots, which initially use the primary connection.
+	 *
+	 * @param connectionListener
+	 * Receives the failed and closed notifications of the further
+	 * connectors, or null.
+	 */
+	public JmxConnectionPool(JMXConnector primary, int size, NotificationListener connectionListener) throws IOException {
+		_connections = new PooledConnection[Math.max(1, size)];
+		Arrays.fill(_connections, new PooledConnection(primary));
+		_connectionListener = connectionListener;
+	}
+
+	/**
+	 * Set the connector of a slot to a further connector to the same JMX
+	 * server, and listen for its connection notifications.
+	 */
+	public void set(final int index, JMXConnector connector) throws IOException {
+		PooledConnection connection = new PooledConnection(connector);
+		connection._listener = new NotificationListener() {
+			@Override
+			public void handleNotification(Notification notification, Object handback) {
+				String type = notification.getType();
+				if (JMXConnectionNotification.FAILED.equals(type) || JMXConnectionNotification.CLOSED.equals(type)) {
+					_trace.warn("Pooled JMX connection " + index + " is lost: " + type);
+					_isConnectionLost = true;
+					if (_connectionListener != null) {
+						_connectionListener.handleNotification(notification, handback);
+					}
+				}
+				else if (_trace.isDebugEnabled()) {
+					_trace.debug("Pooled JMX connection " + index + ": " + type);
+				}
+			}
+		};
+		connector.addConnectionNotificationListener(connection._listener, null, null);
+		_connections[index] = connection;
+	}
+
+	/**
+	 * Get the number of slots, including slots that use the primary
+	 * connection.
+	 */
+	public int size() {
+		return _connections.length;
+	}
+
+	/**
+	 * Determine whether the slot uses the primary connection instead of a
+	 * connection of its own.
+	 */
+	private boolean isFallback(int index) {
+		return index > 0 && _connections[index] == _connections[0];
+	}
+
+	/**
+	 * Determine whether one of the further connections failed or was closed
+	 * by the server. The slots of the jobs cannot be changed, so the pool
+	 * must be set up again.
+	 */
+	public boolean isConnectionLost() {
+		return _isConnectionLost;
+	}
+
+	/**
+	 * Get the primary connection.
+	 */
+	public MBeanServerConnection getConnection() {
+		return _connections[0]._connection;
+	}
+
+	/**
+	 * Get the connection that the job is assigned to. The assignment depends
+	 * on the number of slots only.
+	 */
+	public MBeanServerConnection getConnection(String jobId) {
+		return _connections[indexOf(jobId)]._connection;
+	}
+
+	/**
+	 * Get the position of the connection that the job is assigned to.
+	 */
+	public int indexOf(String jobId) {
+		if (jobId == null || _connections.length == 1) {
+			return 0;
+		}
+		long id;
+		try {
+			id = Long.parseLong(jobId);
+		}
+		catch (NumberFormatException e) {
+			id = jobId.hashCode();
+		}
+		return (int)Math.floorMod(id, (long)_connections.length);
+	}
+
+	/**
+	 * Get the number of calls over the given connection. The calls of a slot
+	 * that uses the primary connection are counted for the primary one.
+	 */
+	public long getCalls(int index) {
+		return isFallback(index) ? 0 : _connections[index]._nCalls.sum();
+	}
+
+	/**
+	 * Get the average latency of the calls over the given connection in
+	 * microseconds.
+	 */
+	public long getAverageLatency(int index) {
+		if (isFallback(index)) {
+			return 0;
+		}
+		PooledConnection connection = _connections[index];
+		long nCalls = connection._nCalls.sum();
+		return (nCalls > 0) ? TimeUnit.NANOSECONDS.toMicros(connection._callTime.sum() / nCalls) : 0;
+	}
+
+	/**
+	 * Close all connectors except for the primary one, which is owned by the
+	 * operator. A deliberate close is not reported as lost connection.
+	 */
+	public void closeSecondaryConnectors() {
+		for (int i = 1; i < _connections.length; i++) {
+			if (isFallback(i)) {
+				continue;
+			}
+			try {
+				_connections[i]._connector.removeConnectionNotificationListener(_connections[i]._listener);
+			}
+			catch (Exception ignore) {
+			}
+			try {
+				_connections[i]._connector.close();
+			}
+			catch (IOException e) {
+				if (_trace.isDebugEnabled()) {
+					_trace.debug("close of pooled JMX connector " + i + " failed: " + e.getMessage());
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,135 @@
+//
+// ****************************************************************************
+// * Copyright (C) 2016, International Business Machines Corporation          *
+// * All rights reserved.                                                     *
+// ****************************************************************************
+//
+
+package com.ibm.streamsx.monitoring.jmx.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Downloads the data that an MXBean operation provides through a URI
+ * instead of returning it, for example the metrics snapshot of
+ * {@code JobMXBean.snapshotMetrics}.
+ * <p>
+ * The JMX server serves the data over HTTPS with its self-signed
+ * certificate, and it requires the credentials of the JMX connection. The
+ * certificate is verified with the {@link JmxTrustManager}, and the
+ * credentials are sent with basic authentication.
+ * </p>
+ */
+public class JmxDataRetriever {
+
+	/**
+	 * Logger for tracing.
+	 */
+	private static Logger _trace = Logger.getLogger(JmxDataRetriever.class.getName());
+
+	private final String _authorization;
+
+	private final SSLSocketFactory _socketFactory;
+
+	/**
+	 * The connect and read timeout in milliseconds, or 0 for no timeout.
+	 */
+	private final int _timeout;
+
+	/**
+	 * @param user
+	 * The user of the JMX connection.
+	 *
+	 * @param password
+	 * The password of the JMX connection.
+	 *
+	 * @param sslOption
+	 * The protocol of the JMX connection, for example TLSv1.2.
+	 *
+	 * @param timeout
+	 * The connect and read timeout in milliseconds, or 0 for no timeout.
+	 *
+	 * @throws GeneralSecurityException
+	 * Throws if the protocol is not supported.
+	 */
+	public JmxDataRetriever(String user, String password, String sslOption, int timeout) throws GeneralSecurityException {
+		_authorization = "Basic " + Base64.getEncoder().encodeToString((user + ":" + password).getBytes(StandardCharsets.UTF_8));
+		SSLContext context = SSLContext.getInstance(sslOption != null ? sslOption : "TLSv1.2");
+		context.init(null, new TrustManager[] { new JmxTrustManager() }, null);
+		_socketFactory = context.getSocketFactory();
+		_timeout = timeout;
+	}
+
+	/**
+	 * Download the data.
+	 *
+	 * @param uri
+	 * The URI that the MXBean operation returned.
+	 *
+	 * @return
+	 * The data, decoded as UTF-8.
+	 *
+	 * @throws IOException
+	 * Throws if the data cannot be downloaded.
+	 */
+	public String retrieve(String uri) throws IOException {
+		if (uri == null) {
+			throw new IOException("The MXBean operation did not return a URI");
+		}
+		if (_trace.isDebugEnabled()) {
+			_trace.debug("retrieve " + uri);
+		}
+		HttpURLConnection connection = (HttpURLConnection)new URL(uri).openConnection();
+		try {
+			if (connection instanceof HttpsURLConnection) {
+				HttpsURLConnection httpsConnection = (HttpsURLConnection)connection;
+				httpsConnection.setSSLSocketFactory(_socketFactory);
+				// The certificate of the JMX server is issued for www.ibm.com,
+				// not for its host, and is verified by the trust manager.
+				httpsConnection.setHostnameVerifier(new HostnameVerifier() {
+					@Override
+					public boolean verify(String hostname, SSLSession session) {
+						return true;
+					}
+				});
+			}
+			connection.setConnectTimeout(_timeout);
+			connection.setReadTimeout(_timeout);
+			connection.setRequestProperty("Authorization", _authorization);
+			connection.setRequestProperty("Accept", "application/json");
+			int status = connection.getResponseCode();
+			if (status != HttpURLConnection.HTTP_OK) {
+				throw new IOException("The download of " + uri + " failed with HTTP status " + status);
+			}
+			try (InputStream in = connection.getInputStream()) {
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				byte[] buffer = new byte[8192];
+				int n;
+				while ((n = in.read(buffer)) != -1) {
+					out.write(buffer, 0, n);
+				}
+				return new String(out.toByteArray(), StandardCharsets.UTF_8);
+			}
+		}
+		finally {
+			connection.disconnect();
+		}
+	}
+
+}
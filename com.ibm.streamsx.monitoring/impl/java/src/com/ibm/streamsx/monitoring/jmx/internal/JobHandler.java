@@ -18,8 +18,11 @@ import java.io.IOException;
 //import java.io.InputStream;
 //import java.io.InputStreamReader;
 import java.math.BigInteger;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
 
 //import java.net.URL;
 import javax.management.InstanceNotFoundException;
@@ -51,6 +54,12 @@ import com.ibm.streamsx.monitoring.jmx.OperatorConfiguration.OpType;
  *   The Source operator removes all job-related information, so
  *   jobs of this instance are not monitored anymore.
  *   </p></li>
+ *   <li>com.ibm.streams.management.pe.added, com.ibm.streams.management.pe.removed,
+ *   com.ibm.streams.management.operator.added, com.ibm.streams.management.operator.removed
+ *   <p>
+ *   The handler of the affected PE or operator is added or removed, while
+ *   all other handlers of the job are kept.
+ *   </p></li>
  * </ul> 
  */
 public class JobHandler implements NotificationListener, Closeable {
@@ -72,9 +81,24 @@ public class JobHandler implements NotificationListener, Closeable {
 
 	private JobMXBean _job = null;
 
-	private Map<String /* operatorName */, OperatorHandler> _operatorHandlers = new HashMap<>();
+	/**
+	 * The tuple container that is owned by this job. The instance- and
+	 * job-related attributes are set once because they do not change.
+	 */
+	private MetricsTupleContainer _tupleContainer = null;
+
+	/**
+	 * The operator and PE handlers are added and removed by notifications
+	 * while the job is scanned, therefore, concurrent maps are used.
+	 */
+	private Map<String /* operatorName */, OperatorHandler> _operatorHandlers = new ConcurrentHashMap<>();
+
+	private Map<String /* peId */, PeHandler> _peHandlers = new ConcurrentHashMap<>();
 
-	private Map<String /* peId */, PeHandler> _peHandlers = new HashMap<>();
+	/**
+	 * Whether the last metrics snapshot of the job could not be retrieved.
+	 */
+	private volatile boolean _isSnapshotFailing = false;
 
 	public JobHandler(OperatorConfiguration applicationConfiguration, String instanceId, String jobId) {
 
@@ -88,28 +112,23 @@ public class JobHandler implements NotificationListener, Closeable {
 		_jobId = jobId;
 
 		_objName = ObjectNameBuilder.job(_instanceId, _jobId);
-		_job = JMX.newMXBeanProxy(_operatorConfiguration.get_mbeanServerConnection(), _objName, JobMXBean.class, true);
+		_job = JMX.newMXBeanProxy(_operatorConfiguration.get_mbeanServerConnection(_jobId), _objName, JobMXBean.class, true);
 
 		_jobName = _job.getName();
 
-		/*
-		 * Register to get job-related notifications.
-		 */
-		NotificationFilterSupport filter = new NotificationFilterSupport();
-		filter.enableType(Notifications.INACTIVITY_WARNING);
-		try {
-			_operatorConfiguration.get_mbeanServerConnection().addNotificationListener(_objName, this, filter, null);
-		} catch (InstanceNotFoundException e) {
-			e.printStackTrace();
-		} catch (IOException e) {
-			e.printStackTrace();
+		if (null != _operatorConfiguration.get_tupleContainerMetricsSource()) {
+			_tupleContainer = new MetricsTupleContainer(_operatorConfiguration.get_tupleContainerMetricsSource());
+			_tupleContainer.setInstanceId(_instanceId);
+			_tupleContainer.setJobId(_jobId);
+			_tupleContainer.setJobName(_jobName);
 		}
-		//	TODO      jmxc.addConnectionNotificationListener(this, null, null); // listen for potential lost notifications
+
+		addNotificationListener();
 
 		/*
 		 * Create handlers for operators that match the filter criteria.
 		 */
-		if (OpType.METRICS_SOURCE == _operatorConfiguration.get_OperatorType()) {
+		if (isOperatorDiscoveryRequired()) {
 			for(String operatorName : _job.getOperators()) {
 				addValidOperator(operatorName);
 			}
@@ -117,12 +136,40 @@ public class JobHandler implements NotificationListener, Closeable {
 		/*
 		 * Create handlers for operators that match the filter criteria.
 		 */
-		for(String peId : _job.getPes()) {
-			addPE(peId);
+		if (isPeDiscoveryRequired()) {
+			for(String peId : _job.getPes()) {
+				addPE(peId);
+			}
 		}
 
 	}
 
+	/**
+	 * Register to get job-related notifications on the current JMX
+	 * connection.
+	 */
+	private void addNotificationListener() {
+		/*
+		 * Register to get job-related notifications.
+		 */
+		NotificationFilterSupport filter = new NotificationFilterSupport();
+		filter.enableType(Notifications.INACTIVITY_WARNING);
+		filter.enableType(Notifications.PE_ADDED);
+		filter.enableType(Notifications.PE_REMOVED);
+		if (OpType.METRICS_SOURCE == _operatorConfiguration.get_OperatorType()) {
+			filter.enableType(Notifications.OPERATOR_ADDED);
+			filter.enableType(Notifications.OPERATOR_REMOVED);
+		}
+		try {
+			_operatorConfiguration.get_mbeanServerConnection(_jobId).addNotificationListener(_objName, this, filter, null);
+		} catch (InstanceNotFoundException e) {
+			e.printStackTrace();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		// The connection of the job is observed by the JmxConnectionPool, which reports a lost connection.
+	}
+
 	/**
 	 * {@inheritDoc}
 	 * 
@@ -134,6 +181,30 @@ public class JobHandler implements NotificationListener, Closeable {
 		if (notification.getType().equals(Notifications.INACTIVITY_WARNING)) {
 			_job.keepRegistered();
 		}
+		else if (notification.getType().equals(Notifications.PE_ADDED)) {
+			String peId = NotificationUserData.getId(notification, "id");
+			if (peId != null && !_peHandlers.containsKey(peId)) {
+				addPE(peId);
+			}
+		}
+		else if (notification.getType().equals(Notifications.PE_REMOVED)) {
+			String peId = NotificationUserData.getId(notification, "id");
+			if (peId != null) {
+				removePE(peId);
+			}
+		}
+		else if (notification.getType().equals(Notifications.OPERATOR_ADDED)) {
+			String operatorName = NotificationUserData.getId(notification, "name");
+			if (operatorName != null && !_operatorHandlers.containsKey(operatorName)) {
+				addValidOperator(operatorName);
+			}
+		}
+		else if (notification.getType().equals(Notifications.OPERATOR_REMOVED)) {
+			String operatorName = NotificationUserData.getId(notification, "name");
+			if (operatorName != null) {
+				removeOperator(operatorName);
+			}
+		}
 		else {
 			_trace.error("notification: " + notification + ", userData=" + notification.getUserData());
 		}
@@ -150,7 +221,12 @@ public class JobHandler implements NotificationListener, Closeable {
 			}
 		}
 		if (matches) {
-			_operatorHandlers.put(operatorName, new OperatorHandler(_operatorConfiguration, _instanceId, _jobId, _jobName, operatorName));
+			OperatorHandler handler = new OperatorHandler(_operatorConfiguration, _tupleContainer, _instanceId, _jobId, _jobName, operatorName);
+			if (_operatorHandlers.putIfAbsent(operatorName, handler) != null) {
+				// The operator was added concurrently, for example by a
+				// notification while the filters are applied.
+				closeDuplicate(handler);
+			}
 		}
 	}
 	
@@ -165,10 +241,178 @@ public class JobHandler implements NotificationListener, Closeable {
 			}
 		}
 		if (matches) {
-			_peHandlers.put(peId, new PeHandler(_operatorConfiguration, _instanceId, _jobId, _jobName, peId));
+			PeHandler handler = new PeHandler(_operatorConfiguration, _tupleContainer, _instanceId, _jobId, _jobName, peId);
+			if (_peHandlers.putIfAbsent(peId, handler) != null) {
+				// The PE was added concurrently, for example by a
+				// notification while the filters are applied.
+				closeDuplicate(handler);
+			}
+		}
+	}
+
+	/**
+	 * Close the handler that lost the race against a concurrently added
+	 * handler of the same object, so its listener and metric state do not
+	 * leak.
+	 */
+	private void closeDuplicate(Closeable handler) {
+		try {
+			handler.close();
+		}
+		catch (Exception e) {
+			_trace.warn("The duplicate handler of the " + handler + " cannot be closed: " + e);
 		}
 	}
 	
+	protected void removeOperator(String operatorName) {
+		OperatorHandler handler = _operatorHandlers.remove(operatorName);
+		if (handler != null) {
+			if (_trace.isInfoEnabled()) {
+				_trace.info("The following operator is removed and is therefore, not monitored anymore: instance=" + _instanceId + ", job=[" + _jobId + "][" + _jobName + "], operator=" + operatorName);
+			}
+			try {
+				handler.close();
+			}
+			catch (Exception e) {
+				_trace.warn("The handler of the removed " + handler + " cannot be closed: " + e);
+			}
+		}
+	}
+
+	protected void removePE(String peId) {
+		PeHandler handler = _peHandlers.remove(peId);
+		if (handler != null) {
+			if (_trace.isInfoEnabled()) {
+				_trace.info("The following PE is removed and is therefore, not monitored anymore: instance=" + _instanceId + ", job=[" + _jobId + "][" + _jobName + "], peId=" + peId);
+			}
+			try {
+				handler.close();
+			}
+			catch (Exception e) {
+				_trace.warn("The handler of the removed " + handler + " cannot be closed: " + e);
+			}
+		}
+	}
+
+	/**
+	 * Apply changed filters to the operators and PEs of this job. Handlers
+	 * that do not match the filters anymore are closed, and operators and
+	 * PEs that match the filters now are added. The other handlers keep
+	 * their state.
+	 */
+	public void applyFilters() throws Exception {
+		if (isOperatorDiscoveryRequired()) {
+			for(String operatorName : _job.getOperators()) {
+				OperatorHandler handler = _operatorHandlers.get(operatorName);
+				if (handler == null) {
+					addValidOperator(operatorName);
+				}
+				else if (_operatorConfiguration.get_filters().matchesOperatorName(_instanceId, _jobName, operatorName)) {
+					handler.applyFilters();
+				}
+				else {
+					removeOperator(operatorName);
+				}
+			}
+		}
+		else {
+			for(String operatorName : _operatorHandlers.keySet()) {
+				removeOperator(operatorName);
+			}
+		}
+		if (isPeDiscoveryRequired()) {
+			for(String peId : _job.getPes()) {
+				PeHandler handler = _peHandlers.get(peId);
+				if (handler == null) {
+					addPE(peId);
+				}
+				else if (_operatorConfiguration.get_filters().matchesPeId(_instanceId, _jobName, peId)) {
+					handler.applyFilters();
+				}
+				else {
+					removePE(peId);
+				}
+			}
+		}
+		else {
+			for(String peId : _peHandlers.keySet()) {
+				removePE(peId);
+			}
+		}
+	}
+
+	/**
+	 * Bind this handler and its child handlers to the re-established JMX
+	 * connection. The MXBean proxies and notification listeners are created
+	 * again. Handlers of operators and PEs that do not exist anymore are
+	 * dropped and release their metric state, new ones are added. All other handlers keep their metric
+	 * evaluator state.
+	 */
+	public void rebind() throws Exception {
+		_job = JMX.newMXBeanProxy(_operatorConfiguration.get_mbeanServerConnection(_jobId), _objName, JobMXBean.class, true);
+		addNotificationListener();
+		if (isOperatorDiscoveryRequired()) {
+			Set<String> operatorNames = _job.getOperators();
+			for(String operatorName : _operatorHandlers.keySet()) {
+				if (!operatorNames.contains(operatorName)) {
+					// The operator is gone with the old connection's
+					// listeners, so only its metric state is released.
+					OperatorHandler handler = _operatorHandlers.remove(operatorName);
+					if (handler != null) {
+						handler.releaseAll();
+					}
+				}
+			}
+			for(String operatorName : operatorNames) {
+				OperatorHandler handler = _operatorHandlers.get(operatorName);
+				if (handler != null) {
+					handler.rebind();
+				}
+				else {
+					addValidOperator(operatorName);
+				}
+			}
+		}
+		if (isPeDiscoveryRequired()) {
+			Set<String> peIds = _job.getPes();
+			for(String peId : _peHandlers.keySet()) {
+				if (!peIds.contains(peId)) {
+					PeHandler handler = _peHandlers.remove(peId);
+					if (handler != null) {
+						handler.releaseAll();
+					}
+				}
+			}
+			for(String peId : peIds) {
+				PeHandler handler = _peHandlers.get(peId);
+				if (handler != null) {
+					handler.rebind();
+				}
+				else {
+					addPE(peId);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Determine whether the operators of this job must be enumerated. If the
+	 * filters cannot match any operator of this job, the operator names are
+	 * not retrieved and no operator handlers are created.
+	 */
+	private boolean isOperatorDiscoveryRequired() {
+		return (OpType.METRICS_SOURCE == _operatorConfiguration.get_OperatorType()) && _operatorConfiguration.get_filters().mayMatchOperators(_instanceId, _jobName);
+	}
+
+	/**
+	 * Determine whether the PEs of this job must be enumerated. If the
+	 * filters cannot match any PE of this job, the PE IDs are not retrieved
+	 * and no PE handlers are created.
+	 */
+	private boolean isPeDiscoveryRequired() {
+		return _operatorConfiguration.get_filters().mayMatchPes(_instanceId, _jobName);
+	}
+
 	/**
 	 * Capture the job metrics.
 	 * 
@@ -181,14 +425,61 @@ public class JobHandler implements NotificationListener, Closeable {
 		if (isDebugEnabled) {
 			_trace.debug("--> captureMetrics(instance=" + _instanceId + ",jobId=" + _jobId + ")");
 		}
-		MetricsTupleContainer schema = _operatorConfiguration.get_tupleContainerMetricsSource();
-		schema.setJobId(_jobId);
-		schema.setJobName(_jobName);
-		for(String operatorName : _operatorHandlers.keySet()) {
-			_operatorHandlers.get(operatorName).captureMetrics();
+		MetricsSnapshot snapshot = null;
+		final JmxDataRetriever retriever = _operatorConfiguration.get_jmxDataRetriever();
+		if (_operatorConfiguration.get_batchedMetricsRetrieval() && retriever != null && (_operatorHandlers.size() > 0 || _peHandlers.size() > 0)) {
+			/*
+			 * Retrieve the metrics of all PEs, operators, ports, and
+			 * connections with one request. The snapshotMetrics operation
+			 * returns the URI of the snapshot, which is downloaded from the
+			 * JMX server. Handlers that are not contained in the snapshot
+			 * retrieve their metrics themselves.
+			 */
+			Callable<String> retrieval = new Callable<String>() {
+				@Override
+				public String call() throws Exception {
+					return retriever.retrieve(_job.snapshotMetrics(false));
+				}
+			};
+			try {
+				JmxCallEngine engine = _operatorConfiguration.get_jmxCallEngine();
+				String metrics = (engine != null) ? engine.call(retrieval) : retrieval.call();
+				snapshot = new MetricsSnapshot(metrics, System.currentTimeMillis());
+				_isSnapshotFailing = false;
+			}
+			catch (TimeoutException e) {
+				_trace.warn("Skip job [" + _jobId + "] in this scan cycle: " + e.getMessage());
+				return;
+			}
+			catch (IOException e) {
+				// Warn once, not in every scan cycle, while the snapshots fail.
+				if (!_isSnapshotFailing) {
+					_trace.warn("The metrics snapshot of job [" + _jobId + "] cannot be retrieved, retrieve the metrics per MXBean: " + e);
+					_isSnapshotFailing = true;
+				}
+				else if (isDebugEnabled) {
+					_trace.debug("The metrics snapshot of job [" + _jobId + "] cannot be retrieved: " + e);
+				}
+			}
 		}
-		for(String peId : _peHandlers.keySet()) {
-			_peHandlers.get(peId).captureMetrics();
+		/*
+		 * If the JMX call engine is configured, start the requests of all
+		 * handlers first, so they are in flight at the same time, and pick up
+		 * the results afterwards.
+		 */
+		if (_operatorConfiguration.get_jmxCallEngine() != null) {
+			for(OperatorHandler handler : _operatorHandlers.values()) {
+				handler.requestMetrics(snapshot);
+			}
+			for(PeHandler handler : _peHandlers.values()) {
+				handler.requestMetrics(snapshot);
+			}
+		}
+		for(OperatorHandler handler : _operatorHandlers.values()) {
+			handler.captureMetrics(snapshot);
+		}
+		for(PeHandler handler : _peHandlers.values()) {
+			handler.captureMetrics(snapshot);
 		}
 		if (isDebugEnabled) {
 			_trace.debug("<-- captureMetrics(instance=" + _instanceId + ",jobId=" + _jobId + ")");
@@ -196,19 +487,39 @@ public class JobHandler implements NotificationListener, Closeable {
 	}
 
 	/**
-	 * Remove notification listeners from this and child objects.
+	 * Remove notification listeners from this and child objects. The child
+	 * objects are closed even if the listener of the job cannot be removed.
 	 */
 	@Override
 	public void close() throws Exception {
-		// Remove the notification listener.
-		_operatorConfiguration.get_mbeanServerConnection().removeNotificationListener(_objName, this);
-		// Close all resources of all child objects.
+		try {
+			// Close all resources of all child objects.
+			for(OperatorHandler handler : _operatorHandlers.values()) {
+				handler.close();
+			}
+			_operatorHandlers.clear();
+			for(PeHandler handler : _peHandlers.values()) {
+				handler.close();
+			}
+			_peHandlers.clear();
+		}
+		finally {
+			// Remove the notification listener.
+			_operatorConfiguration.get_mbeanServerConnection(_jobId).removeNotificationListener(_objName, this);
+		}
+	}
+
+	/**
+	 * Release the metric state of all child objects without any remote call,
+	 * for example if the job was cancelled and its MXBeans are gone.
+	 */
+	public void releaseAll() {
 		for(OperatorHandler handler : _operatorHandlers.values()) {
-			handler.close();
+			handler.releaseAll();
 		}
-		_peHandlers.clear();
+		_operatorHandlers.clear();
 		for(PeHandler handler : _peHandlers.values()) {
-			handler.close();
+			handler.releaseAll();
 		}
 		_peHandlers.clear();
 	}
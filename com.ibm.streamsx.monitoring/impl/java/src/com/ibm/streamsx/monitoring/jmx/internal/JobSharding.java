@@ -0,0 +1,91 @@
+//
+// ****************************************************************************
+// * Copyright (C) 2016, International Business Machines Corporation          *
+// * All rights reserved.                                                     *
+// ****************************************************************************
+//
+
+package com.ibm.streamsx.monitoring.jmx.internal;
+
+/**
+ * Assigns jobs to the channels of a parallel region, so that each channel
+ * monitors a disjoint subset of the jobs.
+ * <p>
+ * The assignment uses rendezvous (highest random weight) hashing: Each
+ * channel computes a weight for the pair of job and channel, and the job is
+ * assigned to the channel with the highest weight. All channels compute the
+ * same assignment without coordination. If the width of the parallel region
+ * changes, only the jobs whose highest weight belongs to an added or
+ * removed channel move to another channel.
+ * </p>
+ */
+public final class JobSharding {
+
+	private final int _channel;
+
+	private final int _maxChannels;
+
+	/**
+	 * @param channel
+	 * The index of the channel of this operator, starting with 0.
+	 *
+	 * @param maxChannels
+	 * The width of the parallel region.
+	 */
+	public JobSharding(int channel, int maxChannels) {
+		_channel = channel;
+		_maxChannels = maxChannels;
+	}
+
+	/**
+	 * Determine whether the job is assigned to the channel of this operator.
+	 */
+	public boolean isAssigned(String jobId) {
+		return getChannel(jobId) == _channel;
+	}
+
+	/**
+	 * Get the index of the channel that the job is assigned to.
+	 */
+	public int getChannel(String jobId) {
+		if (_maxChannels <= 1) {
+			return 0;
+		}
+		long key = keyOf(jobId);
+		int owner = 0;
+		long maxWeight = Long.MIN_VALUE;
+		for (int channel = 0; channel < _maxChannels; channel++) {
+			long weight = mix(key ^ mix(channel + 1));
+			if (weight > maxWeight) {
+				maxWeight = weight;
+				owner = channel;
+			}
+		}
+		return owner;
+	}
+
+	@Override
+	public String toString() {
+		return "channel " + _channel + " of " + _maxChannels;
+	}
+
+	private static long keyOf(String jobId) {
+		try {
+			return Long.parseLong(jobId);
+		}
+		catch (NumberFormatException e) {
+			return jobId.hashCode();
+		}
+	}
+
+	/**
+	 * The finalizer of the SplitMix64 generator, which spreads consecutive
+	 * job IDs and channel indexes over the full range of long values.
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+}
@@ -8,26 +8,25 @@
 package com.ibm.streamsx.monitoring.jmx.internal;
 
 import java.math.BigInteger;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.concurrent.Callable;
 
 import javax.management.ObjectName;
 import javax.management.Notification;
 import com.ibm.streams.operator.Attribute;
-import com.ibm.streams.operator.OperatorContext;
 import com.ibm.streams.operator.OutputTuple;
 import com.ibm.streams.operator.StreamSchema;
 import com.ibm.streams.operator.StreamingData.Punctuation;
 import com.ibm.streams.operator.StreamingOutput;
 import com.ibm.streams.operator.Tuple;
 import com.ibm.streams.operator.Type;
-import com.ibm.streams.operator.types.RString;
 import com.ibm.streams.operator.types.Timestamp;
 
 public class JobStatusTupleContainer {
 
-	private final OperatorContext _context;	
+	/**
+	 * Queues the tuples and submits them to the output port.
+	 */
+	private final TupleEmitter _emitter;
+
 	/**
 	 * The output port.
 	 */
@@ -73,6 +72,11 @@ public class JobStatusTupleContainer {
 	 */
 	private Integer _eventTimestampAttributeIndex = null;	
 
+	/**
+	 * Index of the firstEventTimestamp attribute.
+	 */
+	private Integer _firstEventTimestampAttributeIndex = null;
+
 	/**
 	 * Index of the notifyType attribute.
 	 */
@@ -108,9 +112,10 @@ public class JobStatusTupleContainer {
 	 * Determine the indexes of output attributes and verify their types.
 	 * 
 	 * @param port
+	 * @param emitter
 	 */
-	public JobStatusTupleContainer(OperatorContext context, StreamingOutput<OutputTuple> port) {
-		_context = context;
+	public JobStatusTupleContainer(StreamingOutput<OutputTuple> port, TupleEmitter emitter) {
+		_emitter = emitter;
 		// Create a tuple once.
 		_port = port;
 		
@@ -151,6 +156,10 @@ public class JobStatusTupleContainer {
 			Attribute attribute = schema.getAttribute("eventTimestamp");
 			_eventTimestampAttributeIndex = Integer.valueOf(attribute != null && attribute.getType().getMetaType() == Type.MetaType.TIMESTAMP ? attribute.getIndex() : -1) ;
 		}
+		if (_firstEventTimestampAttributeIndex == null) {
+			Attribute attribute = schema.getAttribute("firstEventTimestamp");
+			_firstEventTimestampAttributeIndex = Integer.valueOf(attribute != null && attribute.getType().getMetaType() == Type.MetaType.TIMESTAMP ? attribute.getIndex() : -1) ;
+		}
 		if (_notifyTypeAttributeIndex == null) {
 			Attribute attribute = schema.getAttribute("notifyType");
 			_notifyTypeAttributeIndex = Integer.valueOf(attribute != null && attribute.getType().getMetaType() == Type.MetaType.RSTRING ? attribute.getIndex() : -1) ;
@@ -183,12 +192,12 @@ public class JobStatusTupleContainer {
 	}
 	
 	/**
-	 * Convert the notification to a tuple, using {@link #getAttributes(Notification, Object)}.
+	 * Convert the notification to a tuple, using {@link #setAttributes}.
 	 * @param notification Notification object.
 	 * @param handback Handback object.
 	 * @return Tuple to be submitted.
 	 */
-	public Tuple getTuple(
+	public OutputTuple getTuple(
 			final Notification notification,
 			final Object handback,
 			final String instanceId,
@@ -198,7 +207,13 @@ public class JobStatusTupleContainer {
 			final String peId,
 			final Object peHealth,
 			final Object peStatus) {
-		return _port.getStreamSchema().getTuple(getAttributes(
+		/*
+		 * The tuple is submitted asynchronously, so each notification needs
+		 * a tuple of its own.
+		 */
+		final OutputTuple tuple = _port.newTuple();
+		setAttributes(
+				tuple,
 				notification,
 				handback,
 				instanceId,
@@ -207,16 +222,20 @@ public class JobStatusTupleContainer {
 				resource,
 				peId,
 				peHealth,
-				peStatus));
+				peStatus);
+		return tuple;
 	}
 	
 	/**
-	 * Convert the notification to a {@code Map} of attributes keyed by attribute name.
+	 * Set the attributes of the notification in the tuple, using the
+	 * attribute indexes that are determined in the constructor. Attributes
+	 * without a value keep their default value.
+	 * @param tuple Tuple to be submitted.
 	 * @param notification Notification object.
 	 * @param handback Handback object.
-	 * @return Map containing attributes
 	 */
-	protected Map<String, Object> getAttributes(
+	protected void setAttributes(
+			final OutputTuple tuple,
 			final Notification notification,
 			final Object handback,
 			final String instanceId,
@@ -227,51 +246,52 @@ public class JobStatusTupleContainer {
 			final Object peHealth,
 			final Object peStatus) {
 		
-		final Map<String, Object> attributes = new HashMap<String, Object>();
-		
 		if (_instanceIdAttributeIndex != -1) {
 			if (instanceId != null) {
-				attributes.put("instanceId", new RString(instanceId));
+				tuple.setString(_instanceIdAttributeIndex, instanceId);
 			}
 		}
 		if (_jobIdAttributeIndex != -1) {
 			if (jobId != null) {
-				attributes.put("jobId", Long.parseLong(jobId));
+				tuple.setLong(_jobIdAttributeIndex, Long.parseLong(jobId));
 			}
 		}
 		if (_jobNameAttributeIndex != -1) {
 			if (jobName != null) {
-				attributes.put("jobName", new RString(jobName));
+				tuple.setString(_jobNameAttributeIndex, jobName);
 			}
 		}
 		if (_resourceAttributeIndex != -1) {
 			if (resource != null) {
-				attributes.put("resource", new RString(resource));
+				tuple.setString(_resourceAttributeIndex, resource);
 			}
 		}
 		if (_peIdAttributeIndex != -1) {
 			if (peId != null) {
-				attributes.put("peId", Long.parseLong(peId));
+				tuple.setLong(_peIdAttributeIndex, Long.parseLong(peId));
 			}
 		}		
 		if (_peHealthAttributeIndex != -1) {
 			if (peHealth != null) {
-				attributes.put("peHealth", new RString(peHealth.toString()));
+				tuple.setString(_peHealthAttributeIndex, peHealth.toString());
 			}
 		}
 		if (_peStatusAttributeIndex != -1) {
 			if (peStatus != null) {
-				attributes.put("peStatus", new RString(peStatus.toString()));
+				tuple.setString(_peStatusAttributeIndex, peStatus.toString());
 			}		
 		}		
 		if (_eventTimestampAttributeIndex != -1) {
-			attributes.put("eventTimestamp", Timestamp.getTimestamp(notification.getTimeStamp()));
+			tuple.setTimestamp(_eventTimestampAttributeIndex, Timestamp.getTimestamp(notification.getTimeStamp()));
+		}
+		if (_firstEventTimestampAttributeIndex != -1) {
+			tuple.setTimestamp(_firstEventTimestampAttributeIndex, Timestamp.getTimestamp(notification.getTimeStamp()));
 		}
 		if (_notifyTypeAttributeIndex != -1) {
-			attributes.put("notifyType", new RString(notification.getType()));
+			tuple.setString(_notifyTypeAttributeIndex, notification.getType());
 		}		
 		if (_sequenceAttributeIndex != -1) {
-			attributes.put("sequence", notification.getSequenceNumber());
+			tuple.setLong(_sequenceAttributeIndex, notification.getSequenceNumber());
 		}
 		if (_sourceAttributeIndex != -1) {
 			Object source = notification.getSource();
@@ -282,39 +302,61 @@ public class JobStatusTupleContainer {
 			else {
 				ssource = source.toString();
 			}
-			attributes.put("source", new RString(ssource));
+			tuple.setString(_sourceAttributeIndex, ssource);
 		}
 		if (_messageAttributeIndex != -1) {
 			if (notification.getMessage() != null) {
-				attributes.put("message", new RString(notification.getMessage()));
+				tuple.setString(_messageAttributeIndex, notification.getMessage());
 			}
 		}
 		
 		if (_userDataAttributeIndex != -1) {
 			final Object userData = notification.getUserData();
 			if (userData != null) {
-				attributes.put("userData", new RString(userData.toString()));
+				tuple.setString(_userDataAttributeIndex, userData.toString());
 			}
 		}
 		if (_handbackAttributeIndex != -1) {
-			attributes.put("handback", handback.toString());
+			if (handback != null) {
+				tuple.setString(_handbackAttributeIndex, handback.toString());
+			}
 		}
-
-		return attributes;
 	}		
 	
 	
+	/**
+	 * Set the timestamp of the first notification that the tuple's
+	 * notification coalesces. The eventTimestamp attribute contains the
+	 * timestamp of the last one.
+	 * @param tuple Tuple to be submitted.
+	 * @param timeStamp Timestamp of the first notification.
+	 */
+	public void setFirstEventTimestamp(final OutputTuple tuple, final long timeStamp) {
+		if (_firstEventTimestampAttributeIndex != -1) {
+			tuple.setTimestamp(_firstEventTimestampAttributeIndex, Timestamp.getTimestamp(timeStamp));
+		}
+	}
+	
 	/**
 	* Asynchronously submit the tuple to the output port.
 	* @param tuple Tuple to be submitted.
 	*/
 	public void submit(final Tuple tuple) {
-		_context.getScheduledExecutorService().submit(new Callable<Object>() {
-			@Override
-			public Object call() throws Exception {
-				return _port.submit(tuple);
-			}
-		});        
+		_emitter.emit(tuple, _emitter.isCoalescing() ? getCoalescingKey(tuple) : null);
 	}	
 
+	/**
+	 * Get the key of the tuples that a newer tuple can replace if the queue is
+	 * full: tuples of the same notification type for the same job and PE,
+	 * which report an outdated status.
+	 */
+	private Object getCoalescingKey(final Tuple tuple) {
+		if (_notifyTypeAttributeIndex == -1) {
+			return null;
+		}
+		return tuple.getString(_notifyTypeAttributeIndex)
+				+ "/" + (_jobIdAttributeIndex != -1 ? tuple.getLong(_jobIdAttributeIndex) : 0)
+				+ "/" + (_peIdAttributeIndex != -1 ? tuple.getLong(_peIdAttributeIndex) : 0);
+	}
+
 }
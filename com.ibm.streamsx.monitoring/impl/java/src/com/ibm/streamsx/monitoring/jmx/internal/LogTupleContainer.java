@@ -7,26 +7,23 @@
 
 package com.ibm.streamsx.monitoring.jmx.internal;
 
-import java.math.BigInteger;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.concurrent.Callable;
-
 import javax.management.Notification;
 import com.ibm.streams.operator.Attribute;
-import com.ibm.streams.operator.OperatorContext;
 import com.ibm.streams.operator.OutputTuple;
 import com.ibm.streams.operator.StreamSchema;
 import com.ibm.streams.operator.StreamingData.Punctuation;
 import com.ibm.streams.operator.StreamingOutput;
 import com.ibm.streams.operator.Tuple;
 import com.ibm.streams.operator.Type;
-import com.ibm.streams.operator.types.RString;
 import com.ibm.streams.operator.types.Timestamp;
 
 public class LogTupleContainer {
 
-	private final OperatorContext _context;	
+	/**
+	 * Queues the tuples and submits them to the output port.
+	 */
+	private final TupleEmitter _emitter;
+
 	/**
 	 * The output port.
 	 */
@@ -88,9 +85,10 @@ public class LogTupleContainer {
 	 * Determine the indexes of output attributes and verify their types.
 	 * 
 	 * @param port
+	 * @param emitter
 	 */
-	public LogTupleContainer(OperatorContext context, StreamingOutput<OutputTuple> port) {
-		_context = context;
+	public LogTupleContainer(StreamingOutput<OutputTuple> port, TupleEmitter emitter) {
+		_emitter = emitter;
 		// Create a tuple once.
 		_port = port;
 		
@@ -147,113 +145,111 @@ public class LogTupleContainer {
 	}
 	
 	/**
-	 * Convert the notification to a tuple, using {@link #getAttributes(Notification, Object)}.
+	 * Create the tuple of a log message and set the attributes of the
+	 * notification. The attributes of the message are set with the other
+	 * setters of this container while the notification's userData is parsed.
+	 * The tuple is submitted asynchronously, so each message needs a tuple of
+	 * its own.
 	 * @param notification Notification object.
-	 * @param handback Handback object.
 	 * @return Tuple to be submitted.
 	 */
-	public Tuple getTuple(
-			final Notification notification,
-			final String instance,
-			final String resource,
-			final BigInteger pe,
-			final BigInteger job,
-			final String operator,
-			final String text,
-			final boolean messagesSkipped) {
-		return _port.getStreamSchema().getTuple(getAttributes(
-				notification,
-				instance,
-				resource,
-				pe,
-				job,
-				operator,
-				text,
-				messagesSkipped
-				));
-	}
-	
-	/**
-	 * Convert the notification to a {@code Map} of attributes keyed by attribute name.
-	 * @param notification Notification object.
-	 * @param handback Handback object.
-	 * @return Map containing attributes
-	 */
-	protected Map<String, Object> getAttributes(
-			final Notification notification,
-			final String instanceId,
-			final String resource,
-			final BigInteger peId,
-			final BigInteger jobId,
-			final String operator,
-			final String text,
-			final boolean messagesSkipped
-			) {
-		
-		final Map<String, Object> attributes = new HashMap<String, Object>();
-		
-		if (_instanceIdAttributeIndex != -1) {
-			if (instanceId != null) {
-				attributes.put("instanceId", new RString(instanceId));
-			}
+	public OutputTuple newTuple(final Notification notification) {
+		final OutputTuple tuple = _port.newTuple();
+		if (_eventTimestampAttributeIndex != -1) {
+			tuple.setTimestamp(_eventTimestampAttributeIndex, Timestamp.getTimestamp(notification.getTimeStamp()));
 		}
-		if (_jobIdAttributeIndex != -1) {
-			if (jobId != null) {
-				attributes.put("jobId", jobId.longValue());
+		if (_notifyTypeAttributeIndex != -1) {
+			tuple.setString(_notifyTypeAttributeIndex, notification.getType());
+		}		
+		if (_sequenceAttributeIndex != -1) {
+			tuple.setLong(_sequenceAttributeIndex, notification.getSequenceNumber());
+		}
+		if (_messageAttributeIndex != -1) {
+			if (notification.getMessage() != null) {
+				tuple.setString(_messageAttributeIndex, notification.getMessage());
 			}
 		}
+		return tuple;
+	}
+
+	public void setInstanceId(final OutputTuple tuple, final String instanceId) {
+		if (_instanceIdAttributeIndex != -1) {
+			tuple.setString(_instanceIdAttributeIndex, instanceId);
+		}
+	}
+
+	public void setResource(final OutputTuple tuple, final String resource) {
 		if (_resourceAttributeIndex != -1) {
-			if (resource != null) {
-				attributes.put("resource", new RString(resource));
-			}
+			tuple.setString(_resourceAttributeIndex, resource);
 		}
+	}
+
+	public void setPeId(final OutputTuple tuple, final long peId) {
 		if (_peIdAttributeIndex != -1) {
-			if (peId != null) {
-				attributes.put("peId", peId.longValue());
-			}
-		}
-		if (_operatorNameAttributeIndex != -1) {
-			if (operator != null) {
-				attributes.put("operatorName", new RString(operator));
-			}
+			tuple.setLong(_peIdAttributeIndex, peId);
 		}
-		if (_eventTimestampAttributeIndex != -1) {
-			attributes.put("eventTimestamp", Timestamp.getTimestamp(notification.getTimeStamp()));
+	}
+
+	public void setJobId(final OutputTuple tuple, final long jobId) {
+		if (_jobIdAttributeIndex != -1) {
+			tuple.setLong(_jobIdAttributeIndex, jobId);
 		}
-		if (_notifyTypeAttributeIndex != -1) {
-			attributes.put("notifyType", new RString(notification.getType()));
-		}		
-		if (_sequenceAttributeIndex != -1) {
-			attributes.put("sequence", notification.getSequenceNumber());
+	}
+
+	public void setOperatorName(final OutputTuple tuple, final String operator) {
+		if (_operatorNameAttributeIndex != -1) {
+			tuple.setString(_operatorNameAttributeIndex, operator);
 		}
+	}
 
+	/**
+	 * Set the text of the log message, which replaces the message of the
+	 * notification.
+	 */
+	public void setMessage(final OutputTuple tuple, final String text) {
 		if (_messageAttributeIndex != -1) {
-			if (notification.getMessage() != null) {
-				attributes.put("message", new RString(notification.getMessage()));
-			}
-			if (null != text) {
-				attributes.put("message", new RString(text));
-			}
+			tuple.setString(_messageAttributeIndex, text);
 		}
+	}
+
+	public void setMessagesSkipped(final OutputTuple tuple, final boolean messagesSkipped) {
 		if (_messagesSkippedAttributeIndex != -1) {
-			attributes.put("messagesSkipped", messagesSkipped);
+			tuple.setBoolean(_messagesSkippedAttributeIndex, messagesSkipped);
 		}
+	}
 
-		return attributes;
-	}		
+	/**
+	 * Determine whether the output schema has an attribute for the key of the
+	 * userData, so the parser can skip the values of the other keys without
+	 * decoding them.
+	 */
+	public boolean isRelevant(final LogUserDataParser.Key key) {
+		switch (key) {
+		case instance:
+			return _instanceIdAttributeIndex != -1;
+		case resource:
+			return _resourceAttributeIndex != -1;
+		case pe:
+			return _peIdAttributeIndex != -1;
+		case job:
+			return _jobIdAttributeIndex != -1;
+		case operator:
+			return _operatorNameAttributeIndex != -1;
+		case text:
+			return _messageAttributeIndex != -1;
+		default:
+			return true;
+		}
+	}
 	
 	
 	/**
-	* Asynchronously submit the tuple to the output port.
+	* Asynchronously submit the tuple to the output port. Log messages are
+	* not coalesced.
 	* @param tuple Tuple to be submitted.
 	*/
 	public void submit(final Tuple tuple) {
-		_context.getScheduledExecutorService().submit(new Callable<Object>() {
-			@Override
-			public Object call() throws Exception {
-				return _port.submit(tuple);
-			}
-		});        
+		_emitter.emit(tuple, null);
 	}	
 
 }
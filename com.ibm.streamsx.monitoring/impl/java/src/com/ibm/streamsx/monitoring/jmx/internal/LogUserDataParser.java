@@ -0,0 +1,453 @@
+//
+// ****************************************************************************
+// * Copyright (C) 2016, International Business Machines Corporation          *
+// * All rights reserved.                                                     *
+// ****************************************************************************
+//
+
+package com.ibm.streamsx.monitoring.jmx.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.Notification;
+
+import com.ibm.streams.operator.OutputTuple;
+
+/**
+ * Converts the userData of an application log notification into tuples in
+ * a single pass, without building a JSON object tree.
+ * <p>
+ * The userData has one of the following shapes:
+ * </p>
+ * <pre>
+ * {"instance":"xxx","resource":"xxx","pe":"1","domain":"xxx","job":"1","operator":"xxx"}
+ * {"messages":[{"instance":"xxx","resource":"xxx","pe":"xx","domain":"xxx","text":"xxx","job":"xx","operator":"xxx","timestamp":1515687171914}],"messagesSkipped":false}
+ * </pre>
+ * <p>
+ * Each element of the messages array becomes a tuple. If there is no
+ * element, the fields of the top-level object become a tuple. The values of
+ * the fields are set in the tuples as soon as they are read, the values of
+ * unknown fields and of fields that the output schema does not have are
+ * skipped without decoding them, and the PE and job ids are parsed as long
+ * values in place.
+ * </p>
+ */
+public final class LogUserDataParser {
+
+	/**
+	 * The fields of the userData.
+	 */
+	public enum Key {
+		instance,
+		resource,
+		pe,
+		job,
+		operator,
+		text,
+		messages,
+		messagesSkipped,
+		other,
+	};
+
+	private static final Key[] KEYS = Key.values();
+
+	private final Notification _notification;
+
+	private final LogTupleContainer _container;
+
+	private final String _json;
+
+	private int _pos = 0;
+
+	private boolean _messagesSkipped = false;
+
+	private final List<OutputTuple> _tuples = new ArrayList<>();
+
+	private LogUserDataParser(Notification notification, String json, LogTupleContainer container) {
+		_notification = notification;
+		_json = json;
+		_container = container;
+	}
+
+	/**
+	 * Convert the userData of the notification into tuples.
+	 *
+	 * @param notification
+	 * The log notification.
+	 *
+	 * @param userData
+	 * The JSON-formatted userData of the notification.
+	 *
+	 * @param container
+	 * The container that creates the tuples and sets their attributes.
+	 *
+	 * @return
+	 * The tuples to be submitted, at least one.
+	 *
+	 * @throws IllegalArgumentException
+	 * The exception is thrown if the userData is not a JSON object.
+	 */
+	public static List<OutputTuple> parse(Notification notification, String userData, LogTupleContainer container) {
+		return new LogUserDataParser(notification, userData, container).parse();
+	}
+
+	private List<OutputTuple> parse() {
+		OutputTuple tuple = _container.newTuple(_notification);
+		skipWhitespace();
+		expect('{');
+		parseObject(tuple, true);
+		skipWhitespace();
+		if (_pos != _json.length()) {
+			throw error("end of userData");
+		}
+		if (_tuples.isEmpty()) {
+			_tuples.add(tuple);
+		}
+		for (OutputTuple t : _tuples) {
+			_container.setMessagesSkipped(t, _messagesSkipped);
+		}
+		return _tuples;
+	}
+
+	/**
+	 * Parse the fields of an object whose opening brace is consumed.
+	 */
+	private void parseObject(OutputTuple tuple, boolean isTopLevel) {
+		skipWhitespace();
+		if (peek() == '}') {
+			_pos++;
+			return;
+		}
+		while (true) {
+			skipWhitespace();
+			Key key = readKey();
+			skipWhitespace();
+			expect(':');
+			skipWhitespace();
+			switch (key) {
+			case messages:
+				if (isTopLevel && peek() == '[') {
+					_pos++;
+					parseMessages();
+				}
+				else {
+					skipValue();
+				}
+				break;
+			case messagesSkipped:
+				if (isTopLevel) {
+					_messagesSkipped = readBoolean();
+				}
+				else {
+					skipValue();
+				}
+				break;
+			case other:
+				skipValue();
+				break;
+			default:
+				if (_container.isRelevant(key)) {
+					setField(tuple, key);
+				}
+				else {
+					skipValue();
+				}
+				break;
+			}
+			skipWhitespace();
+			char c = next();
+			if (c == '}') {
+				return;
+			}
+			if (c != ',') {
+				throw error("',' or '}'");
+			}
+		}
+	}
+
+	/**
+	 * Parse the messages array whose opening bracket is consumed. Each object
+	 * becomes a tuple.
+	 */
+	private void parseMessages() {
+		skipWhitespace();
+		if (peek() == ']') {
+			_pos++;
+			return;
+		}
+		while (true) {
+			skipWhitespace();
+			if (peek() == '{') {
+				_pos++;
+				OutputTuple tuple = _container.newTuple(_notification);
+				parseObject(tuple, false);
+				_tuples.add(tuple);
+			}
+			else {
+				skipValue();
+			}
+			skipWhitespace();
+			char c = next();
+			if (c == ']') {
+				return;
+			}
+			if (c != ',') {
+				throw error("',' or ']'");
+			}
+		}
+	}
+
+	private void setField(OutputTuple tuple, Key key) {
+		switch (key) {
+		case pe:
+			_container.setPeId(tuple, readLong());
+			break;
+		case job:
+			_container.setJobId(tuple, readLong());
+			break;
+		default:
+			String value = readString();
+			if (value == null) {
+				break;
+			}
+			if (key == Key.instance) {
+				_container.setInstanceId(tuple, value);
+			}
+			else if (key == Key.resource) {
+				_container.setResource(tuple, value);
+			}
+			else if (key == Key.operator) {
+				_container.setOperatorName(tuple, value);
+			}
+			else if (key == Key.text) {
+				_container.setMessage(tuple, value);
+			}
+			break;
+		}
+	}
+
+	/**
+	 * Read a field name and map it to its key without creating a string, if
+	 * the name does not contain escape sequences.
+	 */
+	private Key readKey() {
+		if (peek() != '"') {
+			throw error("field name");
+		}
+		int start = _pos + 1;
+		int end = start;
+		while (end < _json.length() && _json.charAt(end) != '"' && _json.charAt(end) != '\\') {
+			end++;
+		}
+		if (end < _json.length() && _json.charAt(end) == '"') {
+			_pos = end + 1;
+			int length = end - start;
+			for (Key key : KEYS) {
+				if (key != Key.other && key.name().length() == length && _json.regionMatches(start, key.name(), 0, length)) {
+					return key;
+				}
+			}
+			return Key.other;
+		}
+		String name = readString();
+		for (Key key : KEYS) {
+			if (key != Key.other && key.name().equals(name)) {
+				return key;
+			}
+		}
+		return Key.other;
+	}
+
+	/**
+	 * Read a string value, or skip the value and return null if it is not a
+	 * string.
+	 */
+	private String readString() {
+		if (peek() != '"') {
+			skipValue();
+			return null;
+		}
+		int start = ++_pos;
+		int end = start;
+		while (end < _json.length() && _json.charAt(end) != '"' && _json.charAt(end) != '\\') {
+			end++;
+		}
+		if (end >= _json.length()) {
+			throw error("end of string");
+		}
+		if (_json.charAt(end) == '"') {
+			_pos = end + 1;
+			return _json.substring(start, end);
+		}
+		// Decode the escape sequences.
+		StringBuilder sb = new StringBuilder(end - start + 16);
+		sb.append(_json, start, end);
+		_pos = end;
+		while (true) {
+			char c = next();
+			if (c == '"') {
+				return sb.toString();
+			}
+			if (c != '\\') {
+				sb.append(c);
+				continue;
+			}
+			c = next();
+			switch (c) {
+			case 'b':
+				sb.append('\b');
+				break;
+			case 'f':
+				sb.append('\f');
+				break;
+			case 'n':
+				sb.append('\n');
+				break;
+			case 'r':
+				sb.append('\r');
+				break;
+			case 't':
+				sb.append('\t');
+				break;
+			case 'u':
+				if (_pos + 4 > _json.length()) {
+					throw error("unicode escape sequence");
+				}
+				try {
+					sb.append((char)Integer.parseInt(_json.substring(_pos, _pos + 4), 16));
+				}
+				catch (NumberFormatException e) {
+					throw error("unicode escape sequence");
+				}
+				_pos += 4;
+				break;
+			default:
+				sb.append(c);
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Read an integer that is specified either as number or as string.
+	 */
+	private long readLong() {
+		boolean isQuoted = (peek() == '"');
+		if (isQuoted) {
+			_pos++;
+		}
+		boolean isNegative = (peek() == '-');
+		if (isNegative) {
+			_pos++;
+		}
+		int start = _pos;
+		long value = 0;
+		while (_pos < _json.length() && _json.charAt(_pos) >= '0' && _json.charAt(_pos) <= '9') {
+			value = value * 10 + (_json.charAt(_pos) - '0');
+			_pos++;
+		}
+		if (_pos == start) {
+			throw error("integer");
+		}
+		if (isQuoted) {
+			expect('"');
+		}
+		return isNegative ? -value : value;
+	}
+
+	/**
+	 * Read a boolean that is specified either as literal or as string.
+	 */
+	private boolean readBoolean() {
+		if (peek() == '"') {
+			return "true".equalsIgnoreCase(readString());
+		}
+		if (_json.startsWith("true", _pos)) {
+			_pos += 4;
+			return true;
+		}
+		skipValue();
+		return false;
+	}
+
+	/**
+	 * Skip a value of any type without decoding it.
+	 */
+	private void skipValue() {
+		char c = peek();
+		if (c == '"') {
+			skipString();
+		}
+		else if (c == '{' || c == '[') {
+			int depth = 0;
+			do {
+				c = peek();
+				if (c == '"') {
+					skipString();
+					continue;
+				}
+				if (c == '{' || c == '[') {
+					depth++;
+				}
+				else if (c == '}' || c == ']') {
+					depth--;
+				}
+				_pos++;
+			} while (depth > 0);
+		}
+		else {
+			int start = _pos;
+			while (_pos < _json.length() && ",}] \t\r\n".indexOf(_json.charAt(_pos)) == -1) {
+				_pos++;
+			}
+			if (_pos == start) {
+				throw error("value");
+			}
+		}
+	}
+
+	private void skipString() {
+		_pos++;
+		while (true) {
+			char c = next();
+			if (c == '"') {
+				return;
+			}
+			if (c == '\\') {
+				_pos++;
+			}
+		}
+	}
+
+	private void skipWhitespace() {
+		while (_pos < _json.length() && Character.isWhitespace(_json.charAt(_pos))) {
+			_pos++;
+		}
+	}
+
+	private char peek() {
+		if (_pos >= _json.length()) {
+			throw error("more characters");
+		}
+		return _json.charAt(_pos);
+	}
+
+	private char next() {
+		char c = peek();
+		_pos++;
+		return c;
+	}
+
+	private void expect(char expected) {
+		if (next() != expected) {
+			_pos--;
+			throw error("'" + expected + "'");
+		}
+	}
+
+	private IllegalArgumentException error(String expected) {
+		return new IllegalArgumentException("Invalid userData of log notification: expected " + expected + " at position " + _pos);
+	}
+
+}
@@ -11,9 +11,16 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.log4j.Logger;
 
 import com.ibm.streams.management.Metric;
+import com.ibm.streams.management.MetricMetadata;
+import com.ibm.streams.management.MetricMetadata.Kind;
 import com.ibm.streamsx.monitoring.jmx.OperatorConfiguration;
+import com.ibm.streamsx.monitoring.jmx.internal.filters.MetricEmission;
 
 /**
  * Operators and input and output ports own metrics. By deriving from this
@@ -21,6 +28,11 @@ import com.ibm.streamsx.monitoring.jmx.OperatorConfiguration;
  */
 abstract class MetricOwningHandler {
 
+	/**
+	 * Logger for tracing.
+	 */
+	private static Logger _trace = Logger.getLogger(MetricOwningHandler.class.getName());
+
 	/**
 	 * Modes to specify how metrics are registered for capturing:
 	 * 
@@ -51,6 +63,13 @@ abstract class MetricOwningHandler {
 	 */
 	protected OperatorConfiguration _operatorConfiguration = null;
 
+	/**
+	 * The tuple container of this handler. Its tuple is created from the
+	 * tuple of the parent handler, so the instance-, job-, operator-, and
+	 * port-relevant tuple attributes are set only once.
+	 */
+	protected MetricsTupleContainer _tupleContainer = null;
+
 	/**
 	 * Specifies whether the metrics are registered immediately as soon as the
 	 * JMX operator or port MxBean is accessible (InitialMetricsRegistration),
@@ -62,9 +81,10 @@ abstract class MetricOwningHandler {
 	private MetricsRegistrationMode _metricsRegistrationMode = MetricsRegistrationMode.InitialMetricsRegistration;
 
 	/**
-	 * This map holds all metrics that are captured.
+	 * This table holds all metrics that are captured, and the IDs of their
+	 * series in the metric state store.
 	 */
-	private Map<String /* metric name */, IMetricEvaluator> _capturedMetrics = new HashMap<>();
+	private MetricSeriesTable _capturedMetrics = new MetricSeriesTable();
 	
 	/**
 	 * This set holds, in DynamicMetricsRegistration mode, all metric names 
@@ -74,6 +94,45 @@ abstract class MetricOwningHandler {
 	 */
 	private Set<String /* metric name */> _ignoredMetrics = new HashSet<>();
 
+	/**
+	 * This map holds, if the metrics are taken from a snapshot, the kind and
+	 * type of the metrics, which are learned from the metrics that are
+	 * retrieved via the MXBean. The snapshot does not necessarily provide them.
+	 */
+	private Map<String /* metric name */, MetricMetadata> _metricMetadata = null;
+
+	/**
+	 * The metrics retrieval that is in flight, if the JMX call engine is
+	 * configured.
+	 */
+	private JmxCallEngine.PendingCall<Set<Metric>> _pendingMetrics = null;
+
+	/**
+	 * The period in milliseconds after which the metrics are retrieved
+	 * again, as specified in the filter document. The value 0 specifies that
+	 * the metrics are retrieved in every scan cycle.
+	 */
+	private long _scanPeriod = 0;
+
+	/**
+	 * The time of the scan cycle that retrieved the metrics the last time,
+	 * or -1 if the metrics were not retrieved yet.
+	 */
+	private long _lastScanTime = -1;
+
+	/**
+	 * Cleared if the filters cannot match any metric of the parent object.
+	 * In this case, the metrics are neither retrieved nor evaluated.
+	 */
+	private boolean _mayMatchMetrics = true;
+
+	/**
+	 * Set if the parent object was removed from the job topology. A closed
+	 * handler that is still referenced by a running scan does not access
+	 * its MXBean anymore.
+	 */
+	private volatile boolean _isClosed = false;
+
 	/**
 	 * 
 	 * @param metricsRegistrationMode
@@ -84,25 +143,75 @@ abstract class MetricOwningHandler {
 		_metricsRegistrationMode = metricsRegistrationMode;
 	}
 	
+	/**
+	 * Stop accessing the MXBean of the parent object. Subclasses that hold
+	 * notification listeners or child handlers release them as well.
+	 */
+	public void close() throws Exception {
+		releaseAll();
+	}
+
+	/**
+	 * Stop accessing the MXBean of the parent object and release the state
+	 * of all captured metrics, without any remote call. This is used if the
+	 * parent object is gone, so its MXBean cannot be accessed anymore.
+	 * Subclasses with child handlers release them as well.
+	 */
+	public void releaseAll() {
+		_isClosed = true;
+		if (_pendingMetrics != null) {
+			_pendingMetrics.cancel();
+			_pendingMetrics = null;
+		}
+		releaseSeries();
+	}
+
+	/**
+	 * Release the state of all captured metrics. The evaluation of a running
+	 * scan is synchronized with this method, so the released IDs are not
+	 * written anymore after they are reused.
+	 */
+	private synchronized void releaseSeries() {
+		MetricStateStore state = _operatorConfiguration.get_metricStateStore();
+		for (int id : _capturedMetrics.ids()) {
+			state.release(id);
+		}
+		_capturedMetrics.clear();
+	}
+
+	/**
+	 * Get the tuple container whose tuple is the template of this object.
+	 * The instance-, job-, operator-, PE-, port-, and connection-relevant
+	 * attributes are set once when the handler is created.
+	 */
+	MetricsTupleContainer getTupleContainer() {
+		return _tupleContainer;
+	}
+
 	/**
 	 * Set the metric-relevant tuple attributes and submit the tuple.
 	 * All other instance-, job-, operator-, port-relevant
-	 * tuple attributes are already set.
+	 * tuple attributes are already set in the tuple template of this object.
 	 * 
 	 * @param metric
 	 * The JMX metric object that holds the metric-relevant information.
 	 * 
+	 * @param rate
+	 * The per-second rate of a counter metric, or a negative value if the
+	 * rate is not known.
+	 * 
 	 * @throws Exception
 	 * The exception is thrown if submitting the tuple fails.
 	 */
-	protected void submitMetric(Metric metric) throws Exception {
-		MetricsTupleContainer tc = _operatorConfiguration.get_tupleContainerMetricsSource(); 
+	protected void submitMetric(Metric metric, double rate) throws Exception {
+		MetricsTupleContainer tc = _tupleContainer;
+		tc.setMetricRate(rate);
 		tc.setMetricType(metric.getMetricType());
 		tc.setMetricKind(metric.getMetricKind());
 		tc.setMetricName(metric.getName());
 		tc.setMetricValue(metric.getValueAsLong());
 		tc.setLastTimeRetrieved(metric.getLastTimeRetrieved());
-		tc.submit();
+		tc.submitMetric();
 	}
 
 	/**
@@ -117,6 +226,26 @@ abstract class MetricOwningHandler {
 	 * True if the metric is relevant and shall be captured, else false.
 	 */
 	protected abstract boolean isRelevantMetric(String metricName);
+
+	/**
+	 * Get the emission settings that the filters specify for a relevant
+	 * metric.
+	 * 
+	 * @param metricName
+	 * Specifies the metric name that is evaluated.
+	 * 
+	 * @return
+	 * The emission settings, or null if the operator parameters apply.
+	 */
+	protected abstract MetricEmission getMetricEmission(String metricName);
+
+	/**
+	 * Get the evaluator that decides whether a tuple is emitted for the
+	 * metric.
+	 */
+	private IMetricEvaluator getMetricEvaluator(String metricName) {
+		return _operatorConfiguration.get_metricEvaluator(getMetricEmission(metricName));
+	}
 	
 	/**
 	 * Retrieve the metrics using the metrics' parent object, for example,
@@ -126,48 +255,295 @@ abstract class MetricOwningHandler {
 	 * The retrieved metrics.
 	 */
 	protected abstract Set<Metric> retrieveMetrics();
+
+	/**
+	 * Look up the metrics of the metrics' parent object in the given
+	 * snapshot of the job metrics.
+	 * 
+	 * @return
+	 * The metrics, or null if the snapshot does not contain the parent object.
+	 */
+	protected abstract Set<Metric> lookupMetrics(MetricsSnapshot snapshot);
+
+	/**
+	 * Set the period after which the metrics are retrieved again.
+	 * 
+	 * @param scanPeriod
+	 * The period in seconds, or 0.0 to retrieve the metrics in every scan
+	 * cycle.
+	 */
+	protected void setScanPeriod(double scanPeriod) {
+		_scanPeriod = (long)(scanPeriod * 1000.0);
+	}
+
+	/**
+	 * Specify whether the filters can match any metric of the parent object.
+	 * 
+	 * @param mayMatchMetrics
+	 * False if the filters do not specify metric patterns for the parent
+	 * object, so retrieving its metrics can be skipped.
+	 */
+	protected void setMayMatchMetrics(boolean mayMatchMetrics) {
+		_mayMatchMetrics = mayMatchMetrics;
+	}
+
+	/**
+	 * Determine whether the metrics are due in the current scan cycle. If
+	 * not, the metrics are neither retrieved nor evaluated.
+	 */
+	protected boolean isScanDue() {
+		if (_isClosed || !_mayMatchMetrics) {
+			return false;
+		}
+		if (_scanPeriod == 0 || _lastScanTime < 0) {
+			return true;
+		}
+		return (_operatorConfiguration.get_scanTime() - _lastScanTime) >= _scanPeriod;
+	}
+
+	/**
+	 * Call a method of a remote MXBean. If the JMX call engine is configured,
+	 * the call is subject to its timeout.
+	 * 
+	 * @throws TimeoutException
+	 * Throws if the call did not complete in time.
+	 */
+	protected <T> T invoke(Callable<T> call) throws Exception {
+		JmxCallEngine engine = _operatorConfiguration.get_jmxCallEngine();
+		return (engine != null) ? engine.call(call) : call.call();
+	}
+
+	/**
+	 * Take the metrics from the snapshot if it contains all information that
+	 * is required.
+	 * 
+	 * @return
+	 * The metrics, or null if the snapshot cannot provide them.
+	 */
+	private Set<Metric> takeMetrics(MetricsSnapshot snapshot) {
+		if (snapshot == null) {
+			return null;
+		}
+		if (_metricMetadata == null) {
+			_metricMetadata = new HashMap<>();
+		}
+		Set<Metric> metrics = lookupMetrics(snapshot);
+		if (metrics == null) {
+			return null;
+		}
+		Set<Metric> result = new HashSet<>();
+		for (Metric metric : metrics) {
+			if (((RetrievedMetric)metric).isMetadataComplete()) {
+				result.add(metric);
+			}
+			else if (_metricMetadata.containsKey(metric.getName())) {
+				result.add(new RetrievedMetric(metric, _metricMetadata.get(metric.getName())));
+			}
+			else {
+				// Unknown metric, learn its kind and type from the MXBean.
+				return null;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Start retrieving the metrics without waiting for the result, if the JMX
+	 * call engine is configured and the snapshot cannot provide them. This
+	 * way, the requests of all handlers of a job are in flight at the same
+	 * time. The result is picked up by {@link #captureAndSubmitChangedMetrics}.
+	 * 
+	 * @param snapshot
+	 * The snapshot of the job metrics, or null if metrics are not retrieved
+	 * in batches.
+	 */
+	protected void requestMetrics(MetricsSnapshot snapshot) {
+		JmxCallEngine engine = _operatorConfiguration.get_jmxCallEngine();
+		if (engine == null) {
+			return;
+		}
+		if (_pendingMetrics != null) {
+			// The result of a previous request was not picked up.
+			_pendingMetrics.cancel();
+			_pendingMetrics = null;
+		}
+		if (_metricsRegistrationMode.equals(MetricsRegistrationMode.InitialMetricsRegistration) && _capturedMetrics.size() == 0) {
+			return;
+		}
+		if (!isScanDue()) {
+			return;
+		}
+		if (takeMetrics(snapshot) == null) {
+			_pendingMetrics = engine.submit(new Callable<Set<Metric>>() {
+				@Override
+				public Set<Metric> call() throws Exception {
+					return retrieveMetrics();
+				}
+			});
+		}
+	}
+
+	/**
+	 * Take the metrics from the snapshot if it contains all information that
+	 * is required, otherwise retrieve them using the metrics' parent object.
+	 * 
+	 * @param snapshot
+	 * The snapshot of the job metrics, or null if metrics are not retrieved
+	 * in batches.
+	 * 
+	 * @return
+	 * The retrieved metrics, or null if the retrieval timed out.
+	 */
+	private Set<Metric> retrieveMetrics(MetricsSnapshot snapshot) throws Exception {
+		Set<Metric> metrics = takeMetrics(snapshot);
+		if (metrics != null) {
+			return metrics;
+		}
+		JmxCallEngine.PendingCall<Set<Metric>> pendingMetrics = _pendingMetrics;
+		_pendingMetrics = null;
+		try {
+			if (pendingMetrics != null) {
+				metrics = _operatorConfiguration.get_jmxCallEngine().get(pendingMetrics);
+			}
+			else {
+				metrics = invoke(new Callable<Set<Metric>>() {
+					@Override
+					public Set<Metric> call() throws Exception {
+						return retrieveMetrics();
+					}
+				});
+			}
+		}
+		catch (TimeoutException e) {
+			/*
+			 * Skip this handler in this scan cycle. The other handlers and
+			 * the connection are not affected.
+			 */
+			_trace.warn("Skip the metrics of the " + this + " in this scan cycle: " + e.getMessage());
+			return null;
+		}
+		if (snapshot != null) {
+			for (Metric metric : metrics) {
+				if (!_metricMetadata.containsKey(metric.getName())) {
+					_metricMetadata.put(metric.getName(), new RetrievedMetric(metric.getName(), metric.getMetricKind(), metric.getMetricType(), 0, 0));
+				}
+			}
+		}
+		return metrics;
+	}
 	
 	/**
 	 * In case of InitialMetricsRegistration mode, retrieve the metrics while
 	 * constructing a class object and register all relevant metrics.
 	 */
 	protected void registerMetrics() {
-		if (_metricsRegistrationMode.equals(MetricsRegistrationMode.InitialMetricsRegistration)) {
+		if (_metricsRegistrationMode.equals(MetricsRegistrationMode.InitialMetricsRegistration) && _mayMatchMetrics) {
 			Set<Metric> metrics = retrieveMetrics();
-			for(Metric metric: metrics) {
-				String metricName = metric.getName();
-				if (isRelevantMetric(metricName)) {
-					_capturedMetrics.put(metricName, _operatorConfiguration.newDefaultMetricEvaluator());
+			synchronized (this) {
+				if (_isClosed) {
+					return;
+				}
+				for(Metric metric: metrics) {
+					String metricName = metric.getName();
+					if (_capturedMetrics.find(metricName) == MetricSeriesTable.NO_SLOT && isRelevantMetric(metricName)) {
+						_capturedMetrics.put(metricName, _operatorConfiguration.get_metricStateStore().allocate(), getMetricEvaluator(metricName));
+					}
 				}
 			}
 		}
 	}
+
+	/**
+	 * Evaluate the captured metrics again after the filters changed. Metrics
+	 * that do not match the filters anymore are dropped. The remaining
+	 * metrics get the evaluators of the changed emission settings and keep
+	 * their state, so unchanged values are not
+	 * submitted again. The ignored metrics are evaluated again in the next
+	 * scan cycle.
+	 * 
+	 * @param scanPeriod
+	 * The scan period in seconds that the filters specify for the parent
+	 * object.
+	 */
+	protected void reevaluateMetrics(double scanPeriod) {
+		setScanPeriod(scanPeriod);
+		synchronized (this) {
+			MetricStateStore state = _operatorConfiguration.get_metricStateStore();
+			for (String metricName : _capturedMetrics.names()) {
+				if (!isRelevantMetric(metricName)) {
+					state.release(_capturedMetrics.remove(metricName));
+				}
+				else {
+					_capturedMetrics.setEvaluator(_capturedMetrics.find(metricName), getMetricEvaluator(metricName));
+				}
+			}
+			_ignoredMetrics.clear();
+		}
+		registerMetrics();
+	}
 	
 	/**
 	 * Retrieve metrics, depending on the registration mode evaluate which
 	 * metrics are relevant, and submit tuples for changed metric values.
 	 * 
+	 * @param snapshot
+	 * The snapshot of the job metrics, or null if metrics are not retrieved
+	 * in batches.
+	 * 
 	 * @throws Exception
 	 * Throws Exception if submitting the tuple fails. 
 	 */
-	protected void captureAndSubmitChangedMetrics() throws Exception {
+	protected void captureAndSubmitChangedMetrics(MetricsSnapshot snapshot) throws Exception {
+		try {
+			captureChangedMetrics(snapshot);
+		}
+		catch (Exception e) {
+			_tupleContainer.discardBatchedMetrics();
+			throw e;
+		}
+		/*
+		 * If the output schema batches the metrics, all changed metrics of
+		 * this object are submitted with one tuple.
+		 */
+		_tupleContainer.submitBatchedMetrics();
+	}
+
+	/**
+	 * Retrieve the metrics and submit the changed ones, either as tuples of
+	 * their own or into the batch of the tuple container.
+	 */
+	private void captureChangedMetrics(MetricsSnapshot snapshot) throws Exception {
+		if (!isScanDue()) {
+			return;
+		}
+		_lastScanTime = _operatorConfiguration.get_scanTime();
 		if (_metricsRegistrationMode.equals(MetricsRegistrationMode.InitialMetricsRegistration)) {
 			/*
 			 * Registration happened once while setting up the parent object.
 			 * If there are no relevant metrics, return immediately.
 			 */
 			if(_capturedMetrics.size() > 0) {
-				Set<Metric> metrics = retrieveMetrics();
-				for (Metric metric : metrics) {
-					String metricName = metric.getName();
-					if (_capturedMetrics.containsKey(metricName)) {
-						IMetricEvaluator evaluator = _capturedMetrics.get(metricName);
-						if (evaluator.isSubmittable(metric)) {
-							evaluator.updateStatus(metric);
-							submitMetric(metric);
+				Set<Metric> metrics = retrieveMetrics(snapshot);
+				if (metrics == null) {
+					return;
+				}
+				long nEvaluated = 0;
+				long nChanged = 0;
+				synchronized (this) {
+					if (_isClosed) {
+						return;
+					}
+					for (Metric metric : metrics) {
+						int slot = _capturedMetrics.find(metric.getName());
+						if (slot != MetricSeriesTable.NO_SLOT) {
+							nEvaluated++;
+							if (submitChangedMetric(_capturedMetrics.evaluator(slot), _capturedMetrics.id(slot), metric)) {
+								nChanged++;
+							}
 						}
 					}
 				}
+				_operatorConfiguration.get_scanStatistics().add(nEvaluated, nChanged);
 			}
 		}
 		else {
@@ -177,7 +553,7 @@ abstract class MetricOwningHandler {
 			 */
 			Set<Metric> metrics;
 			try {
-				metrics = retrieveMetrics();
+				metrics = retrieveMetrics(snapshot);
 			} catch (NullPointerException e) {
 				/*
 				 * This error pops up, occasionally, when trying to access metrics 
@@ -186,6 +562,9 @@ abstract class MetricOwningHandler {
 				 */
 				return;
 			}
+			if (metrics == null) {
+				return;
+			}
 			/*
 			 * This solution is required for metrics that do not exist as soon
 			 * as the parent object exists, for example:
@@ -209,40 +588,96 @@ abstract class MetricOwningHandler {
 			 * before, check whether it is either in the _capturedCustomMetrics map
 			 * or the _uncapturedCustomMetrics set, and act accordingly.
 			 */
-			for (Metric metric : metrics) {
-				String metricName = metric.getName();
-				/*
-				 * Metric shall be captured.
-				 */
-				if (_capturedMetrics.containsKey(metricName)) {
-					IMetricEvaluator evaluator = _capturedMetrics.get(metricName);
-					if (evaluator.isSubmittable(metric)) {
-						evaluator.updateStatus(metric);
-						submitMetric(metric);
-					}
+			long nEvaluated = 0;
+			long nChanged = 0;
+			synchronized (this) {
+				if (_isClosed) {
+					return;
 				}
-				/*
-				 * Metric shall be ignored.
-				 */
-				else if (_ignoredMetrics.contains(metricName)) {
-					// Ignore this metric because it does not match the filters.
-				}
-				/*
-				 * Decide whether the metric shall be captured or ignored.
-				 */
-				else if(isRelevantMetric(metricName)) {
-					IMetricEvaluator evaluator = _operatorConfiguration.newDefaultMetricEvaluator();
-					_capturedMetrics.put(metricName, evaluator);
-					if (evaluator.isSubmittable(metric)) {
-						evaluator.updateStatus(metric);
-						submitMetric(metric);
+				for (Metric metric : metrics) {
+					String metricName = metric.getName();
+					int slot = _capturedMetrics.find(metricName);
+					/*
+					 * Metric shall be captured.
+					 */
+					if (slot != MetricSeriesTable.NO_SLOT) {
+						nEvaluated++;
+						if (submitChangedMetric(_capturedMetrics.evaluator(slot), _capturedMetrics.id(slot), metric)) {
+							nChanged++;
+						}
+					}
+					/*
+					 * Metric shall be ignored.
+					 */
+					else if (_ignoredMetrics.contains(metricName)) {
+						// Ignore this metric because it does not match the filters.
+					}
+					/*
+					 * Decide whether the metric shall be captured or ignored.
+					 */
+					else if(isRelevantMetric(metricName)) {
+						int id = _operatorConfiguration.get_metricStateStore().allocate();
+						IMetricEvaluator evaluator = getMetricEvaluator(metricName);
+						_capturedMetrics.put(metricName, id, evaluator);
+						nEvaluated++;
+						if (submitChangedMetric(evaluator, id, metric)) {
+							nChanged++;
+						}
+					}
+					else {
+						_ignoredMetrics.add(metricName);
 					}
-				}
-				else {
-					_ignoredMetrics.add(metricName);
 				}
 			}
+			_operatorConfiguration.get_scanStatistics().add(nEvaluated, nChanged);
+		}
+	}
+
+	/**
+	 * Derive the per-second rate of a counter metric from the previous and
+	 * the current sample. The rate is not known for the first sample, and
+	 * after the counter was reset, for example, because the PE restarted.
+	 * If the PE did not refresh the metric since the previous sample, the
+	 * previous rate is kept.
+	 * 
+	 * @return
+	 * The rate, or {@link MetricStateStore#NO_RATE}.
+	 */
+	private static double deriveRate(MetricStateStore state, int id, Metric metric) {
+		if (metric.getMetricKind() != Kind.COUNTER) {
+			return MetricStateStore.NO_RATE;
+		}
+		long value = metric.getValueAsLong();
+		long time = metric.getLastTimeRetrieved();
+		long sampleTime = state.getSampleTime(id);
+		if (time == sampleTime) {
+			return state.getRate(id);
+		}
+		double rate = MetricStateStore.NO_RATE;
+		long sampleValue = state.getSampleValue(id);
+		if (sampleTime != MetricStateStore.NO_TIME && sampleTime > 0 && time > sampleTime && value >= sampleValue) {
+			rate = (value - sampleValue) * 1000.0 / (time - sampleTime);
+		}
+		state.updateSample(id, value, time, rate);
+		return rate;
+	}
+
+	/**
+	 * Submit the metric if the evaluator considers it as changed.
+	 * 
+	 * @return
+	 * True if the metric is submitted.
+	 */
+	private boolean submitChangedMetric(IMetricEvaluator evaluator, int id, Metric metric) throws Exception {
+		MetricStateStore state = _operatorConfiguration.get_metricStateStore();
+		long time = _operatorConfiguration.get_scanTime();
+		double rate = state.keepsSamples() ? deriveRate(state, id, metric) : MetricStateStore.NO_RATE;
+		if (evaluator.isSubmittable(metric, state, id, time)) {
+			evaluator.updateStatus(metric, state, id, time);
+			submitMetric(metric, rate);
+			return true;
 		}
+		return false;
 	}
 	
 }
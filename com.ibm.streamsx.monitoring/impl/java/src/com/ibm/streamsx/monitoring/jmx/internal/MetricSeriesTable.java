@@ -0,0 +1,180 @@
+//
+// ****************************************************************************
+// * Copyright (C) 2016, International Business Machines Corporation          *
+// * All rights reserved.                                                     *
+// ****************************************************************************
+//
+
+package com.ibm.streamsx.monitoring.jmx.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maps the names of the captured metrics of a handler to the IDs of their
+ * series in the {@link MetricStateStore} and to their evaluators. The table
+ * uses open addressing with linear probing in parallel arrays, so an entry
+ * does not need an object of its own. The metric names are interned
+ * because the same names are used by many operators, PEs, and ports.
+ */
+final class MetricSeriesTable {
+
+	/**
+	 * The ID that {@link #remove} returns for unknown metric names.
+	 */
+	static final int NO_ID = -1;
+
+	/**
+	 * The slot that {@link #find} returns for unknown metric names.
+	 */
+	static final int NO_SLOT = -1;
+
+	private String[] _names = new String[8];
+
+	private int[] _ids = new int[8];
+
+	private IMetricEvaluator[] _evaluators = new IMetricEvaluator[8];
+
+	private int _size = 0;
+
+	int size() {
+		return _size;
+	}
+
+	/**
+	 * Get the slot of the metric, or {@link #NO_SLOT}. The slot is valid
+	 * until the table is modified.
+	 */
+	int find(String name) {
+		int mask = _names.length - 1;
+		for (int i = name.hashCode() & mask; _names[i] != null; i = (i + 1) & mask) {
+			if (_names[i].equals(name)) {
+				return i;
+			}
+		}
+		return NO_SLOT;
+	}
+
+	/**
+	 * Get the series ID of the metric in the given slot.
+	 */
+	int id(int slot) {
+		return _ids[slot];
+	}
+
+	/**
+	 * Get the evaluator of the metric in the given slot.
+	 */
+	IMetricEvaluator evaluator(int slot) {
+		return _evaluators[slot];
+	}
+
+	void setEvaluator(int slot, IMetricEvaluator evaluator) {
+		_evaluators[slot] = evaluator;
+	}
+
+	/**
+	 * Add a metric that is not contained yet.
+	 */
+	void put(String name, int id, IMetricEvaluator evaluator) {
+		if (2 * (_size + 1) > _names.length) {
+			resize(_names.length * 2);
+		}
+		insert(name.intern(), id, evaluator);
+		_size++;
+	}
+
+	/**
+	 * Remove the metric.
+	 *
+	 * @return
+	 * The series ID of the removed metric, or {@link #NO_ID}.
+	 */
+	int remove(String name) {
+		int mask = _names.length - 1;
+		int i = name.hashCode() & mask;
+		while (_names[i] != null && !_names[i].equals(name)) {
+			i = (i + 1) & mask;
+		}
+		if (_names[i] == null) {
+			return NO_ID;
+		}
+		int id = _ids[i];
+		_names[i] = null;
+		_evaluators[i] = null;
+		_size--;
+		// Move the following entries of the probe sequence into the gap.
+		for (int j = (i + 1) & mask; _names[j] != null; j = (j + 1) & mask) {
+			int home = _names[j].hashCode() & mask;
+			if (((j - home) & mask) >= ((j - i) & mask)) {
+				_names[i] = _names[j];
+				_ids[i] = _ids[j];
+				_evaluators[i] = _evaluators[j];
+				_names[j] = null;
+				_evaluators[j] = null;
+				i = j;
+			}
+		}
+		return id;
+	}
+
+	/**
+	 * Get the names of all metrics.
+	 */
+	List<String> names() {
+		List<String> names = new ArrayList<>(_size);
+		for (String name : _names) {
+			if (name != null) {
+				names.add(name);
+			}
+		}
+		return names;
+	}
+
+	/**
+	 * Get the series IDs of all metrics.
+	 */
+	int[] ids() {
+		int[] ids = new int[_size];
+		int n = 0;
+		for (int i = 0; i < _names.length; i++) {
+			if (_names[i] != null) {
+				ids[n++] = _ids[i];
+			}
+		}
+		return ids;
+	}
+
+	void clear() {
+		_names = new String[8];
+		_ids = new int[8];
+		_evaluators = new IMetricEvaluator[8];
+		_size = 0;
+	}
+
+	private void insert(String name, int id, IMetricEvaluator evaluator) {
+		int mask = _names.length - 1;
+		int i = name.hashCode() & mask;
+		while (_names[i] != null) {
+			i = (i + 1) & mask;
+		}
+		_names[i] = name;
+		_ids[i] = id;
+		_evaluators[i] = evaluator;
+	}
+
+	private void resize(int capacity) {
+		String[] names = _names;
+		int[] ids = _ids;
+		IMetricEvaluator[] evaluators = _evaluators;
+		_names = new String[capacity];
+		_ids = new int[capacity];
+		_evaluators = new IMetricEvaluator[capacity];
+		for (int i = 0; i < names.length; i++) {
+			if (names[i] != null) {
+				insert(names[i], ids[i], evaluators[i]);
+			}
+		}
+	}
+
+}
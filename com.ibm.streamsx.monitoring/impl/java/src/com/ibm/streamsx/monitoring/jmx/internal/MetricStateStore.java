@@ -0,0 +1,288 @@
+//
+// ****************************************************************************
+// * Copyright (C) 2016, International Business Machines Corporation          *
+// * All rights reserved.                                                     *
+// ****************************************************************************
+//
+
+package com.ibm.streamsx.monitoring.jmx.internal;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * Holds the change detection state of all monitored metric series in
+ * primitive columns, instead of one evaluator object per series.
+ * <p>
+ * Each series gets a dense integer ID. The last submitted value and the
+ * time of the last submission are stored at this position in two long
+ * columns. The columns consist of fixed-size chunks, so they grow without
+ * copying the stored values, and the chunks are either long arrays on the
+ * heap or direct buffers outside of the heap. The IDs of released series
+ * are reused. This way, a series needs 16 bytes of state.
+ * </p><p>
+ * If counter rates are derived, three further columns hold the value and
+ * the retrieval time of the last sample and the last derived rate, because
+ * a rate is derived from consecutive samples, which are not necessarily
+ * submitted.
+ * </p><p>
+ * A series is read and written only by the handler that allocated it,
+ * while allocating and releasing IDs is synchronized.
+ * </p>
+ */
+public class MetricStateStore {
+
+	/**
+	 * The time that marks a series whose value was not submitted yet.
+	 */
+	public static final long NO_TIME = Long.MIN_VALUE;
+
+	/**
+	 * The rate that marks a series whose rate is not known.
+	 */
+	public static final double NO_RATE = -1.0;
+
+	private static final int CHUNK_SHIFT = 12;
+
+	private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	/**
+	 * A column of long values.
+	 */
+	private static abstract class Column {
+
+		abstract long get(int id);
+
+		abstract void set(int id, long value);
+
+		abstract void grow(int nChunks);
+	}
+
+	private static class HeapColumn extends Column {
+
+		private volatile long[][] _chunks = new long[0][];
+
+		@Override
+		long get(int id) {
+			return _chunks[id >>> CHUNK_SHIFT][id & CHUNK_MASK];
+		}
+
+		@Override
+		void set(int id, long value) {
+			_chunks[id >>> CHUNK_SHIFT][id & CHUNK_MASK] = value;
+		}
+
+		@Override
+		void grow(int nChunks) {
+			long[][] chunks = Arrays.copyOf(_chunks, nChunks);
+			for (int i = _chunks.length; i < nChunks; i++) {
+				chunks[i] = new long[CHUNK_SIZE];
+			}
+			_chunks = chunks;
+		}
+	}
+
+	private static class OffHeapColumn extends Column {
+
+		private volatile LongBuffer[] _chunks = new LongBuffer[0];
+
+		@Override
+		long get(int id) {
+			return _chunks[id >>> CHUNK_SHIFT].get(id & CHUNK_MASK);
+		}
+
+		@Override
+		void set(int id, long value) {
+			_chunks[id >>> CHUNK_SHIFT].put(id & CHUNK_MASK, value);
+		}
+
+		@Override
+		void grow(int nChunks) {
+			LongBuffer[] chunks = Arrays.copyOf(_chunks, nChunks);
+			for (int i = _chunks.length; i < nChunks; i++) {
+				chunks[i] = ByteBuffer.allocateDirect(CHUNK_SIZE * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+			}
+			_chunks = chunks;
+		}
+	}
+
+	private final Column _lastValues;
+
+	private final Column _lastTimes;
+
+	private final Column _sampleValues;
+
+	private final Column _sampleTimes;
+
+	private final Column _rates;
+
+	private final boolean _isOffHeap;
+
+	/**
+	 * The number of IDs that were handed out at least once.
+	 */
+	private int _nAllocated = 0;
+
+	private int _capacity = 0;
+
+	/**
+	 * The released IDs, which are reused before new ones are handed out.
+	 */
+	private int[] _freeIds = new int[16];
+
+	private int _nFreeIds = 0;
+
+	/**
+	 * @param isOffHeap
+	 * True to store the columns in direct buffers outside of the heap.
+	 * 
+	 * @param keepsSamples
+	 * True to keep the last sample of each series for deriving rates.
+	 */
+	public MetricStateStore(boolean isOffHeap, boolean keepsSamples) {
+		_isOffHeap = isOffHeap;
+		_lastValues = newColumn(isOffHeap);
+		_lastTimes = newColumn(isOffHeap);
+		_sampleValues = keepsSamples ? newColumn(isOffHeap) : null;
+		_sampleTimes = keepsSamples ? newColumn(isOffHeap) : null;
+		_rates = keepsSamples ? newColumn(isOffHeap) : null;
+	}
+
+	private static Column newColumn(boolean isOffHeap) {
+		return isOffHeap ? new OffHeapColumn() : new HeapColumn();
+	}
+
+	/**
+	 * Determine whether the last sample of each series is kept.
+	 */
+	public boolean keepsSamples() {
+		return _sampleValues != null;
+	}
+
+	public boolean isOffHeap() {
+		return _isOffHeap;
+	}
+
+	/**
+	 * Allocate the state of a new series. No value is submitted for the
+	 * series yet.
+	 *
+	 * @return
+	 * The ID of the series.
+	 */
+	public synchronized int allocate() {
+		int id;
+		if (_nFreeIds > 0) {
+			id = _freeIds[--_nFreeIds];
+		}
+		else {
+			id = _nAllocated++;
+			if (id == _capacity) {
+				int nChunks = (_capacity >>> CHUNK_SHIFT) + 1;
+				_lastValues.grow(nChunks);
+				_lastTimes.grow(nChunks);
+				if (keepsSamples()) {
+					_sampleValues.grow(nChunks);
+					_sampleTimes.grow(nChunks);
+					_rates.grow(nChunks);
+				}
+				_capacity += CHUNK_SIZE;
+			}
+		}
+		_lastValues.set(id, 0);
+		_lastTimes.set(id, NO_TIME);
+		if (keepsSamples()) {
+			_sampleValues.set(id, 0);
+			_sampleTimes.set(id, NO_TIME);
+			_rates.set(id, Double.doubleToRawLongBits(NO_RATE));
+		}
+		return id;
+	}
+
+	/**
+	 * Release the state of a series, so its ID can be reused.
+	 */
+	public synchronized void release(int id) {
+		if (_nFreeIds == _freeIds.length) {
+			_freeIds = Arrays.copyOf(_freeIds, _freeIds.length * 2);
+		}
+		_freeIds[_nFreeIds++] = id;
+	}
+
+	/**
+	 * Get the number of series whose state is allocated.
+	 */
+	public synchronized int size() {
+		return _nAllocated - _nFreeIds;
+	}
+
+	/**
+	 * Get the last submitted value of the series.
+	 */
+	public long getLastValue(int id) {
+		return _lastValues.get(id);
+	}
+
+	/**
+	 * Get the time of the last submission of the series, or {@link #NO_TIME}
+	 * if no value was submitted yet.
+	 */
+	public long getLastTime(int id) {
+		return _lastTimes.get(id);
+	}
+
+	/**
+	 * Determine whether a value was submitted for the series.
+	 */
+	public boolean hasValue(int id) {
+		return _lastTimes.get(id) != NO_TIME;
+	}
+
+	/**
+	 * Store the submitted value of the series.
+	 *
+	 * @param time
+	 * The time of the scan cycle that submitted the value.
+	 */
+	public void update(int id, long value, long time) {
+		_lastValues.set(id, value);
+		_lastTimes.set(id, time);
+	}
+
+	/**
+	 * Get the value of the last sample of the series.
+	 */
+	public long getSampleValue(int id) {
+		return _sampleValues.get(id);
+	}
+
+	/**
+	 * Get the retrieval time of the last sample of the series, or
+	 * {@link #NO_TIME} if no sample was taken yet.
+	 */
+	public long getSampleTime(int id) {
+		return _sampleTimes.get(id);
+	}
+
+	/**
+	 * Get the last derived rate of the series, or {@link #NO_RATE}.
+	 */
+	public double getRate(int id) {
+		return Double.longBitsToDouble(_rates.get(id));
+	}
+
+	/**
+	 * Store the last sample of the series and the rate that is derived from
+	 * it.
+	 */
+	public void updateSample(int id, long value, long time, double rate) {
+		_sampleValues.set(id, value);
+		_sampleTimes.set(id, time);
+		_rates.set(id, Double.doubleToRawLongBits(rate));
+	}
+
+}
@@ -0,0 +1,246 @@
+//
+// ****************************************************************************
+// * Copyright (C) 2016, International Business Machines Corporation          *
+// * All rights reserved.                                                     *
+// ****************************************************************************
+//
+
+package com.ibm.streamsx.monitoring.jmx.internal;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+
+import com.ibm.json.java.JSONArray;
+import com.ibm.json.java.JSONObject;
+import com.ibm.streams.management.Metric;
+import com.ibm.streams.management.MetricMetadata.Kind;
+import com.ibm.streams.management.MetricMetadata.Type;
+
+/**
+ * Holds the metrics of all PEs, operators, ports, and connections of one job,
+ * as downloaded from the URI that {@code JobMXBean.snapshotMetrics} returns.
+ * The handlers take their metrics from the snapshot instead of calling
+ * retrieveMetrics on their own MXBean, which saves one JMX round trip per
+ * handler.
+ * <p>
+ * If an entity is not contained in the snapshot, the getters return null and
+ * the handler falls back to its own MXBean.
+ * </p>
+ */
+class MetricsSnapshot {
+
+	/**
+	 * Logger for tracing.
+	 */
+	private static Logger _trace = Logger.getLogger(MetricsSnapshot.class.getName());
+
+	private static final String PES = "pes";
+	private static final String OPERATORS = "operators";
+	private static final String INPUT_PORTS = "inputPorts";
+	private static final String OUTPUT_PORTS = "outputPorts";
+	private static final String CONNECTIONS = "connections";
+	private static final String METRICS = "metrics";
+	private static final String ID = "id";
+	private static final String NAME = "name";
+	private static final String VALUE = "value";
+	private static final String KIND = "kind";
+	private static final String METRIC_KIND = "metricKind";
+	private static final String TYPE = "type";
+	private static final String METRIC_TYPE = "metricType";
+	private static final String LAST_TIME_RETRIEVED = "lastTimeRetrieved";
+	private static final String INDEX = "index";
+	private static final String INDEX_WITHIN_PE = "indexWithinPE";
+	private static final String INDEX_WITHIN_OPERATOR = "indexWithinOperator";
+
+	private Map<String /* peId */, Set<Metric>> _peMetrics = new HashMap<>();
+
+	private Map<String /* peId/portIndex */, Set<Metric>> _peInputPortMetrics = new HashMap<>();
+
+	private Map<String /* peId/portIndex */, Set<Metric>> _peOutputPortMetrics = new HashMap<>();
+
+	private Map<String /* peId/connectionId */, Set<Metric>> _peConnectionMetrics = new HashMap<>();
+
+	private Map<String /* operatorName */, Set<Metric>> _operatorMetrics = new HashMap<>();
+
+	private Map<String /* operatorName/portIndex */, Set<Metric>> _operatorInputPortMetrics = new HashMap<>();
+
+	private Map<String /* operatorName/portIndex */, Set<Metric>> _operatorOutputPortMetrics = new HashMap<>();
+
+	/**
+	 * The time when the snapshot was taken. Used for metrics that do not
+	 * provide their own retrieval time.
+	 */
+	private long _snapshotTime = 0;
+
+	/**
+	 * Parse the JSON-formatted snapshot of the job metrics.
+	 *
+	 * @param snapshot
+	 * The JSON document that is downloaded from the URI returned by
+	 * {@code JobMXBean.snapshotMetrics}.
+	 *
+	 * @throws IOException
+	 * Throws if the snapshot cannot be parsed.
+	 */
+	MetricsSnapshot(String snapshot, long snapshotTime) throws IOException {
+		_snapshotTime = snapshotTime;
+		JSONObject job = JSONObject.parse(snapshot);
+		for (JSONObject pe : getObjects(job, PES)) {
+			String peId = getString(pe, ID);
+			if (peId == null) {
+				continue;
+			}
+			long peTime = getLong(pe, LAST_TIME_RETRIEVED, _snapshotTime);
+			putMetrics(_peMetrics, peId, pe, peTime);
+			for (JSONObject port : getObjects(pe, INPUT_PORTS)) {
+				putMetrics(_peInputPortMetrics, key(peId, getPortIndex(port, INDEX_WITHIN_PE)), port, peTime);
+				addConnections(peId, port, peTime);
+			}
+			for (JSONObject port : getObjects(pe, OUTPUT_PORTS)) {
+				putMetrics(_peOutputPortMetrics, key(peId, getPortIndex(port, INDEX_WITHIN_PE)), port, peTime);
+				addConnections(peId, port, peTime);
+			}
+			addConnections(peId, pe, peTime);
+			for (JSONObject operator : getObjects(pe, OPERATORS)) {
+				String operatorName = getString(operator, NAME);
+				if (operatorName == null) {
+					continue;
+				}
+				long operatorTime = getLong(operator, LAST_TIME_RETRIEVED, peTime);
+				putMetrics(_operatorMetrics, operatorName, operator, operatorTime);
+				for (JSONObject port : getObjects(operator, INPUT_PORTS)) {
+					putMetrics(_operatorInputPortMetrics, key(operatorName, getPortIndex(port, INDEX_WITHIN_OPERATOR)), port, operatorTime);
+				}
+				for (JSONObject port : getObjects(operator, OUTPUT_PORTS)) {
+					putMetrics(_operatorOutputPortMetrics, key(operatorName, getPortIndex(port, INDEX_WITHIN_OPERATOR)), port, operatorTime);
+				}
+			}
+		}
+		if (_trace.isDebugEnabled()) {
+			_trace.debug("snapshot: pes=" + _peMetrics.size() + ", operators=" + _operatorMetrics.size());
+		}
+	}
+
+	Set<Metric> getPeMetrics(String peId) {
+		return _peMetrics.get(peId);
+	}
+
+	Set<Metric> getPeInputPortMetrics(String peId, Integer portIndex) {
+		return _peInputPortMetrics.get(key(peId, portIndex));
+	}
+
+	Set<Metric> getPeOutputPortMetrics(String peId, Integer portIndex) {
+		return _peOutputPortMetrics.get(key(peId, portIndex));
+	}
+
+	Set<Metric> getPeConnectionMetrics(String peId, String connectionId) {
+		return _peConnectionMetrics.get(key(peId, connectionId));
+	}
+
+	Set<Metric> getOperatorMetrics(String operatorName) {
+		return _operatorMetrics.get(operatorName);
+	}
+
+	Set<Metric> getOperatorInputPortMetrics(String operatorName, Integer portIndex) {
+		return _operatorInputPortMetrics.get(key(operatorName, portIndex));
+	}
+
+	Set<Metric> getOperatorOutputPortMetrics(String operatorName, Integer portIndex) {
+		return _operatorOutputPortMetrics.get(key(operatorName, portIndex));
+	}
+
+	private void addConnections(String peId, JSONObject parent, long time) {
+		for (JSONObject connection : getObjects(parent, CONNECTIONS)) {
+			String connectionId = getString(connection, ID);
+			if (connectionId != null) {
+				putMetrics(_peConnectionMetrics, key(peId, connectionId), connection, time);
+			}
+		}
+	}
+
+	private void putMetrics(Map<String, Set<Metric>> map, String key, JSONObject owner, long time) {
+		if (key == null || !(owner.get(METRICS) instanceof JSONArray)) {
+			return;
+		}
+		Set<Metric> metrics = new HashSet<>();
+		for (JSONObject metric : getObjects(owner, METRICS)) {
+			String name = getString(metric, NAME);
+			Object value = metric.get(VALUE);
+			if (name != null && value instanceof Number) {
+				metrics.add(new RetrievedMetric(name, getKind(metric), getType(metric), ((Number)value).longValue(), getLong(metric, LAST_TIME_RETRIEVED, time)));
+			}
+		}
+		map.put(key, metrics);
+	}
+
+	private static Kind getKind(JSONObject metric) {
+		String kind = getString(metric, metric.containsKey(METRIC_KIND) ? METRIC_KIND : KIND);
+		try {
+			return (kind != null) ? Kind.fromString(kind) : Kind.UNKNOWN;
+		}
+		catch (IllegalArgumentException e) {
+			return Kind.UNKNOWN;
+		}
+	}
+
+	private static Type getType(JSONObject metric) {
+		String type = getString(metric, metric.containsKey(METRIC_TYPE) ? METRIC_TYPE : TYPE);
+		try {
+			return (type != null) ? Type.fromString(type) : Type.UNKNOWN;
+		}
+		catch (IllegalArgumentException e) {
+			return Type.UNKNOWN;
+		}
+	}
+
+	private static Integer getPortIndex(JSONObject port, String key) {
+		Object index = port.containsKey(key) ? port.get(key) : port.get(INDEX);
+		if (index instanceof Number) {
+			return Integer.valueOf(((Number)index).intValue());
+		}
+		if (index instanceof String) {
+			try {
+				return Integer.valueOf((String)index);
+			}
+			catch (NumberFormatException e) {
+				return null;
+			}
+		}
+		return null;
+	}
+
+	private static String getString(JSONObject object, String key) {
+		Object value = object.get(key);
+		return (value != null) ? value.toString() : null;
+	}
+
+	private static long getLong(JSONObject object, String key, long defaultValue) {
+		Object value = object.get(key);
+		return (value instanceof Number) ? ((Number)value).longValue() : defaultValue;
+	}
+
+	private static List<JSONObject> getObjects(JSONObject parent, String key) {
+		List<JSONObject> result = new ArrayList<>();
+		Object array = parent.get(key);
+		if (array instanceof JSONArray) {
+			for (Object item : (JSONArray)array) {
+				if (item instanceof JSONObject) {
+					result.add((JSONObject)item);
+				}
+			}
+		}
+		return result;
+	}
+
+	private static String key(String owner, Object child) {
+		return (child != null) ? owner + "/" + child : null;
+	}
+
+}
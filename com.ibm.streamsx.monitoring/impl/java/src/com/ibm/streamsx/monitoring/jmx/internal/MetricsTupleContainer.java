@@ -8,6 +8,10 @@
 package com.ibm.streamsx.monitoring.jmx.internal;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 
 import com.ibm.streams.management.MetricMetadata.Kind;
 import com.ibm.streams.operator.Attribute;
@@ -15,10 +19,30 @@ import com.ibm.streams.operator.OutputTuple;
 import com.ibm.streams.operator.StreamSchema;
 import com.ibm.streams.operator.StreamingData.Punctuation;
 import com.ibm.streams.operator.StreamingOutput;
+import com.ibm.streams.operator.Tuple;
 import com.ibm.streams.operator.Type;
+import com.ibm.streams.operator.meta.CollectionType;
+import com.ibm.streams.operator.meta.TupleType;
+import com.ibm.streams.operator.types.RString;
 
 public class MetricsTupleContainer {
 
+	/**
+	 * The strings of the metric types and kinds, which are set for every
+	 * submitted metric.
+	 */
+	private static final Map<com.ibm.streams.management.MetricMetadata.Type, RString> METRIC_TYPES = new EnumMap<>(com.ibm.streams.management.MetricMetadata.Type.class);
+
+	private static final Map<Kind, RString> METRIC_KINDS = new EnumMap<>(Kind.class);
+
+	static {
+		for (com.ibm.streams.management.MetricMetadata.Type metricType : com.ibm.streams.management.MetricMetadata.Type.values()) {
+			METRIC_TYPES.put(metricType, new RString(metricType.toString()));
+		}
+		for (Kind metricKind : Kind.values()) {
+			METRIC_KINDS.put(metricKind, new RString(metricKind.toString()));
+		}
+	}
 	
 	/**
 	 * Index of the instanceId attribute.
@@ -94,7 +118,56 @@ public class MetricsTupleContainer {
 	 * Index of the lastTimeRetrieved attribute.
 	 */
 	private Integer _lastTimeRetrievedAttributeIndex = null;
+
+	/**
+	 * Index of the metricRate attribute.
+	 */
+	private Integer _metricRateAttributeIndex = null;
+
+	/**
+	 * Index of the metrics attribute. If the output schema has a list of
+	 * tuples with this name, the metrics of an operator, port, PE, or
+	 * connection are batched into one tuple per scan cycle.
+	 */
+	private Integer _metricsAttributeIndex = null;
+
+	/**
+	 * The schema of the elements of the metrics list.
+	 */
+	private StreamSchema _metricSchema = null;
+
+	/**
+	 * Indexes of the metric-related attributes in the elements of the metrics
+	 * list.
+	 */
+	private int _metricTypeElementIndex = -1;
+
+	private int _metricKindElementIndex = -1;
+
+	private int _metricNameElementIndex = -1;
+
+	private int _metricValueElementIndex = -1;
+
+	private int _lastTimeRetrievedElementIndex = -1;
+
+	private int _metricRateElementIndex = -1;
+
+	/**
+	 * The attribute values of the next element of the metrics list.
+	 */
+	private Object[] _metricValues = null;
+
+	/**
+	 * The batched metrics, which are submitted with the next tuple.
+	 */
+	private List<Tuple> _metrics = null;
 	
+	/**
+	 * The PE id that is set in the output tuple, so it is parsed only if it
+	 * changes.
+	 */
+	private String _peId = null;
+
 	/**
 	 * The output port.
 	 */
@@ -183,8 +256,103 @@ public class MetricsTupleContainer {
 			Attribute attribute = schema.getAttribute("lastTimeRetrieved");
 			_lastTimeRetrievedAttributeIndex = Integer.valueOf(attribute != null && attribute.getType().getMetaType() == Type.MetaType.INT64 ? attribute.getIndex() : -1) ;
 		}
+		if (_metricRateAttributeIndex == null) {
+			Attribute attribute = schema.getAttribute("metricRate");
+			_metricRateAttributeIndex = Integer.valueOf(attribute != null && attribute.getType().getMetaType() == Type.MetaType.FLOAT64 ? attribute.getIndex() : -1) ;
+		}
+		// Batched metrics.
+		if (_metricsAttributeIndex == null) {
+			Attribute attribute = schema.getAttribute("metrics");
+			if (attribute != null && attribute.getType().getMetaType() == Type.MetaType.LIST && ((CollectionType)attribute.getType()).getElementType().getMetaType() == Type.MetaType.TUPLE) {
+				_metricsAttributeIndex = Integer.valueOf(attribute.getIndex());
+				_metricSchema = ((TupleType)((CollectionType)attribute.getType()).getElementType()).getTupleSchema();
+				_metricTypeElementIndex = getAttributeIndex(_metricSchema, "metricType", Type.MetaType.RSTRING);
+				_metricKindElementIndex = getAttributeIndex(_metricSchema, "metricKind", Type.MetaType.RSTRING);
+				_metricNameElementIndex = getAttributeIndex(_metricSchema, "metricName", Type.MetaType.RSTRING);
+				_metricValueElementIndex = getAttributeIndex(_metricSchema, "metricValue", Type.MetaType.INT64);
+				_lastTimeRetrievedElementIndex = getAttributeIndex(_metricSchema, "lastTimeRetrieved", Type.MetaType.INT64);
+				_metricRateElementIndex = getAttributeIndex(_metricSchema, "metricRate", Type.MetaType.FLOAT64);
+				initMetricValues();
+			}
+			else {
+				_metricsAttributeIndex = Integer.valueOf(-1);
+			}
+		}
+	}
+
+	/**
+	 * Get the index of the attribute if the schema has an attribute of the
+	 * given name and type, else -1.
+	 */
+	private static int getAttributeIndex(StreamSchema schema, String name, Type.MetaType metaType) {
+		Attribute attribute = schema.getAttribute(name);
+		return attribute != null && attribute.getType().getMetaType() == metaType ? attribute.getIndex() : -1;
+	}
+
+	/**
+	 * Start with the default values for the attributes of the metrics list
+	 * elements that the operator does not set.
+	 */
+	private void initMetricValues() {
+		Tuple defaults = _metricSchema.getTuple();
+		_metricValues = new Object[_metricSchema.getAttributeCount()];
+		for (int i = 0; i < _metricValues.length; i++) {
+			_metricValues[i] = defaults.getObject(i);
+		}
+		_metrics = new ArrayList<>();
 	}
-		
+
+	/**
+	 * Create a container that shares the port and the attribute indexes with
+	 * the given container but owns a separate output tuple, which starts as a
+	 * copy of the tuple of the given container. Each handler uses the
+	 * container of its parent handler as template and sets its identifying
+	 * attributes once, so handlers can be scanned concurrently without
+	 * overwriting each other's attribute values.
+	 *
+	 * @param container
+	 */
+	public MetricsTupleContainer(MetricsTupleContainer container) {
+		_port = container._port;
+		_tuple = _port.newTuple();
+		_tuple.assign(container._tuple);
+		_peId = container._peId;
+		_instanceIdAttributeIndex = container._instanceIdAttributeIndex;
+		_jobIdAttributeIndex = container._jobIdAttributeIndex;
+		_jobNameAttributeIndex = container._jobNameAttributeIndex;
+		_resourceAttributeIndex = container._resourceAttributeIndex;
+		_operatorNameAttributeIndex = container._operatorNameAttributeIndex;
+		_originAttributeIndex = container._originAttributeIndex;
+		_portIndexAttributeIndex = container._portIndexAttributeIndex;
+		_connectionIdAttributeIndex = container._connectionIdAttributeIndex;
+		_channelAttributeIndex = container._channelAttributeIndex;
+		_peIdAttributeIndex = container._peIdAttributeIndex;
+		_metricTypeAttributeIndex = container._metricTypeAttributeIndex;
+		_metricKindAttributeIndex = container._metricKindAttributeIndex;
+		_metricNameAttributeIndex = container._metricNameAttributeIndex;
+		_metricValueAttributeIndex = container._metricValueAttributeIndex;
+		_lastTimeRetrievedAttributeIndex = container._lastTimeRetrievedAttributeIndex;
+		_metricRateAttributeIndex = container._metricRateAttributeIndex;
+		_metricsAttributeIndex = container._metricsAttributeIndex;
+		_metricSchema = container._metricSchema;
+		_metricTypeElementIndex = container._metricTypeElementIndex;
+		_metricKindElementIndex = container._metricKindElementIndex;
+		_metricNameElementIndex = container._metricNameElementIndex;
+		_metricValueElementIndex = container._metricValueElementIndex;
+		_lastTimeRetrievedElementIndex = container._lastTimeRetrievedElementIndex;
+		_metricRateElementIndex = container._metricRateElementIndex;
+		if (_metricSchema != null) {
+			initMetricValues();
+		}
+	}
+
+	/**
+	 * Determine whether the metrics are batched into a list attribute.
+	 */
+	public boolean isBatched() {
+		return _metricsAttributeIndex != -1;
+	}
+
 
 	/**
 	 * Optionally set the instance id in the output tuple.
@@ -299,11 +467,13 @@ public class MetricsTupleContainer {
 	public void setPeId(BigInteger peId) {
 		if (_peIdAttributeIndex != -1) {
 			_tuple.setLong(_peIdAttributeIndex, peId.longValue());
+			_peId = null;
 		}
 	}
 	public void setPeId(String peId) {
-		if (_peIdAttributeIndex != -1) {
+		if (_peIdAttributeIndex != -1 && !peId.equals(_peId)) {
 			_tuple.setLong(_peIdAttributeIndex, Long.parseLong(peId));
+			_peId = peId;
 		}		
 	}	
 
@@ -314,7 +484,10 @@ public class MetricsTupleContainer {
 	 */
 	public void setMetricType(com.ibm.streams.management.MetricMetadata.Type metricType) {
 		if (_metricTypeAttributeIndex != -1) {
-			_tuple.setString(_metricTypeAttributeIndex, metricType.toString());
+			_tuple.setObject(_metricTypeAttributeIndex, METRIC_TYPES.get(metricType));
+		}
+		if (_metricTypeElementIndex != -1) {
+			_metricValues[_metricTypeElementIndex] = METRIC_TYPES.get(metricType);
 		}
 	}
 
@@ -325,7 +498,10 @@ public class MetricsTupleContainer {
 	 */
 	public void setMetricKind(Kind metricKind) {
 		if (_metricKindAttributeIndex != -1) {
-			_tuple.setString(_metricKindAttributeIndex, metricKind.toString());
+			_tuple.setObject(_metricKindAttributeIndex, METRIC_KINDS.get(metricKind));
+		}
+		if (_metricKindElementIndex != -1) {
+			_metricValues[_metricKindElementIndex] = METRIC_KINDS.get(metricKind);
 		}
 	}
 
@@ -338,6 +514,9 @@ public class MetricsTupleContainer {
 		if (_metricNameAttributeIndex != -1) {
 			_tuple.setString(_metricNameAttributeIndex, metricName);
 		}
+		if (_metricNameElementIndex != -1) {
+			_metricValues[_metricNameElementIndex] = new RString(metricName);
+		}
 	}
 
 	/**
@@ -349,6 +528,9 @@ public class MetricsTupleContainer {
 		if (_metricValueAttributeIndex != -1) {
 			_tuple.setLong(_metricValueAttributeIndex, metricValue);
 		}
+		if (_metricValueElementIndex != -1) {
+			_metricValues[_metricValueElementIndex] = Long.valueOf(metricValue);
+		}
 	}
 
 	/**
@@ -360,6 +542,59 @@ public class MetricsTupleContainer {
 		if (_lastTimeRetrievedAttributeIndex != -1) {
 			_tuple.setLong(_lastTimeRetrievedAttributeIndex, lastTimeRetrieved);
 		}
+		if (_lastTimeRetrievedElementIndex != -1) {
+			_metricValues[_lastTimeRetrievedElementIndex] = Long.valueOf(lastTimeRetrieved);
+		}
+	}
+
+	/**
+	 * Optionally set the metricRate in the output tuple.
+	 * 
+	 * @param metricRate
+	 */
+	public void setMetricRate(double metricRate) {
+		if (_metricRateAttributeIndex != -1) {
+			_tuple.setDouble(_metricRateAttributeIndex, metricRate);
+		}
+		if (_metricRateElementIndex != -1) {
+			_metricValues[_metricRateElementIndex] = Double.valueOf(metricRate);
+		}
+	}
+
+	/**
+	 * Submit the tuple for the metric whose attributes are set. If the
+	 * metrics are batched, add the metric to the metrics list instead.
+	 */
+	public void submitMetric() throws Exception {
+		if (_metricsAttributeIndex != -1) {
+			_metrics.add(_metricSchema.getTuple(_metricValues.clone()));
+		}
+		else {
+			submit();
+		}
+	}
+
+	/**
+	 * If the metrics are batched, submit one tuple with all metrics that were
+	 * added since the last call. Nothing is submitted if no metric was added.
+	 */
+	public void submitBatchedMetrics() throws Exception {
+		if (_metricsAttributeIndex != -1 && !_metrics.isEmpty()) {
+			List<Tuple> metrics = _metrics;
+			_metrics = new ArrayList<>();
+			_tuple.setList(_metricsAttributeIndex, metrics);
+			submit();
+		}
+	}
+
+	/**
+	 * Drop the batched metrics, for example, if capturing the metrics
+	 * failed and the batch is incomplete.
+	 */
+	public void discardBatchedMetrics() {
+		if (_metricsAttributeIndex != -1) {
+			_metrics.clear();
+		}
 	}
 
 	public void submit() throws Exception {
@@ -0,0 +1,54 @@
+//
+// ****************************************************************************
+// * Copyright (C) 2016, International Business Machines Corporation          *
+// * All rights reserved.                                                     *
+// ****************************************************************************
+//
+
+package com.ibm.streamsx.monitoring.jmx.internal;
+
+import java.math.BigInteger;
+
+import javax.management.Notification;
+import javax.management.ObjectName;
+
+/**
+ * Extracts the identifier of the added or removed object from the user data
+ * of a notification. Depending on the notification type, the user data is
+ * the object name of the affected MXBean, or its identifier as String or
+ * BigInteger.
+ */
+final class NotificationUserData {
+
+	private NotificationUserData() {
+	}
+
+	/**
+	 * Get the identifier of the object that the notification refers to.
+	 *
+	 * @param key
+	 * The key property of the object name that holds the identifier, for
+	 * example, "id" or "name".
+	 *
+	 * @return
+	 * The identifier, or null if the user data does not provide one.
+	 */
+	static String getId(Notification notification, String key) {
+		Object userData = notification.getUserData();
+		String id = null;
+		if (userData instanceof ObjectName) {
+			id = ((ObjectName)userData).getKeyProperty(key);
+			if (id != null && id.startsWith("\"")) {
+				id = ObjectName.unquote(id);
+			}
+		}
+		else if (userData instanceof BigInteger) {
+			id = ((BigInteger)userData).toString();
+		}
+		else if (userData instanceof String) {
+			id = (String)userData;
+		}
+		return id;
+	}
+
+}
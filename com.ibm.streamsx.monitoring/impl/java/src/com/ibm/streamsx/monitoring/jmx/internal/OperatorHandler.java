@@ -11,9 +11,12 @@ import org.apache.log4j.Logger;
 
 import java.io.IOException;
 import java.math.BigInteger;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
 
 import javax.management.InstanceNotFoundException;
 import javax.management.JMX;
@@ -25,8 +28,10 @@ import javax.management.ObjectName;
 import com.ibm.streams.management.Metric;
 import com.ibm.streams.management.Notifications;
 import com.ibm.streams.management.ObjectNameBuilder;
+import com.ibm.streams.management.job.OperatorConnectionMXBean;
 import com.ibm.streams.management.job.OperatorMXBean;
 import com.ibm.streamsx.monitoring.jmx.OperatorConfiguration;
+import com.ibm.streamsx.monitoring.jmx.internal.filters.MetricEmission;
 
 /**
  * 
@@ -50,11 +55,23 @@ public class OperatorHandler extends MetricOwningHandler implements Notification
 	
 	private OperatorMXBean _operator = null;
 
-	private Map<Integer /* port index */, OperatorInputPortHandler> _inputPortHandlers = new HashMap<>();
+	/**
+	 * The port handlers are added and removed by notifications while the
+	 * operator is scanned, therefore, concurrent maps are used.
+	 */
+	private Map<Integer /* port index */, OperatorInputPortHandler> _inputPortHandlers = new ConcurrentHashMap<>();
+
+	private Map<Integer /* port index */, OperatorOutputPortHandler> _outputPortHandlers = new ConcurrentHashMap<>();
+
+	/**
+	 * The ports that the connections of this operator were added to, so
+	 * that the port of a removed connection is known.
+	 */
+	private Map<String /* connection ID */, Integer /* port index */> _inputPortConnections = new ConcurrentHashMap<>();
 
-	private Map<Integer /* port index */, OperatorOutputPortHandler> _outputPortHandlers = new HashMap<>();
+	private Map<String /* connection ID */, Integer /* port index */> _outputPortConnections = new ConcurrentHashMap<>();
 
-	public OperatorHandler(OperatorConfiguration operatorConfiguration, String instanceId, String jobId, String jobName, String operatorName) {
+	public OperatorHandler(OperatorConfiguration operatorConfiguration, MetricsTupleContainer tupleContainer, String instanceId, String jobId, String jobName, String operatorName) {
 
 		super(MetricsRegistrationMode.DynamicMetricsRegistration);
 		
@@ -68,43 +85,65 @@ public class OperatorHandler extends MetricOwningHandler implements Notification
 		_jobName = jobName;
 		_operatorName = operatorName;
 
+		// The tuple template of this operator, based on the template of the job.
+		if (tupleContainer != null) {
+			_tupleContainer = new MetricsTupleContainer(tupleContainer);
+			_tupleContainer.setOperatorName(_operatorName);
+			_tupleContainer.setOrigin("Operator");
+			_tupleContainer.setPortIndex(0);
+		}
+
 		_objName = ObjectNameBuilder.operator(_instanceId, _jobId, _operatorName);
-		_operator = JMX.newMXBeanProxy(_operatorConfiguration.get_mbeanServerConnection(), _objName, OperatorMXBean.class, true);
+		_operator = JMX.newMXBeanProxy(_operatorConfiguration.get_mbeanServerConnection(_jobId), _objName, OperatorMXBean.class, true);
 		
-		/*
-		 * Register to get job-related notifications.
-		 */
-		NotificationFilterSupport filter = new NotificationFilterSupport();
-		filter.enableType(Notifications.OPERATOR_CONNECTION_ADDED);
-		filter.enableType(Notifications.OPERATOR_CONNECTION_REMOVED);
-		try {
-			_operatorConfiguration.get_mbeanServerConnection().addNotificationListener(_objName, this, filter, null);
-		} catch (InstanceNotFoundException e) {
-			e.printStackTrace();
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
-		//	TODO      jmxc.addConnectionNotificationListener(this, null, null); // listen for potential lost notifications
+		addNotificationListener();
 
 		/*
 		 * Register input port metrics that match the specified filter criteria.
 		 */
+		setScanPeriod(_operatorConfiguration.get_filters().getOperatorScanPeriod(_instanceId, _jobName, _operatorName));
+		setMayMatchMetrics(_operatorConfiguration.get_filters().mayMatchOperatorMetrics(_instanceId, _jobName, _operatorName));
 		registerMetrics();
 		
 		/*
 		 * Register input port metrics that match the specified filter criteria.
 		 */
-		for (Integer portIndex : _operator.getInputPorts()) {
-			addValidInputPort(portIndex);
+		if (isInputPortDiscoveryRequired()) {
+			for (Integer portIndex : _operator.getInputPorts()) {
+				addValidInputPort(portIndex);
+			}
 		}
 		/*
 		 * Register output port metrics that match the specified filter criteria.
 		 */
-		for (Integer portIndex : _operator.getOutputPorts()) {
-			addValidOutputPort(portIndex);
+		if (isOutputPortDiscoveryRequired()) {
+			for (Integer portIndex : _operator.getOutputPorts()) {
+				addValidOutputPort(portIndex);
+			}
 		}
 	}
 
+	/**
+	 * Register to get operator-related notifications on the current JMX
+	 * connection.
+	 */
+	private void addNotificationListener() {
+		/*
+		 * Register to get job-related notifications.
+		 */
+		NotificationFilterSupport filter = new NotificationFilterSupport();
+		filter.enableType(Notifications.OPERATOR_CONNECTION_ADDED);
+		filter.enableType(Notifications.OPERATOR_CONNECTION_REMOVED);
+		try {
+			_operatorConfiguration.get_mbeanServerConnection(_jobId).addNotificationListener(_objName, this, filter, null);
+		} catch (InstanceNotFoundException e) {
+			e.printStackTrace();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		// The connection of the job is observed by the JmxConnectionPool, which reports a lost connection.
+	}
+
 	/**
 	 * {@inheritDoc}
 	 * 
@@ -112,30 +151,70 @@ public class OperatorHandler extends MetricOwningHandler implements Notification
 	 */
 	@Override
 	public void handleNotification(Notification notification, Object handback) {
-		//		if (notification.getSequenceNumber())
-		if (notification.getType().equals(Notifications.OPERATOR_CONNECTION_ADDED)) {
-			/*
-			 * userData is the connection's object name
-			 */
-			if (_trace.isDebugEnabled()) {
-				_trace.debug("notification: " + notification + ", userData=" + notification.getUserData());
+		if (_trace.isDebugEnabled()) {
+			_trace.debug("notification: " + notification + ", userData=" + notification.getUserData());
+		}
+		try {
+			if (notification.getType().equals(Notifications.OPERATOR_CONNECTION_ADDED)) {
+				String connectionId = NotificationUserData.getId(notification, "id");
+				if (connectionId != null) {
+					addConnection(connectionId);
+				}
+			}
+			else if (notification.getType().equals(Notifications.OPERATOR_CONNECTION_REMOVED)) {
+				String connectionId = NotificationUserData.getId(notification, "id");
+				if (connectionId != null) {
+					removeConnection(connectionId);
+				}
 			}
 		}
-		else if (notification.getType().equals(Notifications.OPERATOR_CONNECTION_REMOVED)) {
-			/*
-			 * userData is the connection's object name
-			 */
-			if (_trace.isDebugEnabled()) {
-				_trace.debug("notification: " + notification + ", userData=" + notification.getUserData());
+		catch (Exception e) {
+			_trace.warn("The notification cannot be applied to the " + this + ": " + e);
+		}
+	}
+
+	/**
+	 * Add the handler of the port that the added connection is attached to,
+	 * if the port is not monitored yet. The other ports are not affected.
+	 */
+	protected synchronized void addConnection(String connectionId) throws Exception {
+		OperatorConnectionMXBean connection = JMX.newMXBeanProxy(_operatorConfiguration.get_mbeanServerConnection(_jobId), ObjectNameBuilder.operatorConnection(_instanceId, connectionId), OperatorConnectionMXBean.class, true);
+		if (_operatorName.equals(connection.getTargetOperator()) && _jobId.equals(connection.getTargetJob())) {
+			Integer portIndex = Integer.valueOf(connection.getTargetInputPort());
+			_inputPortConnections.put(connectionId, portIndex);
+			if (isInputPortDiscoveryRequired() && !_inputPortHandlers.containsKey(portIndex)) {
+				addValidInputPort(portIndex);
 			}
 		}
-		else {
-			if (_trace.isDebugEnabled()) {
-				_trace.debug("notification: " + notification + ", userData=" + notification.getUserData());
+		if (_operatorName.equals(connection.getSourceOperator()) && _jobId.equals(connection.getSourceJob())) {
+			Integer portIndex = Integer.valueOf(connection.getSourceOutputPort());
+			_outputPortConnections.put(connectionId, portIndex);
+			if (isOutputPortDiscoveryRequired() && !_outputPortHandlers.containsKey(portIndex)) {
+				addValidOutputPort(portIndex);
 			}
 		}
 	}
 
+	/**
+	 * Remove the handler of the port that the removed connection was
+	 * attached to, if the port does not exist anymore. The other ports are
+	 * not affected. The port of a connection that existed before the
+	 * operator was monitored is not known, its port is synchronized with the
+	 * next rebind or filter update.
+	 */
+	protected synchronized void removeConnection(String connectionId) throws Exception {
+		Integer portIndex = _inputPortConnections.remove(connectionId);
+		if (portIndex != null && _inputPortHandlers.containsKey(portIndex) &&
+			!_operatorConfiguration.get_mbeanServerConnection(_jobId).isRegistered(ObjectNameBuilder.operatorInputPort(_instanceId, _jobId, _operatorName, portIndex))) {
+			removeInputPort(portIndex);
+		}
+		portIndex = _outputPortConnections.remove(connectionId);
+		if (portIndex != null && _outputPortHandlers.containsKey(portIndex) &&
+			!_operatorConfiguration.get_mbeanServerConnection(_jobId).isRegistered(ObjectNameBuilder.operatorOutputPort(_instanceId, _jobId, _operatorName, portIndex))) {
+			removeOutputPort(portIndex);
+		}
+	}
+
 	@Override
 	protected boolean isRelevantMetric(String metricName) {
 		boolean isRelevant = _operatorConfiguration.get_filters().matchesOperatorMetricName(_instanceId, _jobName, _operatorName, metricName);
@@ -150,12 +229,27 @@ public class OperatorHandler extends MetricOwningHandler implements Notification
 		return isRelevant;
 	}
 
+	@Override
+	protected MetricEmission getMetricEmission(String metricName) {
+		return _operatorConfiguration.get_filters().getOperatorMetricEmission(_instanceId, _jobName, _operatorName, metricName);
+	}
+
 	@Override
 	protected Set<Metric> retrieveMetrics() {
 		Set<Metric> metrics = _operator.retrieveMetrics(false);
 		return metrics;
 	}
 
+	@Override
+	public String toString() {
+		return "operator " + _operatorName + " in job [" + _jobId + "]";
+	}
+
+	@Override
+	protected Set<Metric> lookupMetrics(MetricsSnapshot snapshot) {
+		return snapshot.getOperatorMetrics(_operatorName);
+	}
+
 	protected void addValidInputPort(Integer portIndex) {
 		boolean matches = _operatorConfiguration.get_filters().matchesOperatorInputPortIndex(_instanceId, _jobName, _operatorName, portIndex);
 		if (_trace.isInfoEnabled()) {
@@ -167,7 +261,7 @@ public class OperatorHandler extends MetricOwningHandler implements Notification
 			}
 		}
 		if (matches) {
-			_inputPortHandlers.put(portIndex, new OperatorInputPortHandler(_operatorConfiguration, _instanceId, _jobId, _jobName, _operatorName, portIndex));
+			_inputPortHandlers.put(portIndex, new OperatorInputPortHandler(_operatorConfiguration, _tupleContainer, _instanceId, _jobId, _jobName, _operatorName, portIndex));
 		}
 	}
 
@@ -182,17 +276,130 @@ public class OperatorHandler extends MetricOwningHandler implements Notification
 			}
 		}
 		if (matches) {
-			_outputPortHandlers.put(portIndex, new OperatorOutputPortHandler(_operatorConfiguration, _instanceId, _jobId, _jobName, _operatorName, portIndex));
+			_outputPortHandlers.put(portIndex, new OperatorOutputPortHandler(_operatorConfiguration, _tupleContainer, _instanceId, _jobId, _jobName, _operatorName, portIndex));
+		}
+	}
+
+	protected void removeInputPort(Integer portIndex) throws Exception {
+		OperatorInputPortHandler handler = _inputPortHandlers.remove(portIndex);
+		if (handler != null) {
+			if (_trace.isInfoEnabled()) {
+				_trace.info("The following input port is removed and is therefore, not monitored anymore: instance=" + _instanceId + ", job=[" + _jobId + "][" + _jobName + "], operator=" + _operatorName + ", port=" + portIndex);
+			}
+			handler.close();
+		}
+	}
+
+	protected void removeOutputPort(Integer portIndex) throws Exception {
+		OperatorOutputPortHandler handler = _outputPortHandlers.remove(portIndex);
+		if (handler != null) {
+			if (_trace.isInfoEnabled()) {
+				_trace.info("The following output port is removed and is therefore, not monitored anymore: instance=" + _instanceId + ", job=[" + _jobId + "][" + _jobName + "], operator=" + _operatorName + ", port=" + portIndex);
+			}
+			handler.close();
 		}
 	}
 
+	/**
+	 * Add and remove port handlers, so they match the current ports of the
+	 * operator. Handlers of unchanged ports keep their state.
+	 */
+	protected synchronized void syncPorts() throws Exception {
+		Set<Integer> inputPorts = isInputPortDiscoveryRequired() ? _operator.getInputPorts() : Collections.<Integer>emptySet();
+		for (Integer portIndex : inputPorts) {
+			if (!_inputPortHandlers.containsKey(portIndex)) {
+				addValidInputPort(portIndex);
+			}
+		}
+		for (Integer portIndex : _inputPortHandlers.keySet()) {
+			if (!inputPorts.contains(portIndex)) {
+				removeInputPort(portIndex);
+			}
+		}
+		Set<Integer> outputPorts = isOutputPortDiscoveryRequired() ? _operator.getOutputPorts() : Collections.<Integer>emptySet();
+		for (Integer portIndex : outputPorts) {
+			if (!_outputPortHandlers.containsKey(portIndex)) {
+				addValidOutputPort(portIndex);
+			}
+		}
+		for (Integer portIndex : _outputPortHandlers.keySet()) {
+			if (!outputPorts.contains(portIndex)) {
+				removeOutputPort(portIndex);
+			}
+		}
+	}
+
+	/**
+	 * Determine whether the input ports of this operator must be enumerated.
+	 * If the filters cannot match any input port, the port indexes are not
+	 * retrieved and no port handlers are created.
+	 */
+	private boolean isInputPortDiscoveryRequired() {
+		return _operatorConfiguration.get_filters().mayMatchOperatorInputPorts(_instanceId, _jobName, _operatorName);
+	}
+
+	/**
+	 * Determine whether the output ports of this operator must be
+	 * enumerated.
+	 */
+	private boolean isOutputPortDiscoveryRequired() {
+		return _operatorConfiguration.get_filters().mayMatchOperatorOutputPorts(_instanceId, _jobName, _operatorName);
+	}
+
+	/**
+	 * Apply changed filters to this operator and its ports. Port handlers
+	 * that do not match the filters anymore are closed, and ports that match
+	 * the filters now are added. The other handlers keep their state.
+	 */
+	public synchronized void applyFilters() throws Exception {
+		setMayMatchMetrics(_operatorConfiguration.get_filters().mayMatchOperatorMetrics(_instanceId, _jobName, _operatorName));
+		reevaluateMetrics(_operatorConfiguration.get_filters().getOperatorScanPeriod(_instanceId, _jobName, _operatorName));
+		for (Integer portIndex : _inputPortHandlers.keySet()) {
+			if (_operatorConfiguration.get_filters().matchesOperatorInputPortIndex(_instanceId, _jobName, _operatorName, portIndex)) {
+				_inputPortHandlers.get(portIndex).applyFilters();
+			}
+			else {
+				removeInputPort(portIndex);
+			}
+		}
+		for (Integer portIndex : _outputPortHandlers.keySet()) {
+			if (_operatorConfiguration.get_filters().matchesOperatorOutputPortIndex(_instanceId, _jobName, _operatorName, portIndex)) {
+				_outputPortHandlers.get(portIndex).applyFilters();
+			}
+			else {
+				removeOutputPort(portIndex);
+			}
+		}
+		syncPorts();
+	}
+
+	/**
+	 * Bind this handler and its port handlers to the re-established JMX
+	 * connection. The metric evaluators keep their state.
+	 */
+	public synchronized void rebind() throws Exception {
+		_operator = JMX.newMXBeanProxy(_operatorConfiguration.get_mbeanServerConnection(_jobId), _objName, OperatorMXBean.class, true);
+		addNotificationListener();
+		for(OperatorInputPortHandler handler : _inputPortHandlers.values()) {
+			handler.rebind();
+		}
+		for(OperatorOutputPortHandler handler : _outputPortHandlers.values()) {
+			handler.rebind();
+		}
+		syncPorts();
+	}
+
 	/**
 	 * Iterate all jobs to capture the job metrics.
 	 * 
+	 * @param snapshot
+	 * The snapshot of the job metrics, or null if metrics are not retrieved
+	 * in batches.
+	 * 
 	 * @throws Exception
 	 * Throws Exception if submitting the tuple failed. 
 	 */
-	public void captureMetrics() throws Exception {
+	public void captureMetrics(MetricsSnapshot snapshot) throws Exception {
 
 		// Determine the trace level status once per function.
 		boolean isDebugEnabled = _trace.isDebugEnabled();
@@ -201,24 +408,49 @@ public class OperatorHandler extends MetricOwningHandler implements Notification
 			_trace.debug("--> captureMetrics(instance=" + _instanceId + ", job=[" + _jobId + "]:" + _jobName + ", operator=" + _operatorName + ")");
 		}
 
-		MetricsTupleContainer tc = _operatorConfiguration.get_tupleContainerMetricsSource();
-		tc.setOperatorName(_operatorName);
-		tc.setOrigin("Operator");
-		tc.setPortIndex(0);
-		tc.setChannel(_operator.getChannel());
-		tc.setPeId(_operator.getPe());
-		tc.setResource(_operator.getResource());
+		if (isScanDueForAny()) {
+			try {
+				Integer channel = invoke(new Callable<Integer>() {
+					@Override
+					public Integer call() throws Exception {
+						return _operator.getChannel();
+					}
+				});
+				String peId = invoke(new Callable<String>() {
+					@Override
+					public String call() throws Exception {
+						return _operator.getPe();
+					}
+				});
+				String resource = invoke(new Callable<String>() {
+					@Override
+					public String call() throws Exception {
+						return _operator.getResource();
+					}
+				});
+				setPlacement(getTupleContainer(), channel, peId, resource);
+				for(OperatorInputPortHandler handler : _inputPortHandlers.values()) {
+					setPlacement(handler.getTupleContainer(), channel, peId, resource);
+				}
+				for(OperatorOutputPortHandler handler : _outputPortHandlers.values()) {
+					setPlacement(handler.getTupleContainer(), channel, peId, resource);
+				}
 
-		captureAndSubmitChangedMetrics();
+				captureAndSubmitChangedMetrics(snapshot);
+			}
+			catch (TimeoutException e) {
+				_trace.warn("Skip the metrics of the " + this + " in this scan cycle: " + e.getMessage());
+			}
+		}
 
 		/*
 		 * Capture port metrics.
 		 */
 		for(Integer portIndex : _inputPortHandlers.keySet()) {
-			_inputPortHandlers.get(portIndex).captureMetrics();
+			_inputPortHandlers.get(portIndex).captureMetrics(snapshot);
 		}
 		for(Integer portIndex : _outputPortHandlers.keySet()) {
-			_outputPortHandlers.get(portIndex).captureMetrics();
+			_outputPortHandlers.get(portIndex).captureMetrics(snapshot);
 		}
 
 		if (isDebugEnabled) {
@@ -227,19 +459,84 @@ public class OperatorHandler extends MetricOwningHandler implements Notification
 	}
 
 	/**
-	 * Remove notification listeners from this and child objects.
+	 * Set the attributes that change if the operator is relocated in the
+	 * tuple template of the operator or one of its ports.
+	 */
+	private static void setPlacement(MetricsTupleContainer tc, Integer channel, String peId, String resource) {
+		tc.setChannel(channel);
+		tc.setPeId(peId);
+		tc.setResource(resource);
+	}
+
+	/**
+	 * Determine whether the metrics of this operator or of one of its ports
+	 * are due in the current scan cycle. The ports depend on the operator
+	 * attributes that are set in their tuple templates.
+	 */
+	private boolean isScanDueForAny() {
+		if (isScanDue()) {
+			return true;
+		}
+		for(OperatorInputPortHandler handler : _inputPortHandlers.values()) {
+			if (handler.isScanDue()) {
+				return true;
+			}
+		}
+		for(OperatorOutputPortHandler handler : _outputPortHandlers.values()) {
+			if (handler.isScanDue()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Start retrieving the metrics of this operator and its ports.
+	 */
+	@Override
+	protected void requestMetrics(MetricsSnapshot snapshot) {
+		super.requestMetrics(snapshot);
+		for(OperatorInputPortHandler handler : _inputPortHandlers.values()) {
+			handler.requestMetrics(snapshot);
+		}
+		for(OperatorOutputPortHandler handler : _outputPortHandlers.values()) {
+			handler.requestMetrics(snapshot);
+		}
+	}
+
+	/**
+	 * Release the metric state of this and child objects, and remove the
+	 * notification listener. If the operator was removed from the job, its
+	 * MXBean is gone and the listener cannot be removed anymore, which is
+	 * ignored.
 	 */
 	@Override
 	public void close() throws Exception {
+		releaseAll();
 		// Remove the notification listener.
-		_operatorConfiguration.get_mbeanServerConnection().removeNotificationListener(_objName, this);
-		// Close all resources of all child objects.
+		try {
+			_operatorConfiguration.get_mbeanServerConnection(_jobId).removeNotificationListener(_objName, this);
+		}
+		catch (Exception e) {
+			if (_trace.isDebugEnabled()) {
+				_trace.debug("The notification listener of the " + this + " cannot be removed: " + e);
+			}
+		}
+	}
+
+	/**
+	 * Release the metric state of this and child objects without any remote
+	 * call.
+	 */
+	@Override
+	public void releaseAll() {
+		super.releaseAll();
 		for(OperatorInputPortHandler handler : _inputPortHandlers.values()) {
-			handler.close();
+			handler.releaseAll();
 		}
 		_inputPortHandlers.clear();
 		for(OperatorOutputPortHandler handler : _outputPortHandlers.values()) {
-			handler.close();
+			handler.releaseAll();
 		}
 		_outputPortHandlers.clear();
 	}
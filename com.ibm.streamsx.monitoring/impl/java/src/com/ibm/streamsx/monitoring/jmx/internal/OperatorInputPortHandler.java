@@ -19,6 +19,7 @@ import com.ibm.streams.management.Metric;
 import com.ibm.streams.management.ObjectNameBuilder;
 import com.ibm.streams.management.job.OperatorInputPortMXBean;
 import com.ibm.streamsx.monitoring.jmx.OperatorConfiguration;
+import com.ibm.streamsx.monitoring.jmx.internal.filters.MetricEmission;
 
 /**
  * 
@@ -42,7 +43,7 @@ public class OperatorInputPortHandler extends MetricOwningHandler implements Clo
 	
 	private OperatorInputPortMXBean _port = null;
 
-	public OperatorInputPortHandler(OperatorConfiguration operatorConfiguration, String instanceId, String jobId, String jobName, String operatorName, Integer portIndex) {
+	public OperatorInputPortHandler(OperatorConfiguration operatorConfiguration, MetricsTupleContainer tupleContainer, String instanceId, String jobId, String jobName, String operatorName, Integer portIndex) {
 
 		super(MetricsRegistrationMode.DynamicMetricsRegistration);
 
@@ -57,16 +58,24 @@ public class OperatorInputPortHandler extends MetricOwningHandler implements Clo
 		_operatorName = operatorName;
 		_portIndex = portIndex;
 
+		// The tuple template of this port, based on the template of the parent.
+		if (tupleContainer != null) {
+			_tupleContainer = new MetricsTupleContainer(tupleContainer);
+			_tupleContainer.setOrigin("OperatorInputPort");
+			_tupleContainer.setPortIndex(_portIndex);
+		}
+
 		if (isDebugEnabled) {
 			_trace.debug("--> InputPortHandler(instance=" + _instanceId + ", job=[" + _jobId + "]:" + _jobName + ", operator=" + _operatorName + ", port=" + _portIndex + ")");
 		}
 		
 		ObjectName operatorObjName = ObjectNameBuilder.operatorInputPort(_instanceId, _jobId, _operatorName, _portIndex);
-		_port = JMX.newMXBeanProxy(_operatorConfiguration.get_mbeanServerConnection(), operatorObjName, OperatorInputPortMXBean.class, true);
+		_port = JMX.newMXBeanProxy(_operatorConfiguration.get_mbeanServerConnection(_jobId), operatorObjName, OperatorInputPortMXBean.class, true);
 		
 		/*
 		 * Register input port metrics that match the specified filter criteria.
 		 */
+		setScanPeriod(_operatorConfiguration.get_filters().getOperatorInputPortScanPeriod(_instanceId, _jobName, _operatorName, _portIndex));
 		registerMetrics();
 		
 		if (isDebugEnabled) {
@@ -88,17 +97,51 @@ public class OperatorInputPortHandler extends MetricOwningHandler implements Clo
 		return isRelevant;
 	}
 
+	@Override
+	protected MetricEmission getMetricEmission(String metricName) {
+		return _operatorConfiguration.get_filters().getOperatorInputPortMetricEmission(_instanceId, _jobName, _operatorName, _portIndex, metricName);
+	}
+
 	@Override
 	protected Set<Metric> retrieveMetrics() {
 		Set<Metric> metrics = _port.retrieveMetrics();
 		return metrics;
 	}
 
+	@Override
+	public String toString() {
+		return "input port " + _portIndex + " of operator " + _operatorName + " in job [" + _jobId + "]";
+	}
+
+	@Override
+	protected Set<Metric> lookupMetrics(MetricsSnapshot snapshot) {
+		return snapshot.getOperatorInputPortMetrics(_operatorName, _portIndex);
+	}
+
+	/**
+	 * Create the MXBean proxy on the re-established JMX connection. The
+	 * metric evaluators keep their state.
+	 */
+	public void rebind() {
+		ObjectName operatorObjName = ObjectNameBuilder.operatorInputPort(_instanceId, _jobId, _operatorName, _portIndex);
+		_port = JMX.newMXBeanProxy(_operatorConfiguration.get_mbeanServerConnection(_jobId), operatorObjName, OperatorInputPortMXBean.class, true);
+	}
+
+	/**
+	 * Evaluate the metrics again after the filters changed.
+	 */
+	public void applyFilters() {
+		reevaluateMetrics(_operatorConfiguration.get_filters().getOperatorInputPortScanPeriod(_instanceId, _jobName, _operatorName, _portIndex));
+	}
+
 	/**
 	 * Iterate all jobs to capture the job metrics.
+	 * @param snapshot
+	 * The snapshot of the job metrics, or null if metrics are not retrieved
+	 * in batches.
 	 * @throws Exception 
 	 */
-	public void captureMetrics() throws Exception {
+	public void captureMetrics(MetricsSnapshot snapshot) throws Exception {
 
 		// Determine the trace level status once per function.
 		boolean isDebugEnabled = _trace.isDebugEnabled();
@@ -106,10 +149,7 @@ public class OperatorInputPortHandler extends MetricOwningHandler implements Clo
 		if (isDebugEnabled) {
 			_trace.debug("--> captureMetrics(instance=" + _instanceId + ", job=[" + _jobId + "]:" + _jobName + ", operator=" + _operatorName + ", port=" + _portIndex + ")");
 		}
-		MetricsTupleContainer tc = _operatorConfiguration.get_tupleContainerMetricsSource();
-		tc.setOrigin("OperatorInputPort");
-		tc.setPortIndex(_portIndex);
-		captureAndSubmitChangedMetrics();
+		captureAndSubmitChangedMetrics(snapshot);
 
 		if (isDebugEnabled) {
 			_trace.debug("<-- captureMetrics(instance=" + _instanceId + ", job=[" + _jobId + "]:" + _jobName + ", operator=" + _operatorName + ", port=" + _portIndex + ")");
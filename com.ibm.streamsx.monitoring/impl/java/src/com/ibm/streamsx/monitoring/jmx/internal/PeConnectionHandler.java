@@ -19,6 +19,7 @@ import com.ibm.streams.management.Metric;
 import com.ibm.streams.management.ObjectNameBuilder;
 import com.ibm.streams.management.job.PeConnectionMXBean;
 import com.ibm.streamsx.monitoring.jmx.OperatorConfiguration;
+import com.ibm.streamsx.monitoring.jmx.internal.filters.MetricEmission;
 
 /**
 * 
@@ -42,7 +43,7 @@ public class PeConnectionHandler extends MetricOwningHandler implements Closeabl
 	
 	private PeConnectionMXBean _connection = null;
 
-	public PeConnectionHandler(OperatorConfiguration operatorConfiguration, String instanceId, String jobId, String jobName, String peId, String connectionId) {
+	public PeConnectionHandler(OperatorConfiguration operatorConfiguration, MetricsTupleContainer tupleContainer, String instanceId, String jobId, String jobName, String peId, String connectionId) {
 
 		super(MetricsRegistrationMode.DynamicMetricsRegistration);
 
@@ -57,16 +58,24 @@ public class PeConnectionHandler extends MetricOwningHandler implements Closeabl
 		_peId = peId;
 		_connectionId = connectionId;
 
+		// The tuple template of this connection, based on the template of the parent.
+		if (tupleContainer != null) {
+			_tupleContainer = new MetricsTupleContainer(tupleContainer);
+			_tupleContainer.setOrigin("PeConnection");
+			_tupleContainer.setConnectionId(_connectionId);
+		}
+
 		if (isDebugEnabled) {
 			_trace.debug("--> ConnectionHandler(instance=" + _instanceId + ", job=[" + _jobId + "]:" + _jobName + ", peId=" + _peId + ", connectionId=" + _connectionId + ")");
 		}
 		
 		ObjectName objName = ObjectNameBuilder.peConnection(_instanceId, _connectionId);
-		_connection = JMX.newMXBeanProxy(_operatorConfiguration.get_mbeanServerConnection(), objName, PeConnectionMXBean.class, true);
+		_connection = JMX.newMXBeanProxy(_operatorConfiguration.get_mbeanServerConnection(_jobId), objName, PeConnectionMXBean.class, true);
 		
 		/*
 		 * Register connection metrics that match the specified filter criteria.
 		 */
+		setScanPeriod(_operatorConfiguration.get_filters().getPeConnectionScanPeriod(_instanceId, _jobName, _peId, _connectionId));
 		registerMetrics();
 		
 		if (isDebugEnabled) {
@@ -88,17 +97,51 @@ public class PeConnectionHandler extends MetricOwningHandler implements Closeabl
 		return isRelevant;
 	}
 
+	@Override
+	protected MetricEmission getMetricEmission(String metricName) {
+		return _operatorConfiguration.get_filters().getPeConnectionMetricEmission(_instanceId, _jobName, _peId, _connectionId, metricName);
+	}
+
 	@Override
 	protected Set<Metric> retrieveMetrics() {
 		Set<Metric> metrics = _connection.retrieveMetrics();
 		return metrics;
 	}
 
+	@Override
+	public String toString() {
+		return "connection " + _connectionId + " of PE " + _peId + " in job [" + _jobId + "]";
+	}
+
+	@Override
+	protected Set<Metric> lookupMetrics(MetricsSnapshot snapshot) {
+		return snapshot.getPeConnectionMetrics(_peId, _connectionId);
+	}
+
+	/**
+	 * Create the MXBean proxy on the re-established JMX connection. The
+	 * metric evaluators keep their state.
+	 */
+	public void rebind() {
+		ObjectName objName = ObjectNameBuilder.peConnection(_instanceId, _connectionId);
+		_connection = JMX.newMXBeanProxy(_operatorConfiguration.get_mbeanServerConnection(_jobId), objName, PeConnectionMXBean.class, true);
+	}
+
+	/**
+	 * Evaluate the metrics again after the filters changed.
+	 */
+	public void applyFilters() {
+		reevaluateMetrics(_operatorConfiguration.get_filters().getPeConnectionScanPeriod(_instanceId, _jobName, _peId, _connectionId));
+	}
+
 	/**
 	 * Iterate all jobs to capture the job metrics.
+	 * @param snapshot
+	 * The snapshot of the job metrics, or null if metrics are not retrieved
+	 * in batches.
 	 * @throws Exception 
 	 */
-	public void captureMetrics() throws Exception {
+	public void captureMetrics(MetricsSnapshot snapshot) throws Exception {
 
 		// Determine the trace level status once per function.
 		boolean isDebugEnabled = _trace.isDebugEnabled();
@@ -106,10 +149,7 @@ public class PeConnectionHandler extends MetricOwningHandler implements Closeabl
 		if (isDebugEnabled) {
 			_trace.debug("--> captureMetrics(instance=" + _instanceId + ", job=[" + _jobId + "]:" + _jobName + ", peId=" + _peId + ", connectionId=" + _connectionId + ")");
 		}
-		MetricsTupleContainer tc = _operatorConfiguration.get_tupleContainerMetricsSource();
-		tc.setOrigin("PeConnection");
-		tc.setConnectionId(_connectionId);
-		captureAndSubmitChangedMetrics();
+		captureAndSubmitChangedMetrics(snapshot);
 
 		if (isDebugEnabled) {
 			_trace.debug("<-- captureMetrics(instance=" + _instanceId + ", job=[" + _jobId + "]:" + _jobName + ", peId=" + _peId + ", connectionId=" + _connectionId + ")");
@@ -11,9 +11,12 @@ import org.apache.log4j.Logger;
 
 import java.io.IOException;
 import java.math.BigInteger;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
 
 import javax.management.InstanceNotFoundException;
 import javax.management.JMX;
@@ -26,8 +29,9 @@ import com.ibm.streams.management.Metric;
 import com.ibm.streams.management.Notifications;
 import com.ibm.streams.management.ObjectNameBuilder;
 import com.ibm.streams.management.job.PeMXBean;
-import com.ibm.streams.operator.Tuple;
+import com.ibm.streams.operator.OutputTuple;
 import com.ibm.streamsx.monitoring.jmx.OperatorConfiguration;
+import com.ibm.streamsx.monitoring.jmx.internal.filters.MetricEmission;
 import com.ibm.streamsx.monitoring.jmx.OperatorConfiguration.OpType;
 
 /**
@@ -52,13 +56,18 @@ public class PeHandler extends MetricOwningHandler implements NotificationListen
 	
 	private PeMXBean _pe = null;
 
-	private Map<Integer /* port index */, PeInputPortHandler> _inputPortHandlers = new HashMap<>();
+	/**
+	 * The port and connection handlers are added and removed by
+	 * notifications while the PE is scanned, therefore, concurrent maps are
+	 * used.
+	 */
+	private Map<Integer /* port index */, PeInputPortHandler> _inputPortHandlers = new ConcurrentHashMap<>();
 
-	private Map<Integer /* port index */, PeOutputPortHandler> _outputPortHandlers = new HashMap<>();
+	private Map<Integer /* port index */, PeOutputPortHandler> _outputPortHandlers = new ConcurrentHashMap<>();
 	
-	private Map<String /* connection id */, PeConnectionHandler> _connectionHandlers = new HashMap<>();
+	private Map<String /* connection id */, PeConnectionHandler> _connectionHandlers = new ConcurrentHashMap<>();
 
-	public PeHandler(OperatorConfiguration operatorConfiguration, String instanceId, String jobId, String jobName, String peId) {
+	public PeHandler(OperatorConfiguration operatorConfiguration, MetricsTupleContainer tupleContainer, String instanceId, String jobId, String jobName, String peId) {
 		super(MetricsRegistrationMode.DynamicMetricsRegistration);
 		
 		if (_trace.isDebugEnabled()) {
@@ -71,52 +80,79 @@ public class PeHandler extends MetricOwningHandler implements NotificationListen
 		_jobName = jobName;
 		_peId = peId;
 
+		// The tuple template of this PE, based on the template of the job.
+		if (tupleContainer != null) {
+			_tupleContainer = new MetricsTupleContainer(tupleContainer);
+			_tupleContainer.setOperatorName("");
+			_tupleContainer.setOrigin("Pe");
+			_tupleContainer.setPortIndex(0);
+			_tupleContainer.setChannel(-1);
+			_tupleContainer.setPeId(_peId);
+		}
+
 		_objName = ObjectNameBuilder.pe(_instanceId, _peId);
-		_pe = JMX.newMXBeanProxy(_operatorConfiguration.get_mbeanServerConnection(), _objName, PeMXBean.class, true);
+		_pe = JMX.newMXBeanProxy(_operatorConfiguration.get_mbeanServerConnection(_jobId), _objName, PeMXBean.class, true);
 		
-		/*
-		 * Register to get pe-related notifications.
-		 */
-		NotificationFilterSupport filter = new NotificationFilterSupport();
-		if (OpType.JOB_STATUS_SOURCE == _operatorConfiguration.get_OperatorType()) {
-			filter.enableType(Notifications.PE_CHANGED);
-		}
-		else {
-			filter.enableType(Notifications.PE_NOTIFICATION);
-		}
-		try {
-			_operatorConfiguration.get_mbeanServerConnection().addNotificationListener(_objName, this, filter, null);
-		} catch (InstanceNotFoundException e) {
-			e.printStackTrace();
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
-		//	TODO      jmxc.addConnectionNotificationListener(this, null, null); // listen for potential lost notifications
+		addNotificationListener();
+
 		if (OpType.METRICS_SOURCE == _operatorConfiguration.get_OperatorType()) {
 			/*
 			 * Register input port metrics that match the specified filter criteria.
 			 */
+			setScanPeriod(_operatorConfiguration.get_filters().getPeScanPeriod(_instanceId, _jobName, _peId));
+			setMayMatchMetrics(_operatorConfiguration.get_filters().mayMatchPeMetrics(_instanceId, _jobName, _peId));
 			registerMetrics();
 			
 			/*
 			 * Register input port metrics that match the specified filter criteria.
 			 */
-			for (Integer portIndex : _pe.getInputPorts()) {
-				addValidInputPort(portIndex);
+			if (isInputPortDiscoveryRequired()) {
+				for (Integer portIndex : _pe.getInputPorts()) {
+					addValidInputPort(portIndex);
+				}
 			}
 			/*
 			 * Register output port metrics that match the specified filter criteria.
 			 */
-			for (Integer portIndex : _pe.getOutputPorts()) {
-				addValidOutputPort(portIndex);
+			if (isOutputPortDiscoveryRequired()) {
+				for (Integer portIndex : _pe.getOutputPorts()) {
+					addValidOutputPort(portIndex);
+				}
 			}
 			
-			for (String connectionId : _pe.getConnections()) {
-				addValidConnection(connectionId);
+			if (isConnectionDiscoveryRequired()) {
+				for (String connectionId : _pe.getConnections()) {
+					addValidConnection(connectionId);
+				}
 			}
 		}
 	}
 
+	/**
+	 * Register to get PE-related notifications on the current JMX
+	 * connection.
+	 */
+	private void addNotificationListener() {
+		/*
+		 * Register to get pe-related notifications.
+		 */
+		NotificationFilterSupport filter = new NotificationFilterSupport();
+		if (OpType.JOB_STATUS_SOURCE == _operatorConfiguration.get_OperatorType()) {
+			filter.enableType(Notifications.PE_CHANGED);
+		}
+		else {
+			filter.enableType(Notifications.PE_NOTIFICATION);
+		}
+		try {
+			_operatorConfiguration.get_mbeanServerConnection(_jobId).addNotificationListener(_objName, this, filter, null);
+		} catch (InstanceNotFoundException e) {
+			e.printStackTrace();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		// The connection of the job is observed by the JmxConnectionPool, which reports a lost connection.
+	}
+
 	/**
 	 * {@inheritDoc}
 	 * 
@@ -128,9 +164,77 @@ public class PeHandler extends MetricOwningHandler implements NotificationListen
 			_trace.debug("notification: " + notification + ", userData=" + notification.getUserData());
 		}
 		if (OpType.JOB_STATUS_SOURCE == _operatorConfiguration.get_OperatorType()) {
-			final Tuple tuple = _operatorConfiguration.get_tupleContainerJobStatusSource().getTuple(notification, handback, _instanceId, _jobId, _jobName, _pe.getResource(), _peId, _pe.getHealth(), _pe.getStatus());
-			_operatorConfiguration.get_tupleContainerJobStatusSource().submit(tuple);
+			PeStatusCoalescer coalescer = _operatorConfiguration.get_peStatusCoalescer();
+			if (coalescer != null) {
+				coalescer.add(getCoalescingKey(), this, notification, handback);
+			}
+			else {
+				emitStatus(notification, handback, notification.getTimeStamp());
+			}
+		}
+		else if (OpType.METRICS_SOURCE == _operatorConfiguration.get_OperatorType()) {
+			try {
+				if (notification.getType().equals(Notifications.PE_CONNECTION_ADDED)) {
+					String connectionId = NotificationUserData.getId(notification, "id");
+					if (connectionId != null && !_connectionHandlers.containsKey(connectionId)) {
+						addValidConnection(connectionId);
+					}
+				}
+				else if (notification.getType().equals(Notifications.PE_CONNECTION_REMOVED)) {
+					String connectionId = NotificationUserData.getId(notification, "id");
+					if (connectionId != null) {
+						removeConnection(connectionId);
+					}
+				}
+				else if (notification.getType().equals(Notifications.PE_CHANGED)) {
+					/*
+					 * The PE was, for example, restarted or relocated. Its
+					 * ports and connections may have changed.
+					 */
+					syncPortsAndConnections();
+				}
+			}
+			catch (Exception e) {
+				_trace.warn("The notification cannot be applied to the " + this + ": " + e);
+			}
+		}
+	}
+
+	/**
+	 * Emit the status of this PE for the notification.
+	 * @param firstTimeStamp
+	 * The timestamp of the first notification that the notification
+	 * coalesces, or the timestamp of the notification itself.
+	 */
+	void emitStatus(Notification notification, Object handback, long firstTimeStamp) {
+		final JobStatusTupleContainer tupleContainer = _operatorConfiguration.get_tupleContainerJobStatusSource();
+		String resource = null;
+		Object health = null;
+		Object status = null;
+		try {
+			resource = _pe.getResource();
+			health = _pe.getHealth();
+			status = _pe.getStatus();
+		}
+		catch (Exception e) {
+			// The PE is gone, for example if the notification is emitted
+			// when the handler is closed, so the notification is emitted
+			// without the PE status.
+			if (_trace.isDebugEnabled()) {
+				_trace.debug("The status of the " + this + " cannot be retrieved: " + e);
+			}
 		}
+		final OutputTuple tuple = tupleContainer.getTuple(notification, handback, _instanceId, _jobId, _jobName, resource, _peId, health, status);
+		tupleContainer.setFirstEventTimestamp(tuple, firstTimeStamp);
+		tupleContainer.submit(tuple);
+	}
+
+	/**
+	 * Get the key of the window in which the status notifications of this
+	 * PE are coalesced.
+	 */
+	private String getCoalescingKey() {
+		return _instanceId + "/" + _peId;
 	}
 
 	@Override
@@ -147,12 +251,27 @@ public class PeHandler extends MetricOwningHandler implements NotificationListen
 		return isRelevant;
 	}
 
+	@Override
+	protected MetricEmission getMetricEmission(String metricName) {
+		return _operatorConfiguration.get_filters().getPeMetricEmission(_instanceId, _jobName, _peId, metricName);
+	}
+
 	@Override
 	protected Set<Metric> retrieveMetrics() {
 		Set<Metric> metrics = _pe.retrieveMetrics(false);
 		return metrics;
 	}
 
+	@Override
+	public String toString() {
+		return "PE " + _peId + " in job [" + _jobId + "]";
+	}
+
+	@Override
+	protected Set<Metric> lookupMetrics(MetricsSnapshot snapshot) {
+		return snapshot.getPeMetrics(_peId);
+	}
+
 	protected void addValidInputPort(Integer portIndex) {
 		boolean matches = _operatorConfiguration.get_filters().matchesPeInputPortIndex(_instanceId, _jobName, _peId, portIndex);
 		if (_trace.isInfoEnabled()) {
@@ -164,7 +283,7 @@ public class PeHandler extends MetricOwningHandler implements NotificationListen
 			}
 		}
 		if (matches) {
-			_inputPortHandlers.put(portIndex, new PeInputPortHandler(_operatorConfiguration, _instanceId, _jobId, _jobName, _peId, portIndex));
+			_inputPortHandlers.put(portIndex, new PeInputPortHandler(_operatorConfiguration, _tupleContainer, _instanceId, _jobId, _jobName, _peId, portIndex));
 		}
 	}
 
@@ -179,7 +298,7 @@ public class PeHandler extends MetricOwningHandler implements NotificationListen
 			}
 		}
 		if (matches) {
-			_outputPortHandlers.put(portIndex, new PeOutputPortHandler(_operatorConfiguration, _instanceId, _jobId, _jobName, _peId, portIndex));
+			_outputPortHandlers.put(portIndex, new PeOutputPortHandler(_operatorConfiguration, _tupleContainer, _instanceId, _jobId, _jobName, _peId, portIndex));
 		}
 	}
 	
@@ -194,44 +313,223 @@ public class PeHandler extends MetricOwningHandler implements NotificationListen
 			}
 		}
 		if (matches) {
-			_connectionHandlers.put(connectionId, new PeConnectionHandler(_operatorConfiguration, _instanceId, _jobId, _jobName, _peId, connectionId));
+			_connectionHandlers.put(connectionId, new PeConnectionHandler(_operatorConfiguration, _tupleContainer, _instanceId, _jobId, _jobName, _peId, connectionId));
+		}
+	}
+
+	protected void removeInputPort(Integer portIndex) throws Exception {
+		PeInputPortHandler handler = _inputPortHandlers.remove(portIndex);
+		if (handler != null) {
+			if (_trace.isInfoEnabled()) {
+				_trace.info("The following input port is removed and is therefore, not monitored anymore: instance=" + _instanceId + ", job=[" + _jobId + "][" + _jobName + "], peId=" + _peId + ", port=" + portIndex);
+			}
+			handler.close();
+		}
+	}
+
+	protected void removeOutputPort(Integer portIndex) throws Exception {
+		PeOutputPortHandler handler = _outputPortHandlers.remove(portIndex);
+		if (handler != null) {
+			if (_trace.isInfoEnabled()) {
+				_trace.info("The following output port is removed and is therefore, not monitored anymore: instance=" + _instanceId + ", job=[" + _jobId + "][" + _jobName + "], peId=" + _peId + ", port=" + portIndex);
+			}
+			handler.close();
+		}
+	}
+
+	protected void removeConnection(String connectionId) throws Exception {
+		PeConnectionHandler handler = _connectionHandlers.remove(connectionId);
+		if (handler != null) {
+			if (_trace.isInfoEnabled()) {
+				_trace.info("The following connection is removed and is therefore, not monitored anymore: instance=" + _instanceId + ", job=[" + _jobId + "][" + _jobName + "], peId=" + _peId + ", connection=" + connectionId);
+			}
+			handler.close();
+		}
+	}
+
+	/**
+	 * Add and remove port and connection handlers, so they match the current
+	 * ports and connections of the PE. Handlers of unchanged ports and
+	 * connections keep their state.
+	 */
+	/**
+	 * Determine whether the input ports of this PE must be enumerated. If
+	 * the filters cannot match any input port, the port indexes are not
+	 * retrieved and no port handlers are created.
+	 */
+	private boolean isInputPortDiscoveryRequired() {
+		return _operatorConfiguration.get_filters().mayMatchPeInputPorts(_instanceId, _jobName, _peId);
+	}
+
+	/**
+	 * Determine whether the output ports of this PE must be enumerated.
+	 */
+	private boolean isOutputPortDiscoveryRequired() {
+		return _operatorConfiguration.get_filters().mayMatchPeOutputPorts(_instanceId, _jobName, _peId);
+	}
+
+	/**
+	 * Determine whether the connections of this PE must be enumerated.
+	 */
+	private boolean isConnectionDiscoveryRequired() {
+		return _operatorConfiguration.get_filters().mayMatchPeConnections(_instanceId, _jobName, _peId);
+	}
+
+	protected synchronized void syncPortsAndConnections() throws Exception {
+		Set<Integer> inputPorts = isInputPortDiscoveryRequired() ? _pe.getInputPorts() : Collections.<Integer>emptySet();
+		for (Integer portIndex : inputPorts) {
+			if (!_inputPortHandlers.containsKey(portIndex)) {
+				addValidInputPort(portIndex);
+			}
+		}
+		for (Integer portIndex : _inputPortHandlers.keySet()) {
+			if (!inputPorts.contains(portIndex)) {
+				removeInputPort(portIndex);
+			}
+		}
+		Set<Integer> outputPorts = isOutputPortDiscoveryRequired() ? _pe.getOutputPorts() : Collections.<Integer>emptySet();
+		for (Integer portIndex : outputPorts) {
+			if (!_outputPortHandlers.containsKey(portIndex)) {
+				addValidOutputPort(portIndex);
+			}
+		}
+		for (Integer portIndex : _outputPortHandlers.keySet()) {
+			if (!outputPorts.contains(portIndex)) {
+				removeOutputPort(portIndex);
+			}
+		}
+		Set<String> connections = isConnectionDiscoveryRequired() ? _pe.getConnections() : Collections.<String>emptySet();
+		for (String connectionId : connections) {
+			if (!_connectionHandlers.containsKey(connectionId)) {
+				addValidConnection(connectionId);
+			}
+		}
+		for (String connectionId : _connectionHandlers.keySet()) {
+			if (!connections.contains(connectionId)) {
+				removeConnection(connectionId);
+			}
+		}
+	}
+
+	/**
+	 * Apply changed filters to this PE, its ports, and its connections.
+	 * Handlers that do not match the filters anymore are closed, and ports
+	 * and connections that match the filters now are added. The other
+	 * handlers keep their state.
+	 */
+	public synchronized void applyFilters() throws Exception {
+		if (OpType.METRICS_SOURCE != _operatorConfiguration.get_OperatorType()) {
+			return;
+		}
+		setMayMatchMetrics(_operatorConfiguration.get_filters().mayMatchPeMetrics(_instanceId, _jobName, _peId));
+		reevaluateMetrics(_operatorConfiguration.get_filters().getPeScanPeriod(_instanceId, _jobName, _peId));
+		for (Integer portIndex : _inputPortHandlers.keySet()) {
+			if (_operatorConfiguration.get_filters().matchesPeInputPortIndex(_instanceId, _jobName, _peId, portIndex)) {
+				_inputPortHandlers.get(portIndex).applyFilters();
+			}
+			else {
+				removeInputPort(portIndex);
+			}
+		}
+		for (Integer portIndex : _outputPortHandlers.keySet()) {
+			if (_operatorConfiguration.get_filters().matchesPeOutputPortIndex(_instanceId, _jobName, _peId, portIndex)) {
+				_outputPortHandlers.get(portIndex).applyFilters();
+			}
+			else {
+				removeOutputPort(portIndex);
+			}
+		}
+		for (String connectionId : _connectionHandlers.keySet()) {
+			if (_operatorConfiguration.get_filters().matchesPeConnectionId(_instanceId, _jobName, _peId, connectionId)) {
+				_connectionHandlers.get(connectionId).applyFilters();
+			}
+			else {
+				removeConnection(connectionId);
+			}
+		}
+		syncPortsAndConnections();
+	}
+
+	/**
+	 * Bind this handler and its port and connection handlers to the
+	 * re-established JMX connection. The metric evaluators keep their state.
+	 */
+	public synchronized void rebind() throws Exception {
+		_pe = JMX.newMXBeanProxy(_operatorConfiguration.get_mbeanServerConnection(_jobId), _objName, PeMXBean.class, true);
+		addNotificationListener();
+		if (OpType.METRICS_SOURCE != _operatorConfiguration.get_OperatorType()) {
+			return;
+		}
+		for(PeInputPortHandler handler : _inputPortHandlers.values()) {
+			handler.rebind();
+		}
+		for(PeOutputPortHandler handler : _outputPortHandlers.values()) {
+			handler.rebind();
+		}
+		for(PeConnectionHandler handler : _connectionHandlers.values()) {
+			handler.rebind();
 		}
+		syncPortsAndConnections();
 	}
 
 	/**
 	 * Iterate all jobs to capture the job metrics.
 	 * 
+	 * @param snapshot
+	 * The snapshot of the job metrics, or null if metrics are not retrieved
+	 * in batches.
+	 * 
 	 * @throws Exception
 	 * Throws Exception if submitting the tuple failed. 
 	 */
-	public void captureMetrics() throws Exception {
+	public void captureMetrics(MetricsSnapshot snapshot) throws Exception {
 		// Determine the trace level status once per function.
 		boolean isDebugEnabled = _trace.isDebugEnabled();
 
 		if (isDebugEnabled) {
 			_trace.debug("--> captureMetrics(instance=" + _instanceId + ", job=[" + _jobId + "]:" + _jobName + ", peId=" + _peId + ")");
 		}
-		MetricsTupleContainer tc = _operatorConfiguration.get_tupleContainerMetricsSource();
-		tc.setOperatorName("");
-		tc.setOrigin("Pe");
-		tc.setPortIndex(0);
-		tc.setChannel(-1);
-		tc.setPeId(_peId);
-		tc.setResource(_pe.getResource());
+		if (isScanDueForAny()) {
+			try {
+				String resource = invoke(new Callable<String>() {
+					@Override
+					public String call() throws Exception {
+						return _pe.getResource();
+					}
+				});
+				/*
+				 * The PE can be relocated, so the resource is set in the tuple
+				 * templates of the PE, its ports, and its connections.
+				 */
+				getTupleContainer().setResource(resource);
+				for(PeInputPortHandler handler : _inputPortHandlers.values()) {
+					handler.getTupleContainer().setResource(resource);
+				}
+				for(PeOutputPortHandler handler : _outputPortHandlers.values()) {
+					handler.getTupleContainer().setResource(resource);
+				}
+				for(PeConnectionHandler handler : _connectionHandlers.values()) {
+					handler.getTupleContainer().setResource(resource);
+				}
 
-		captureAndSubmitChangedMetrics();
+				captureAndSubmitChangedMetrics(snapshot);
+			}
+			catch (TimeoutException e) {
+				_trace.warn("Skip the metrics of the " + this + " in this scan cycle: " + e.getMessage());
+			}
+		}
 
 		/*
 		 * Capture port metrics.
 		 */
 		for(Integer portIndex : _inputPortHandlers.keySet()) {
-			_inputPortHandlers.get(portIndex).captureMetrics();
+			_inputPortHandlers.get(portIndex).captureMetrics(snapshot);
 		}
 		for(Integer portIndex : _outputPortHandlers.keySet()) {
-			_outputPortHandlers.get(portIndex).captureMetrics();
+			_outputPortHandlers.get(portIndex).captureMetrics(snapshot);
 		}
 		for(String connectionId : _connectionHandlers.keySet()) {
-			_connectionHandlers.get(connectionId).captureMetrics();
+			_connectionHandlers.get(connectionId).captureMetrics(snapshot);
 		}
 
 		if (isDebugEnabled) {
@@ -240,21 +538,94 @@ public class PeHandler extends MetricOwningHandler implements NotificationListen
 	}
 
 	/**
-	 * Remove notification listeners from this and child objects.
+	 * Determine whether the metrics of this PE or of one of its ports or
+	 * connections are due in the current scan cycle. The ports and
+	 * connections depend on the PE attributes that are set in the tuple
+	 * container.
+	 */
+	private boolean isScanDueForAny() {
+		if (isScanDue()) {
+			return true;
+		}
+		for(PeInputPortHandler handler : _inputPortHandlers.values()) {
+			if (handler.isScanDue()) {
+				return true;
+			}
+		}
+		for(PeOutputPortHandler handler : _outputPortHandlers.values()) {
+			if (handler.isScanDue()) {
+				return true;
+			}
+		}
+		for(PeConnectionHandler handler : _connectionHandlers.values()) {
+			if (handler.isScanDue()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Start retrieving the metrics of this PE, its ports, and its connections.
+	 */
+	@Override
+	protected void requestMetrics(MetricsSnapshot snapshot) {
+		super.requestMetrics(snapshot);
+		for(PeInputPortHandler handler : _inputPortHandlers.values()) {
+			handler.requestMetrics(snapshot);
+		}
+		for(PeOutputPortHandler handler : _outputPortHandlers.values()) {
+			handler.requestMetrics(snapshot);
+		}
+		for(PeConnectionHandler handler : _connectionHandlers.values()) {
+			handler.requestMetrics(snapshot);
+		}
+	}
+
+	/**
+	 * Release the metric state of this and child objects, and remove the
+	 * notification listener. If the PE was removed from the job, its MXBean
+	 * is gone and the listener cannot be removed anymore, which is ignored.
 	 */
 	@Override
 	public void close() throws Exception {
+		releaseAll();
 		// Remove the notification listener.
-		_operatorConfiguration.get_mbeanServerConnection().removeNotificationListener(_objName, this);
-		// Close all resources of all child objects.
+		try {
+			_operatorConfiguration.get_mbeanServerConnection(_jobId).removeNotificationListener(_objName, this);
+		}
+		catch (Exception e) {
+			if (_trace.isDebugEnabled()) {
+				_trace.debug("The notification listener of the " + this + " cannot be removed: " + e);
+			}
+		}
+	}
+
+	/**
+	 * Release the metric state of this and child objects without any remote
+	 * call.
+	 */
+	@Override
+	public void releaseAll() {
+		// Emit the coalesced notifications before the PE status cannot be
+		// retrieved anymore.
+		PeStatusCoalescer coalescer = _operatorConfiguration.get_peStatusCoalescer();
+		if (coalescer != null) {
+			coalescer.flush(getCoalescingKey());
+		}
+		super.releaseAll();
 		for(PeInputPortHandler handler : _inputPortHandlers.values()) {
-			handler.close();
+			handler.releaseAll();
 		}
 		_inputPortHandlers.clear();
 		for(PeOutputPortHandler handler : _outputPortHandlers.values()) {
-			handler.close();
+			handler.releaseAll();
 		}
 		_outputPortHandlers.clear();
+		for(PeConnectionHandler handler : _connectionHandlers.values()) {
+			handler.releaseAll();
+		}
+		_connectionHandlers.clear();
 	}
 
 }
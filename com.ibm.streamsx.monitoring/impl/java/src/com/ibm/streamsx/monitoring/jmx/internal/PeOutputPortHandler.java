@@ -19,6 +19,7 @@ import com.ibm.streams.management.Metric;
 import com.ibm.streams.management.ObjectNameBuilder;
 import com.ibm.streams.management.job.PeOutputPortMXBean;
 import com.ibm.streamsx.monitoring.jmx.OperatorConfiguration;
+import com.ibm.streamsx.monitoring.jmx.internal.filters.MetricEmission;
 
 /**
  * 
@@ -42,7 +43,7 @@ public class PeOutputPortHandler extends MetricOwningHandler implements Closeabl
 	
 	private PeOutputPortMXBean _port = null;
 
-	public PeOutputPortHandler(OperatorConfiguration operatorConfiguration, String instanceId, String jobId, String jobName, String peId, Integer portIndex) {
+	public PeOutputPortHandler(OperatorConfiguration operatorConfiguration, MetricsTupleContainer tupleContainer, String instanceId, String jobId, String jobName, String peId, Integer portIndex) {
 
 		super(MetricsRegistrationMode.DynamicMetricsRegistration);
 
@@ -57,16 +58,24 @@ public class PeOutputPortHandler extends MetricOwningHandler implements Closeabl
 		_peId = peId;
 		_portIndex = portIndex;
 
+		// The tuple template of this port, based on the template of the parent.
+		if (tupleContainer != null) {
+			_tupleContainer = new MetricsTupleContainer(tupleContainer);
+			_tupleContainer.setOrigin("PeOutputPort");
+			_tupleContainer.setPortIndex(_portIndex);
+		}
+
 		if (isDebugEnabled) {
 			_trace.debug("--> OutputPortHandler(instance=" + _instanceId + ", job=[" + _jobId + "]:" + _jobName + ", peId=" + _peId + ", port=" + _portIndex + ")");
 		}
 		
 		ObjectName objName = ObjectNameBuilder.peOutputPort(_instanceId, _peId, _portIndex);
-		_port = JMX.newMXBeanProxy(_operatorConfiguration.get_mbeanServerConnection(), objName, PeOutputPortMXBean.class, true);
+		_port = JMX.newMXBeanProxy(_operatorConfiguration.get_mbeanServerConnection(_jobId), objName, PeOutputPortMXBean.class, true);
 		
 		/*
 		 * Register output port metrics that match the specified filter criteria.
 		 */
+		setScanPeriod(_operatorConfiguration.get_filters().getPeOutputPortScanPeriod(_instanceId, _jobName, _peId, _portIndex));
 		registerMetrics();
 		
 		if (isDebugEnabled) {
@@ -88,17 +97,51 @@ public class PeOutputPortHandler extends MetricOwningHandler implements Closeabl
 		return isRelevant;
 	}
 
+	@Override
+	protected MetricEmission getMetricEmission(String metricName) {
+		return _operatorConfiguration.get_filters().getPeOutputPortMetricEmission(_instanceId, _jobName, _peId, _portIndex, metricName);
+	}
+
 	@Override
 	protected Set<Metric> retrieveMetrics() {
 		Set<Metric> metrics = _port.retrieveMetrics();
 		return metrics;
 	}
 
+	@Override
+	public String toString() {
+		return "output port " + _portIndex + " of PE " + _peId + " in job [" + _jobId + "]";
+	}
+
+	@Override
+	protected Set<Metric> lookupMetrics(MetricsSnapshot snapshot) {
+		return snapshot.getPeOutputPortMetrics(_peId, _portIndex);
+	}
+
+	/**
+	 * Create the MXBean proxy on the re-established JMX connection. The
+	 * metric evaluators keep their state.
+	 */
+	public void rebind() {
+		ObjectName objName = ObjectNameBuilder.peOutputPort(_instanceId, _peId, _portIndex);
+		_port = JMX.newMXBeanProxy(_operatorConfiguration.get_mbeanServerConnection(_jobId), objName, PeOutputPortMXBean.class, true);
+	}
+
+	/**
+	 * Evaluate the metrics again after the filters changed.
+	 */
+	public void applyFilters() {
+		reevaluateMetrics(_operatorConfiguration.get_filters().getPeOutputPortScanPeriod(_instanceId, _jobName, _peId, _portIndex));
+	}
+
 	/**
 	 * Iterate all jobs to capture the job metrics.
+	 * @param snapshot
+	 * The snapshot of the job metrics, or null if metrics are not retrieved
+	 * in batches.
 	 * @throws Exception 
 	 */
-	public void captureMetrics() throws Exception {
+	public void captureMetrics(MetricsSnapshot snapshot) throws Exception {
 
 		// Determine the trace level status once per function.
 		boolean isDebugEnabled = _trace.isDebugEnabled();
@@ -106,10 +149,7 @@ public class PeOutputPortHandler extends MetricOwningHandler implements Closeabl
 		if (isDebugEnabled) {
 			_trace.debug("--> captureMetrics(instance=" + _instanceId + ", job=[" + _jobId + "]:" + _jobName + ", peId=" + _peId + ", port=" + _portIndex + ")");
 		}
-		MetricsTupleContainer tc = _operatorConfiguration.get_tupleContainerMetricsSource();
-		tc.setOrigin("PeOutputPort");
-		tc.setPortIndex(_portIndex);
-		captureAndSubmitChangedMetrics();
+		captureAndSubmitChangedMetrics(snapshot);
 
 		if (isDebugEnabled) {
 			_trace.debug("<-- captureMetrics(instance=" + _instanceId + ", job=[" + _jobId + "]:" + _jobName + ", peId=" + _peId + ", port=" + _portIndex + ")");
@@ -0,0 +1,181 @@
+//
+// ****************************************************************************
+// * Copyright (C) 2016, International Business Machines Corporation          *
+// * All rights reserved.                                                     *
+// ****************************************************************************
+//
+
+package com.ibm.streamsx.monitoring.jmx.internal;
+
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.Notification;
+
+/**
+ * Coalesces the status notifications of PEs, for example the storm of
+ * PE_CHANGED notifications while a PE restarts.
+ * <p>
+ * The first notification of a PE opens a window. Within the window, only
+ * the latest notification of the PE is kept, and it is emitted when the
+ * window ends, or when the handler of the PE is closed. The status of the PE
+ * is retrieved once per window then, and the emitted tuple contains the
+ * timestamps of the first and the last notification of the window.
+ * </p>
+ */
+public class PeStatusCoalescer {
+
+	/**
+	 * Logger for tracing.
+	 */
+	private static Logger _trace = Logger.getLogger(PeStatusCoalescer.class.getName());
+
+	/**
+	 * The latest notification of a PE within the window.
+	 */
+	private static class Window {
+
+		PeHandler _handler = null;
+
+		Notification _notification = null;
+
+		Object _handback = null;
+
+		long _firstTimeStamp = 0;
+
+		int _nNotifications = 0;
+
+		/**
+		 * The scheduled close of the window.
+		 */
+		ScheduledFuture<?> _future = null;
+	}
+
+	private final ScheduledExecutorService _scheduler;
+
+	private final long _windowMillis;
+
+	/**
+	 * The open windows, keyed by instance and PE.
+	 */
+	private final Map<String, Window> _windows = new HashMap<>();
+
+	/**
+	 * @param scheduler
+	 * The scheduler that closes the windows.
+	 *
+	 * @param window
+	 * The window in seconds.
+	 */
+	public PeStatusCoalescer(ScheduledExecutorService scheduler, double window) {
+		_scheduler = scheduler;
+		_windowMillis = Double.valueOf(window * 1000.0).longValue();
+	}
+
+	/**
+	 * Add the notification of the PE to its window, and open the window if
+	 * this is the first notification.
+	 */
+	public void add(String key, PeHandler handler, Notification notification, Object handback) {
+		Window newWindow = null;
+		synchronized (this) {
+			Window window = _windows.get(key);
+			if (window == null) {
+				window = new Window();
+				window._firstTimeStamp = notification.getTimeStamp();
+				_windows.put(key, window);
+				newWindow = window;
+			}
+			window._handler = handler;
+			window._notification = notification;
+			window._handback = handback;
+			window._nNotifications++;
+		}
+		if (newWindow != null) {
+			final String windowKey = key;
+			final Window scheduledWindow = newWindow;
+			ScheduledFuture<?> future = _scheduler.schedule(new Runnable() {
+				@Override
+				public void run() {
+					// A newer window of the PE is not closed early.
+					close(windowKey, scheduledWindow);
+				}
+			}, _windowMillis, TimeUnit.MILLISECONDS);
+			synchronized (this) {
+				scheduledWindow._future = future;
+			}
+		}
+	}
+
+	/**
+	 * Close the window of the PE and emit its latest notification, for
+	 * example when the handler of the PE is closed. Nothing is emitted if
+	 * the PE has no open window. The scheduled close of the window is
+	 * cancelled.
+	 */
+	public void flush(String key) {
+		Window window;
+		synchronized (this) {
+			window = _windows.remove(key);
+			if (window != null && window._future != null) {
+				window._future.cancel(false);
+			}
+		}
+		if (window != null) {
+			emit(window);
+		}
+	}
+
+	/**
+	 * Close the window when it ends, unless it was flushed already.
+	 */
+	private void close(String key, Window window) {
+		boolean isOpen;
+		synchronized (this) {
+			isOpen = _windows.remove(key, window);
+		}
+		if (isOpen) {
+			emit(window);
+		}
+	}
+
+	/**
+	 * Close all windows and emit their latest notifications, for example
+	 * when the operator shuts down.
+	 */
+	public void flushAll() {
+		List<Window> windows;
+		synchronized (this) {
+			windows = new ArrayList<>(_windows.values());
+			_windows.clear();
+			for (Window window : windows) {
+				if (window._future != null) {
+					window._future.cancel(false);
+				}
+			}
+		}
+		for (Window window : windows) {
+			emit(window);
+		}
+	}
+
+	private static void emit(Window window) {
+		if (_trace.isDebugEnabled()) {
+			_trace.debug("emit the latest of " + window._nNotifications + " notifications of the " + window._handler);
+		}
+		try {
+			window._handler.emitStatus(window._notification, window._handback, window._firstTimeStamp);
+		}
+		catch (Exception e) {
+			_trace.warn("The status of the " + window._handler + " cannot be emitted: " + e);
+		}
+	}
+
+}
@@ -10,9 +10,9 @@ package com.ibm.streamsx.monitoring.jmx.internal;
 import com.ibm.streams.management.Metric;
 
 /**
- * This metric evaluator always marks a metric as submittable. There is no
- * need to store any status data and therefore, the class is implemented as
- * singleton.
+ * This metric evaluator always marks a metric as submittable. The decision
+ * does not depend on any status data and therefore, the class is
+ * implemented as singleton.
  */
 public class PeriodicMetricEvaluator implements IMetricEvaluator {
 
@@ -37,12 +37,13 @@ public class PeriodicMetricEvaluator implements IMetricEvaluator {
 	}
 	
 	@Override
-	public boolean isSubmittable(Metric metric) {
+	public boolean isSubmittable(Metric metric, MetricStateStore state, int id, long time) {
 		return true;
 	}
 
 	@Override
-	public void updateStatus(Metric metric) {
+	public void updateStatus(Metric metric, MetricStateStore state, int id, long time) {
+		state.update(id, metric.getValueAsLong(), time);
 	}
 
 }
@@ -0,0 +1,47 @@
+//
+// ****************************************************************************
+// * Copyright (C) 2016, International Business Machines Corporation          *
+// * All rights reserved.                                                     *
+// ****************************************************************************
+//
+
+package com.ibm.streamsx.monitoring.jmx.internal;
+
+import com.ibm.streams.management.Metric;
+
+/**
+ * This metric evaluator marks a metric as submittable if the current value
+ * differs from the last submitted value by at least the specified percentage
+ * of the last submitted value. If the last submitted value is 0, every
+ * change is submitted.
+ */
+public class RelativeDeltaMetricEvaluator implements IMetricEvaluator {
+
+	private double _percentage;
+
+	public RelativeDeltaMetricEvaluator(double percentage) {
+		if (!(percentage > 0.0)) {
+			throw new IllegalArgumentException("RelativeDeltaMetricEvaluator(percentage=" + percentage + ")");
+		}
+		_percentage = percentage;
+	}
+
+	@Override
+	public boolean isSubmittable(Metric metric, MetricStateStore state, int id, long time) {
+		if (!state.hasValue(id)) {
+			return true;
+		}
+		long lastValue = state.getLastValue(id);
+		long value = metric.getValueAsLong();
+		if (lastValue == 0) {
+			return value != 0;
+		}
+		return Math.abs((double)value - (double)lastValue) * 100.0 >= _percentage * Math.abs((double)lastValue);
+	}
+
+	@Override
+	public void updateStatus(Metric metric, MetricStateStore state, int id, long time) {
+		state.update(id, metric.getValueAsLong(), time);
+	}
+
+}
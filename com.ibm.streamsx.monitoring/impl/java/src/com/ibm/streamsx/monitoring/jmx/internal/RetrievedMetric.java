@@ -0,0 +1,105 @@
+//
+// ****************************************************************************
+// * Copyright (C) 2016, International Business Machines Corporation          *
+// * All rights reserved.                                                     *
+// ****************************************************************************
+//
+
+package com.ibm.streamsx.monitoring.jmx.internal;
+
+import com.ibm.streams.management.Metric;
+import com.ibm.streams.management.MetricMetadata;
+import com.ibm.streams.management.ThroughputRates;
+import com.ibm.streams.management.ValueDistribution;
+
+/**
+ * A metric that is not retrieved via its own MXBean proxy but taken from a
+ * metrics snapshot. Only the name, kind, type, value, and the time the value
+ * was retrieved, are available.
+ */
+class RetrievedMetric implements Metric {
+
+	private String _name = null;
+
+	private Kind _metricKind = Kind.UNKNOWN;
+
+	private Type _metricType = Type.UNKNOWN;
+
+	private long _value = 0;
+
+	private long _lastTimeRetrieved = 0;
+
+	RetrievedMetric(String name, Kind metricKind, Type metricType, long value, long lastTimeRetrieved) {
+		_name = name;
+		_metricKind = metricKind;
+		_metricType = metricType;
+		_value = value;
+		_lastTimeRetrieved = lastTimeRetrieved;
+	}
+
+	/**
+	 * Create a copy of the given metric that uses the kind and type of the
+	 * given metadata.
+	 */
+	RetrievedMetric(Metric metric, MetricMetadata metadata) {
+		this(metric.getName(), metadata.getMetricKind(), metadata.getMetricType(), metric.getValueAsLong(), metric.getLastTimeRetrieved());
+	}
+
+	/**
+	 * Whether the kind and the type of this metric are known.
+	 */
+	boolean isMetadataComplete() {
+		return (_metricKind != Kind.UNKNOWN) && (_metricType != Type.UNKNOWN);
+	}
+
+	@Override
+	public String getName() {
+		return _name;
+	}
+
+	@Override
+	public String getDescription() {
+		return null;
+	}
+
+	@Override
+	public Kind getMetricKind() {
+		return _metricKind;
+	}
+
+	@Override
+	public Type getMetricType() {
+		return _metricType;
+	}
+
+	@Override
+	public ValueType getValueType() {
+		return ValueType.LONG;
+	}
+
+	@Override
+	public ThroughputRates getThroughputRates() {
+		return null;
+	}
+
+	@Override
+	public ValueDistribution getValueDistribution() {
+		return null;
+	}
+
+	@Override
+	public long getLastTimeRetrieved() {
+		return _lastTimeRetrieved;
+	}
+
+	@Override
+	public double getValueAsDouble() {
+		return _value;
+	}
+
+	@Override
+	public long getValueAsLong() {
+		return _value;
+	}
+
+}
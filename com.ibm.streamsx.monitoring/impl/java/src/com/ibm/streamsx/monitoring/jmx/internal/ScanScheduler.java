@@ -0,0 +1,250 @@
+//
+// ****************************************************************************
+// * Copyright (C) 2016, International Business Machines Corporation          *
+// * All rights reserved.                                                     *
+// ****************************************************************************
+//
+
+package com.ibm.streamsx.monitoring.jmx.internal;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Schedules scan cycles at a fixed rate. The ticks are aligned to wall-clock
+ * boundaries that are multiples of the scan period, so the duration of a scan
+ * does not add to the period and the cadence does not drift.
+ * <p>
+ * If a scan does not complete before the next tick, the scan overruns. Then,
+ * depending on the {@link ScanOverrunPolicy}, either the missed ticks are
+ * skipped and the next scan starts at the next boundary, or the next scan
+ * starts immediately.
+ * </p>
+ * <p>
+ * If adaptive scanning is enabled, the period is adjusted within a lower and
+ * an upper bound after each scan. The period is doubled if the scan took most
+ * of the period, or if only few of the evaluated metrics changed in several
+ * consecutive scans. It is halved if many metrics changed.
+ * </p>
+ */
+public class ScanScheduler {
+
+	/**
+	 * Logger for tracing.
+	 */
+	private static Logger _trace = Logger.getLogger(ScanScheduler.class.getName());
+
+	private ScanOverrunPolicy _overrunPolicy = ScanOverrunPolicy.skipTick;
+
+	/**
+	 * The scan period in milliseconds.
+	 */
+	private long _period = 0;
+
+	/**
+	 * The wall-clock time of the next tick in milliseconds.
+	 */
+	private long _nextTick = 0;
+
+	/**
+	 * The wall-clock time of the current tick in milliseconds.
+	 */
+	private long _currentTick = 0;
+
+	/**
+	 * The time between the current tick and the start of the current scan
+	 * in milliseconds.
+	 */
+	private long _lag = 0;
+
+	/**
+	 * The number of scans that did not complete before the next tick.
+	 */
+	private long _nOverruns = 0;
+
+	/**
+	 * The lower bound of the adaptive scan period in milliseconds.
+	 */
+	private long _minPeriod = 0;
+
+	/**
+	 * The upper bound of the adaptive scan period in milliseconds.
+	 */
+	private long _maxPeriod = 0;
+
+	/**
+	 * The number of consecutive scans with few changed metrics.
+	 */
+	private int _nQuietScans = 0;
+
+	/**
+	 * The period is widened if the scan took more than this share of the
+	 * period.
+	 */
+	private static final double BUSY_SCAN_RATIO = 0.8;
+
+	/**
+	 * The period is widened if at most this share of the evaluated metrics
+	 * changed in {@link #QUIET_SCANS} consecutive scans.
+	 */
+	private static final double QUIET_CHANGE_RATIO = 0.05;
+
+	private static final int QUIET_SCANS = 3;
+
+	/**
+	 * The period is narrowed if at least this share of the evaluated metrics
+	 * changed.
+	 */
+	private static final double BUSY_CHANGE_RATIO = 0.25;
+
+	/**
+	 * @param period
+	 * The scan period in seconds.
+	 * 
+	 * @param overrunPolicy
+	 * Specifies how to continue if a scan overruns.
+	 */
+	public ScanScheduler(double period, ScanOverrunPolicy overrunPolicy) {
+		_period = Math.max(1, (long)(period * 1000.0));
+		_overrunPolicy = overrunPolicy;
+		_minPeriod = _period;
+		_maxPeriod = _period;
+		_nextTick = alignUp(System.currentTimeMillis());
+	}
+
+	/**
+	 * Enable adaptive scanning.
+	 * 
+	 * @param minPeriod
+	 * The lower bound of the scan period in seconds.
+	 * 
+	 * @param maxPeriod
+	 * The upper bound of the scan period in seconds.
+	 */
+	public void setPeriodBounds(double minPeriod, double maxPeriod) {
+		_minPeriod = Math.max(1, (long)(minPeriod * 1000.0));
+		_maxPeriod = Math.max(_minPeriod, (long)(maxPeriod * 1000.0));
+		_period = Math.min(Math.max(_period, _minPeriod), _maxPeriod);
+		_nextTick = alignUp(System.currentTimeMillis());
+	}
+
+	/**
+	 * Adjust the scan period after a scan completed, before calling
+	 * {@link #scanCompleted()}. Has no effect unless adaptive scanning is
+	 * enabled.
+	 * 
+	 * @param nEvaluatedMetrics
+	 * The number of metrics that were evaluated in the scan.
+	 * 
+	 * @param nChangedMetrics
+	 * The number of evaluated metrics that changed.
+	 */
+	public void adaptPeriod(long nEvaluatedMetrics, long nChangedMetrics) {
+		if (_minPeriod == _maxPeriod) {
+			return;
+		}
+		long duration = System.currentTimeMillis() - _currentTick;
+		double changeRatio = (nEvaluatedMetrics > 0) ? (double)nChangedMetrics / nEvaluatedMetrics : 0.0;
+		long period = _period;
+		if (duration > BUSY_SCAN_RATIO * _period) {
+			// The scan cost approaches the period; back off regardless of the changes.
+			period = _period * 2;
+			_nQuietScans = 0;
+		}
+		else if (changeRatio >= BUSY_CHANGE_RATIO) {
+			// Narrow, but not below the period that the scan cost allows.
+			period = Math.max(_period / 2, (long)(duration / BUSY_SCAN_RATIO));
+			_nQuietScans = 0;
+		}
+		else if (changeRatio <= QUIET_CHANGE_RATIO) {
+			if (++_nQuietScans >= QUIET_SCANS) {
+				period = _period * 2;
+				_nQuietScans = 0;
+			}
+		}
+		else {
+			_nQuietScans = 0;
+		}
+		period = Math.min(Math.max(period, _minPeriod), _maxPeriod);
+		if (period != _period) {
+			if (_trace.isDebugEnabled()) {
+				_trace.debug("scan period adapted: " + _period + " ms -> " + period + " ms, duration=" + duration + " ms, changed=" + nChangedMetrics + "/" + nEvaluatedMetrics);
+			}
+			_period = period;
+		}
+	}
+
+	/**
+	 * Wait until the next tick.
+	 * 
+	 * @return
+	 * The wall-clock time of the tick in milliseconds.
+	 * 
+	 * @throws InterruptedException
+	 * Throws if the thread is interrupted while waiting.
+	 */
+	public long awaitNextTick() throws InterruptedException {
+		long now = System.currentTimeMillis();
+		while (now < _nextTick) {
+			Thread.sleep(_nextTick - now);
+			now = System.currentTimeMillis();
+		}
+		_currentTick = _nextTick;
+		_lag = now - _currentTick;
+		return _currentTick;
+	}
+
+	/**
+	 * Determine the next tick after a scan completed.
+	 */
+	public void scanCompleted() {
+		long now = System.currentTimeMillis();
+		// The period may have been adapted; keep the ticks on its grid.
+		long nextTick = alignUp(_currentTick + _period);
+		if (now > nextTick) {
+			_nOverruns++;
+			if (ScanOverrunPolicy.runImmediately == _overrunPolicy) {
+				// Start immediately, but do not run the scans of older missed ticks.
+				nextTick = alignDown(now);
+			}
+			else {
+				nextTick = alignUp(now);
+			}
+			if (_trace.isDebugEnabled()) {
+				_trace.debug("scan overrun: tick=" + _currentTick + ", duration=" + (now - _currentTick) + " ms, next tick=" + nextTick);
+			}
+		}
+		_nextTick = nextTick;
+	}
+
+	/**
+	 * Get the time between the current tick and the start of the current
+	 * scan in milliseconds.
+	 */
+	public long getLag() {
+		return _lag;
+	}
+
+	/**
+	 * Get the current scan period in milliseconds.
+	 */
+	public long getPeriod() {
+		return _period;
+	}
+
+	/**
+	 * Get the number of scans that did not complete before the next tick.
+	 */
+	public long getOverruns() {
+		return _nOverruns;
+	}
+
+	private long alignDown(long time) {
+		return time - (time % _period);
+	}
+
+	private long alignUp(long time) {
+		long aligned = alignDown(time);
+		return (aligned < time) ? aligned + _period : aligned;
+	}
+
+}
@@ -0,0 +1,53 @@
+//
+// ****************************************************************************
+// * Copyright (C) 2016, International Business Machines Corporation          *
+// * All rights reserved.                                                     *
+// ****************************************************************************
+//
+
+package com.ibm.streamsx.monitoring.jmx.internal;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts, per scan cycle, how many metrics are evaluated and how many of them
+ * are reported as changed by their metric evaluators. The handlers of
+ * concurrently scanned jobs add their counts at the same time.
+ */
+public class ScanStatistics {
+
+	private LongAdder _nEvaluatedMetrics = new LongAdder();
+
+	private LongAdder _nChangedMetrics = new LongAdder();
+
+	/**
+	 * Add the counts of one handler.
+	 */
+	void add(long nEvaluatedMetrics, long nChangedMetrics) {
+		_nEvaluatedMetrics.add(nEvaluatedMetrics);
+		_nChangedMetrics.add(nChangedMetrics);
+	}
+
+	/**
+	 * Get the number of metrics that are evaluated since the last reset.
+	 */
+	public long getEvaluatedMetrics() {
+		return _nEvaluatedMetrics.sum();
+	}
+
+	/**
+	 * Get the number of changed metrics since the last reset.
+	 */
+	public long getChangedMetrics() {
+		return _nChangedMetrics.sum();
+	}
+
+	/**
+	 * Reset the counts at the begin of a scan cycle.
+	 */
+	public void reset() {
+		_nEvaluatedMetrics.reset();
+		_nChangedMetrics.reset();
+	}
+
+}
@@ -0,0 +1,287 @@
+//
+// ****************************************************************************
+// * Copyright (C) 2016, International Business Machines Corporation          *
+// * All rights reserved.                                                     *
+// ****************************************************************************
+//
+
+package com.ibm.streamsx.monitoring.jmx.internal;
+
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.log4j.Logger;
+
+import com.ibm.streams.operator.OutputTuple;
+import com.ibm.streams.operator.StreamingOutput;
+import com.ibm.streams.operator.Tuple;
+import com.ibm.streams.operator.metrics.Metric;
+
+/**
+ * Submits the tuples of notifications to an output port in the order in
+ * which they are emitted.
+ * <p>
+ * The tuples are queued in a bounded ring buffer, and a single drain thread
+ * takes all queued tuples at once and submits them. If the buffer is full,
+ * the overflow policy decides whether the notification thread waits until
+ * the drain thread makes room (block), whether the oldest queued tuple is
+ * dropped (dropOldest), or whether a queued tuple with the same coalescing
+ * key is replaced, for example, an older status of the same PE (coalesce).
+ * </p>
+ */
+public class TupleEmitter {
+
+	/**
+	 * Logger for tracing.
+	 */
+	private static Logger _trace = Logger.getLogger(TupleEmitter.class.getName());
+
+	private final StreamingOutput<OutputTuple> _port;
+
+	private final NotificationOverflowPolicy _overflowPolicy;
+
+	/**
+	 * The number of queued tuples over all emitters of the operator, or null.
+	 */
+	private final Metric _nQueued;
+
+	/**
+	 * The number of dropped tuples over all emitters of the operator, or null.
+	 */
+	private final Metric _nDropped;
+
+	private final Tuple[] _tuples;
+
+	/**
+	 * The coalescing keys of the queued tuples if the overflow policy is
+	 * coalesce.
+	 */
+	private final Object[] _keys;
+
+	/**
+	 * The position of the oldest queued tuple.
+	 */
+	private int _head = 0;
+
+	private int _count = 0;
+
+	private boolean _isClosed = false;
+
+	/**
+	 * The maximum time in milliseconds that {@link #close()} waits for the
+	 * drain thread to submit the queued tuples.
+	 */
+	private static final long CLOSE_TIMEOUT = 10000;
+
+	private final Thread _thread;
+
+	/**
+	 * @param threadFactory
+	 * The factory of the drain thread.
+	 * 
+	 * @param port
+	 * The output port.
+	 * 
+	 * @param capacity
+	 * The maximum number of queued tuples, at least 1.
+	 * 
+	 * @param overflowPolicy
+	 * Specifies how to continue if the queue is full.
+	 * 
+	 * @param nQueued
+	 * The gauge metric of the number of queued tuples, or null.
+	 * 
+	 * @param nDropped
+	 * The counter metric of the number of dropped tuples, or null.
+	 * 
+	 * @throws IllegalArgumentException
+	 * Throws if the capacity is less than 1.
+	 */
+	public TupleEmitter(ThreadFactory threadFactory, StreamingOutput<OutputTuple> port, int capacity, NotificationOverflowPolicy overflowPolicy, Metric nQueued, Metric nDropped) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("The capacity of the notification queue must be 1 or more: " + capacity);
+		}
+		_port = port;
+		_overflowPolicy = overflowPolicy;
+		_nQueued = nQueued;
+		_nDropped = nDropped;
+		_tuples = new Tuple[capacity];
+		_keys = (overflowPolicy == NotificationOverflowPolicy.coalesce) ? new Object[capacity] : null;
+		_thread = threadFactory.newThread(new Runnable() {
+			@Override
+			public void run() {
+				drain();
+			}
+		});
+		_thread.setName("TupleEmitter");
+		_thread.start();
+	}
+
+	/**
+	 * Determine whether the emitted tuples need a coalescing key.
+	 */
+	public boolean isCoalescing() {
+		return _keys != null;
+	}
+
+	/**
+	 * Queue the tuple for submission.
+	 * 
+	 * @param tuple
+	 * The tuple to be submitted.
+	 * 
+	 * @param key
+	 * The coalescing key of the tuple, or null if the tuple does not replace
+	 * another one.
+	 */
+	public void emit(Tuple tuple, Object key) {
+		boolean isReplaced = false;
+		boolean isQueued = false;
+		synchronized (this) {
+			if (_count == _tuples.length && _overflowPolicy != NotificationOverflowPolicy.block) {
+				int position = (_overflowPolicy == NotificationOverflowPolicy.coalesce) ? find(key) : -1;
+				removeAt(position != -1 ? position : 0);
+				isReplaced = true;
+			}
+			try {
+				while (_count == _tuples.length && !_isClosed) {
+					wait();
+				}
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			if (_count < _tuples.length && !_isClosed) {
+				int index = (_head + _count) % _tuples.length;
+				_tuples[index] = tuple;
+				if (_keys != null) {
+					_keys[index] = key;
+				}
+				_count++;
+				isQueued = true;
+				notifyAll();
+			}
+		}
+		if (isQueued && _nQueued != null) {
+			_nQueued.increment();
+		}
+		if (isReplaced || !isQueued) {
+			if (_nDropped != null) {
+				_nDropped.incrementValue((isReplaced ? 1 : 0) + (isQueued ? 0 : 1));
+			}
+			if (_trace.isDebugEnabled()) {
+				_trace.debug("A notification tuple is dropped because the queue is full or closed.");
+			}
+		}
+	}
+
+	/**
+	 * Stop the drain thread after the queued tuples are submitted, and wait
+	 * until the drain thread ends, but not longer than
+	 * {@link #CLOSE_TIMEOUT}. Tuples that are emitted afterwards are
+	 * dropped.
+	 */
+	public void close() {
+		synchronized (this) {
+			_isClosed = true;
+			notifyAll();
+		}
+		try {
+			_thread.join(CLOSE_TIMEOUT);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (_thread.isAlive()) {
+			_trace.warn("The queued notification tuples are not submitted within " + CLOSE_TIMEOUT + " ms.");
+		}
+	}
+
+	/**
+	 * Get the position of the oldest queued tuple with the given key,
+	 * relative to the head, or -1.
+	 */
+	private int find(Object key) {
+		if (key == null) {
+			return -1;
+		}
+		for (int i = 0; i < _count; i++) {
+			if (key.equals(_keys[(_head + i) % _tuples.length])) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Remove the queued tuple at the given position relative to the head.
+	 * The older tuples move up by one, so the order is kept.
+	 */
+	private void removeAt(int position) {
+		for (int i = position; i > 0; i--) {
+			int to = (_head + i) % _tuples.length;
+			int from = (_head + i - 1) % _tuples.length;
+			_tuples[to] = _tuples[from];
+			if (_keys != null) {
+				_keys[to] = _keys[from];
+			}
+		}
+		_tuples[_head] = null;
+		if (_keys != null) {
+			_keys[_head] = null;
+		}
+		_head = (_head + 1) % _tuples.length;
+		_count--;
+		if (_nQueued != null) {
+			_nQueued.incrementValue(-1);
+		}
+	}
+
+	/**
+	 * Take all queued tuples at once and submit them until the emitter is
+	 * closed.
+	 */
+	private void drain() {
+		Tuple[] batch = new Tuple[_tuples.length];
+		while (true) {
+			int n;
+			synchronized (this) {
+				try {
+					while (_count == 0 && !_isClosed) {
+						wait();
+					}
+				}
+				catch (InterruptedException e) {
+					return;
+				}
+				if (_count == 0) {
+					return;
+				}
+				n = _count;
+				for (int i = 0; i < n; i++) {
+					int index = (_head + i) % _tuples.length;
+					batch[i] = _tuples[index];
+					_tuples[index] = null;
+					if (_keys != null) {
+						_keys[index] = null;
+					}
+				}
+				_head = (_head + n) % _tuples.length;
+				_count = 0;
+				notifyAll();
+			}
+			if (_nQueued != null) {
+				_nQueued.incrementValue(-n);
+			}
+			for (int i = 0; i < n; i++) {
+				try {
+					_port.submit(batch[i]);
+				}
+				catch (Exception e) {
+					_trace.error("A notification tuple cannot be submitted: " + e);
+				}
+				batch[i] = null;
+			}
+		}
+	}
+
+}
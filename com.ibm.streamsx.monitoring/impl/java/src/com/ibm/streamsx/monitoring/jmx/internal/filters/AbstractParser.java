@@ -19,8 +19,24 @@ import org.apache.log4j.Logger;
 import com.ibm.json.java.JSONArray;
 import com.ibm.json.java.JSONArtifact;
 import com.ibm.json.java.JSONObject;
+import com.ibm.streamsx.monitoring.jmx.internal.EmitMetricTupleMode;
 
 abstract class AbstractParser {
+
+	/*
+	 * The keys of a metric name pattern that is specified as object with
+	 * emission settings.
+	 */
+
+	private static final String PATTERN = "pattern";
+
+	private static final String EMIT_METRIC_TUPLE = "emitMetricTuple";
+
+	private static final String DEADBAND = "deadband";
+
+	private static final String RELATIVE_DEADBAND = "relativeDeadband";
+
+	private static final String HEARTBEAT_PERIOD = "heartbeatPeriod";
 	
 	private Set<String> _mandatoryItems = new HashSet<>();
 
@@ -104,6 +120,105 @@ abstract class AbstractParser {
 		return result;
 	}
 
+	/**
+	 * Verify metric name patterns. A pattern is either a string, or an object
+	 * that specifies the pattern and its emission settings, for example:
+	 * <pre>
+	 * { "pattern": "queueSize", "emitMetricTuple": "deadband", "deadband": 10, "heartbeatPeriod": 300 }
+	 * </pre>
+	 */
+	protected boolean verifyMetricPatterns(String key, Object json) {
+		boolean result = true;
+		if (json instanceof JSONArray) {
+			for (Object obj : (JSONArray)json) {
+				if (obj instanceof JSONObject) {
+					result &= verifyMetricPattern(key, (JSONObject)obj);
+				}
+				else {
+					result &= verifyPatterns(key, obj);
+				}
+			}
+		}
+		else if (json instanceof JSONObject) {
+			result &= verifyMetricPattern(key, (JSONObject)json);
+		}
+		else {
+			result &= verifyPatterns(key, json);
+		}
+		return result;
+	}
+
+	private boolean verifyMetricPattern(String key, JSONObject json) {
+		boolean result = true;
+		if (json.get(PATTERN) instanceof String) {
+			result &= isValidPattern(key, (String)json.get(PATTERN));
+		}
+		else {
+			result = false;
+			logger().error("filterDocument: The pattern of a metric is missing or not a string. Details: key=" + key + ", object=" + json);
+		}
+		for (Object item : json.keySet()) {
+			if (PATTERN.equals(item)) {
+				continue;
+			}
+			else if (EMIT_METRIC_TUPLE.equals(item)) {
+				if (buildEmitMetricTupleMode(json.get(item)) == null) {
+					result = false;
+					logger().error("filterDocument: Invalid emission mode. Details: key=" + item + ", object=" + json.get(item));
+				}
+			}
+			else if (DEADBAND.equals(item) || RELATIVE_DEADBAND.equals(item) || HEARTBEAT_PERIOD.equals(item)) {
+				if (buildPositiveNumber(json.get(item)) == null) {
+					result = false;
+					logger().error("filterDocument: The value must be a positive number. Details: key=" + item + ", object=" + json.get(item));
+				}
+			}
+			else {
+				result = false;
+				logger().error("filterDocument: There is an unexpected key. Details: key=" + item + ", json=" + json);
+			}
+		}
+		return result;
+	}
+
+	private static EmitMetricTupleMode buildEmitMetricTupleMode(Object json) {
+		if (json instanceof String) {
+			try {
+				return EmitMetricTupleMode.valueOf((String)json);
+			}
+			catch (IllegalArgumentException e) {
+				return null;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Build the metric filters from verified metric name patterns. The
+	 * metric filters of string patterns do not specify emission settings.
+	 */
+	protected Set<MetricFilter> buildMetricFilters(Object json) {
+		Set<MetricFilter> result = new HashSet<>();
+		if (json instanceof JSONArray) {
+			for (Object obj : (JSONArray)json) {
+				result.addAll(buildMetricFilters(obj));
+			}
+		}
+		else if (json instanceof JSONObject) {
+			JSONObject object = (JSONObject)json;
+			MetricEmission emission = new MetricEmission(
+					buildEmitMetricTupleMode(object.get(EMIT_METRIC_TUPLE)),
+					buildPositiveNumber(object.get(DEADBAND)),
+					buildPositiveNumber(object.get(RELATIVE_DEADBAND)),
+					buildPositiveNumber(object.get(HEARTBEAT_PERIOD)));
+			result.add(new MetricFilter((String)object.get(PATTERN), emission));
+		}
+		else if (json instanceof String) {
+			result.add(new MetricFilter((String)json, null));
+		}
+		return result;
+	}
+
 	protected boolean isValidPattern(String key, String pattern) {
 		boolean result = true;
 		try {
@@ -157,6 +272,50 @@ abstract class AbstractParser {
 		return result;
 	}
 	
+	protected boolean verifyScanPeriod(String key, Object json) {
+		boolean result = true;
+		if (buildScanPeriod(json) == null) {
+			result = false;
+			logger().error("filterDocument: The scan period must be a positive number of seconds. Details: key=" + key + ", object=" + json);
+		}
+		return result;
+	}
+
+	/**
+	 * Build the scan period in seconds from a number or a string.
+	 * 
+	 * @return
+	 * The scan period, or null if the value is missing or invalid.
+	 */
+	protected Double buildScanPeriod(Object json) {
+		return buildPositiveNumber(json);
+	}
+
+	/**
+	 * Build a positive number from a number or a string.
+	 * 
+	 * @return
+	 * The number, or null if the value is missing, invalid, or not positive.
+	 */
+	protected Double buildPositiveNumber(Object json) {
+		Double result = null;
+		if (json instanceof Number) {
+			result = Double.valueOf(((Number)json).doubleValue());
+		}
+		else if (json instanceof String) {
+			try {
+				result = Double.valueOf((String)json);
+			}
+			catch(NumberFormatException e) {
+				result = null;
+			}
+		}
+		if (result != null && !(result > 0.0)) {
+			result = null;
+		}
+		return result;
+	}
+
 	protected Set<String> buildPatternList(Object json) {
 		Set<String> result = new HashSet<>();
 		if (json instanceof JSONArray) {
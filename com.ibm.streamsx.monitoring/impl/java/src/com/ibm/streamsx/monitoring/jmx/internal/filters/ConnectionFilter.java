@@ -26,11 +26,25 @@ public class ConnectionFilter extends PatternMatcher {
 	 */
 	protected Map<String /* regular expression */, MetricFilter> _metricFilters = new HashMap<>();
 
-	public ConnectionFilter(String connectionId, Set<MetricFilter> metricFilters) throws PatternSyntaxException {
+	/**
+	 * The metric name patterns of the metric filters, combined into one
+	 * set.
+	 */
+	private PatternSet _metricNamePatterns = null;
+
+	/**
+	 * The scan period in seconds, or null if the metrics are scanned in
+	 * every scan cycle.
+	 */
+	private Double _scanPeriod = null;
+
+	public ConnectionFilter(String connectionId, Set<MetricFilter> metricFilters, Double scanPeriod) throws PatternSyntaxException {
 		super(connectionId);
+		_scanPeriod = scanPeriod;
 		for(MetricFilter metricFilter : metricFilters) {
 			_metricFilters.put(metricFilter.getRegularExpression(), metricFilter);
 		}
+		_metricNamePatterns = new PatternSet(_metricFilters.values());
 	}
 
 	public boolean matchesConnectionId(String connectionId) {
@@ -41,14 +55,27 @@ public class ConnectionFilter extends PatternMatcher {
 	public boolean matchesConnectionMetricName(String connectionId, String metricName) {
 		boolean matches = matchesConnectionId(connectionId) && (_metricFilters.size() > 0);
 		if (matches) {
-			for(MetricFilter filter : _metricFilters.values()) {
-				matches = filter.matchesMetricName(metricName);
-				if (matches) {
-					break;
-				}
-			}
+			matches = _metricNamePatterns.matchesAny(metricName);
 		}
 		return matches;
 	}
 
+	public Double getConnectionScanPeriod(String connectionId) {
+		return matchesConnectionId(connectionId) ? Filters.scanPeriodOrZero(_scanPeriod) : null;
+	}
+
+	public MetricEmission getConnectionMetricEmission(String connectionId, String metricName) {
+		return matchesConnectionId(connectionId) ? Filters.getMetricEmission(_metricFilters.values(), metricName) : null;
+	}
+
+	/**
+	 * Use the scan period of the parent filter if this filter does not
+	 * specify its own scan period.
+	 */
+	void inheritScanPeriod(Double scanPeriod) {
+		if (_scanPeriod == null) {
+			_scanPeriod = scanPeriod;
+		}
+	}
+
 }
@@ -21,6 +21,8 @@ public class ConnectionParser extends AbstractParser {
 
 	private static final String METRIC_NAME_PATTERNS = "metricNamePatterns";
 
+	private static final String SCAN_PERIOD = "scanPeriod";
+
 	protected ConnectionParser() {
 
 		setMandatoryItem(METRIC_NAME_PATTERNS);
@@ -38,7 +40,16 @@ public class ConnectionParser extends AbstractParser {
 
 			@Override
 			public boolean validate(String key, Object object) {
-				return verifyPatterns(key, object);
+				return verifyMetricPatterns(key, object);
+			}
+			
+		});
+
+		setValidationRule(SCAN_PERIOD, new IValidator() {
+
+			@Override
+			public boolean validate(String key, Object object) {
+				return verifyScanPeriod(key, object);
 			}
 			
 		});
@@ -55,16 +66,12 @@ public class ConnectionParser extends AbstractParser {
 	protected Set<ConnectionFilter> buildFilters(JSONObject json) {
 //		logger().error("ConnectionParser.JSON=" + json);
 		Set<String> patterns = buildPatternList(json.get(CONNECTION_ID_PATTERNS));
-		Set<String> metrics = buildPatternList(json.get(METRIC_NAME_PATTERNS));
-		Set<MetricFilter> metricFilters = new HashSet<>();
-		for (String pattern : metrics) {
-//			logger().error("create metric filter, pattern=" + pattern);
-			metricFilters.add(new MetricFilter(pattern));
-		}
+		Double scanPeriod = buildScanPeriod(json.get(SCAN_PERIOD));
+		Set<MetricFilter> metricFilters = buildMetricFilters(json.get(METRIC_NAME_PATTERNS));
 		Set<ConnectionFilter> result = new HashSet<>();
 		for (String pattern : patterns) {
 //			logger().error("create connection filter, connectionId=" + pattern);
-			result.add(new ConnectionFilter(pattern, metricFilters));
+			result.add(new ConnectionFilter(pattern, metricFilters, scanPeriod));
 		}
 		return result;
 	}
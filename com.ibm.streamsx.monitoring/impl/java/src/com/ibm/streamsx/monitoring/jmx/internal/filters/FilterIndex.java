@@ -0,0 +1,176 @@
+//
+// ****************************************************************************
+// * Copyright (C) 2016, 2017, International Business Machines Corporation    *
+// * All rights reserved.                                                     *
+// ****************************************************************************
+//
+
+package com.ibm.streamsx.monitoring.jmx.internal.filters;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The compiled form of the sibling filters of one level of the filter tree,
+ * for example the job filters of an instance filter.
+ * <p>
+ * The filters are stored in a trie that is keyed by the literal prefix of
+ * their regular expressions, so only the filters whose prefix the value
+ * starts with are evaluated. Filters with the same regular expression share
+ * an entry and are evaluated once. The filters that match a value are
+ * memoized, so the regular expressions of a level are evaluated once per
+ * value, for example once per job name instead of once per metric.
+ * </p><p>
+ * The matching filters are returned in the order of the collection that
+ * the index is built from, like a linear walk over the collection, because
+ * lookups such as the first metric emission depend on the order.
+ * </p><p>
+ * The index is built once after the filter document is parsed and is
+ * read-only afterwards, so it is shared by concurrently scanning job
+ * handlers.
+ * </p>
+ */
+final class FilterIndex<T extends PatternMatcher> {
+
+	/**
+	 * The maximum number of memoized values. If the limit is reached, the
+	 * memoized values are cleared, which bounds the memory if, for example,
+	 * many jobs are submitted and cancelled over time.
+	 */
+	private static final int MAX_MEMOIZED_VALUES = 4096;
+
+	/**
+	 * A node of the trie. The key of the node is the path from the root.
+	 */
+	private static final class Node<T> {
+
+		private final Map<Character, Node<T>> _children = new HashMap<>();
+
+		/**
+		 * The filters whose literal prefix is the key of this node, grouped
+		 * by their regular expression.
+		 */
+		private final Map<String /* regular expression */, List<T>> _filters = new LinkedHashMap<>();
+	}
+
+	private final Node<T> _root = new Node<>();
+
+	/**
+	 * The position of each filter in the collection that the index is built
+	 * from.
+	 */
+	private final Map<T, Integer> _positions = new IdentityHashMap<>();
+
+	private final Map<String, List<T>> _matchingFilters = new ConcurrentHashMap<>();
+
+	FilterIndex(Collection<T> filters) {
+		for(T filter : filters) {
+			_positions.put(filter, _positions.size());
+			String regularExpression = filter.getRegularExpression();
+			String prefix = getLiteralPrefix(regularExpression);
+			Node<T> node = _root;
+			for (int i = 0; i < prefix.length(); i++) {
+				Node<T> child = node._children.get(prefix.charAt(i));
+				if (child == null) {
+					child = new Node<>();
+					node._children.put(prefix.charAt(i), child);
+				}
+				node = child;
+			}
+			List<T> group = node._filters.get(regularExpression);
+			if (group == null) {
+				group = new ArrayList<>(1);
+				node._filters.put(regularExpression, group);
+			}
+			group.add(filter);
+		}
+	}
+
+	/**
+	 * Get the filters whose regular expression matches the value.
+	 *
+	 * @return
+	 * The matching filters, or an empty list if none of the filters matches
+	 * or the value is null.
+	 */
+	List<T> getMatchingFilters(String value) {
+		if (value == null) {
+			return Collections.emptyList();
+		}
+		List<T> matchingFilters = _matchingFilters.get(value);
+		if (matchingFilters == null) {
+			matchingFilters = findMatchingFilters(value);
+			if (_matchingFilters.size() >= MAX_MEMOIZED_VALUES) {
+				_matchingFilters.clear();
+			}
+			_matchingFilters.put(value, matchingFilters);
+		}
+		return matchingFilters;
+	}
+
+	/**
+	 * Walk the trie along the value and evaluate the filters of the visited
+	 * nodes, whose literal prefix the value starts with.
+	 */
+	private List<T> findMatchingFilters(String value) {
+		List<T> matchingFilters = null;
+		Node<T> node = _root;
+		int i = 0;
+		while (node != null) {
+			for(List<T> group : node._filters.values()) {
+				if (group.get(0).matchesMemoized(value)) {
+					if (matchingFilters == null) {
+						matchingFilters = new ArrayList<>(group);
+					}
+					else {
+						matchingFilters.addAll(group);
+					}
+				}
+			}
+			node = (i < value.length()) ? node._children.get(value.charAt(i++)) : null;
+		}
+		if (matchingFilters == null) {
+			return Collections.<T>emptyList();
+		}
+		// Restore the order of the linear walk.
+		Collections.sort(matchingFilters, new Comparator<T>() {
+			@Override
+			public int compare(T f1, T f2) {
+				return Integer.compare(_positions.get(f1), _positions.get(f2));
+			}
+		});
+		return Collections.unmodifiableList(matchingFilters);
+	}
+
+	/**
+	 * Get the literal characters with which each value must start to match
+	 * the regular expression.
+	 *
+	 * @return
+	 * The literal prefix, or an empty string if the regular expression does
+	 * not start with a literal character or contains alternatives.
+	 */
+	static String getLiteralPrefix(String regularExpression) {
+		if (regularExpression.indexOf('|') != -1) {
+			return "";
+		}
+		int end = PatternMatcher.getLiteralEnd(regularExpression);
+		if (end < regularExpression.length() && end > 0) {
+			// A quantifier makes the preceding character optional.
+			char c = regularExpression.charAt(end);
+			if (c == '?' || c == '*' || c == '{') {
+				end--;
+			}
+		}
+		return regularExpression.substring(0, end);
+	}
+
+}
@@ -12,6 +12,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
@@ -30,12 +32,27 @@ public class Filters {
 	 */
 	protected Map<String /* regular expression */, InstanceFilter> _instanceFilters = new HashMap<>();
 
+	/**
+	 * The compiled instance filters. Each instance filter compiles its job
+	 * filters, so the instance and job levels are evaluated once per
+	 * instance ID and job name, and the deeper levels are evaluated only
+	 * for the matching jobs.
+	 */
+	private FilterIndex<InstanceFilter> _instanceIndex = new FilterIndex<>(Collections.<InstanceFilter>emptyList());
+
 	public Filters() {
 	}
 
+	/**
+	 * Compile the instance filters after the filter tree is built.
+	 */
+	private void compile() {
+		_instanceIndex = new FilterIndex<>(_instanceFilters.values());
+	}
+
 	public boolean matchesInstanceId(String instanceId) {
 		boolean matches = false;
-		for(InstanceFilter filter : _instanceFilters.values()) {
+		for(InstanceFilter filter : _instanceIndex.getMatchingFilters(instanceId)) {
 			matches = filter.matchesInstanceId(instanceId);
 			if (matches) {
 				break;
@@ -46,7 +63,7 @@ public class Filters {
 
 	public boolean matchesJobName(String instanceId, String jobName) {
 		boolean matches = false;
-		for(InstanceFilter filter : _instanceFilters.values()) {
+		for(InstanceFilter filter : _instanceIndex.getMatchingFilters(instanceId)) {
 			matches = filter.matchesJobName(instanceId, jobName);
 			if (matches) {
 				break;
@@ -57,7 +74,7 @@ public class Filters {
 
 	public boolean matchesOperatorName(String instanceId, String jobName, String operatorName) {
 		boolean matches = false;
-		for(InstanceFilter filter : _instanceFilters.values()) {
+		for(InstanceFilter filter : _instanceIndex.getMatchingFilters(instanceId)) {
 			matches = filter.matchesOperatorName(instanceId, jobName, operatorName);
 			if (matches) {
 				break;
@@ -68,7 +85,7 @@ public class Filters {
 
 	public boolean matchesOperatorMetricName(String instanceId, String jobName, String operatorName, String metricName) {
 		boolean matches = false;
-		for(InstanceFilter filter : _instanceFilters.values()) {
+		for(InstanceFilter filter : _instanceIndex.getMatchingFilters(instanceId)) {
 			matches = filter.matchesOperatorMetricName(instanceId, jobName, operatorName, metricName);
 			if (matches) {
 				break;
@@ -79,7 +96,7 @@ public class Filters {
 
 	public boolean matchesOperatorInputPortIndex(String instanceId, String jobName, String operatorName, Integer portIndex) {
 		boolean matches = false;
-		for(InstanceFilter filter : _instanceFilters.values()) {
+		for(InstanceFilter filter : _instanceIndex.getMatchingFilters(instanceId)) {
 			matches = filter.matchesOperatorInputPortIndex(instanceId, jobName, operatorName, portIndex);
 			if (matches) {
 				break;
@@ -90,7 +107,7 @@ public class Filters {
 
 	public boolean matchesOperatorInputPortMetricName(String instanceId, String jobName, String operatorName, Integer portIndex, String metricName) {
 		boolean matches = false;
-		for(InstanceFilter filter : _instanceFilters.values()) {
+		for(InstanceFilter filter : _instanceIndex.getMatchingFilters(instanceId)) {
 			matches = filter.matchesOperatorInputPortMetricName(instanceId, jobName, operatorName, portIndex, metricName);
 			if (matches) {
 				break;
@@ -101,7 +118,7 @@ public class Filters {
 
 	public boolean matchesOperatorOutputPortIndex(String instanceId, String jobName, String operatorName, Integer portIndex) {
 		boolean matches = false;
-		for(InstanceFilter filter : _instanceFilters.values()) {
+		for(InstanceFilter filter : _instanceIndex.getMatchingFilters(instanceId)) {
 			matches = filter.matchesOperatorOutputPortIndex(instanceId, jobName, operatorName, portIndex);
 			if (matches) {
 				break;
@@ -112,7 +129,7 @@ public class Filters {
 
 	public boolean matchesOperatorOutputPortMetricName(String instanceId, String jobName, String operatorName, Integer portIndex, String metricName) {
 		boolean matches = false;
-		for(InstanceFilter filter : _instanceFilters.values()) {
+		for(InstanceFilter filter : _instanceIndex.getMatchingFilters(instanceId)) {
 			matches = filter.matchesOperatorOutputPortMetricName(instanceId, jobName, operatorName, portIndex, metricName);
 			if (matches) {
 				break;
@@ -123,7 +140,7 @@ public class Filters {
 
 	public boolean matchesPeId(String instanceId, String jobName, String peId) {
 		boolean matches = false;
-		for(InstanceFilter filter : _instanceFilters.values()) {
+		for(InstanceFilter filter : _instanceIndex.getMatchingFilters(instanceId)) {
 			matches = filter.matchesPeId(instanceId, jobName, peId);
 			if (matches) {
 				break;
@@ -134,7 +151,7 @@ public class Filters {
 
 	public boolean matchesPeMetricName(String instanceId, String jobName, String peId, String metricName) {
 		boolean matches = false;
-		for(InstanceFilter filter : _instanceFilters.values()) {
+		for(InstanceFilter filter : _instanceIndex.getMatchingFilters(instanceId)) {
 			matches = filter.matchesPeMetricName(instanceId, jobName, peId, metricName);
 			if (matches) {
 				break;
@@ -145,7 +162,7 @@ public class Filters {
 
 	public boolean matchesPeInputPortIndex(String instanceId, String jobName, String peId, Integer portIndex) {
 		boolean matches = false;
-		for(InstanceFilter filter : _instanceFilters.values()) {
+		for(InstanceFilter filter : _instanceIndex.getMatchingFilters(instanceId)) {
 			matches = filter.matchesPeInputPortIndex(instanceId, jobName, peId, portIndex);
 			if (matches) {
 				break;
@@ -156,7 +173,7 @@ public class Filters {
 
 	public boolean matchesPeInputPortMetricName(String instanceId, String jobName, String peId, Integer portIndex, String metricName) {
 		boolean matches = false;
-		for(InstanceFilter filter : _instanceFilters.values()) {
+		for(InstanceFilter filter : _instanceIndex.getMatchingFilters(instanceId)) {
 			matches = filter.matchesPeInputPortMetricName(instanceId, jobName, peId, portIndex, metricName);
 			if (matches) {
 				break;
@@ -167,7 +184,7 @@ public class Filters {
 
 	public boolean matchesPeOutputPortIndex(String instanceId, String jobName, String peId, Integer portIndex) {
 		boolean matches = false;
-		for(InstanceFilter filter : _instanceFilters.values()) {
+		for(InstanceFilter filter : _instanceIndex.getMatchingFilters(instanceId)) {
 			matches = filter.matchesPeOutputPortIndex(instanceId, jobName, peId, portIndex);
 			if (matches) {
 				break;
@@ -178,7 +195,7 @@ public class Filters {
 
 	public boolean matchesPeOutputPortMetricName(String instanceId, String jobName, String peId, Integer portIndex, String metricName) {
 		boolean matches = false;
-		for(InstanceFilter filter : _instanceFilters.values()) {
+		for(InstanceFilter filter : _instanceIndex.getMatchingFilters(instanceId)) {
 			matches = filter.matchesPeOutputPortMetricName(instanceId, jobName, peId, portIndex, metricName);
 			if (matches) {
 				break;
@@ -189,7 +206,7 @@ public class Filters {
 	
 	public boolean matchesPeConnectionId(String instanceId, String jobName, String peId, String connectionId) {
 		boolean matches = false;
-		for(InstanceFilter filter : _instanceFilters.values()) {
+		for(InstanceFilter filter : _instanceIndex.getMatchingFilters(instanceId)) {
 			matches = filter.matchesPeConnectionId(instanceId, jobName, peId, connectionId);
 			if (matches) {
 				break;
@@ -200,7 +217,7 @@ public class Filters {
 	
 	public boolean matchesPeConnectionMetricName(String instanceId, String jobName, String peId, String connectionId, String metricName) {
 		boolean matches = false;
-		for(InstanceFilter filter : _instanceFilters.values()) {
+		for(InstanceFilter filter : _instanceIndex.getMatchingFilters(instanceId)) {
 			matches = filter.matchesPeConnectionMetricName(instanceId, jobName, peId, connectionId, metricName);
 			if (matches) {
 				break;
@@ -209,6 +226,283 @@ public class Filters {
 		return matches;
 	}
 
+	/*
+	 * The scan period getters return the scan period in seconds of the given
+	 * object. If several filters match, the shortest scan period is returned.
+	 * The value 0.0 specifies that the metrics are scanned in every scan
+	 * cycle.
+	 */
+
+	public double getOperatorScanPeriod(String instanceId, String jobName, String operatorName) {
+		Double scanPeriod = null;
+		for(InstanceFilter filter : _instanceIndex.getMatchingFilters(instanceId)) {
+			scanPeriod = minScanPeriod(scanPeriod, filter.getOperatorScanPeriod(instanceId, jobName, operatorName));
+		}
+		return scanPeriodOrZero(scanPeriod);
+	}
+
+	public double getOperatorInputPortScanPeriod(String instanceId, String jobName, String operatorName, Integer portIndex) {
+		Double scanPeriod = null;
+		for(InstanceFilter filter : _instanceIndex.getMatchingFilters(instanceId)) {
+			scanPeriod = minScanPeriod(scanPeriod, filter.getOperatorInputPortScanPeriod(instanceId, jobName, operatorName, portIndex));
+		}
+		return scanPeriodOrZero(scanPeriod);
+	}
+
+	public double getOperatorOutputPortScanPeriod(String instanceId, String jobName, String operatorName, Integer portIndex) {
+		Double scanPeriod = null;
+		for(InstanceFilter filter : _instanceIndex.getMatchingFilters(instanceId)) {
+			scanPeriod = minScanPeriod(scanPeriod, filter.getOperatorOutputPortScanPeriod(instanceId, jobName, operatorName, portIndex));
+		}
+		return scanPeriodOrZero(scanPeriod);
+	}
+
+	public double getPeScanPeriod(String instanceId, String jobName, String peId) {
+		Double scanPeriod = null;
+		for(InstanceFilter filter : _instanceIndex.getMatchingFilters(instanceId)) {
+			scanPeriod = minScanPeriod(scanPeriod, filter.getPeScanPeriod(instanceId, jobName, peId));
+		}
+		return scanPeriodOrZero(scanPeriod);
+	}
+
+	public double getPeInputPortScanPeriod(String instanceId, String jobName, String peId, Integer portIndex) {
+		Double scanPeriod = null;
+		for(InstanceFilter filter : _instanceIndex.getMatchingFilters(instanceId)) {
+			scanPeriod = minScanPeriod(scanPeriod, filter.getPeInputPortScanPeriod(instanceId, jobName, peId, portIndex));
+		}
+		return scanPeriodOrZero(scanPeriod);
+	}
+
+	public double getPeOutputPortScanPeriod(String instanceId, String jobName, String peId, Integer portIndex) {
+		Double scanPeriod = null;
+		for(InstanceFilter filter : _instanceIndex.getMatchingFilters(instanceId)) {
+			scanPeriod = minScanPeriod(scanPeriod, filter.getPeOutputPortScanPeriod(instanceId, jobName, peId, portIndex));
+		}
+		return scanPeriodOrZero(scanPeriod);
+	}
+
+	public double getPeConnectionScanPeriod(String instanceId, String jobName, String peId, String connectionId) {
+		Double scanPeriod = null;
+		for(InstanceFilter filter : _instanceIndex.getMatchingFilters(instanceId)) {
+			scanPeriod = minScanPeriod(scanPeriod, filter.getPeConnectionScanPeriod(instanceId, jobName, peId, connectionId));
+		}
+		return scanPeriodOrZero(scanPeriod);
+	}
+
+	/*
+	 * The metric emission getters return the emission settings that the
+	 * filter document specifies for a metric, or null if the settings of the
+	 * operator parameters apply. If several filters with emission settings
+	 * match, the settings of one of them are returned.
+	 */
+
+	public MetricEmission getOperatorMetricEmission(String instanceId, String jobName, String operatorName, String metricName) {
+		MetricEmission emission = null;
+		for(InstanceFilter filter : _instanceIndex.getMatchingFilters(instanceId)) {
+			emission = firstMetricEmission(emission, filter.getOperatorMetricEmission(instanceId, jobName, operatorName, metricName));
+		}
+		return emission;
+	}
+
+	public MetricEmission getOperatorInputPortMetricEmission(String instanceId, String jobName, String operatorName, Integer portIndex, String metricName) {
+		MetricEmission emission = null;
+		for(InstanceFilter filter : _instanceIndex.getMatchingFilters(instanceId)) {
+			emission = firstMetricEmission(emission, filter.getOperatorInputPortMetricEmission(instanceId, jobName, operatorName, portIndex, metricName));
+		}
+		return emission;
+	}
+
+	public MetricEmission getOperatorOutputPortMetricEmission(String instanceId, String jobName, String operatorName, Integer portIndex, String metricName) {
+		MetricEmission emission = null;
+		for(InstanceFilter filter : _instanceIndex.getMatchingFilters(instanceId)) {
+			emission = firstMetricEmission(emission, filter.getOperatorOutputPortMetricEmission(instanceId, jobName, operatorName, portIndex, metricName));
+		}
+		return emission;
+	}
+
+	public MetricEmission getPeMetricEmission(String instanceId, String jobName, String peId, String metricName) {
+		MetricEmission emission = null;
+		for(InstanceFilter filter : _instanceIndex.getMatchingFilters(instanceId)) {
+			emission = firstMetricEmission(emission, filter.getPeMetricEmission(instanceId, jobName, peId, metricName));
+		}
+		return emission;
+	}
+
+	public MetricEmission getPeInputPortMetricEmission(String instanceId, String jobName, String peId, Integer portIndex, String metricName) {
+		MetricEmission emission = null;
+		for(InstanceFilter filter : _instanceIndex.getMatchingFilters(instanceId)) {
+			emission = firstMetricEmission(emission, filter.getPeInputPortMetricEmission(instanceId, jobName, peId, portIndex, metricName));
+		}
+		return emission;
+	}
+
+	public MetricEmission getPeOutputPortMetricEmission(String instanceId, String jobName, String peId, Integer portIndex, String metricName) {
+		MetricEmission emission = null;
+		for(InstanceFilter filter : _instanceIndex.getMatchingFilters(instanceId)) {
+			emission = firstMetricEmission(emission, filter.getPeOutputPortMetricEmission(instanceId, jobName, peId, portIndex, metricName));
+		}
+		return emission;
+	}
+
+	public MetricEmission getPeConnectionMetricEmission(String instanceId, String jobName, String peId, String connectionId, String metricName) {
+		MetricEmission emission = null;
+		for(InstanceFilter filter : _instanceIndex.getMatchingFilters(instanceId)) {
+			emission = firstMetricEmission(emission, filter.getPeConnectionMetricEmission(instanceId, jobName, peId, connectionId, metricName));
+		}
+		return emission;
+	}
+
+	/*
+	 * The discovery getters determine whether any filter can match the
+	 * operators, PEs, ports, connections, or metrics of the given parent
+	 * object. If not, the handlers neither enumerate these objects nor
+	 * retrieve their metrics, which saves the JMX calls and handler objects.
+	 */
+
+	public boolean mayMatchOperators(String instanceId, String jobName) {
+		boolean matches = false;
+		for(InstanceFilter filter : _instanceIndex.getMatchingFilters(instanceId)) {
+			matches = filter.mayMatchOperators(instanceId, jobName);
+			if (matches) {
+				break;
+			}
+		}
+		return matches;
+	}
+
+	public boolean mayMatchPes(String instanceId, String jobName) {
+		boolean matches = false;
+		for(InstanceFilter filter : _instanceIndex.getMatchingFilters(instanceId)) {
+			matches = filter.mayMatchPes(instanceId, jobName);
+			if (matches) {
+				break;
+			}
+		}
+		return matches;
+	}
+
+	public boolean mayMatchOperatorMetrics(String instanceId, String jobName, String operatorName) {
+		boolean matches = false;
+		for(InstanceFilter filter : _instanceIndex.getMatchingFilters(instanceId)) {
+			matches = filter.mayMatchOperatorMetrics(instanceId, jobName, operatorName);
+			if (matches) {
+				break;
+			}
+		}
+		return matches;
+	}
+
+	public boolean mayMatchOperatorInputPorts(String instanceId, String jobName, String operatorName) {
+		boolean matches = false;
+		for(InstanceFilter filter : _instanceIndex.getMatchingFilters(instanceId)) {
+			matches = filter.mayMatchOperatorInputPorts(instanceId, jobName, operatorName);
+			if (matches) {
+				break;
+			}
+		}
+		return matches;
+	}
+
+	public boolean mayMatchOperatorOutputPorts(String instanceId, String jobName, String operatorName) {
+		boolean matches = false;
+		for(InstanceFilter filter : _instanceIndex.getMatchingFilters(instanceId)) {
+			matches = filter.mayMatchOperatorOutputPorts(instanceId, jobName, operatorName);
+			if (matches) {
+				break;
+			}
+		}
+		return matches;
+	}
+
+	public boolean mayMatchPeMetrics(String instanceId, String jobName, String peId) {
+		boolean matches = false;
+		for(InstanceFilter filter : _instanceIndex.getMatchingFilters(instanceId)) {
+			matches = filter.mayMatchPeMetrics(instanceId, jobName, peId);
+			if (matches) {
+				break;
+			}
+		}
+		return matches;
+	}
+
+	public boolean mayMatchPeInputPorts(String instanceId, String jobName, String peId) {
+		boolean matches = false;
+		for(InstanceFilter filter : _instanceIndex.getMatchingFilters(instanceId)) {
+			matches = filter.mayMatchPeInputPorts(instanceId, jobName, peId);
+			if (matches) {
+				break;
+			}
+		}
+		return matches;
+	}
+
+	public boolean mayMatchPeOutputPorts(String instanceId, String jobName, String peId) {
+		boolean matches = false;
+		for(InstanceFilter filter : _instanceIndex.getMatchingFilters(instanceId)) {
+			matches = filter.mayMatchPeOutputPorts(instanceId, jobName, peId);
+			if (matches) {
+				break;
+			}
+		}
+		return matches;
+	}
+
+	public boolean mayMatchPeConnections(String instanceId, String jobName, String peId) {
+		boolean matches = false;
+		for(InstanceFilter filter : _instanceIndex.getMatchingFilters(instanceId)) {
+			matches = filter.mayMatchPeConnections(instanceId, jobName, peId);
+			if (matches) {
+				break;
+			}
+		}
+		return matches;
+	}
+
+	/**
+	 * Combine the scan periods of two matching filters.
+	 * 
+	 * @return
+	 * The shorter scan period, or null if none of the filters matches.
+	 */
+	static Double minScanPeriod(Double scanPeriod1, Double scanPeriod2) {
+		if (scanPeriod1 == null) {
+			return scanPeriod2;
+		}
+		if (scanPeriod2 == null) {
+			return scanPeriod1;
+		}
+		return Math.min(scanPeriod1, scanPeriod2);
+	}
+
+	/**
+	 * Combine the emission settings of two filters.
+	 * 
+	 * @return
+	 * The first settings that are not null, or null if none of the filters
+	 * specifies emission settings for the metric.
+	 */
+	static MetricEmission firstMetricEmission(MetricEmission emission1, MetricEmission emission2) {
+		return (emission1 != null) ? emission1 : emission2;
+	}
+
+	/**
+	 * Get the emission settings of the first metric filter that matches the
+	 * metric name and specifies emission settings.
+	 */
+	static MetricEmission getMetricEmission(Collection<MetricFilter> metricFilters, String metricName) {
+		for(MetricFilter filter : metricFilters) {
+			MetricEmission emission = filter.getMetricEmission(metricName);
+			if (emission != null) {
+				return emission;
+			}
+		}
+		return null;
+	}
+
+	static Double scanPeriodOrZero(Double scanPeriod) {
+		return (scanPeriod != null) ? scanPeriod : Double.valueOf(0.0);
+	}
+
 	/**
 	 * Read the filterDocument file, parse its JSON-formatted content, and
 	 * build a filter tree.
@@ -270,6 +564,7 @@ public class Filters {
 				filters._instanceFilters.put(instanceFilter.getRegularExpression(), instanceFilter);
 			}
 		}
+		filters.compile();
 		return filters;
 	}
 
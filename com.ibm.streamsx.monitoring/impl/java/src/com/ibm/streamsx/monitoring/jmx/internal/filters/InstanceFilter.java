@@ -8,7 +8,9 @@
 package com.ibm.streamsx.monitoring.jmx.internal.filters;
 
 import java.math.BigInteger;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.regex.PatternSyntaxException;
@@ -27,22 +29,40 @@ final class InstanceFilter extends PatternMatcher {
 	 */
 	protected Map<String /* regular expression */, JobFilter> _jobFilters = new HashMap<>();
 
+	/**
+	 * The compiled job filters.
+	 */
+	private final FilterIndex<JobFilter> _jobIndex;
+
 	public InstanceFilter(String regularExpression, Set<JobFilter> filters) throws PatternSyntaxException {
 		super(regularExpression);
 		for(JobFilter jobFilter : filters) {
 			_jobFilters.put(jobFilter.getRegularExpression(), jobFilter);
 		}
+		_jobIndex = new FilterIndex<>(_jobFilters.values());
+	}
+
+	/**
+	 * Get the job filters that match the job name if the instance ID
+	 * matches.
+	 */
+	private List<JobFilter> getJobFilters(String instanceId, String jobName) {
+		if (!matchesInstanceId(instanceId)) {
+			return Collections.emptyList();
+		}
+		return _jobIndex.getMatchingFilters(jobName);
 	}
 
 	public boolean matchesInstanceId(String instanceId) {
-		boolean matches = matches(instanceId);
+		boolean matches = matchesMemoized(instanceId);
 		return matches;
 	}
 
 	public boolean matchesJobName(String instanceId, String jobName) {
-		boolean matches = matchesInstanceId(instanceId) && (_jobFilters.size() > 0);
+		List<JobFilter> jobFilters = getJobFilters(instanceId, jobName);
+		boolean matches = (jobFilters.size() > 0);
 		if (matches) {
-			for(JobFilter filter : _jobFilters.values()) {
+			for(JobFilter filter : jobFilters) {
 				matches = filter.matchesJobName(jobName);
 				if (matches) {
 					break;
@@ -53,9 +73,10 @@ final class InstanceFilter extends PatternMatcher {
 	}
 
 	public boolean matchesOperatorName(String instanceId, String jobName, String operatorName) {
-		boolean matches = matchesInstanceId(instanceId) && (_jobFilters.size() > 0);
+		List<JobFilter> jobFilters = getJobFilters(instanceId, jobName);
+		boolean matches = (jobFilters.size() > 0);
 		if (matches) {
-			for(JobFilter filter : _jobFilters.values()) {
+			for(JobFilter filter : jobFilters) {
 				matches = filter.matchesOperatorName(jobName, operatorName);
 				if (matches) {
 					break;
@@ -66,9 +87,10 @@ final class InstanceFilter extends PatternMatcher {
 	}
 
 	public boolean matchesOperatorMetricName(String instanceId, String jobName, String operatorName, String metricName) {
-		boolean matches = matchesInstanceId(instanceId) && (_jobFilters.size() > 0);
+		List<JobFilter> jobFilters = getJobFilters(instanceId, jobName);
+		boolean matches = (jobFilters.size() > 0);
 		if (matches) {
-			for(JobFilter filter : _jobFilters.values()) {
+			for(JobFilter filter : jobFilters) {
 				matches = filter.matchesOperatorMetricName(jobName, operatorName, metricName);
 				if (matches) {
 					break;
@@ -79,9 +101,10 @@ final class InstanceFilter extends PatternMatcher {
 	}
 
 	public boolean matchesOperatorInputPortIndex(String instanceId, String jobName, String operatorName, Integer portIndex) {
-		boolean matches = matchesInstanceId(instanceId) && (_jobFilters.size() > 0);
+		List<JobFilter> jobFilters = getJobFilters(instanceId, jobName);
+		boolean matches = (jobFilters.size() > 0);
 		if (matches) {
-			for(JobFilter filter : _jobFilters.values()) {
+			for(JobFilter filter : jobFilters) {
 				matches = filter.matchesOperatorInputPortIndex(jobName, operatorName, portIndex);
 				if (matches) {
 					break;
@@ -92,9 +115,10 @@ final class InstanceFilter extends PatternMatcher {
 	}
 
 	public boolean matchesOperatorInputPortMetricName(String instanceId, String jobName, String operatorName, Integer portIndex, String metricName) {
-		boolean matches = matchesInstanceId(instanceId) && (_jobFilters.size() > 0);
+		List<JobFilter> jobFilters = getJobFilters(instanceId, jobName);
+		boolean matches = (jobFilters.size() > 0);
 		if (matches) {
-			for(JobFilter filter : _jobFilters.values()) {
+			for(JobFilter filter : jobFilters) {
 				matches = filter.matchesOperatorInputPortMetricName(jobName, operatorName, portIndex, metricName);
 				if (matches) {
 					break;
@@ -105,9 +129,10 @@ final class InstanceFilter extends PatternMatcher {
 	}
 
 	public boolean matchesOperatorOutputPortIndex(String instanceId, String jobName, String operatorName, Integer portIndex) {
-		boolean matches = matchesInstanceId(instanceId) && (_jobFilters.size() > 0);
+		List<JobFilter> jobFilters = getJobFilters(instanceId, jobName);
+		boolean matches = (jobFilters.size() > 0);
 		if (matches) {
-			for(JobFilter filter : _jobFilters.values()) {
+			for(JobFilter filter : jobFilters) {
 				matches = filter.matchesOperatorOutputPortIndex(jobName, operatorName, portIndex);
 				if (matches) {
 					break;
@@ -118,9 +143,10 @@ final class InstanceFilter extends PatternMatcher {
 	}
 
 	public boolean matchesOperatorOutputPortMetricName(String instanceId, String jobName, String operatorName, Integer portIndex, String metricName) {
-		boolean matches = matchesInstanceId(instanceId) && (_jobFilters.size() > 0);
+		List<JobFilter> jobFilters = getJobFilters(instanceId, jobName);
+		boolean matches = (jobFilters.size() > 0);
 		if (matches) {
-			for(JobFilter filter : _jobFilters.values()) {
+			for(JobFilter filter : jobFilters) {
 				matches = filter.matchesOperatorOutputPortMetricName(jobName, operatorName, portIndex, metricName);
 				if (matches) {
 					break;
@@ -131,9 +157,10 @@ final class InstanceFilter extends PatternMatcher {
 	}
 
 	public boolean matchesPeId(String instanceId, String jobName, String peId) {
-		boolean matches = matchesInstanceId(instanceId) && (_jobFilters.size() > 0);
+		List<JobFilter> jobFilters = getJobFilters(instanceId, jobName);
+		boolean matches = (jobFilters.size() > 0);
 		if (matches) {
-			for(JobFilter filter : _jobFilters.values()) {
+			for(JobFilter filter : jobFilters) {
 				matches = filter.matchesPeId(jobName, peId);
 				if (matches) {
 					break;
@@ -144,9 +171,10 @@ final class InstanceFilter extends PatternMatcher {
 	}
 
 	public boolean matchesPeMetricName(String instanceId, String jobName, String peId, String metricName) {
-		boolean matches = matchesInstanceId(instanceId) && (_jobFilters.size() > 0);
+		List<JobFilter> jobFilters = getJobFilters(instanceId, jobName);
+		boolean matches = (jobFilters.size() > 0);
 		if (matches) {
-			for(JobFilter filter : _jobFilters.values()) {
+			for(JobFilter filter : jobFilters) {
 				matches = filter.matchesPeMetricName(jobName, peId, metricName);
 				if (matches) {
 					break;
@@ -157,9 +185,10 @@ final class InstanceFilter extends PatternMatcher {
 	}
 
 	public boolean matchesPeInputPortIndex(String instanceId, String jobName, String peId, Integer portIndex) {
-		boolean matches = matchesInstanceId(instanceId) && (_jobFilters.size() > 0);
+		List<JobFilter> jobFilters = getJobFilters(instanceId, jobName);
+		boolean matches = (jobFilters.size() > 0);
 		if (matches) {
-			for(JobFilter filter : _jobFilters.values()) {
+			for(JobFilter filter : jobFilters) {
 				matches = filter.matchesPeInputPortIndex(jobName, peId, portIndex);
 				if (matches) {
 					break;
@@ -170,9 +199,10 @@ final class InstanceFilter extends PatternMatcher {
 	}
 
 	public boolean matchesPeInputPortMetricName(String instanceId, String jobName, String peId, Integer portIndex, String metricName) {
-		boolean matches = matchesInstanceId(instanceId) && (_jobFilters.size() > 0);
+		List<JobFilter> jobFilters = getJobFilters(instanceId, jobName);
+		boolean matches = (jobFilters.size() > 0);
 		if (matches) {
-			for(JobFilter filter : _jobFilters.values()) {
+			for(JobFilter filter : jobFilters) {
 				matches = filter.matchesPeInputPortMetricName(jobName, peId, portIndex, metricName);
 				if (matches) {
 					break;
@@ -183,9 +213,10 @@ final class InstanceFilter extends PatternMatcher {
 	}
 
 	public boolean matchesPeOutputPortIndex(String instanceId, String jobName, String peId, Integer portIndex) {
-		boolean matches = matchesInstanceId(instanceId) && (_jobFilters.size() > 0);
+		List<JobFilter> jobFilters = getJobFilters(instanceId, jobName);
+		boolean matches = (jobFilters.size() > 0);
 		if (matches) {
-			for(JobFilter filter : _jobFilters.values()) {
+			for(JobFilter filter : jobFilters) {
 				matches = filter.matchesPeOutputPortIndex(jobName, peId, portIndex);
 				if (matches) {
 					break;
@@ -196,9 +227,10 @@ final class InstanceFilter extends PatternMatcher {
 	}
 
 	public boolean matchesPeOutputPortMetricName(String instanceId, String jobName, String peId, Integer portIndex, String metricName) {
-		boolean matches = matchesInstanceId(instanceId) && (_jobFilters.size() > 0);
+		List<JobFilter> jobFilters = getJobFilters(instanceId, jobName);
+		boolean matches = (jobFilters.size() > 0);
 		if (matches) {
-			for(JobFilter filter : _jobFilters.values()) {
+			for(JobFilter filter : jobFilters) {
 				matches = filter.matchesPeOutputPortMetricName(jobName, peId, portIndex, metricName);
 				if (matches) {
 					break;
@@ -209,9 +241,10 @@ final class InstanceFilter extends PatternMatcher {
 	}
 	
 	public boolean matchesPeConnectionId(String instanceId, String jobName, String peId, String connectionId) {
-		boolean matches = matchesInstanceId(instanceId) && (_jobFilters.size() > 0);
+		List<JobFilter> jobFilters = getJobFilters(instanceId, jobName);
+		boolean matches = (jobFilters.size() > 0);
 		if (matches) {
-			for(JobFilter filter : _jobFilters.values()) {
+			for(JobFilter filter : jobFilters) {
 				matches = filter.matchesPeConnectionId(jobName, peId, connectionId);
 				if (matches) {
 					break;
@@ -222,9 +255,10 @@ final class InstanceFilter extends PatternMatcher {
 	}
 	
 	public boolean matchesPeConnectionMetricName(String instanceId, String jobName, String peId, String peConnection, String metricName) {
-		boolean matches = matchesInstanceId(instanceId) && (_jobFilters.size() > 0);
+		List<JobFilter> jobFilters = getJobFilters(instanceId, jobName);
+		boolean matches = (jobFilters.size() > 0);
 		if (matches) {
-			for(JobFilter filter : _jobFilters.values()) {
+			for(JobFilter filter : jobFilters) {
 				matches = filter.matchesPeConnectionMetricName(jobName, peId, peConnection, metricName);
 				if (matches) {
 					break;
@@ -234,4 +268,284 @@ final class InstanceFilter extends PatternMatcher {
 		return matches;
 	}
 
+	public Double getOperatorScanPeriod(String instanceId, String jobName, String operatorName) {
+		if (!matchesInstanceId(instanceId)) {
+			return null;
+		}
+		Double scanPeriod = null;
+		for(JobFilter filter : _jobIndex.getMatchingFilters(jobName)) {
+			scanPeriod = Filters.minScanPeriod(scanPeriod, filter.getOperatorScanPeriod(jobName, operatorName));
+		}
+		return scanPeriod;
+	}
+
+	public Double getOperatorInputPortScanPeriod(String instanceId, String jobName, String operatorName, Integer portIndex) {
+		if (!matchesInstanceId(instanceId)) {
+			return null;
+		}
+		Double scanPeriod = null;
+		for(JobFilter filter : _jobIndex.getMatchingFilters(jobName)) {
+			scanPeriod = Filters.minScanPeriod(scanPeriod, filter.getOperatorInputPortScanPeriod(jobName, operatorName, portIndex));
+		}
+		return scanPeriod;
+	}
+
+	public Double getOperatorOutputPortScanPeriod(String instanceId, String jobName, String operatorName, Integer portIndex) {
+		if (!matchesInstanceId(instanceId)) {
+			return null;
+		}
+		Double scanPeriod = null;
+		for(JobFilter filter : _jobIndex.getMatchingFilters(jobName)) {
+			scanPeriod = Filters.minScanPeriod(scanPeriod, filter.getOperatorOutputPortScanPeriod(jobName, operatorName, portIndex));
+		}
+		return scanPeriod;
+	}
+
+	public Double getPeScanPeriod(String instanceId, String jobName, String peId) {
+		if (!matchesInstanceId(instanceId)) {
+			return null;
+		}
+		Double scanPeriod = null;
+		for(JobFilter filter : _jobIndex.getMatchingFilters(jobName)) {
+			scanPeriod = Filters.minScanPeriod(scanPeriod, filter.getPeScanPeriod(jobName, peId));
+		}
+		return scanPeriod;
+	}
+
+	public Double getPeInputPortScanPeriod(String instanceId, String jobName, String peId, Integer portIndex) {
+		if (!matchesInstanceId(instanceId)) {
+			return null;
+		}
+		Double scanPeriod = null;
+		for(JobFilter filter : _jobIndex.getMatchingFilters(jobName)) {
+			scanPeriod = Filters.minScanPeriod(scanPeriod, filter.getPeInputPortScanPeriod(jobName, peId, portIndex));
+		}
+		return scanPeriod;
+	}
+
+	public Double getPeOutputPortScanPeriod(String instanceId, String jobName, String peId, Integer portIndex) {
+		if (!matchesInstanceId(instanceId)) {
+			return null;
+		}
+		Double scanPeriod = null;
+		for(JobFilter filter : _jobIndex.getMatchingFilters(jobName)) {
+			scanPeriod = Filters.minScanPeriod(scanPeriod, filter.getPeOutputPortScanPeriod(jobName, peId, portIndex));
+		}
+		return scanPeriod;
+	}
+
+	public Double getPeConnectionScanPeriod(String instanceId, String jobName, String peId, String connectionId) {
+		if (!matchesInstanceId(instanceId)) {
+			return null;
+		}
+		Double scanPeriod = null;
+		for(JobFilter filter : _jobIndex.getMatchingFilters(jobName)) {
+			scanPeriod = Filters.minScanPeriod(scanPeriod, filter.getPeConnectionScanPeriod(jobName, peId, connectionId));
+		}
+		return scanPeriod;
+	}
+
+	public MetricEmission getOperatorMetricEmission(String instanceId, String jobName, String operatorName, String metricName) {
+		if (!matchesInstanceId(instanceId)) {
+			return null;
+		}
+		MetricEmission emission = null;
+		for(JobFilter filter : _jobIndex.getMatchingFilters(jobName)) {
+			emission = Filters.firstMetricEmission(emission, filter.getOperatorMetricEmission(jobName, operatorName, metricName));
+		}
+		return emission;
+	}
+
+	public MetricEmission getOperatorInputPortMetricEmission(String instanceId, String jobName, String operatorName, Integer portIndex, String metricName) {
+		if (!matchesInstanceId(instanceId)) {
+			return null;
+		}
+		MetricEmission emission = null;
+		for(JobFilter filter : _jobIndex.getMatchingFilters(jobName)) {
+			emission = Filters.firstMetricEmission(emission, filter.getOperatorInputPortMetricEmission(jobName, operatorName, portIndex, metricName));
+		}
+		return emission;
+	}
+
+	public MetricEmission getOperatorOutputPortMetricEmission(String instanceId, String jobName, String operatorName, Integer portIndex, String metricName) {
+		if (!matchesInstanceId(instanceId)) {
+			return null;
+		}
+		MetricEmission emission = null;
+		for(JobFilter filter : _jobIndex.getMatchingFilters(jobName)) {
+			emission = Filters.firstMetricEmission(emission, filter.getOperatorOutputPortMetricEmission(jobName, operatorName, portIndex, metricName));
+		}
+		return emission;
+	}
+
+	public MetricEmission getPeMetricEmission(String instanceId, String jobName, String peId, String metricName) {
+		if (!matchesInstanceId(instanceId)) {
+			return null;
+		}
+		MetricEmission emission = null;
+		for(JobFilter filter : _jobIndex.getMatchingFilters(jobName)) {
+			emission = Filters.firstMetricEmission(emission, filter.getPeMetricEmission(jobName, peId, metricName));
+		}
+		return emission;
+	}
+
+	public MetricEmission getPeInputPortMetricEmission(String instanceId, String jobName, String peId, Integer portIndex, String metricName) {
+		if (!matchesInstanceId(instanceId)) {
+			return null;
+		}
+		MetricEmission emission = null;
+		for(JobFilter filter : _jobIndex.getMatchingFilters(jobName)) {
+			emission = Filters.firstMetricEmission(emission, filter.getPeInputPortMetricEmission(jobName, peId, portIndex, metricName));
+		}
+		return emission;
+	}
+
+	public MetricEmission getPeOutputPortMetricEmission(String instanceId, String jobName, String peId, Integer portIndex, String metricName) {
+		if (!matchesInstanceId(instanceId)) {
+			return null;
+		}
+		MetricEmission emission = null;
+		for(JobFilter filter : _jobIndex.getMatchingFilters(jobName)) {
+			emission = Filters.firstMetricEmission(emission, filter.getPeOutputPortMetricEmission(jobName, peId, portIndex, metricName));
+		}
+		return emission;
+	}
+
+	public MetricEmission getPeConnectionMetricEmission(String instanceId, String jobName, String peId, String connectionId, String metricName) {
+		if (!matchesInstanceId(instanceId)) {
+			return null;
+		}
+		MetricEmission emission = null;
+		for(JobFilter filter : _jobIndex.getMatchingFilters(jobName)) {
+			emission = Filters.firstMetricEmission(emission, filter.getPeConnectionMetricEmission(jobName, peId, connectionId, metricName));
+		}
+		return emission;
+	}
+
+	public boolean mayMatchOperators(String instanceId, String jobName) {
+		List<JobFilter> jobFilters = getJobFilters(instanceId, jobName);
+		boolean matches = (jobFilters.size() > 0);
+		if (matches) {
+			for(JobFilter filter : jobFilters) {
+				matches = filter.mayMatchOperators(jobName);
+				if (matches) {
+					break;
+				}
+			}
+		}
+		return matches;
+	}
+
+	public boolean mayMatchPes(String instanceId, String jobName) {
+		List<JobFilter> jobFilters = getJobFilters(instanceId, jobName);
+		boolean matches = (jobFilters.size() > 0);
+		if (matches) {
+			for(JobFilter filter : jobFilters) {
+				matches = filter.mayMatchPes(jobName);
+				if (matches) {
+					break;
+				}
+			}
+		}
+		return matches;
+	}
+
+	public boolean mayMatchOperatorMetrics(String instanceId, String jobName, String operatorName) {
+		List<JobFilter> jobFilters = getJobFilters(instanceId, jobName);
+		boolean matches = (jobFilters.size() > 0);
+		if (matches) {
+			for(JobFilter filter : jobFilters) {
+				matches = filter.mayMatchOperatorMetrics(jobName, operatorName);
+				if (matches) {
+					break;
+				}
+			}
+		}
+		return matches;
+	}
+
+	public boolean mayMatchOperatorInputPorts(String instanceId, String jobName, String operatorName) {
+		List<JobFilter> jobFilters = getJobFilters(instanceId, jobName);
+		boolean matches = (jobFilters.size() > 0);
+		if (matches) {
+			for(JobFilter filter : jobFilters) {
+				matches = filter.mayMatchOperatorInputPorts(jobName, operatorName);
+				if (matches) {
+					break;
+				}
+			}
+		}
+		return matches;
+	}
+
+	public boolean mayMatchOperatorOutputPorts(String instanceId, String jobName, String operatorName) {
+		List<JobFilter> jobFilters = getJobFilters(instanceId, jobName);
+		boolean matches = (jobFilters.size() > 0);
+		if (matches) {
+			for(JobFilter filter : jobFilters) {
+				matches = filter.mayMatchOperatorOutputPorts(jobName, operatorName);
+				if (matches) {
+					break;
+				}
+			}
+		}
+		return matches;
+	}
+
+	public boolean mayMatchPeMetrics(String instanceId, String jobName, String peId) {
+		List<JobFilter> jobFilters = getJobFilters(instanceId, jobName);
+		boolean matches = (jobFilters.size() > 0);
+		if (matches) {
+			for(JobFilter filter : jobFilters) {
+				matches = filter.mayMatchPeMetrics(jobName, peId);
+				if (matches) {
+					break;
+				}
+			}
+		}
+		return matches;
+	}
+
+	public boolean mayMatchPeInputPorts(String instanceId, String jobName, String peId) {
+		List<JobFilter> jobFilters = getJobFilters(instanceId, jobName);
+		boolean matches = (jobFilters.size() > 0);
+		if (matches) {
+			for(JobFilter filter : jobFilters) {
+				matches = filter.mayMatchPeInputPorts(jobName, peId);
+				if (matches) {
+					break;
+				}
+			}
+		}
+		return matches;
+	}
+
+	public boolean mayMatchPeOutputPorts(String instanceId, String jobName, String peId) {
+		List<JobFilter> jobFilters = getJobFilters(instanceId, jobName);
+		boolean matches = (jobFilters.size() > 0);
+		if (matches) {
+			for(JobFilter filter : jobFilters) {
+				matches = filter.mayMatchPeOutputPorts(jobName, peId);
+				if (matches) {
+					break;
+				}
+			}
+		}
+		return matches;
+	}
+
+	public boolean mayMatchPeConnections(String instanceId, String jobName, String peId) {
+		List<JobFilter> jobFilters = getJobFilters(instanceId, jobName);
+		boolean matches = (jobFilters.size() > 0);
+		if (matches) {
+			for(JobFilter filter : jobFilters) {
+				matches = filter.mayMatchPeConnections(jobName, peId);
+				if (matches) {
+					break;
+				}
+			}
+		}
+		return matches;
+	}
+
 }
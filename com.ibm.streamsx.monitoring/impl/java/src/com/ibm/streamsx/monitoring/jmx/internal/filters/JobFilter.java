@@ -50,7 +50,7 @@ final class JobFilter extends PatternMatcher {
 	}
 
 	public boolean matchesJobName(String jobName) {
-		boolean matches = matches(jobName);
+		boolean matches = matchesMemoized(jobName);
 		return matches;
 	}
 
@@ -234,4 +234,258 @@ final class JobFilter extends PatternMatcher {
 		return matches;
 	}
 
+	public Double getOperatorScanPeriod(String jobName, String operatorName) {
+		if (!matchesJobName(jobName)) {
+			return null;
+		}
+		Double scanPeriod = null;
+		for(OperatorFilter filter : _operatorFilters.values()) {
+			scanPeriod = Filters.minScanPeriod(scanPeriod, filter.getOperatorScanPeriod(operatorName));
+		}
+		return scanPeriod;
+	}
+
+	public Double getOperatorInputPortScanPeriod(String jobName, String operatorName, Integer portIndex) {
+		if (!matchesJobName(jobName)) {
+			return null;
+		}
+		Double scanPeriod = null;
+		for(OperatorFilter filter : _operatorFilters.values()) {
+			scanPeriod = Filters.minScanPeriod(scanPeriod, filter.getOperatorInputPortScanPeriod(operatorName, portIndex));
+		}
+		return scanPeriod;
+	}
+
+	public Double getOperatorOutputPortScanPeriod(String jobName, String operatorName, Integer portIndex) {
+		if (!matchesJobName(jobName)) {
+			return null;
+		}
+		Double scanPeriod = null;
+		for(OperatorFilter filter : _operatorFilters.values()) {
+			scanPeriod = Filters.minScanPeriod(scanPeriod, filter.getOperatorOutputPortScanPeriod(operatorName, portIndex));
+		}
+		return scanPeriod;
+	}
+
+	public Double getPeScanPeriod(String jobName, String peId) {
+		if (!matchesJobName(jobName)) {
+			return null;
+		}
+		Double scanPeriod = null;
+		for(PeFilter filter : _peFilters) {
+			scanPeriod = Filters.minScanPeriod(scanPeriod, filter.getPeScanPeriod(peId));
+		}
+		return scanPeriod;
+	}
+
+	public Double getPeInputPortScanPeriod(String jobName, String peId, Integer portIndex) {
+		if (!matchesJobName(jobName)) {
+			return null;
+		}
+		Double scanPeriod = null;
+		for(PeFilter filter : _peFilters) {
+			scanPeriod = Filters.minScanPeriod(scanPeriod, filter.getPeInputPortScanPeriod(peId, portIndex));
+		}
+		return scanPeriod;
+	}
+
+	public Double getPeOutputPortScanPeriod(String jobName, String peId, Integer portIndex) {
+		if (!matchesJobName(jobName)) {
+			return null;
+		}
+		Double scanPeriod = null;
+		for(PeFilter filter : _peFilters) {
+			scanPeriod = Filters.minScanPeriod(scanPeriod, filter.getPeOutputPortScanPeriod(peId, portIndex));
+		}
+		return scanPeriod;
+	}
+
+	public Double getPeConnectionScanPeriod(String jobName, String peId, String connectionId) {
+		if (!matchesJobName(jobName)) {
+			return null;
+		}
+		Double scanPeriod = null;
+		for(PeFilter filter : _peFilters) {
+			scanPeriod = Filters.minScanPeriod(scanPeriod, filter.getPeConnectionScanPeriod(peId, connectionId));
+		}
+		return scanPeriod;
+	}
+
+	public MetricEmission getOperatorMetricEmission(String jobName, String operatorName, String metricName) {
+		if (!matchesJobName(jobName)) {
+			return null;
+		}
+		MetricEmission emission = null;
+		for(OperatorFilter filter : _operatorFilters.values()) {
+			emission = Filters.firstMetricEmission(emission, filter.getOperatorMetricEmission(operatorName, metricName));
+		}
+		return emission;
+	}
+
+	public MetricEmission getOperatorInputPortMetricEmission(String jobName, String operatorName, Integer portIndex, String metricName) {
+		if (!matchesJobName(jobName)) {
+			return null;
+		}
+		MetricEmission emission = null;
+		for(OperatorFilter filter : _operatorFilters.values()) {
+			emission = Filters.firstMetricEmission(emission, filter.getOperatorInputPortMetricEmission(operatorName, portIndex, metricName));
+		}
+		return emission;
+	}
+
+	public MetricEmission getOperatorOutputPortMetricEmission(String jobName, String operatorName, Integer portIndex, String metricName) {
+		if (!matchesJobName(jobName)) {
+			return null;
+		}
+		MetricEmission emission = null;
+		for(OperatorFilter filter : _operatorFilters.values()) {
+			emission = Filters.firstMetricEmission(emission, filter.getOperatorOutputPortMetricEmission(operatorName, portIndex, metricName));
+		}
+		return emission;
+	}
+
+	public MetricEmission getPeMetricEmission(String jobName, String peId, String metricName) {
+		if (!matchesJobName(jobName)) {
+			return null;
+		}
+		MetricEmission emission = null;
+		for(PeFilter filter : _peFilters) {
+			emission = Filters.firstMetricEmission(emission, filter.getPeMetricEmission(peId, metricName));
+		}
+		return emission;
+	}
+
+	public MetricEmission getPeInputPortMetricEmission(String jobName, String peId, Integer portIndex, String metricName) {
+		if (!matchesJobName(jobName)) {
+			return null;
+		}
+		MetricEmission emission = null;
+		for(PeFilter filter : _peFilters) {
+			emission = Filters.firstMetricEmission(emission, filter.getPeInputPortMetricEmission(peId, portIndex, metricName));
+		}
+		return emission;
+	}
+
+	public MetricEmission getPeOutputPortMetricEmission(String jobName, String peId, Integer portIndex, String metricName) {
+		if (!matchesJobName(jobName)) {
+			return null;
+		}
+		MetricEmission emission = null;
+		for(PeFilter filter : _peFilters) {
+			emission = Filters.firstMetricEmission(emission, filter.getPeOutputPortMetricEmission(peId, portIndex, metricName));
+		}
+		return emission;
+	}
+
+	public MetricEmission getPeConnectionMetricEmission(String jobName, String peId, String connectionId, String metricName) {
+		if (!matchesJobName(jobName)) {
+			return null;
+		}
+		MetricEmission emission = null;
+		for(PeFilter filter : _peFilters) {
+			emission = Filters.firstMetricEmission(emission, filter.getPeConnectionMetricEmission(peId, connectionId, metricName));
+		}
+		return emission;
+	}
+
+	public boolean mayMatchOperators(String jobName) {
+		return matchesJobName(jobName) && (_operatorFilters.size() > 0);
+	}
+
+	public boolean mayMatchPes(String jobName) {
+		// The PE filters do not depend on the PE ID.
+		return matchesPeId(jobName, null);
+	}
+
+	public boolean mayMatchOperatorMetrics(String jobName, String operatorName) {
+		boolean matches = matchesJobName(jobName) && (_operatorFilters.size() > 0);
+		if (matches) {
+			for(OperatorFilter filter : _operatorFilters.values()) {
+				matches = filter.mayMatchOperatorMetrics(operatorName);
+				if (matches) {
+					break;
+				}
+			}
+		}
+		return matches;
+	}
+
+	public boolean mayMatchOperatorInputPorts(String jobName, String operatorName) {
+		boolean matches = matchesJobName(jobName) && (_operatorFilters.size() > 0);
+		if (matches) {
+			for(OperatorFilter filter : _operatorFilters.values()) {
+				matches = filter.mayMatchOperatorInputPorts(operatorName);
+				if (matches) {
+					break;
+				}
+			}
+		}
+		return matches;
+	}
+
+	public boolean mayMatchOperatorOutputPorts(String jobName, String operatorName) {
+		boolean matches = matchesJobName(jobName) && (_operatorFilters.size() > 0);
+		if (matches) {
+			for(OperatorFilter filter : _operatorFilters.values()) {
+				matches = filter.mayMatchOperatorOutputPorts(operatorName);
+				if (matches) {
+					break;
+				}
+			}
+		}
+		return matches;
+	}
+
+	public boolean mayMatchPeMetrics(String jobName, String peId) {
+		boolean matches = matchesPeId(jobName, peId);
+		if (matches) {
+			for(PeFilter filter : _peFilters) {
+				matches = filter.mayMatchPeMetrics(peId);
+				if (matches) {
+					break;
+				}
+			}
+		}
+		return matches;
+	}
+
+	public boolean mayMatchPeInputPorts(String jobName, String peId) {
+		boolean matches = matchesPeId(jobName, peId);
+		if (matches) {
+			for(PeFilter filter : _peFilters) {
+				matches = filter.mayMatchPeInputPorts(peId);
+				if (matches) {
+					break;
+				}
+			}
+		}
+		return matches;
+	}
+
+	public boolean mayMatchPeOutputPorts(String jobName, String peId) {
+		boolean matches = matchesPeId(jobName, peId);
+		if (matches) {
+			for(PeFilter filter : _peFilters) {
+				matches = filter.mayMatchPeOutputPorts(peId);
+				if (matches) {
+					break;
+				}
+			}
+		}
+		return matches;
+	}
+
+	public boolean mayMatchPeConnections(String jobName, String peId) {
+		boolean matches = matchesPeId(jobName, peId);
+		if (matches) {
+			for(PeFilter filter : _peFilters) {
+				matches = filter.mayMatchPeConnections(peId);
+				if (matches) {
+					break;
+				}
+			}
+		}
+		return matches;
+	}
+
 }
@@ -0,0 +1,101 @@
+//
+// ****************************************************************************
+// * Copyright (C) 2016, International Business Machines Corporation          *
+// * All rights reserved.                                                     *
+// ****************************************************************************
+//
+
+package com.ibm.streamsx.monitoring.jmx.internal.filters;
+
+import java.util.Objects;
+
+import com.ibm.streamsx.monitoring.jmx.internal.EmitMetricTupleMode;
+
+/**
+ * Specifies when a tuple is emitted for a metric: the emission mode, the
+ * deadband of the deadband modes, and the heartbeat period. A null value
+ * specifies that the setting of the operator parameters is used.
+ */
+public final class MetricEmission {
+
+	private final EmitMetricTupleMode _mode;
+
+	private final Double _deadband;
+
+	private final Double _relativeDeadband;
+
+	private final Double _heartbeatPeriod;
+
+	/**
+	 * @param mode
+	 * The emission mode.
+	 *
+	 * @param deadband
+	 * The absolute change that causes a tuple in deadband mode.
+	 *
+	 * @param relativeDeadband
+	 * The change in percent of the last emitted value that causes a tuple in
+	 * relativeDeadband mode.
+	 *
+	 * @param heartbeatPeriod
+	 * The period in seconds after which a tuple is emitted even if the value
+	 * did not change, or 0.0 to disable the heartbeat.
+	 */
+	public MetricEmission(EmitMetricTupleMode mode, Double deadband, Double relativeDeadband, Double heartbeatPeriod) {
+		_mode = mode;
+		_deadband = deadband;
+		_relativeDeadband = relativeDeadband;
+		_heartbeatPeriod = heartbeatPeriod;
+	}
+
+	public EmitMetricTupleMode getMode() {
+		return _mode;
+	}
+
+	public Double getDeadband() {
+		return _deadband;
+	}
+
+	public Double getRelativeDeadband() {
+		return _relativeDeadband;
+	}
+
+	public Double getHeartbeatPeriod() {
+		return _heartbeatPeriod;
+	}
+
+	/**
+	 * Complete the settings that this object does not specify with the given
+	 * defaults.
+	 */
+	public MetricEmission inherit(MetricEmission defaults) {
+		if (defaults == null) {
+			return this;
+		}
+		return new MetricEmission(
+				(_mode != null) ? _mode : defaults._mode,
+				(_deadband != null) ? _deadband : defaults._deadband,
+				(_relativeDeadband != null) ? _relativeDeadband : defaults._relativeDeadband,
+				(_heartbeatPeriod != null) ? _heartbeatPeriod : defaults._heartbeatPeriod);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof MetricEmission)) {
+			return false;
+		}
+		MetricEmission other = (MetricEmission)obj;
+		return _mode == other._mode && Objects.equals(_deadband, other._deadband) && Objects.equals(_relativeDeadband, other._relativeDeadband) && Objects.equals(_heartbeatPeriod, other._heartbeatPeriod);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(_mode, _deadband, _relativeDeadband, _heartbeatPeriod);
+	}
+
+	@Override
+	public String toString() {
+		return "mode=" + _mode + ", deadband=" + _deadband + ", relativeDeadband=" + _relativeDeadband + ", heartbeatPeriod=" + _heartbeatPeriod;
+	}
+
+}
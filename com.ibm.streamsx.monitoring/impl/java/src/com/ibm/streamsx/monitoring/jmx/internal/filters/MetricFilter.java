@@ -18,13 +18,31 @@ final class MetricFilter extends PatternMatcher {
 	 */
 	private static Logger _trace = Logger.getLogger(MetricFilter.class.getName());
 
-	public MetricFilter(String regularExpression) throws PatternSyntaxException {
+	/**
+	 * The emission settings of the matching metrics, or null if the
+	 * settings of the operator parameters apply.
+	 */
+	private MetricEmission _emission = null;
+
+	public MetricFilter(String regularExpression, MetricEmission emission) throws PatternSyntaxException {
 		super(regularExpression);
+		_emission = emission;
 	}
 
 	public boolean matchesMetricName(String metricName) {
 		boolean matches = matches(metricName);
 		return matches;
 	}
+
+	/**
+	 * Get the emission settings if the metric name matches.
+	 * 
+	 * @return
+	 * The emission settings, or null if the metric does not match or the
+	 * filter does not specify emission settings.
+	 */
+	public MetricEmission getMetricEmission(String metricName) {
+		return (_emission != null && matchesMetricName(metricName)) ? _emission : null;
+	}
 	
 }
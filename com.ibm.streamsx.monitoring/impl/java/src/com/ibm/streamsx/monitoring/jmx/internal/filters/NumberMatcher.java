@@ -53,8 +53,8 @@ class NumberMatcher {
 	 */
 	protected boolean matches(Integer portIndex) {
 		boolean matches = (portIndex != null) && (_number.equals(EVERY_NUMBER) || portIndex.equals(_number));
-		if (_trace.isInfoEnabled()) {
-			_trace.info(String.format("matches(%s): %d -> %s", portIndex, _number, Boolean.toString(matches)));
+		if (_trace.isTraceEnabled()) {
+			_trace.trace("matches(" + portIndex + "): " + _number + " -> " + matches);
 		}
 		return matches;
 	}
@@ -26,6 +26,12 @@ final class OperatorFilter extends PatternMatcher {
 	 */
 	protected Map<String /* regular expression */, MetricFilter> _metricFilters = new HashMap<>();
 
+	/**
+	 * The metric name patterns of the metric filters, combined into one
+	 * set.
+	 */
+	private PatternSet _metricNamePatterns = null;
+
 	/**
 	 * An operator has many input ports.
 	 */
@@ -36,21 +42,32 @@ final class OperatorFilter extends PatternMatcher {
 	 */
 	protected Map<Long /* port index */, PortFilter> _outputPortFilters = new HashMap<>();
 
-	public OperatorFilter(String regularExpression, Set<MetricFilter> metricFilters, Set<PortFilter> inputPortFilters, Set<PortFilter> outputPortFilters) throws PatternSyntaxException {
+	/**
+	 * The scan period in seconds, or null if the metrics are scanned in
+	 * every scan cycle.
+	 */
+	private Double _scanPeriod = null;
+
+	public OperatorFilter(String regularExpression, Set<MetricFilter> metricFilters, Set<PortFilter> inputPortFilters, Set<PortFilter> outputPortFilters, Double scanPeriod) throws PatternSyntaxException {
 		super(regularExpression);
+		_scanPeriod = scanPeriod;
 		for(MetricFilter metricFilter : metricFilters) {
 			_metricFilters.put(metricFilter.getRegularExpression(), metricFilter);
 		}
+		_metricNamePatterns = new PatternSet(_metricFilters.values());
 		for(PortFilter portFilter : inputPortFilters) {
+			portFilter.inheritScanPeriod(scanPeriod);
 			_inputPortFilters.put(portFilter.getNumber(), portFilter);
 		}
 		for(PortFilter portFilter : outputPortFilters) {
+			portFilter.inheritScanPeriod(scanPeriod);
 			_outputPortFilters.put(portFilter.getNumber(), portFilter);
 		}
 	}
 	
 	public OperatorFilter(String regularExpression) throws PatternSyntaxException {
 		super(regularExpression);
+		_metricNamePatterns = new PatternSet(_metricFilters.values());
 	}	
 
 	public boolean matchesOperatorName(String operatorName) {
@@ -61,12 +78,7 @@ final class OperatorFilter extends PatternMatcher {
 	public boolean matchesOperatorMetricName(String operatorName, String metricName) {
 		boolean matches = matchesOperatorName(operatorName) && (_metricFilters.size() > 0);
 		if (matches) {
-			for(MetricFilter filter : _metricFilters.values()) {
-				matches = filter.matchesMetricName(metricName);
-				if (matches) {
-					break;
-				}
-			}
+			matches = _metricNamePatterns.matchesAny(metricName);
 		}
 		return matches;
 	}
@@ -123,4 +135,68 @@ final class OperatorFilter extends PatternMatcher {
 		return matches;
 	}
 
+	public Double getOperatorScanPeriod(String operatorName) {
+		return matchesOperatorName(operatorName) ? Filters.scanPeriodOrZero(_scanPeriod) : null;
+	}
+
+	public Double getOperatorInputPortScanPeriod(String operatorName, Integer portIndex) {
+		if (!matchesOperatorName(operatorName)) {
+			return null;
+		}
+		Double scanPeriod = null;
+		for(PortFilter filter : _inputPortFilters.values()) {
+			scanPeriod = Filters.minScanPeriod(scanPeriod, filter.getPortScanPeriod(portIndex));
+		}
+		return scanPeriod;
+	}
+
+	public Double getOperatorOutputPortScanPeriod(String operatorName, Integer portIndex) {
+		if (!matchesOperatorName(operatorName)) {
+			return null;
+		}
+		Double scanPeriod = null;
+		for(PortFilter filter : _outputPortFilters.values()) {
+			scanPeriod = Filters.minScanPeriod(scanPeriod, filter.getPortScanPeriod(portIndex));
+		}
+		return scanPeriod;
+	}
+
+	public MetricEmission getOperatorMetricEmission(String operatorName, String metricName) {
+		return matchesOperatorName(operatorName) ? Filters.getMetricEmission(_metricFilters.values(), metricName) : null;
+	}
+
+	public MetricEmission getOperatorInputPortMetricEmission(String operatorName, Integer portIndex, String metricName) {
+		if (!matchesOperatorName(operatorName)) {
+			return null;
+		}
+		MetricEmission emission = null;
+		for(PortFilter filter : _inputPortFilters.values()) {
+			emission = Filters.firstMetricEmission(emission, filter.getPortMetricEmission(portIndex, metricName));
+		}
+		return emission;
+	}
+
+	public MetricEmission getOperatorOutputPortMetricEmission(String operatorName, Integer portIndex, String metricName) {
+		if (!matchesOperatorName(operatorName)) {
+			return null;
+		}
+		MetricEmission emission = null;
+		for(PortFilter filter : _outputPortFilters.values()) {
+			emission = Filters.firstMetricEmission(emission, filter.getPortMetricEmission(portIndex, metricName));
+		}
+		return emission;
+	}
+
+	public boolean mayMatchOperatorMetrics(String operatorName) {
+		return matchesOperatorName(operatorName) && (_metricFilters.size() > 0);
+	}
+
+	public boolean mayMatchOperatorInputPorts(String operatorName) {
+		return matchesOperatorName(operatorName) && (_inputPortFilters.size() > 0);
+	}
+
+	public boolean mayMatchOperatorOutputPorts(String operatorName) {
+		return matchesOperatorName(operatorName) && (_outputPortFilters.size() > 0);
+	}
+
 }
@@ -29,6 +29,8 @@ public class OperatorParser extends AbstractParser {
 
 	private static final String OUTPUT_PORTS = "outputPorts";
 
+	private static final String SCAN_PERIOD = "scanPeriod";
+
 	private PortParser _portParser;
 
 	private OpType _type;
@@ -54,7 +56,7 @@ public class OperatorParser extends AbstractParser {
 	
 				@Override
 				public boolean validate(String key, Object object) {
-					return verifyPatterns(key, object);
+					return verifyMetricPatterns(key, object);
 				}
 				
 			});
@@ -92,6 +94,15 @@ public class OperatorParser extends AbstractParser {
 				}
 				
 			});
+
+			setValidationRule(SCAN_PERIOD, new IValidator() {
+
+				@Override
+				public boolean validate(String key, Object object) {
+					return verifyScanPeriod(key, object);
+				}
+				
+			});
 		}
 	}
 
@@ -106,18 +117,14 @@ public class OperatorParser extends AbstractParser {
 //		logger().error("Operator.JSON=" + json);
 		if (_type == OpType.METRICS_SOURCE) {
 			Set<String> patterns = buildPatternList(json.get(OPERATOR_NAME_PATTERNS));
-			Set<String> metrics = buildPatternList(json.get(METRIC_NAME_PATTERNS));
 			Set<PortFilter> inputPortFilters = _portParser.buildFilters((JSONArtifact)json.get(INPUT_PORTS));
 			Set<PortFilter> outputPortFilters = _portParser.buildFilters((JSONArtifact)json.get(OUTPUT_PORTS));
-			Set<MetricFilter> metricFilters = new HashSet<>();
-			for (String pattern : metrics) {
-	//			logger().error("create metric filter, pattern=" + pattern);
-				metricFilters.add(new MetricFilter(pattern));
-			}
+			Double scanPeriod = buildScanPeriod(json.get(SCAN_PERIOD));
+			Set<MetricFilter> metricFilters = buildMetricFilters(json.get(METRIC_NAME_PATTERNS));
 			Set<OperatorFilter> result = new HashSet<>();
 			for (String pattern : patterns) {
 	//			logger().error("create operator filter, pattern=" + pattern);
-				result.add(new OperatorFilter(pattern, metricFilters, inputPortFilters, outputPortFilters));
+				result.add(new OperatorFilter(pattern, metricFilters, inputPortFilters, outputPortFilters, scanPeriod));
 			}
 			return result;
 		}
@@ -7,6 +7,8 @@
 
 package com.ibm.streamsx.monitoring.jmx.internal.filters;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
@@ -14,7 +16,9 @@ import java.util.regex.PatternSyntaxException;
 import org.apache.log4j.Logger;
 
 /**
- * The 
+ * Matches values, for example job names, against a regular expression of
+ * the filter document. Literal expressions and literal prefixes followed by
+ * .* are detected, because most filters specify plain names.
  */
 class PatternMatcher {
 
@@ -23,6 +27,11 @@ class PatternMatcher {
 	 */
 	private static Logger _trace = Logger.getLogger(PatternMatcher.class.getName());
 
+	/**
+	 * The characters that end the literal part of a regular expression.
+	 */
+	static final String META_CHARACTERS = "\\[](){}.*+?^$|";
+
 	/**
 	 * 
 	 */
@@ -32,11 +41,38 @@ class PatternMatcher {
 	 * 
 	 */
 	private Pattern _pattern = null;
-	
+
 	/**
-	 * 
+	 * The matcher of each thread, which is reset for each value, because the
+	 * filters are shared by concurrently scanning job handlers.
+	 */
+	private final ThreadLocal<Matcher> _matcher = new ThreadLocal<Matcher>() {
+		@Override
+		protected Matcher initialValue() {
+			return _pattern.matcher("");
+		}
+	};
+
+	/**
+	 * The literal value that the regular expression matches, or null.
+	 */
+	private String _literal = null;
+
+	/**
+	 * The literal prefix if the regular expression is a literal followed
+	 * by .*, or null.
 	 */
-	private Matcher _matcher = null;
+	private String _prefix = null;
+
+	/**
+	 * The maximum number of memoized match results.
+	 */
+	private static final int MAX_MEMOIZED_RESULTS = 1024;
+
+	/**
+	 * The memoized match results of {@link #matchesMemoized}.
+	 */
+	private final Map<String, Boolean> _results = new ConcurrentHashMap<>();
 	
 	/**
 	 * Construct a filter.
@@ -50,7 +86,25 @@ class PatternMatcher {
 	protected PatternMatcher(String regularExpression) throws PatternSyntaxException {
 		_regularExpression = regularExpression;
 		_pattern = Pattern.compile(regularExpression);
-		_matcher = _pattern.matcher("");
+		int end = getLiteralEnd(regularExpression);
+		if (end == regularExpression.length()) {
+			_literal = regularExpression;
+		}
+		else if (end == regularExpression.length() - 2 && regularExpression.endsWith(".*")) {
+			_prefix = regularExpression.substring(0, end);
+		}
+	}
+
+	/**
+	 * Get the end of the literal characters at the beginning of the regular
+	 * expression.
+	 */
+	static int getLiteralEnd(String regularExpression) {
+		int end = 0;
+		while (end < regularExpression.length() && META_CHARACTERS.indexOf(regularExpression.charAt(end)) == -1) {
+			end++;
+		}
+		return end;
 	}
 
 	/**
@@ -63,14 +117,88 @@ class PatternMatcher {
 	}
 
 	/**
-	 * 
+	 * Get the literal value that the regular expression matches.
+	 *
+	 * @return
+	 * The literal value, or null if the regular expression contains
+	 * metacharacters.
+	 */
+	String getLiteral() {
+		return _literal;
+	}
+
+	/**
+	 * Get the literal prefix of a regular expression that consists of the
+	 * prefix followed by .*, for example nTuples.*
+	 *
+	 * @return
+	 * The literal prefix, which may be empty, or null if the regular
+	 * expression has another form.
+	 */
+	String getPrefix() {
+		return _prefix;
+	}
+
+	/**
+	 * Match the given value against the regular expression. Literal and
+	 * prefix expressions are compared without the regular expression engine,
+	 * and the others use the matcher of the current thread.
 	 */
 	protected boolean matches(String value) {
-		boolean matches = (value != null) && _matcher.reset(value).matches();
-		if (_trace.isInfoEnabled()) {
-			_trace.info(String.format("matches(%s): %s -> %s", value, _regularExpression, Boolean.toString(matches)));
+		boolean matches;
+		if (value == null) {
+			matches = false;
+		}
+		else if (_literal != null) {
+			matches = _literal.equals(value);
+		}
+		else if (_prefix != null) {
+			matches = matchesPrefix(value, _prefix);
+		}
+		else {
+			matches = _matcher.get().reset(value).matches();
+		}
+		if (_trace.isTraceEnabled()) {
+			_trace.trace("matches(" + value + "): " + _regularExpression + " -> " + matches);
 		}
 		return matches;
 	}
+
+	/**
+	 * Determine whether the value matches the prefix followed by .*, which
+	 * does not match line terminators.
+	 */
+	static boolean matchesPrefix(String value, String prefix) {
+		if (!value.startsWith(prefix)) {
+			return false;
+		}
+		for (int i = prefix.length(); i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Match the given value and memoize the result. This is used for the
+	 * instance IDs and job names, which are matched for each of their
+	 * operators, PEs, ports, and metrics, and whose number is small.
+	 */
+	protected boolean matchesMemoized(String value) {
+		if (value == null) {
+			return false;
+		}
+		Boolean matches = _results.get(value);
+		if (matches == null) {
+			matches = Boolean.valueOf(matches(value));
+			if (_results.size() >= MAX_MEMOIZED_RESULTS) {
+				_results.clear();
+			}
+			_results.put(value, matches);
+		}
+		return matches.booleanValue();
+	}
 	
 }
@@ -0,0 +1,128 @@
+//
+// ****************************************************************************
+// * Copyright (C) 2016, 2017, International Business Machines Corporation    *
+// * All rights reserved.                                                     *
+// ****************************************************************************
+//
+
+package com.ibm.streamsx.monitoring.jmx.internal.filters;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Determines whether a value matches any of the regular expressions of
+ * sibling filters, for example whether a metric name matches any metric
+ * name pattern of an operator filter.
+ * <p>
+ * Literal expressions are looked up in a hash set, and literal prefixes
+ * followed by .* are compared directly. The remaining expressions are
+ * combined into one alternation, so the regular expression engine scans the
+ * value once instead of once per expression. Expressions that cannot be
+ * combined safely, for example expressions with back references, are
+ * matched one by one.
+ * </p>
+ */
+final class PatternSet {
+
+	private final Set<String> _literals = new HashSet<>();
+
+	private final String[] _prefixes;
+
+	/**
+	 * The alternation of the combinable expressions, or null if there is
+	 * none.
+	 */
+	private final Pattern _pattern;
+
+	/**
+	 * The matcher of each thread, which is reset for each value.
+	 */
+	private final ThreadLocal<Matcher> _matcher = new ThreadLocal<Matcher>() {
+		@Override
+		protected Matcher initialValue() {
+			return _pattern.matcher("");
+		}
+	};
+
+	private final PatternMatcher[] _others;
+
+	PatternSet(Collection<? extends PatternMatcher> matchers) {
+		List<String> prefixes = new ArrayList<>();
+		List<PatternMatcher> others = new ArrayList<>();
+		StringBuilder alternation = new StringBuilder();
+		for(PatternMatcher matcher : matchers) {
+			if (matcher.getLiteral() != null) {
+				_literals.add(matcher.getLiteral());
+			}
+			else if (matcher.getPrefix() != null) {
+				prefixes.add(matcher.getPrefix());
+			}
+			else if (isCombinable(matcher.getRegularExpression())) {
+				if (alternation.length() > 0) {
+					alternation.append('|');
+				}
+				alternation.append("(?:").append(matcher.getRegularExpression()).append(')');
+			}
+			else {
+				others.add(matcher);
+			}
+		}
+		_prefixes = prefixes.toArray(new String[prefixes.size()]);
+		_pattern = (alternation.length() > 0) ? Pattern.compile(alternation.toString()) : null;
+		_others = others.toArray(new PatternMatcher[others.size()]);
+	}
+
+	/**
+	 * Determine whether the regular expression keeps its meaning inside a
+	 * group of an alternation. Back references and named groups depend on
+	 * the group numbering, quoting with \Q may not end, and comments may
+	 * span the remaining alternatives.
+	 */
+	private static boolean isCombinable(String regularExpression) {
+		if (regularExpression.contains("\\Q") || regularExpression.contains("\\k") || regularExpression.contains("(?<") || regularExpression.indexOf('#') != -1) {
+			return false;
+		}
+		for (int i = 0; i < regularExpression.length() - 1; i++) {
+			if (regularExpression.charAt(i) == '\\') {
+				if (Character.isDigit(regularExpression.charAt(i + 1))) {
+					return false;
+				}
+				i++;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Determine whether the value matches any of the regular expressions.
+	 */
+	boolean matchesAny(String value) {
+		if (value == null) {
+			return false;
+		}
+		if (_literals.contains(value)) {
+			return true;
+		}
+		for (String prefix : _prefixes) {
+			if (PatternMatcher.matchesPrefix(value, prefix)) {
+				return true;
+			}
+		}
+		if (_pattern != null && _matcher.get().reset(value).matches()) {
+			return true;
+		}
+		for (PatternMatcher matcher : _others) {
+			if (matcher.matches(value)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
@@ -27,6 +27,12 @@ final class PeFilter {
 	 */
 	protected Map<String /* regular expression */, MetricFilter> _metricFilters = new HashMap<>();
 
+	/**
+	 * The metric name patterns of the metric filters, combined into one
+	 * set.
+	 */
+	private PatternSet _metricNamePatterns = null;
+
 	/**
 	 * An operator has many input ports.
 	 */
@@ -42,32 +48,38 @@ final class PeFilter {
 	 */
 	protected Map<String /* connection id */, ConnectionFilter> _connectionFilters = new HashMap<>();
 
+	/**
+	 * The scan period in seconds, or null if the metrics are scanned in
+	 * every scan cycle.
+	 */
+	private Double _scanPeriod = null;
+
 	public PeFilter() throws PatternSyntaxException {
+		_metricNamePatterns = new PatternSet(_metricFilters.values());
 	}	
 	
-	public PeFilter(Set<MetricFilter> metricFilters, Set<PortFilter> inputPortFilters, Set<PortFilter> outputPortFilters, Set<ConnectionFilter> connectionFilters) throws PatternSyntaxException {
+	public PeFilter(Set<MetricFilter> metricFilters, Set<PortFilter> inputPortFilters, Set<PortFilter> outputPortFilters, Set<ConnectionFilter> connectionFilters, Double scanPeriod) throws PatternSyntaxException {
+		_scanPeriod = scanPeriod;
 		for(MetricFilter metricFilter : metricFilters) {
 			_metricFilters.put(metricFilter.getRegularExpression(), metricFilter);
 		}
+		_metricNamePatterns = new PatternSet(_metricFilters.values());
 		for(PortFilter portFilter : inputPortFilters) {
+			portFilter.inheritScanPeriod(scanPeriod);
 			_inputPortFilters.put(portFilter.getNumber(), portFilter);
 		}
 		for(PortFilter portFilter : outputPortFilters) {
+			portFilter.inheritScanPeriod(scanPeriod);
 			_outputPortFilters.put(portFilter.getNumber(), portFilter);
 		}
 		for(ConnectionFilter connectionFilter : connectionFilters) {
+			connectionFilter.inheritScanPeriod(scanPeriod);
 			_connectionFilters.put(connectionFilter.getRegularExpression(), connectionFilter);
 		}
 	}
 
 	public boolean matchesPeMetricName(String peId, String metricName) {
-		boolean matches = false;
-		for(MetricFilter filter : _metricFilters.values()) {
-			matches = filter.matchesMetricName(metricName);
-			if (matches) {
-				break;
-			}
-		}
+		boolean matches = _metricNamePatterns.matchesAny(metricName);
 		return matches;
 	}
 
@@ -137,4 +149,76 @@ final class PeFilter {
 		return matches;
 	}
 
+	public Double getPeScanPeriod(String peId) {
+		return Filters.scanPeriodOrZero(_scanPeriod);
+	}
+
+	public Double getPeInputPortScanPeriod(String peId, Integer portIndex) {
+		Double scanPeriod = null;
+		for(PortFilter filter : _inputPortFilters.values()) {
+			scanPeriod = Filters.minScanPeriod(scanPeriod, filter.getPortScanPeriod(portIndex));
+		}
+		return scanPeriod;
+	}
+
+	public Double getPeOutputPortScanPeriod(String peId, Integer portIndex) {
+		Double scanPeriod = null;
+		for(PortFilter filter : _outputPortFilters.values()) {
+			scanPeriod = Filters.minScanPeriod(scanPeriod, filter.getPortScanPeriod(portIndex));
+		}
+		return scanPeriod;
+	}
+
+	public Double getPeConnectionScanPeriod(String peId, String connectionId) {
+		Double scanPeriod = null;
+		for(ConnectionFilter filter : _connectionFilters.values()) {
+			scanPeriod = Filters.minScanPeriod(scanPeriod, filter.getConnectionScanPeriod(connectionId));
+		}
+		return scanPeriod;
+	}
+
+	public MetricEmission getPeMetricEmission(String peId, String metricName) {
+		return Filters.getMetricEmission(_metricFilters.values(), metricName);
+	}
+
+	public MetricEmission getPeInputPortMetricEmission(String peId, Integer portIndex, String metricName) {
+		MetricEmission emission = null;
+		for(PortFilter filter : _inputPortFilters.values()) {
+			emission = Filters.firstMetricEmission(emission, filter.getPortMetricEmission(portIndex, metricName));
+		}
+		return emission;
+	}
+
+	public MetricEmission getPeOutputPortMetricEmission(String peId, Integer portIndex, String metricName) {
+		MetricEmission emission = null;
+		for(PortFilter filter : _outputPortFilters.values()) {
+			emission = Filters.firstMetricEmission(emission, filter.getPortMetricEmission(portIndex, metricName));
+		}
+		return emission;
+	}
+
+	public MetricEmission getPeConnectionMetricEmission(String peId, String connectionId, String metricName) {
+		MetricEmission emission = null;
+		for(ConnectionFilter filter : _connectionFilters.values()) {
+			emission = Filters.firstMetricEmission(emission, filter.getConnectionMetricEmission(connectionId, metricName));
+		}
+		return emission;
+	}
+
+	public boolean mayMatchPeMetrics(String peId) {
+		return _metricFilters.size() > 0;
+	}
+
+	public boolean mayMatchPeInputPorts(String peId) {
+		return _inputPortFilters.size() > 0;
+	}
+
+	public boolean mayMatchPeOutputPorts(String peId) {
+		return _outputPortFilters.size() > 0;
+	}
+
+	public boolean mayMatchPeConnections(String peId) {
+		return _connectionFilters.size() > 0;
+	}
+
 }
@@ -29,6 +29,8 @@ public class PeParser extends AbstractParser {
 	
 	private static final String CONNECTIONS = "connections";
 
+	private static final String SCAN_PERIOD = "scanPeriod";
+
 	private PortParser _portParser;
 	
 	private ConnectionParser _connectionParser;
@@ -45,7 +47,7 @@ public class PeParser extends AbstractParser {
 	
 				@Override
 				public boolean validate(String key, Object object) {
-					return verifyPatterns(key, object);
+					return verifyMetricPatterns(key, object);
 				}
 				
 			});
@@ -100,6 +102,15 @@ public class PeParser extends AbstractParser {
 				}
 				
 			});
+
+			setValidationRule(SCAN_PERIOD, new IValidator() {
+
+				@Override
+				public boolean validate(String key, Object object) {
+					return verifyScanPeriod(key, object);
+				}
+				
+			});
 			
 		}		
 	}
@@ -114,18 +125,14 @@ public class PeParser extends AbstractParser {
 	protected Set<PeFilter> buildFilters(JSONObject json) {
 //		logger().error("PE.JSON=" + json);
 		if (_type == OpType.METRICS_SOURCE) {
-			Set<String> metrics = buildPatternList(json.get(METRIC_NAME_PATTERNS));
 			Set<PortFilter> inputPortFilters = _portParser.buildFilters((JSONArtifact)json.get(INPUT_PORTS));
 			Set<PortFilter> outputPortFilters = _portParser.buildFilters((JSONArtifact)json.get(OUTPUT_PORTS));
 			Set<ConnectionFilter> connectionFilters = _connectionParser.buildFilters((JSONArtifact)json.get(CONNECTIONS));
-			Set<MetricFilter> metricFilters = new HashSet<>();
-			for (String pattern : metrics) {
-	//			logger().error("create metric filter, pattern=" + pattern);
-				metricFilters.add(new MetricFilter(pattern));
-			}
+			Double scanPeriod = buildScanPeriod(json.get(SCAN_PERIOD));
+			Set<MetricFilter> metricFilters = buildMetricFilters(json.get(METRIC_NAME_PATTERNS));
 			Set<PeFilter> result = new HashSet<>();
 	//		logger().error("create PE filter");
-			result.add(new PeFilter(metricFilters, inputPortFilters, outputPortFilters, connectionFilters));
+			result.add(new PeFilter(metricFilters, inputPortFilters, outputPortFilters, connectionFilters, scanPeriod));
 			return result;
 		}
 		else {
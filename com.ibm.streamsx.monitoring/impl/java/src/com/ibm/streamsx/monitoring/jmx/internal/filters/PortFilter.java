@@ -26,11 +26,25 @@ final class PortFilter extends NumberMatcher {
 	 */
 	protected Map<String /* regular expression */, MetricFilter> _metricFilters = new HashMap<>();
 
-	public PortFilter(Long portIndex, Set<MetricFilter> metricFilters) throws PatternSyntaxException {
+	/**
+	 * The metric name patterns of the metric filters, combined into one
+	 * set.
+	 */
+	private PatternSet _metricNamePatterns = null;
+
+	/**
+	 * The scan period in seconds, or null if the metrics are scanned in
+	 * every scan cycle.
+	 */
+	private Double _scanPeriod = null;
+
+	public PortFilter(Long portIndex, Set<MetricFilter> metricFilters, Double scanPeriod) throws PatternSyntaxException {
 		super(portIndex);
+		_scanPeriod = scanPeriod;
 		for(MetricFilter metricFilter : metricFilters) {
 			_metricFilters.put(metricFilter.getRegularExpression(), metricFilter);
 		}
+		_metricNamePatterns = new PatternSet(_metricFilters.values());
 	}
 
 	public boolean matchesPortIndex(Integer portIndex) {
@@ -41,14 +55,27 @@ final class PortFilter extends NumberMatcher {
 	public boolean matchesPortMetricName(Integer portIndex, String metricName) {
 		boolean matches = matchesPortIndex(portIndex) && (_metricFilters.size() > 0);
 		if (matches) {
-			for(MetricFilter filter : _metricFilters.values()) {
-				matches = filter.matchesMetricName(metricName);
-				if (matches) {
-					break;
-				}
-			}
+			matches = _metricNamePatterns.matchesAny(metricName);
 		}
 		return matches;
 	}
 
+	public Double getPortScanPeriod(Integer portIndex) {
+		return matchesPortIndex(portIndex) ? Filters.scanPeriodOrZero(_scanPeriod) : null;
+	}
+
+	public MetricEmission getPortMetricEmission(Integer portIndex, String metricName) {
+		return matchesPortIndex(portIndex) ? Filters.getMetricEmission(_metricFilters.values(), metricName) : null;
+	}
+
+	/**
+	 * Use the scan period of the parent filter if this filter does not
+	 * specify its own scan period.
+	 */
+	void inheritScanPeriod(Double scanPeriod) {
+		if (_scanPeriod == null) {
+			_scanPeriod = scanPeriod;
+		}
+	}
+
 }
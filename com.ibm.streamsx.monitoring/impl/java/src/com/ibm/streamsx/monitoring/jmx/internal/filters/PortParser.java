@@ -22,6 +22,8 @@ public class PortParser extends AbstractParser {
 
 	private static final String METRIC_NAME_PATTERNS = "metricNamePatterns";
 
+	private static final String SCAN_PERIOD = "scanPeriod";
+
 	protected PortParser() {
 
 		setMandatoryItem(METRIC_NAME_PATTERNS);
@@ -39,7 +41,16 @@ public class PortParser extends AbstractParser {
 
 			@Override
 			public boolean validate(String key, Object object) {
-				return verifyPatterns(key, object);
+				return verifyMetricPatterns(key, object);
+			}
+			
+		});
+
+		setValidationRule(SCAN_PERIOD, new IValidator() {
+
+			@Override
+			public boolean validate(String key, Object object) {
+				return verifyScanPeriod(key, object);
 			}
 			
 		});
@@ -56,16 +67,12 @@ public class PortParser extends AbstractParser {
 	protected Set<PortFilter> buildFilters(JSONObject json) {
 //		logger().error("PortParser.JSON=" + json);
 		Set<Long> indexes = buildNumberList(json.get(PORT_INDEXES));
-		Set<String> metrics = buildPatternList(json.get(METRIC_NAME_PATTERNS));
-		Set<MetricFilter> metricFilters = new HashSet<>();
-		for (String pattern : metrics) {
-//			logger().error("create metric filter, pattern=" + pattern);
-			metricFilters.add(new MetricFilter(pattern));
-		}
+		Double scanPeriod = buildScanPeriod(json.get(SCAN_PERIOD));
+		Set<MetricFilter> metricFilters = buildMetricFilters(json.get(METRIC_NAME_PATTERNS));
 		Set<PortFilter> result = new HashSet<>();
 		for (Long index : indexes) {
 //			logger().error("create port filter, index=" + index);
-			result.add(new PortFilter(index, metricFilters));
+			result.add(new PortFilter(index, metricFilters, scanPeriod));
 		}
 		return result;
 	}
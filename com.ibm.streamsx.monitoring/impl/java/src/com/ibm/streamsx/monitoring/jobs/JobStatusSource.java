@@ -21,6 +21,7 @@ import com.ibm.streams.operator.compile.OperatorContextChecker;
 import com.ibm.streams.operator.state.ConsistentRegionContext;
 import com.ibm.streamsx.monitoring.jmx.AbstractJmxSource;
 import com.ibm.streamsx.monitoring.jmx.OperatorConfiguration.OpType;
+import com.ibm.streamsx.monitoring.jmx.internal.PeStatusCoalescer;
 import com.ibm.streamsx.monitoring.messages.Messages;
 import java.util.concurrent.TimeUnit;
 
@@ -163,6 +164,15 @@ public class JobStatusSource extends AbstractJmxSource {
 			"Specifies the period after which is checked if the application configuration is updated, for example to update the filter document during runtime."
 			+ "The default is 5.0 seconds.";
 
+	private static final String DESC_PARAM_COALESCING_WINDOW = 
+			"Specifies the window in seconds within which the status notifications of a PE are coalesced, "
+			+ "for example the storm of com.ibm.streams.management.pe.changed notifications while a PE restarts. "
+			+ "The first notification of a PE opens the window, and when the window ends, the operator emits "
+			+ "one tuple with the latest status of the PE. The **eventTimestamp** attribute contains the "
+			+ "timestamp of the last notification, and the optional **firstEventTimestamp** attribute of type "
+			+ "timestamp contains the timestamp of the first notification in the window. "
+			+ "The default is 0.0, which emits a tuple for each notification.";
+
 	// ------------------------------------------------------------------------
 	// Implementation.
 	// ------------------------------------------------------------------------
@@ -190,6 +200,14 @@ public class JobStatusSource extends AbstractJmxSource {
 		_operatorConfiguration.set_checkPeriod(checkPeriod);
 	}
 
+	@Parameter(
+			optional=true,
+			description=JobStatusSource.DESC_PARAM_COALESCING_WINDOW
+			)
+	public void setCoalescingWindow(Double coalescingWindow) {
+		_operatorConfiguration.set_coalescingWindow(coalescingWindow);
+	}
+
 	@ContextCheck(compile = true)
 	public static void checkInConsistentRegion(OperatorContextChecker checker) {
 		//consistent region check
@@ -212,6 +230,10 @@ public class JobStatusSource extends AbstractJmxSource {
 			throws Exception {
 		_trace.trace("Operator " + context.getName() + " initializing in PE: " + context.getPE().getPEId() + " in Job: " + context.getPE().getJobId() );
 		_operatorConfiguration.set_OperatorType(OpType.JOB_STATUS_SOURCE);
+		if (_operatorConfiguration.get_coalescingWindow() > 0.0) {
+			// The PE handlers that are created during initialization coalesce already.
+			_operatorConfiguration.set_peStatusCoalescer(new PeStatusCoalescer(context.getScheduledExecutorService(), _operatorConfiguration.get_coalescingWindow()));
+		}
 		super.initialize(context);
 
 		/*
@@ -224,15 +246,20 @@ public class JobStatusSource extends AbstractJmxSource {
 					@Override
 					public void run() {
 						try {
-							if (!_connected) {
+							if (!_connected && isJMXConnectionRetryDue()) {
 								_trace.warn("Reconnect");
 								setupJMXConnection();
 								_connected = true;
 								scanInstance(); // create new InstanceHandler
 							}
+							else if (_connected && isJMXSwitchBackPending()) {
+								_trace.warn("Switch back to the preferred JMX server");
+								switchJMXEndpoint();
+							}
 
 							if (_connected) {
 								_instanceHandler.healthCheck();
+								updateJMXConnectionPoolMetrics();
 								
 								if (_operatorConfiguration.get_applicationConfigurationName() != null) {
 									detectAndProcessChangedFilterDocumentInApplicationConfiguration();
@@ -269,6 +296,12 @@ public class JobStatusSource extends AbstractJmxSource {
 
 		// Close connections or release resources related to any external system or data store.
 		
+		if (_operatorConfiguration.get_peStatusCoalescer() != null) {
+			_operatorConfiguration.get_peStatusCoalescer().flushAll();
+		}
+		if (_operatorConfiguration.get_jmxConnectionPool() != null) {
+			_operatorConfiguration.get_jmxConnectionPool().closeSecondaryConnectors();
+		}
 		if (_operatorConfiguration.get_jmxConnector() != null) {
 			_operatorConfiguration.get_jmxConnector().close();
 		}
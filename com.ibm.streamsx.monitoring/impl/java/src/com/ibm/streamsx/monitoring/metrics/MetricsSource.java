@@ -8,12 +8,22 @@
 package com.ibm.streamsx.monitoring.metrics;
 
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.log4j.Logger;
 import com.ibm.streams.operator.OperatorContext;
 import com.ibm.streams.operator.OperatorContext.ContextCheck;
 import com.ibm.streams.operator.StreamingData.Punctuation;
+import com.ibm.streams.operator.metrics.Metric;
+import com.ibm.streams.operator.metrics.Metric.Kind;
+import com.ibm.streams.operator.model.CustomMetric;
 import com.ibm.streams.operator.model.Icons;
 import com.ibm.streams.operator.model.OutputPortSet;
 import com.ibm.streams.operator.model.OutputPortSet.WindowPunctuationOutputMode;
@@ -26,6 +36,12 @@ import com.ibm.streamsx.monitoring.messages.Messages;
 import com.ibm.streamsx.monitoring.jmx.AbstractJmxSource;
 import com.ibm.streamsx.monitoring.jmx.OperatorConfiguration.OpType;
 import com.ibm.streamsx.monitoring.jmx.internal.EmitMetricTupleMode;
+import com.ibm.streamsx.monitoring.jmx.internal.InstanceHandler;
+import com.ibm.streamsx.monitoring.jmx.internal.JmxCallEngine;
+import com.ibm.streamsx.monitoring.jmx.internal.JobSharding;
+import com.ibm.streamsx.monitoring.jmx.internal.ScanOverrunPolicy;
+import com.ibm.streamsx.monitoring.jmx.internal.ScanScheduler;
+import com.ibm.streamsx.monitoring.jmx.internal.ScanStatistics;
 import com.ibm.streamsx.monitoring.jobs.JobStatusSource;
 
 /**
@@ -227,7 +243,12 @@ public class MetricsSource extends AbstractJmxSource {
 			+ "identifies a changed value. You can use the "
 			+ "[type:com.ibm.streamsx.monitoring.metrics::Notification|Notification] "
 			+ "tuple type, or any subset of the attributes specified for this "
-			+ "type. After each scan cycle, the operator emits a WindowMarker "
+			+ "type. If the output schema has a **metrics** attribute of a list "
+			+ "of tuples type, for example the "
+			+ "[type:com.ibm.streamsx.monitoring.metrics::Notifications|Notifications] "
+			+ "type, the operator emits one tuple per operator, port, PE, or "
+			+ "connection and scan cycle instead, whose list holds all changed "
+			+ "metrics. After each scan cycle, the operator emits a WindowMarker "
 			+ "to this port."
 			;
 	
@@ -237,17 +258,123 @@ public class MetricsSource extends AbstractJmxSource {
 			+ "regular expressions. Each regular expression must follow the "
 			+ "rules that are specified for Java "
 			+ "[https://docs.oracle.com/javase/7/docs/api/java/util/regex/Pattern.html|Pattern]. "
+			+ "The **operators**, **pes**, **inputPorts**, **outputPorts**, and **connections** "
+			+ "entries can specify a **scanPeriod** in seconds, after which their metrics "
+			+ "are retrieved again. A port or connection entry without a scan period uses "
+			+ "the scan period of its operator or PE entry. Entries without a scan period "
+			+ "are retrieved in every scan cycle. "
 			+ "If the **applicationConfigurationName** parameter is specified, "
 			+ "the application configuration can override this parameter value.";
 	
 	private static final String DESC_PARAM_SCAN_PERIOD = 
 			"Specifies the period after which a new metrics scan is "
-			+ "initiated. The default is 5.0 seconds.";
+			+ "initiated. The scans start at a fixed rate, aligned to "
+			+ "wall-clock boundaries that are multiples of the period, so the "
+			+ "duration of a scan does not add to the period. "
+			+ "The default is 5.0 seconds.";
+
+	private static final String DESC_PARAM_SCAN_OVERRUN_POLICY =
+			"Specifies how to continue if a scan does not complete before the next "
+			+ "scan is due. Supported policies are the following string values:\\n"
+			+ "\\n"
+			+ "* **skipTick** (default)\\n"
+			+ "\\n"
+			+ "  The next scan starts at the next period boundary. The missed scans are skipped.\\n"
+			+ "\\n"
+			+ "* **runImmediately**\\n"
+			+ "\\n"
+			+ "  The next scan starts immediately after the overrun scan.\\n"
+			+ "\\n"
+			+ "The number of overruns is provided by the **nScanOverruns** metric.";
+
+	private static final String DESC_PARAM_ADAPTIVE_SCAN_PERIOD =
+			"Specifies whether the scan period is adapted at runtime. If true, "
+			+ "the period is doubled if a scan takes more than 80% of the period, "
+			+ "or if at most 5% of the evaluated metrics changed in three "
+			+ "consecutive scans. The period is halved if at least 25% of the "
+			+ "evaluated metrics changed. The period stays within the bounds "
+			+ "specified with the **minScanPeriod** and **maxScanPeriod** parameters. "
+			+ "The change rate is meaningful only if the **emitMetricTuple** "
+			+ "parameter is **onChangedValue**. The current period is provided by "
+			+ "the **scanPeriod** metric. The default is false.";
+
+	private static final String DESC_PARAM_MIN_SCAN_PERIOD =
+			"Specifies the lower bound of the scan period in seconds if the "
+			+ "**adaptiveScanPeriod** parameter is true. The default is the value "
+			+ "of the **scanPeriod** parameter.";
+
+	private static final String DESC_PARAM_MAX_SCAN_PERIOD =
+			"Specifies the upper bound of the scan period in seconds if the "
+			+ "**adaptiveScanPeriod** parameter is true. The default is 12 times "
+			+ "the value of the **scanPeriod** parameter.";
 
 	private static final String DESC_PARAM_CHECK_PERIOD = 
 			"Specifies the period after which is checked if the application configuration is updated, for example to update the filter document during runtime."
 			+ "The default is 5.0 seconds.";	
 	
+	private static final String DESC_PARAM_SCAN_THREADS = 
+			"Specifies the number of threads that scan the monitored jobs "
+			+ "concurrently. Each thread captures the metrics of one job at a "
+			+ "time, so the duration of a scan scales with the number of threads "
+			+ "instead of the number of jobs. The default is 1, which scans the "
+			+ "jobs one after the other.";
+
+	private static final String DESC_PARAM_BATCHED_METRICS_RETRIEVAL = 
+			"Specifies whether the metrics of a job are retrieved with a single "
+			+ "JMX request per job and scan cycle. The request returns the URI of "
+			+ "a metrics snapshot, which is downloaded from the JMX server with the "
+			+ "user, password, and sslOption of the JMX connection. If false, each "
+			+ "monitored operator, PE, port, and connection retrieves its metrics "
+			+ "with a separate request. If the metrics of an object are not "
+			+ "contained in the job's metrics snapshot, the operator falls back to "
+			+ "the separate request for this object. The default is false.";
+
+	private static final String DESC_PARAM_JMX_CALL_TIMEOUT = 
+			"Specifies the timeout in seconds for a JMX call that retrieves "
+			+ "metrics. If the timeout is greater than 0.0, the calls are executed "
+			+ "asynchronously, and several calls are in flight at the same time. "
+			+ "The timeout starts when the call is executed, so the time that a call waits "
+			+ "for one of the **maxPendingJmxCalls** threads is not included. "
+			+ "If a call times out, the metrics of the affected operator, PE, port, "
+			+ "or connection are skipped in this scan cycle only, and the JMX "
+			+ "connection is kept. The default is 0.0, which executes the calls "
+			+ "synchronously without timeout.";
+
+	private static final String DESC_PARAM_MAX_PENDING_JMX_CALLS = 
+			"Specifies the number of JMX calls that are in flight at the same "
+			+ "time if the **jmxCallTimeout** parameter is greater than 0.0. "
+			+ "A call that times out while it is blocked in the network I/O of the JMX "
+			+ "connection cannot be interrupted and keeps its thread busy until the "
+			+ "connection returns or fails. The value must be 1 or more. "
+			+ "The default is 4.";
+
+	private static final String DESC_PARAM_DISCOVER_INSTANCES = 
+			"Specifies whether the operator monitors all instances of the domain "
+			+ "that match the instance filters of the filter document, in addition "
+			+ "to the instance that is specified with the **instanceId** parameter. "
+			+ "The instances are discovered with each scan cycle, and instances "
+			+ "that are added to or removed from the domain are detected. The "
+			+ "instances are scanned concurrently, each by a separate thread. "
+			+ "The default is false.";
+
+	private static final String DESC_PARAM_JOB_SHARDING = 
+			"Specifies whether the monitored jobs are distributed over the "
+			+ "channels of the parallel region that the operator is part of. "
+			+ "If true, each channel monitors a disjoint subset of the jobs, "
+			+ "which are assigned by consistent hashing of the job ID over the "
+			+ "width of the region. If the width changes, only a minimal "
+			+ "number of jobs is assigned to another channel. The parameter "
+			+ "has no effect if the operator is not in a parallel region. The "
+			+ "default is false.";
+
+	private static final String DESC_PARAM_METRIC_STATE_OFF_HEAP = 
+			"Specifies whether the last values and submission times of the "
+			+ "monitored metrics, which are needed to detect changed values, "
+			+ "are stored outside of the Java heap. This reduces the heap size "
+			+ "and the garbage collection effort if a large number of metrics "
+			+ "is monitored. The number of monitored metrics is provided by "
+			+ "the **nMetricSeries** metric. The default is false.";
+
 	private static final String DESC_PARAM_EMIT_METRIC_TUPLE =
 			"Specifies when to emit a tuple for a metric. Supported modes are the following string values:\\n"
 			+ "\\n"
@@ -257,7 +384,43 @@ public class MetricsSource extends AbstractJmxSource {
 			+ "\\n"
 			+ "* **onChangedValue** (default)\\n"
 			+ "\\n"
-			+ "  For each monitored metric a tuple is emitted during each scan cycle if the metric value changed.";
+			+ "  For each monitored metric a tuple is emitted during each scan cycle if the metric value changed.\\n"
+			+ "\\n"
+			+ "* **deadband**\\n"
+			+ "\\n"
+			+ "  A tuple is emitted if the metric value differs from the last emitted value by at least the **metricDeadband**.\\n"
+			+ "\\n"
+			+ "* **relativeDeadband**\\n"
+			+ "\\n"
+			+ "  A tuple is emitted if the metric value differs from the last emitted value by at least **metricRelativeDeadband** percent of the last emitted value.\\n"
+			+ "\\n"
+			+ "The mode and the deadbands can be overridden per metric name pattern in the filter document, "
+			+ "by specifying the pattern as object, for example, "
+			+ "`{ \\\"pattern\\\": \\\"queueSize\\\", \\\"emitMetricTuple\\\": \\\"deadband\\\", \\\"deadband\\\": 10, \\\"heartbeatPeriod\\\": 300 }`.";
+
+	private static final String DESC_PARAM_DERIVE_COUNTER_RATES =
+			"Specifies whether the operator derives the per-second rate of counter "
+			+ "metrics from consecutive samples and their **lastTimeRetrieved** "
+			+ "times. The rate is written to the optional `float64 metricRate` "
+			+ "attribute of the output tuple. The attribute holds -1.0 if the rate "
+			+ "is not known: for metrics that are not counters, for the first "
+			+ "sample of a counter, and after a counter was reset, for example, "
+			+ "because its PE restarted. The default is false.";
+
+	private static final String DESC_PARAM_METRIC_DEADBAND =
+			"Specifies the absolute change of a metric value that causes a tuple "
+			+ "in **deadband** mode. The value must be greater than 0. The default is 1.";
+
+	private static final String DESC_PARAM_METRIC_RELATIVE_DEADBAND =
+			"Specifies the change of a metric value in percent of the last emitted "
+			+ "value that causes a tuple in **relativeDeadband** mode. The value "
+			+ "must be greater than 0. The default is 1.0.";
+
+	private static final String DESC_PARAM_METRIC_HEARTBEAT_PERIOD =
+			"Specifies the period in seconds after which a tuple is emitted for a "
+			+ "metric even if its value did not change, so that consumers can "
+			+ "distinguish an unchanged metric from a metric that is not monitored "
+			+ "anymore. The default is 0.0, which disables the heartbeat.";
 
 	// ------------------------------------------------------------------------
 	// Implementation.
@@ -268,8 +431,68 @@ public class MetricsSource extends AbstractJmxSource {
 	 */
 	private Thread _processThread;
 	
+	/**
+	 * Threads that scan the discovered instances concurrently.
+	 */
+	private ExecutorService _instanceExecutor = null;
+
 	private boolean isShutdown = false;
 
+	private Metric nJMXCallTimeouts;
+
+	private Metric nScanOverruns;
+
+	private Metric scanLag;
+
+	private Metric scanPeriod;
+
+	private Metric nMetricSeries;
+
+	public Metric get_nMetricSeries() {
+		return nMetricSeries;
+	}
+
+	@CustomMetric(name="nMetricSeries", kind = Kind.GAUGE, description = "Number of monitored metrics whose state is held for change detection.")
+	public void set_nMetricSeries(Metric nMetricSeries) {
+		this.nMetricSeries = nMetricSeries;
+	}
+
+	public Metric get_nScanOverruns() {
+		return nScanOverruns;
+	}
+
+	public Metric get_scanLag() {
+		return scanLag;
+	}
+
+	@CustomMetric(name="nScanOverruns", kind = Kind.COUNTER, description = "Number of scans that did not complete before the next scan was due.")
+	public void set_nScanOverruns(Metric nScanOverruns) {
+		this.nScanOverruns = nScanOverruns;
+	}
+
+	@CustomMetric(name="scanLag", kind = Kind.GAUGE, description = "Time in milliseconds between the due time and the actual start of the last scan.")
+	public void set_scanLag(Metric scanLag) {
+		this.scanLag = scanLag;
+	}
+
+	public Metric get_scanPeriod() {
+		return scanPeriod;
+	}
+
+	@CustomMetric(name="scanPeriod", kind = Kind.GAUGE, description = "Current scan period in milliseconds.")
+	public void set_scanPeriod(Metric scanPeriod) {
+		this.scanPeriod = scanPeriod;
+	}
+
+	public Metric get_nJMXCallTimeouts() {
+		return nJMXCallTimeouts;
+	}
+
+	@CustomMetric(name="nJMXCallTimeouts", kind = Kind.COUNTER, description = "Number of JMX calls that did not complete within the time specified with the jmxCallTimeout parameter.")
+	public void set_nJMXCallTimeouts(Metric nJMXCallTimeouts) {
+		this.nJMXCallTimeouts = nJMXCallTimeouts;
+	}
+
 	/**
 	 * Logger for tracing.
 	 */
@@ -291,6 +514,38 @@ public class MetricsSource extends AbstractJmxSource {
 		_operatorConfiguration.set_scanPeriod(scanPeriod);
 	}
 
+	@Parameter(
+			optional=true,
+			description=MetricsSource.DESC_PARAM_SCAN_OVERRUN_POLICY
+			)
+	public void setScanOverrunPolicy(String policy) {
+		_operatorConfiguration.set_scanOverrunPolicy(ScanOverrunPolicy.valueOf(policy));
+	}
+
+	@Parameter(
+			optional=true,
+			description=MetricsSource.DESC_PARAM_ADAPTIVE_SCAN_PERIOD
+			)
+	public void setAdaptiveScanPeriod(Boolean adaptiveScanPeriod) {
+		_operatorConfiguration.set_adaptiveScanPeriod(adaptiveScanPeriod);
+	}
+
+	@Parameter(
+			optional=true,
+			description=MetricsSource.DESC_PARAM_MIN_SCAN_PERIOD
+			)
+	public void setMinScanPeriod(Double minScanPeriod) {
+		_operatorConfiguration.set_minScanPeriod(minScanPeriod);
+	}
+
+	@Parameter(
+			optional=true,
+			description=MetricsSource.DESC_PARAM_MAX_SCAN_PERIOD
+			)
+	public void setMaxScanPeriod(Double maxScanPeriod) {
+		_operatorConfiguration.set_maxScanPeriod(maxScanPeriod);
+	}
+
 	@Parameter(
 			optional=true,
 			description=MetricsSource.DESC_PARAM_CHECK_PERIOD
@@ -299,6 +554,62 @@ public class MetricsSource extends AbstractJmxSource {
 		_operatorConfiguration.set_checkPeriod(scanPeriod);
 	}	
 	
+	@Parameter(
+			optional=true,
+			description=MetricsSource.DESC_PARAM_SCAN_THREADS
+			)
+	public void setScanThreads(Integer scanThreads) {
+		_operatorConfiguration.set_scanThreads(scanThreads);
+	}
+
+	@Parameter(
+			optional=true,
+			description=MetricsSource.DESC_PARAM_BATCHED_METRICS_RETRIEVAL
+			)
+	public void setBatchedMetricsRetrieval(Boolean batchedMetricsRetrieval) {
+		_operatorConfiguration.set_batchedMetricsRetrieval(batchedMetricsRetrieval);
+	}
+
+	@Parameter(
+			optional=true,
+			description=MetricsSource.DESC_PARAM_JMX_CALL_TIMEOUT
+			)
+	public void setJmxCallTimeout(Double jmxCallTimeout) {
+		_operatorConfiguration.set_jmxCallTimeout(jmxCallTimeout);
+	}
+
+	@Parameter(
+			optional=true,
+			description=MetricsSource.DESC_PARAM_MAX_PENDING_JMX_CALLS
+			)
+	public void setMaxPendingJmxCalls(Integer maxPendingJmxCalls) {
+		_operatorConfiguration.set_maxPendingJmxCalls(maxPendingJmxCalls);
+	}
+
+	@Parameter(
+			optional=true,
+			description=MetricsSource.DESC_PARAM_DISCOVER_INSTANCES
+			)
+	public void setDiscoverInstances(Boolean discoverInstances) {
+		_operatorConfiguration.set_discoverInstances(discoverInstances);
+	}
+
+	@Parameter(
+			optional=true,
+			description=MetricsSource.DESC_PARAM_JOB_SHARDING
+			)
+	public void setJobSharding(Boolean jobSharding) {
+		_operatorConfiguration.set_jobSharding(jobSharding);
+	}
+
+	@Parameter(
+			optional=true,
+			description=MetricsSource.DESC_PARAM_METRIC_STATE_OFF_HEAP
+			)
+	public void setMetricStateOffHeap(Boolean metricStateOffHeap) {
+		_operatorConfiguration.set_metricStateOffHeap(metricStateOffHeap);
+	}
+
 	@Parameter(
 			optional=true,
 			description=MetricsSource.DESC_PARAM_EMIT_METRIC_TUPLE
@@ -307,6 +618,38 @@ public class MetricsSource extends AbstractJmxSource {
 		_operatorConfiguration.set_emitMetricTuple(EmitMetricTupleMode.valueOf(mode));
 	}
 
+	@Parameter(
+			optional=true,
+			description=MetricsSource.DESC_PARAM_DERIVE_COUNTER_RATES
+			)
+	public void setDeriveCounterRates(Boolean deriveCounterRates) {
+		_operatorConfiguration.set_deriveCounterRates(deriveCounterRates);
+	}
+
+	@Parameter(
+			optional=true,
+			description=MetricsSource.DESC_PARAM_METRIC_DEADBAND
+			)
+	public void setMetricDeadband(Double metricDeadband) {
+		_operatorConfiguration.set_metricDeadband(metricDeadband);
+	}
+
+	@Parameter(
+			optional=true,
+			description=MetricsSource.DESC_PARAM_METRIC_RELATIVE_DEADBAND
+			)
+	public void setMetricRelativeDeadband(Double metricRelativeDeadband) {
+		_operatorConfiguration.set_metricRelativeDeadband(metricRelativeDeadband);
+	}
+
+	@Parameter(
+			optional=true,
+			description=MetricsSource.DESC_PARAM_METRIC_HEARTBEAT_PERIOD
+			)
+	public void setMetricHeartbeatPeriod(Double metricHeartbeatPeriod) {
+		_operatorConfiguration.set_metricHeartbeatPeriod(metricHeartbeatPeriod);
+	}
+
 	@ContextCheck(compile = true)
 	public static void checkInConsistentRegion(OperatorContextChecker checker) {
 		//consistent region check
@@ -329,7 +672,47 @@ public class MetricsSource extends AbstractJmxSource {
 			throws Exception {
 		_trace.trace("Operator " + context.getName() + " initializing in PE: " + context.getPE().getPEId() + " in Job: " + context.getPE().getJobId() );
 		_operatorConfiguration.set_OperatorType(OpType.METRICS_SOURCE);
+		if (_operatorConfiguration.get_scanThreads() < 1) {
+			throw new com.ibm.streams.operator.DataException("The " + context.getName() + " operator requires a scanThreads parameter value of 1 or more, but the value is " + _operatorConfiguration.get_scanThreads() + ".");
+		}
+		if (_operatorConfiguration.get_maxPendingJmxCalls() < 1) {
+			throw new com.ibm.streams.operator.DataException("The " + context.getName() + " operator requires a maxPendingJmxCalls parameter value of 1 or more, but the value is " + _operatorConfiguration.get_maxPendingJmxCalls() + ".");
+		}
+		if (!(_operatorConfiguration.get_metricDeadband() > 0.0)) {
+			throw new com.ibm.streams.operator.DataException("The " + context.getName() + " operator requires a metricDeadband parameter value greater than 0, but the value is " + _operatorConfiguration.get_metricDeadband() + ".");
+		}
+		if (!(_operatorConfiguration.get_metricRelativeDeadband() > 0.0)) {
+			throw new com.ibm.streams.operator.DataException("The " + context.getName() + " operator requires a metricRelativeDeadband parameter value greater than 0, but the value is " + _operatorConfiguration.get_metricRelativeDeadband() + ".");
+		}
+		/*
+		 * Assign the jobs to the channels before the instance is scanned.
+		 */
+		if (_operatorConfiguration.get_jobSharding() && context.getChannel() >= 0 && context.getMaxChannels() > 1) {
+			_operatorConfiguration.set_jobAssignment(new JobSharding(context.getChannel(), context.getMaxChannels()));
+			_trace.info("The jobs are distributed over the channels of the parallel region, this operator monitors the jobs of " + _operatorConfiguration.get_jobAssignment());
+		}
 		super.initialize(context);
+
+		/*
+		 * Create the engine that executes JMX calls asynchronously with timeout.
+		 */
+		if (_operatorConfiguration.get_jmxCallTimeout() > 0.0) {
+			_operatorConfiguration.set_jmxCallEngine(new JmxCallEngine(getOperatorContext().getThreadFactory(), _operatorConfiguration.get_maxPendingJmxCalls(), _operatorConfiguration.get_jmxCallTimeout()));
+		}
+
+		/*
+		 * Create the bounded pool of threads that scan jobs concurrently.
+		 */
+		if (_operatorConfiguration.get_scanThreads() > 1) {
+			_operatorConfiguration.set_scanExecutor(Executors.newFixedThreadPool(_operatorConfiguration.get_scanThreads(), getOperatorContext().getThreadFactory()));
+		}
+
+		/*
+		 * Create the threads that scan the discovered instances concurrently.
+		 */
+		if (_operatorConfiguration.get_discoverInstances()) {
+			_instanceExecutor = Executors.newCachedThreadPool(getOperatorContext().getThreadFactory());
+		}
 		
 		/*
 		 * Enable scheduled service for checking application configuration updates
@@ -401,33 +784,55 @@ public class MetricsSource extends AbstractJmxSource {
 	private void produceTuples() throws Exception  {
 		boolean quit = false;
 		boolean connected = true;
+		ScanScheduler scheduler = new ScanScheduler(_operatorConfiguration.get_scanPeriod(), _operatorConfiguration.get_scanOverrunPolicy());
+		if (_operatorConfiguration.get_adaptiveScanPeriod()) {
+			scheduler.setPeriodBounds(_operatorConfiguration.get_minScanPeriod(), _operatorConfiguration.get_maxScanPeriod());
+		}
+		ScanStatistics statistics = _operatorConfiguration.get_scanStatistics();
 		while(!quit) {
+
+			_operatorConfiguration.set_scanTime(scheduler.awaitNextTick());
+			get_scanLag().setValue(scheduler.getLag());
+			get_scanPeriod().setValue(scheduler.getPeriod());
+			statistics.reset();
 			
 			try {
-				if (!connected) {
+				if (!connected && isJMXConnectionRetryDue()) {
 					_trace.warn("Reconnect");
 					setupJMXConnection();
 					connected = true;
-					scanInstance(); // create new InstanceHandler
+					rebindInstance(); // keep the handlers and their metric state
 				}		
+				else if (connected && isJMXSwitchBackPending()) {
+					_trace.warn("Switch back to the preferred JMX server");
+					switchJMXEndpoint();
+				}
 
 				if (connected) {
 					_instanceHandler.healthCheck();				
-					_instanceHandler.captureMetrics();
+					discoverInstances();
+					healthCheckDiscoveredInstances();
+					captureInstanceMetrics();
 				}
 			}
 			catch (Exception e) {
 				_trace.error("JMX connection error ", e);
 				connected = false;
-				closeInstanceHandler();
-				setupFilters();
+				connectionLost();
+			}
+			if (_operatorConfiguration.get_jmxCallEngine() != null) {
+				get_nJMXCallTimeouts().setValue(_operatorConfiguration.get_jmxCallEngine().getTimeouts());
 			}
+			updateJMXConnectionPoolMetrics();
+			get_nMetricSeries().setValue(_operatorConfiguration.get_metricStateStore().size());
 			/*
 			 * Emit a window marker after each scan cycle.
 			 */
 			_operatorConfiguration.get_tupleContainerMetricsSource().punctuate(Punctuation.WINDOW_MARKER);
 
-			Thread.sleep(Double.valueOf(_operatorConfiguration.get_scanPeriod() * 1000.0).longValue());
+			scheduler.adaptPeriod(statistics.getEvaluatedMetrics(), statistics.getChangedMetrics());
+			scheduler.scanCompleted();
+			get_nScanOverruns().setValue(scheduler.getOverruns());
 		}
 
 		/*
@@ -436,6 +841,63 @@ public class MetricsSource extends AbstractJmxSource {
 		_operatorConfiguration.get_tupleContainerMetricsSource().punctuate(Punctuation.FINAL_MARKER);
 	}
 
+	/**
+	 * Capture the metrics of the configured instance and of the discovered
+	 * instances. If instances were discovered, each discovered instance is
+	 * captured by a separate thread, and this method returns after all
+	 * instances are captured. If a discovered instance fails, only its
+	 * handler is closed, and the instance is discovered again with the next
+	 * scan.
+	 * @throws Exception
+	 * Throws if the configured instance fails, which indicates that the JMX
+	 * connection is broken.
+	 */
+	private void captureInstanceMetrics() throws Exception {
+		if (_discoveredInstanceHandlers.isEmpty()) {
+			_instanceHandler.captureMetrics();
+			return;
+		}
+		Map<String, InstanceHandler> handlers = new LinkedHashMap<>(_discoveredInstanceHandlers);
+		Map<String, Future<Void>> futures = new LinkedHashMap<>();
+		for (Map.Entry<String, InstanceHandler> entry : handlers.entrySet()) {
+			final InstanceHandler handler = entry.getValue();
+			futures.put(entry.getKey(), _instanceExecutor.submit(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					handler.captureMetrics();
+					return null;
+				}
+			}));
+		}
+		Exception error = null;
+		try {
+			_instanceHandler.captureMetrics();
+		}
+		catch (Exception e) {
+			error = e;
+		}
+		/*
+		 * Wait for all instances, even if the configured one fails, so that
+		 * no thread uses the handlers when the connection is set up again.
+		 * If the configured instance fails, the handlers of the discovered
+		 * instances are kept and bound to the new connection.
+		 */
+		for (Map.Entry<String, Future<Void>> entry : futures.entrySet()) {
+			try {
+				entry.getValue().get();
+			}
+			catch (ExecutionException e) {
+				if (error == null) {
+					String instanceId = entry.getKey();
+					discoveredInstanceFailed(instanceId, handlers.get(instanceId), (e.getCause() instanceof Exception) ? (Exception)e.getCause() : e);
+				}
+			}
+		}
+		if (error != null) {
+			throw error;
+		}
+	}
+
 	/**
 	 * Shutdown this operator, which will interrupt the thread
 	 * executing the <code>produceTuples()</code> method.
@@ -452,6 +914,18 @@ public class MetricsSource extends AbstractJmxSource {
 
 		// Close connections or release resources related to any external system or data store.
 		
+		if (_instanceExecutor != null) {
+			_instanceExecutor.shutdownNow();
+		}
+		if (_operatorConfiguration.get_scanExecutor() != null) {
+			_operatorConfiguration.get_scanExecutor().shutdownNow();
+		}
+		if (_operatorConfiguration.get_jmxCallEngine() != null) {
+			_operatorConfiguration.get_jmxCallEngine().shutdown();
+		}
+		if (_operatorConfiguration.get_jmxConnectionPool() != null) {
+			_operatorConfiguration.get_jmxConnectionPool().closeSecondaryConnectors();
+		}
 		if (_operatorConfiguration.get_jmxConnector() != null) {
 			_operatorConfiguration.get_jmxConnector().close();
 		}
@@ -137,14 +137,19 @@ public class LogSource extends AbstractJmxSource {
 					@Override
 					public void run() {
 						try {
-							if (!_connected) {
+							if (!_connected && isJMXConnectionRetryDue()) {
 								_trace.warn("Reconnect");
 								setupJMXConnection();
 								_connected = true;
 								scanInstance(); // create new InstanceHandler
 							}
+							else if (_connected && isJMXSwitchBackPending()) {
+								_trace.warn("Switch back to the preferred JMX server");
+								switchJMXEndpoint();
+							}
 							if (_connected) {
 								_instanceHandler.healthCheck();
+								updateJMXConnectionPoolMetrics();
 							}
 						}
 						catch (Exception e) {
@@ -177,6 +182,9 @@ public class LogSource extends AbstractJmxSource {
 
 		// Close connections or release resources related to any external system or data store.
 		
+		if (_operatorConfiguration.get_jmxConnectionPool() != null) {
+			_operatorConfiguration.get_jmxConnectionPool().closeSecondaryConnectors();
+		}
 		if (_operatorConfiguration.get_jmxConnector() != null) {
 			_operatorConfiguration.get_jmxConnector().close();
 		}
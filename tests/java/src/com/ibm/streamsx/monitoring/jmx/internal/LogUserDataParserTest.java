@@ -0,0 +1,521 @@
+//
+// ****************************************************************************
+// * Copyright (C) 2016, International Business Machines Corporation          *
+// * All rights reserved.                                                     *
+// ****************************************************************************
+//
+
+package com.ibm.streamsx.monitoring.jmx.internal;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.Notification;
+
+import com.ibm.json.java.JSON;
+import com.ibm.json.java.JSONArray;
+import com.ibm.json.java.JSONObject;
+import com.ibm.streams.operator.Attribute;
+import com.ibm.streams.operator.OutputTuple;
+import com.ibm.streams.operator.StreamSchema;
+import com.ibm.streams.operator.StreamingOutput;
+import com.ibm.streams.operator.Type;
+import com.ibm.streams.operator.types.Timestamp;
+
+/**
+ * Verifies that the {@link LogUserDataParser} creates the same tuples as the
+ * JSON4J-based conversion of the userData of log notifications that it
+ * replaces.
+ * <p>
+ * The tuples of both conversions are recorded as maps from the attribute
+ * name to the value. The JSON4J-based conversion throws an exception if a
+ * field is missing, so no tuple is submitted for the notification, while
+ * the parser leaves the attribute at its default value. The cases that
+ * cover this documented difference compare the tuples of the parser with
+ * the expected tuples only.
+ * </p><p>
+ * Run with the argument <code>benchmark</code> to compare the conversion
+ * time of both implementations.
+ * </p>
+ */
+public class LogUserDataParserTest {
+
+	private static final String NOTIFY_TYPE = "com.ibm.streams.management.log.application.error";
+
+	/**
+	 * The attributes of the LogSource output schema and their types.
+	 */
+	private static final Object[][] FULL_SCHEMA = {
+			{ "instanceId", Type.MetaType.RSTRING },
+			{ "jobId", Type.MetaType.INT64 },
+			{ "resource", Type.MetaType.RSTRING },
+			{ "peId", Type.MetaType.INT64 },
+			{ "operatorName", Type.MetaType.RSTRING },
+			{ "eventTimestamp", Type.MetaType.TIMESTAMP },
+			{ "notifyType", Type.MetaType.RSTRING },
+			{ "message", Type.MetaType.RSTRING },
+			{ "sequence", Type.MetaType.INT64 },
+			{ "messagesSkipped", Type.MetaType.BOOLEAN },
+	};
+
+	/**
+	 * An output schema without most userData attributes, so the parser skips
+	 * their values without decoding them.
+	 */
+	private static final Object[][] REDUCED_SCHEMA = {
+			{ "jobId", Type.MetaType.INT64 },
+			{ "notifyType", Type.MetaType.RSTRING },
+			{ "messagesSkipped", Type.MetaType.BOOLEAN },
+	};
+
+	/**
+	 * A userData of a notification and the tuples that are expected for it.
+	 */
+	private static final class Case {
+
+		private final String _name;
+
+		private final String _message;
+
+		private final String _userData;
+
+		/**
+		 * Whether the JSON4J-based conversion fails for the userData.
+		 */
+		private boolean _isDifference = false;
+
+		/**
+		 * The expected values of the attributes that are set from the
+		 * userData, and of the message attribute.
+		 */
+		private final List<Map<String, Object>> _expected = new ArrayList<>();
+
+		private Case(String name, String message, String userData) {
+			_name = name;
+			_message = message;
+			_userData = userData;
+		}
+
+		private Case differs() {
+			_isDifference = true;
+			return this;
+		}
+
+		private Case expect(Object... nameValuePairs) {
+			Map<String, Object> record = new HashMap<>();
+			for (int i = 0; i < nameValuePairs.length; i += 2) {
+				record.put((String)nameValuePairs[i], nameValuePairs[i + 1]);
+			}
+			_expected.add(record);
+			return this;
+		}
+	}
+
+	private static final List<Case> CASES = Arrays.asList(
+			new Case("top-level fields", "Operator op1 failed",
+					"{\"instance\":\"StreamsInstance\",\"resource\":\"host1\",\"pe\":\"12\",\"domain\":\"StreamsDomain\",\"job\":\"3\",\"operator\":\"op1\"}")
+				.expect("instanceId", "StreamsInstance", "resource", "host1", "peId", 12L, "jobId", 3L, "operatorName", "op1", "message", "Operator op1 failed", "messagesSkipped", false),
+			new Case("one message", "",
+					"{\"messages\":[{\"instance\":\"i1\",\"resource\":\"host1\",\"pe\":\"7\",\"domain\":\"d1\",\"text\":\"hello\",\"job\":\"2\",\"operator\":\"op1\",\"timestamp\":1515687171914}],\"messagesSkipped\":false}")
+				.expect("instanceId", "i1", "resource", "host1", "peId", 7L, "jobId", 2L, "operatorName", "op1", "message", "hello", "messagesSkipped", false),
+			new Case("several messages", "",
+					"{\"messages\":["
+					+ "{\"instance\":\"i1\",\"resource\":\"host1\",\"pe\":\"7\",\"domain\":\"d1\",\"text\":\"first\",\"job\":\"2\",\"operator\":\"op1\",\"timestamp\":1515687171914},"
+					+ "{\"instance\":\"i1\",\"resource\":\"host2\",\"pe\":\"8\",\"domain\":\"d1\",\"text\":\"second\",\"job\":\"2\",\"operator\":\"op2\",\"timestamp\":1515687171915},"
+					+ "{\"instance\":\"i1\",\"resource\":\"host3\",\"pe\":\"19\",\"domain\":\"d1\",\"text\":\"third\",\"job\":\"4\",\"operator\":\"op3\",\"timestamp\":1515687171916}"
+					+ "],\"messagesSkipped\":true}")
+				.expect("instanceId", "i1", "resource", "host1", "peId", 7L, "jobId", 2L, "operatorName", "op1", "message", "first", "messagesSkipped", true)
+				.expect("instanceId", "i1", "resource", "host2", "peId", 8L, "jobId", 2L, "operatorName", "op2", "message", "second", "messagesSkipped", true)
+				.expect("instanceId", "i1", "resource", "host3", "peId", 19L, "jobId", 4L, "operatorName", "op3", "message", "third", "messagesSkipped", true),
+			new Case("escape sequences", "",
+					"{\"messages\":[{\"instance\":\"i\\\"1\",\"resource\":\"C:\\\\tmp\",\"pe\":\"1\",\"text\":\"a\\\"b\\\\c\\/d\\be\\ff\\ng\\rh\\ti\",\"job\":\"1\",\"operator\":\"op\\/1\"}],\"messagesSkipped\":false}")
+				.expect("instanceId", "i\"1", "resource", "C:\\tmp", "peId", 1L, "jobId", 1L, "operatorName", "op/1", "message", "a\"b\\c/d\be\ff\ng\rh\ti", "messagesSkipped", false),
+			new Case("unicode escape sequences", "",
+					"{\"messages\":[{\"instance\":\"i1\",\"resource\":\"h\\u00f6st\",\"pe\":\"1\",\"te\\u0078t\":\"caf\\u00e9 \\u20AC \\ud83d\\ude00\",\"job\":\"1\",\"operator\":\"op1\"}],\"messagesSkipped\":false}")
+				.expect("instanceId", "i1", "resource", "h\u00f6st", "peId", 1L, "jobId", 1L, "operatorName", "op1", "message", "caf\u00e9 \u20ac \ud83d\ude00", "messagesSkipped", false),
+			new Case("non-ASCII characters", "",
+					"{\"messages\":[{\"instance\":\"i1\",\"resource\":\"h\u00f6st\",\"pe\":\"1\",\"text\":\"\u00dcberlauf \u65e5\u672c \ud83d\ude00\",\"job\":\"1\",\"operator\":\"\u00e9tape\"}],\"messagesSkipped\":false}")
+				.expect("instanceId", "i1", "resource", "h\u00f6st", "peId", 1L, "jobId", 1L, "operatorName", "\u00e9tape", "message", "\u00dcberlauf \u65e5\u672c \ud83d\ude00", "messagesSkipped", false),
+			new Case("extra fields", "",
+					"{\"version\":2,\"messages\":[{\"instance\":\"i1\",\"severity\":\"error\",\"resource\":\"host1\",\"pe\":\"1\",\"domain\":\"d1\","
+					+ "\"nested\":{\"a\":[1,\"}\",{\"b\":\"]\"},[]],\"c\":{}},\"text\":\"hello\",\"flag\":true,\"none\":null,\"ratio\":-1.5e3,"
+					+ "\"job\":\"1\",\"operator\":\"op1\",\"timestamp\":1515687171914,\"escaped\":\"\\\"}\"}],\"messagesSkipped\":false,\"domain\":\"d1\"}")
+				.expect("instanceId", "i1", "resource", "host1", "peId", 1L, "jobId", 1L, "operatorName", "op1", "message", "hello", "messagesSkipped", false),
+			new Case("extra top-level fields", "Operator op1 failed",
+					"{\"instance\":\"i1\",\"resource\":\"host1\",\"pe\":\"12\",\"domain\":\"d1\",\"timestamp\":1515687171914,\"tags\":[\"a\",\"b\"],\"job\":\"3\",\"operator\":\"op1\",\"none\":null}")
+				.expect("instanceId", "i1", "resource", "host1", "peId", 12L, "jobId", 3L, "operatorName", "op1", "message", "Operator op1 failed", "messagesSkipped", false),
+			new Case("ids as numbers", "",
+					"{\"messages\":[{\"instance\":\"i1\",\"resource\":\"host1\",\"pe\":12,\"text\":\"hello\",\"job\":9223372036854775807,\"operator\":\"op1\"}],\"messagesSkipped\":false}")
+				.expect("instanceId", "i1", "resource", "host1", "peId", 12L, "jobId", Long.MAX_VALUE, "operatorName", "op1", "message", "hello", "messagesSkipped", false),
+			new Case("whitespace", "",
+					" {\n\t\"messages\" : [\n\t\t{ \"instance\" : \"i1\" ,\r\n\t\t  \"resource\" : \"host1\", \"pe\" : \"1\" , \"text\" : \" hello \" , \"job\" : 2 , \"operator\" : \"op1\" }\n\t] ,\n\t\"messagesSkipped\" : true\n} ")
+				.expect("instanceId", "i1", "resource", "host1", "peId", 1L, "jobId", 2L, "operatorName", "op1", "message", " hello ", "messagesSkipped", true),
+			new Case("messagesSkipped first and as string", "",
+					"{\"messagesSkipped\":\"TRUE\",\"messages\":[{\"instance\":\"i1\",\"resource\":\"host1\",\"pe\":\"1\",\"text\":\"hello\",\"job\":\"1\",\"operator\":\"op1\"}]}")
+				.expect("instanceId", "i1", "resource", "host1", "peId", 1L, "jobId", 1L, "operatorName", "op1", "message", "hello", "messagesSkipped", true),
+			new Case("no messages", "",
+					"{\"messages\":[],\"messagesSkipped\":true}")
+				.expect("message", "", "messagesSkipped", true),
+			new Case("empty text", "",
+					"{\"messages\":[{\"instance\":\"\",\"resource\":\"\",\"pe\":\"0\",\"text\":\"\",\"job\":\"0\",\"operator\":\"\"}],\"messagesSkipped\":false}")
+				.expect("instanceId", "", "resource", "", "peId", 0L, "jobId", 0L, "operatorName", "", "message", "", "messagesSkipped", false),
+			new Case("missing top-level field", "Operator failed",
+					"{\"instance\":\"i1\",\"resource\":\"host1\",\"pe\":\"12\",\"job\":\"3\"}").differs()
+				.expect("instanceId", "i1", "resource", "host1", "peId", 12L, "jobId", 3L, "message", "Operator failed", "messagesSkipped", false),
+			new Case("missing text", "",
+					"{\"messages\":[{\"instance\":\"i1\",\"resource\":\"host1\",\"pe\":\"1\",\"job\":\"1\",\"operator\":\"op1\"}],\"messagesSkipped\":false}").differs()
+				.expect("instanceId", "i1", "resource", "host1", "peId", 1L, "jobId", 1L, "operatorName", "op1", "message", "", "messagesSkipped", false),
+			new Case("null text", "",
+					"{\"messages\":[{\"instance\":\"i1\",\"resource\":\"host1\",\"pe\":\"1\",\"text\":null,\"job\":\"1\",\"operator\":\"op1\"}],\"messagesSkipped\":false}").differs()
+				.expect("instanceId", "i1", "resource", "host1", "peId", 1L, "jobId", 1L, "operatorName", "op1", "message", "", "messagesSkipped", false),
+			new Case("missing messagesSkipped", "",
+					"{\"messages\":[{\"instance\":\"i1\",\"resource\":\"host1\",\"pe\":\"1\",\"text\":\"hello\",\"job\":\"1\",\"operator\":\"op1\"}]}").differs()
+				.expect("instanceId", "i1", "resource", "host1", "peId", 1L, "jobId", 1L, "operatorName", "op1", "message", "hello", "messagesSkipped", false)
+			);
+
+	private int _nChecks = 0;
+
+	private int _nFailures = 0;
+
+	public static void main(String[] args) throws Exception {
+		LogUserDataParserTest test = new LogUserDataParserTest();
+		test.testCases(FULL_SCHEMA);
+		test.testCases(REDUCED_SCHEMA);
+		test.testInvalidUserData();
+		System.out.println("LogUserDataParserTest: " + test._nChecks + " checks, " + test._nFailures + " failures");
+		if (args.length > 0 && "benchmark".equals(args[0])) {
+			benchmark();
+		}
+		if (test._nFailures > 0) {
+			System.exit(1);
+		}
+	}
+
+	private void check(boolean condition, String description) {
+		_nChecks++;
+		if (!condition) {
+			_nFailures++;
+			System.out.println("FAILED: " + description);
+		}
+	}
+
+	private void testCases(Object[][] schema) {
+		RecordingPort port = new RecordingPort(schema);
+		LogTupleContainer container = new LogTupleContainer(port.getProxy(), null);
+		long sequence = 0;
+		for (Case c : CASES) {
+			String description = c._name + " (" + port._names.size() + " attributes)";
+			Notification notification = newNotification(c._message, c._userData, sequence++);
+			List<Map<String, Object>> actual = port.records(LogUserDataParser.parse(notification, c._userData, container));
+			List<Map<String, Object>> reference = null;
+			Exception referenceError = null;
+			try {
+				reference = port.records(parseWithJson4j(notification, port));
+			}
+			catch (Exception e) {
+				referenceError = e;
+			}
+			if (c._isDifference) {
+				check(referenceError != null, description + ": the JSON4J-based conversion is expected to fail, tuples=" + reference);
+			}
+			else {
+				check(referenceError == null, description + ": the JSON4J-based conversion failed: " + referenceError);
+				check(actual.equals(reference), description + ": expected=" + reference + ", actual=" + actual);
+			}
+			List<Map<String, Object>> expected = new ArrayList<>();
+			for (Map<String, Object> record : c._expected) {
+				Map<String, Object> projection = new HashMap<>(record);
+				projection.keySet().retainAll(port._names);
+				expected.add(projection);
+			}
+			List<Map<String, Object>> projected = new ArrayList<>();
+			for (Map<String, Object> record : actual) {
+				Map<String, Object> projection = new HashMap<>(record);
+				projection.keySet().removeAll(Arrays.asList("eventTimestamp", "notifyType", "sequence"));
+				projected.add(projection);
+			}
+			check(projected.equals(expected), description + ": expected=" + expected + ", actual=" + projected);
+		}
+	}
+
+	/**
+	 * The parser rejects userData that is not a JSON object, like JSON4J, so
+	 * the notification handler logs the error and does not submit a tuple.
+	 */
+	private void testInvalidUserData() {
+		RecordingPort port = new RecordingPort(FULL_SCHEMA);
+		LogTupleContainer container = new LogTupleContainer(port.getProxy(), null);
+		String[] invalid = {
+				"",
+				"[]",
+				"{\"messages\":[{\"text\":\"hello\"}]",
+				"{\"messages\":[{\"text\":\"hello}],\"messagesSkipped\":false}",
+				"{\"pe\":\"x1\"}",
+				"{\"text\":\"\\u00\"}",
+				"{} {}",
+		};
+		for (String userData : invalid) {
+			boolean isRejected = false;
+			try {
+				LogUserDataParser.parse(newNotification("", userData, 0), userData, container);
+			}
+			catch (IllegalArgumentException e) {
+				isRejected = true;
+			}
+			check(isRejected, "invalid userData is accepted: " + userData);
+		}
+	}
+
+	private static Notification newNotification(String message, String userData, long sequence) {
+		Notification notification = new Notification(NOTIFY_TYPE, "com.ibm.streams.management:type=domain,name=\"StreamsDomain\"", sequence, 1515687171914L + sequence, message);
+		notification.setUserData(userData);
+		return notification;
+	}
+
+	/**
+	 * The conversion of the userData before the parser was introduced.
+	 */
+	private static List<OutputTuple> parseWithJson4j(Notification notification, RecordingPort port) throws Exception {
+		List<OutputTuple> tuples = new ArrayList<>();
+		String instance = null;
+		String resource = null;
+		BigInteger pe = null;
+		BigInteger job = null;
+		String operator = null;
+		String text = null;
+		boolean messagesSkipped = false;
+		if ((notification.getMessage() != null) && (notification.getMessage().length() > 0)) {
+			JSONObject obj = (JSONObject)JSON.parse(notification.getUserData().toString());
+			instance = obj.get("instance").toString();
+			resource = obj.get("resource").toString();
+			pe = new BigInteger(obj.get("pe").toString());
+			job = new BigInteger(obj.get("job").toString());
+			operator = obj.get("operator").toString();
+		}
+		else {
+			JSONObject obj1 = (JSONObject)JSON.parse(notification.getUserData().toString());
+			messagesSkipped = (obj1.get("messagesSkipped").toString().equalsIgnoreCase("true")) ? true : false;
+			Object json = obj1.get("messages");
+			if (json instanceof JSONArray) {
+				for (Object obj : (JSONArray)json) {
+					if (obj instanceof JSONObject) {
+						JSONObject jsonobj = (JSONObject) obj;
+						instance = jsonobj.get("instance").toString();
+						resource = jsonobj.get("resource").toString();
+						pe = new BigInteger(jsonobj.get("pe").toString());
+						job = new BigInteger(jsonobj.get("job").toString());
+						operator = jsonobj.get("operator").toString();
+						text = jsonobj.get("text").toString();
+						tuples.add(getTuple(port, notification, instance, resource, pe, job, operator, text, messagesSkipped));
+					}
+				}
+			}
+		}
+		if (text == null) {
+			tuples.add(getTuple(port, notification, instance, resource, pe, job, operator, text, messagesSkipped));
+		}
+		return tuples;
+	}
+
+	/**
+	 * Create the tuple like the former LogTupleContainer.getTuple did.
+	 */
+	private static OutputTuple getTuple(RecordingPort port, Notification notification, String instanceId, String resource, BigInteger peId, BigInteger jobId, String operator, String text, boolean messagesSkipped) {
+		OutputTuple tuple = port.newTuple();
+		int index;
+		if ((index = port.indexOf("instanceId")) != -1 && instanceId != null) {
+			tuple.setString(index, instanceId);
+		}
+		if ((index = port.indexOf("jobId")) != -1 && jobId != null) {
+			tuple.setLong(index, jobId.longValue());
+		}
+		if ((index = port.indexOf("resource")) != -1 && resource != null) {
+			tuple.setString(index, resource);
+		}
+		if ((index = port.indexOf("peId")) != -1 && peId != null) {
+			tuple.setLong(index, peId.longValue());
+		}
+		if ((index = port.indexOf("operatorName")) != -1 && operator != null) {
+			tuple.setString(index, operator);
+		}
+		if ((index = port.indexOf("eventTimestamp")) != -1) {
+			tuple.setTimestamp(index, Timestamp.getTimestamp(notification.getTimeStamp()));
+		}
+		if ((index = port.indexOf("notifyType")) != -1) {
+			tuple.setString(index, notification.getType());
+		}
+		if ((index = port.indexOf("sequence")) != -1) {
+			tuple.setLong(index, notification.getSequenceNumber());
+		}
+		if ((index = port.indexOf("message")) != -1) {
+			if (null != text) {
+				tuple.setString(index, text);
+			}
+			else if (notification.getMessage() != null) {
+				tuple.setString(index, notification.getMessage());
+			}
+		}
+		if ((index = port.indexOf("messagesSkipped")) != -1) {
+			tuple.setBoolean(index, messagesSkipped);
+		}
+		return tuple;
+	}
+
+	/**
+	 * An output port whose tuples record the values that are set.
+	 */
+	private static final class RecordingPort {
+
+		private final List<String> _names = new ArrayList<>();
+
+		private final Map<String, Attribute> _attributes = new HashMap<>();
+
+		private final Map<OutputTuple, Map<String, Object>> _values = new HashMap<>();
+
+		private RecordingPort(Object[][] schema) {
+			for (final Object[] attribute : schema) {
+				final int index = _names.size();
+				_names.add((String)attribute[0]);
+				final Type type = newProxy(Type.class, new InvocationHandler() {
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] args) {
+						if (method.getName().equals("getMetaType")) {
+							return attribute[1];
+						}
+						return unsupported(proxy, method, args);
+					}
+				});
+				_attributes.put((String)attribute[0], newProxy(Attribute.class, new InvocationHandler() {
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] args) {
+						if (method.getName().equals("getIndex")) {
+							return index;
+						}
+						if (method.getName().equals("getName")) {
+							return attribute[0];
+						}
+						if (method.getName().equals("getType")) {
+							return type;
+						}
+						return unsupported(proxy, method, args);
+					}
+				}));
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		private StreamingOutput<OutputTuple> getProxy() {
+			final StreamSchema schema = newProxy(StreamSchema.class, new InvocationHandler() {
+				@Override
+				public Object invoke(Object proxy, Method method, Object[] args) {
+					if (method.getName().equals("getAttribute") && args[0] instanceof String) {
+						return _attributes.get(args[0]);
+					}
+					return unsupported(proxy, method, args);
+				}
+			});
+			return newProxy(StreamingOutput.class, new InvocationHandler() {
+				@Override
+				public Object invoke(Object proxy, Method method, Object[] args) {
+					if (method.getName().equals("getStreamSchema")) {
+						return schema;
+					}
+					if (method.getName().equals("newTuple")) {
+						return newTuple();
+					}
+					return unsupported(proxy, method, args);
+				}
+			});
+		}
+
+		private OutputTuple newTuple() {
+			final Map<String, Object> values = new LinkedHashMap<>();
+			OutputTuple tuple = newProxy(OutputTuple.class, new InvocationHandler() {
+				@Override
+				public Object invoke(Object proxy, Method method, Object[] args) {
+					String name = method.getName();
+					if ((name.equals("setString") || name.equals("setLong") || name.equals("setBoolean") || name.equals("setTimestamp")) && args[0] instanceof Integer) {
+						Object value = name.equals("setTimestamp") ? String.valueOf(args[1]) : args[1];
+						values.put(_names.get((Integer)args[0]), value);
+						return null;
+					}
+					return unsupported(proxy, method, args);
+				}
+			});
+			_values.put(tuple, values);
+			return tuple;
+		}
+
+		private int indexOf(String name) {
+			return _names.indexOf(name);
+		}
+
+		private List<Map<String, Object>> records(List<OutputTuple> tuples) {
+			List<Map<String, Object>> records = new ArrayList<>();
+			for (OutputTuple tuple : tuples) {
+				records.add(_values.remove(tuple));
+			}
+			return records;
+		}
+	}
+
+	private static <T> T newProxy(Class<T> type, InvocationHandler handler) {
+		return type.cast(Proxy.newProxyInstance(LogUserDataParserTest.class.getClassLoader(), new Class<?>[] { type }, handler));
+	}
+
+	/**
+	 * Implement the methods of Object for the proxies, and reject the methods
+	 * that the conversion is not expected to call.
+	 */
+	private static Object unsupported(Object proxy, Method method, Object[] args) {
+		if (method.getName().equals("hashCode") && args == null) {
+			return System.identityHashCode(proxy);
+		}
+		if (method.getName().equals("equals") && args != null && args.length == 1) {
+			return proxy == args[0];
+		}
+		if (method.getName().equals("toString") && args == null) {
+			return proxy.getClass().getName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+		}
+		throw new UnsupportedOperationException(method.toString());
+	}
+
+	/**
+	 * Measure the conversion of a notification with three messages by both
+	 * implementations.
+	 */
+	private static void benchmark() throws Exception {
+		RecordingPort port = new RecordingPort(FULL_SCHEMA);
+		LogTupleContainer container = new LogTupleContainer(port.getProxy(), null);
+		Case c = CASES.get(2);
+		Notification notification = newNotification(c._message, c._userData, 0);
+		int rounds = 100000;
+		for (int warmup = 0; warmup < 2; warmup++) {
+			long start = System.nanoTime();
+			long n = 0;
+			for (int r = 0; r < rounds; r++) {
+				n += port.records(parseWithJson4j(notification, port)).size();
+			}
+			long json4j = System.nanoTime() - start;
+			start = System.nanoTime();
+			for (int r = 0; r < rounds; r++) {
+				n += port.records(LogUserDataParser.parse(notification, c._userData, container)).size();
+			}
+			long parser = System.nanoTime() - start;
+			if (warmup == 1) {
+				System.out.println("LogUserDataParserTest benchmark: " + rounds + " notifications with 3 messages, " + n + " tuples");
+				System.out.println("  JSON4J:  " + (json4j / rounds) + " ns/notification");
+				System.out.println("  parser:  " + (parser / rounds) + " ns/notification");
+			}
+		}
+	}
+
+}
@@ -0,0 +1,224 @@
+//
+// ****************************************************************************
+// * Copyright (C) 2016, International Business Machines Corporation          *
+// * All rights reserved.                                                     *
+// ****************************************************************************
+//
+
+package com.ibm.streamsx.monitoring.jmx.internal;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Set;
+
+import com.ibm.streams.management.Metric;
+import com.ibm.streams.management.MetricMetadata.Kind;
+import com.ibm.streams.management.MetricMetadata.Type;
+import com.ibm.streams.management.job.JobMXBean;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Verifies that the metrics snapshot of a job is retrieved the way the
+ * {@link JobHandler} does it: {@code JobMXBean.snapshotMetrics} returns a
+ * URI, the {@link JmxDataRetriever} downloads the snapshot from this URI
+ * with the credentials of the JMX connection, and the {@link MetricsSnapshot}
+ * parses the downloaded document.
+ * <p>
+ * The JMX server is replaced by an HTTP server on the loopback interface
+ * that requires basic authentication, so the test covers the HTTP part of
+ * the retrieval but not the TLS handshake with the certificate of the JMX
+ * server.
+ * </p>
+ */
+public class MetricsSnapshotTest {
+
+	private static final String USER = "streamsadmin";
+
+	private static final String PASSWORD = "pa:ss\u00e9";
+
+	private static final String SNAPSHOT_PATH = "/streams/rest/instances/StreamsInstance/jobs/7/snapshots/metrics-1515687171914.json";
+
+	private static final long SNAPSHOT_TIME = 1515687171914L;
+
+	/**
+	 * A metrics snapshot of a job with one PE that runs a Beacon and a
+	 * Custom operator, which are connected within the PE, and that sends
+	 * the tuples of the Custom operator to another PE.
+	 */
+	private static final String SNAPSHOT =
+			"{\"id\":\"7\",\"name\":\"app::Main_7\",\"lastTimeRetrieved\":" + SNAPSHOT_TIME + ",\"pes\":[\n"
+			+ " {\"id\":\"12\",\"lastTimeRetrieved\":" + (SNAPSHOT_TIME - 10) + ",\n"
+			+ "  \"metrics\":[{\"name\":\"nCpuMilliseconds\",\"value\":1200,\"metricKind\":\"counter\",\"metricType\":\"system\"},\n"
+			+ "             {\"name\":\"nResidentMemoryConsumption\",\"value\":40960,\"metricKind\":\"gauge\",\"metricType\":\"system\",\"lastTimeRetrieved\":" + (SNAPSHOT_TIME - 5) + "}],\n"
+			+ "  \"inputPorts\":[],\n"
+			+ "  \"outputPorts\":[{\"indexWithinPE\":0,\"metrics\":[{\"name\":\"nTuplesSubmitted\",\"value\":42,\"metricKind\":\"counter\",\"metricType\":\"system\"}],\n"
+			+ "    \"connections\":[{\"id\":\"o0p12i0p13\",\"metrics\":[{\"name\":\"congestionFactor\",\"value\":3,\"metricKind\":\"gauge\",\"metricType\":\"system\"}]}]}],\n"
+			+ "  \"operators\":[\n"
+			+ "   {\"name\":\"Beacon_1\",\"metrics\":[{\"name\":\"nTuplesSubmitted\",\"value\":42,\"metricKind\":\"counter\",\"metricType\":\"custom\"}],\n"
+			+ "    \"inputPorts\":[],\"outputPorts\":[{\"indexWithinOperator\":0,\"metrics\":[{\"name\":\"nTuplesSubmitted\",\"value\":42,\"metricKind\":\"counter\",\"metricType\":\"system\"}]}]},\n"
+			+ "   {\"name\":\"Custom_\u00e9\",\"lastTimeRetrieved\":" + (SNAPSHOT_TIME - 20) + ",\"metrics\":[{\"name\":\"myGauge\",\"value\":-7,\"kind\":\"gauge\",\"type\":\"custom\"},\n"
+			+ "                {\"name\":\"description\",\"value\":\"not a number\"}],\n"
+			+ "    \"inputPorts\":[{\"index\":\"0\",\"metrics\":[{\"name\":\"nTuplesProcessed\",\"value\":41,\"metricKind\":\"counter\",\"metricType\":\"system\"}]}],\n"
+			+ "    \"outputPorts\":[]}]}\n"
+			+ "]}";
+
+	private int _nChecks = 0;
+
+	private int _nFailures = 0;
+
+	public static void main(String[] args) throws Exception {
+		MetricsSnapshotTest test = new MetricsSnapshotTest();
+		HttpServer server = startServer();
+		try {
+			String base = "http://127.0.0.1:" + server.getAddress().getPort();
+			test.testDownloadedSnapshot(base);
+			test.testFailedDownloads(base);
+		}
+		finally {
+			server.stop(0);
+		}
+		System.out.println("MetricsSnapshotTest: " + test._nChecks + " checks, " + test._nFailures + " failures");
+		if (test._nFailures > 0) {
+			System.exit(1);
+		}
+	}
+
+	private void check(boolean condition, String description) {
+		_nChecks++;
+		if (!condition) {
+			_nFailures++;
+			System.out.println("FAILED: " + description);
+		}
+	}
+
+	/**
+	 * Serve the snapshot to requests with the credentials of the JMX
+	 * connection.
+	 */
+	private static HttpServer startServer() throws IOException {
+		HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		final String authorization = "Basic " + Base64.getEncoder().encodeToString((USER + ":" + PASSWORD).getBytes(StandardCharsets.UTF_8));
+		server.createContext("/", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				int status;
+				byte[] body;
+				if (!authorization.equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+					status = 401;
+					body = "Unauthorized".getBytes(StandardCharsets.UTF_8);
+				}
+				else if (SNAPSHOT_PATH.equals(exchange.getRequestURI().getPath())) {
+					status = 200;
+					body = SNAPSHOT.getBytes(StandardCharsets.UTF_8);
+				}
+				else {
+					status = 404;
+					body = "Not Found".getBytes(StandardCharsets.UTF_8);
+				}
+				exchange.sendResponseHeaders(status, body.length);
+				try (OutputStream out = exchange.getResponseBody()) {
+					out.write(body);
+				}
+			}
+		});
+		server.start();
+		return server;
+	}
+
+	/**
+	 * A job MXBean whose snapshotMetrics operation returns the given URI.
+	 */
+	private static JobMXBean newJob(final String uri) {
+		return (JobMXBean)Proxy.newProxyInstance(MetricsSnapshotTest.class.getClassLoader(), new Class<?>[] { JobMXBean.class }, new InvocationHandler() {
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				if (method.getName().equals("snapshotMetrics")) {
+					return uri;
+				}
+				throw new UnsupportedOperationException(method.toString());
+			}
+		});
+	}
+
+	private void testDownloadedSnapshot(String base) throws Exception {
+		String uri = newJob(base + SNAPSHOT_PATH).snapshotMetrics(false);
+		// The return value of snapshotMetrics is not the snapshot itself.
+		boolean isRejected = false;
+		try {
+			new MetricsSnapshot(uri, SNAPSHOT_TIME);
+		}
+		catch (IOException e) {
+			isRejected = true;
+		}
+		check(isRejected, "the URI returned by snapshotMetrics is parsed as snapshot");
+
+		MetricsSnapshot snapshot = new MetricsSnapshot(new JmxDataRetriever(USER, PASSWORD, "TLSv1.2", 10000).retrieve(uri), SNAPSHOT_TIME);
+
+		Set<Metric> peMetrics = snapshot.getPeMetrics("12");
+		checkMetric(peMetrics, "nCpuMilliseconds", 1200, Kind.COUNTER, Type.SYSTEM, SNAPSHOT_TIME - 10);
+		checkMetric(peMetrics, "nResidentMemoryConsumption", 40960, Kind.GAUGE, Type.SYSTEM, SNAPSHOT_TIME - 5);
+		check(peMetrics != null && peMetrics.size() == 2, "PE metrics: " + peMetrics);
+		check(snapshot.getPeInputPortMetrics("12", 0) == null, "PE input port 0 is not in the snapshot");
+		checkMetric(snapshot.getPeOutputPortMetrics("12", 0), "nTuplesSubmitted", 42, Kind.COUNTER, Type.SYSTEM, SNAPSHOT_TIME - 10);
+		checkMetric(snapshot.getPeConnectionMetrics("12", "o0p12i0p13"), "congestionFactor", 3, Kind.GAUGE, Type.SYSTEM, SNAPSHOT_TIME - 10);
+
+		checkMetric(snapshot.getOperatorMetrics("Beacon_1"), "nTuplesSubmitted", 42, Kind.COUNTER, Type.CUSTOM, SNAPSHOT_TIME - 10);
+		checkMetric(snapshot.getOperatorOutputPortMetrics("Beacon_1", 0), "nTuplesSubmitted", 42, Kind.COUNTER, Type.SYSTEM, SNAPSHOT_TIME - 10);
+		Set<Metric> customMetrics = snapshot.getOperatorMetrics("Custom_\u00e9");
+		checkMetric(customMetrics, "myGauge", -7, Kind.GAUGE, Type.CUSTOM, SNAPSHOT_TIME - 20);
+		check(customMetrics != null && customMetrics.size() == 1, "metrics without a numeric value are skipped: " + customMetrics);
+		checkMetric(snapshot.getOperatorInputPortMetrics("Custom_\u00e9", 0), "nTuplesProcessed", 41, Kind.COUNTER, Type.SYSTEM, SNAPSHOT_TIME - 20);
+
+		check(snapshot.getPeMetrics("13") == null, "PE 13 is not in the snapshot");
+		check(snapshot.getOperatorMetrics("Sink") == null, "operator Sink is not in the snapshot");
+	}
+
+	private void checkMetric(Set<Metric> metrics, String name, long value, Kind kind, Type type, long lastTimeRetrieved) {
+		Metric found = null;
+		if (metrics != null) {
+			for (Metric metric : metrics) {
+				if (metric.getName().equals(name)) {
+					found = metric;
+				}
+			}
+		}
+		check(found != null, "metric " + name + " is missing: " + metrics);
+		if (found != null) {
+			check(found.getValueAsLong() == value, name + ": value=" + found.getValueAsLong());
+			check(found.getMetricKind() == kind, name + ": kind=" + found.getMetricKind());
+			check(found.getMetricType() == type, name + ": type=" + found.getMetricType());
+			check(found.getLastTimeRetrieved() == lastTimeRetrieved, name + ": lastTimeRetrieved=" + found.getLastTimeRetrieved());
+		}
+	}
+
+	/**
+	 * A failed download throws an IOException, so the job handler retrieves
+	 * the metrics per MXBean.
+	 */
+	private void testFailedDownloads(String base) throws Exception {
+		String[][] cases = {
+				{ "wrong password", base + SNAPSHOT_PATH, "wrong" },
+				{ "unknown snapshot", base + "/streams/rest/instances/StreamsInstance/jobs/7/snapshots/unknown.json", PASSWORD },
+				{ "no URI", null, PASSWORD },
+		};
+		for (String[] c : cases) {
+			boolean isRejected = false;
+			try {
+				new JmxDataRetriever(USER, c[2], "TLSv1.2", 10000).retrieve(c[1]);
+			}
+			catch (IOException e) {
+				isRejected = true;
+			}
+			check(isRejected, c[0] + ": the download does not fail");
+		}
+	}
+
+}
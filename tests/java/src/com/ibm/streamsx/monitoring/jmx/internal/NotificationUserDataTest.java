@@ -0,0 +1,123 @@
+//
+// ****************************************************************************
+// * Copyright (C) 2016, International Business Machines Corporation          *
+// * All rights reserved.                                                     *
+// ****************************************************************************
+//
+
+package com.ibm.streamsx.monitoring.jmx.internal;
+
+import java.math.BigInteger;
+
+import javax.management.Notification;
+import javax.management.ObjectName;
+
+import com.ibm.streams.management.Notifications;
+import com.ibm.streams.management.ObjectNameBuilder;
+
+/**
+ * Verifies that {@link NotificationUserData} extracts the identifier of the
+ * added or removed object from the user data of each notification type that
+ * the handlers apply. The user data is the object name of the affected
+ * MXBean, or its identifier as String or BigInteger.
+ */
+public class NotificationUserDataTest {
+
+	private static final String INSTANCE = "StreamsInstance";
+
+	private static final String JOB = "7";
+
+	private int _nChecks = 0;
+
+	private int _nFailures = 0;
+
+	public static void main(String[] args) throws Exception {
+		NotificationUserDataTest test = new NotificationUserDataTest();
+		test.testPeNotifications();
+		test.testOperatorNotifications();
+		test.testPeConnectionNotifications();
+		test.testOperatorConnectionNotifications();
+		test.testUnsupportedUserData();
+		System.out.println("NotificationUserDataTest: " + test._nChecks + " checks, " + test._nFailures + " failures");
+		if (test._nFailures > 0) {
+			System.exit(1);
+		}
+	}
+
+	private void check(String type, Object userData, String key, String expected) {
+		Notification notification = new Notification(type, "source", 1);
+		notification.setUserData(userData);
+		String id = NotificationUserData.getId(notification, key);
+		_nChecks++;
+		if (expected == null ? id != null : !expected.equals(id)) {
+			_nFailures++;
+			System.out.println("FAILED: " + type + ", userData=" + userData + " (" + ((userData != null) ? userData.getClass().getSimpleName() : "null") + "), key=" + key + ": expected=" + expected + ", actual=" + id);
+		}
+	}
+
+	/**
+	 * The job handler adds and removes PE handlers by the PE ID.
+	 */
+	private void testPeNotifications() {
+		for (String type : new String[] { Notifications.PE_ADDED, Notifications.PE_REMOVED }) {
+			check(type, ObjectNameBuilder.pe(INSTANCE, "12"), "id", "12");
+			check(type, BigInteger.valueOf(12), "id", "12");
+			check(type, new BigInteger("18446744073709551615"), "id", "18446744073709551615");
+			check(type, "12", "id", "12");
+		}
+	}
+
+	/**
+	 * The job handler adds and removes operator handlers by the operator
+	 * name, which is quoted in the object name if it contains special
+	 * characters.
+	 */
+	private void testOperatorNotifications() throws Exception {
+		for (String type : new String[] { Notifications.OPERATOR_ADDED, Notifications.OPERATOR_REMOVED }) {
+			check(type, ObjectNameBuilder.operator(INSTANCE, JOB, "Beacon_1"), "name", "Beacon_1");
+			check(type, operator("app::Main.parallel[2].Custom_\u00e9"), "name", "app::Main.parallel[2].Custom_\u00e9");
+			check(type, operator("a,b=\"c\""), "name", "a,b=\"c\"");
+			check(type, "Beacon_1", "name", "Beacon_1");
+		}
+	}
+
+	/**
+	 * The object name of an operator whose name must be quoted.
+	 */
+	private static ObjectName operator(String name) throws Exception {
+		return new ObjectName("com.ibm.streams.management:type=instance.job.operator,instance=" + ObjectName.quote(INSTANCE) + ",job=" + JOB + ",name=" + ObjectName.quote(name));
+	}
+
+	/**
+	 * The PE handler adds and removes connection handlers by the connection
+	 * ID.
+	 */
+	private void testPeConnectionNotifications() {
+		for (String type : new String[] { Notifications.PE_CONNECTION_ADDED, Notifications.PE_CONNECTION_REMOVED }) {
+			check(type, ObjectNameBuilder.peConnection(INSTANCE, "o0p12i0p13"), "id", "o0p12i0p13");
+			check(type, "o0p12i0p13", "id", "o0p12i0p13");
+		}
+	}
+
+	/**
+	 * The operator handler resolves the port of an added or removed
+	 * connection by the connection ID.
+	 */
+	private void testOperatorConnectionNotifications() {
+		for (String type : new String[] { Notifications.OPERATOR_CONNECTION_ADDED, Notifications.OPERATOR_CONNECTION_REMOVED }) {
+			check(type, ObjectNameBuilder.operatorConnection(INSTANCE, "o0p12i0p13"), "id", "o0p12i0p13");
+			check(type, "o0p12i0p13", "id", "o0p12i0p13");
+		}
+	}
+
+	/**
+	 * User data without an identifier is ignored by the handlers.
+	 */
+	private void testUnsupportedUserData() {
+		check(Notifications.PE_ADDED, null, "id", null);
+		check(Notifications.PE_ADDED, Long.valueOf(12), "id", null);
+		check(Notifications.PE_ADDED, ObjectNameBuilder.operator(INSTANCE, JOB, "Beacon_1"), "id", null);
+		check(Notifications.OPERATOR_ADDED, ObjectNameBuilder.pe(INSTANCE, "12"), "name", null);
+	}
+
+}
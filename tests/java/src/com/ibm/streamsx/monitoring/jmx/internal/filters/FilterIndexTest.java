@@ -0,0 +1,298 @@
+//
+// ****************************************************************************
+// * Copyright (C) 2016, 2017, International Business Machines Corporation    *
+// * All rights reserved.                                                     *
+// ****************************************************************************
+//
+
+package com.ibm.streamsx.monitoring.jmx.internal.filters;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Verifies that the {@link FilterIndex} returns the same filters in the same
+ * order as the linear walk over the filters that it replaces. The order
+ * matters, because the metric emission of the first matching filter is
+ * used.
+ * <p>
+ * Run with the argument <code>benchmark</code> to compare the lookup time of
+ * the index with the linear walk for 500 job name patterns.
+ * </p>
+ */
+public class FilterIndexTest {
+
+	private static final int N_PATTERNS = 500;
+
+	private static final int N_VALUES = 200;
+
+	/**
+	 * A filter that has a regular expression only.
+	 */
+	static final class TestFilter extends PatternMatcher {
+
+		private final Pattern _reference;
+
+		TestFilter(String regularExpression) {
+			super(regularExpression);
+			_reference = Pattern.compile(regularExpression);
+		}
+
+		@Override
+		public String toString() {
+			return getRegularExpression();
+		}
+	}
+
+	private int _nChecks = 0;
+
+	private int _nFailures = 0;
+
+	public static void main(String[] args) {
+		FilterIndexTest test = new FilterIndexTest();
+		test.testHandWrittenPatterns();
+		test.testGeneratedPatterns();
+		test.testMemoizedValuesAreCleared();
+		System.out.println("FilterIndexTest: " + test._nChecks + " checks, " + test._nFailures + " failures");
+		if (args.length > 0 && "benchmark".equals(args[0])) {
+			benchmark();
+		}
+		if (test._nFailures > 0) {
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * The filters whose regular expression matches the value, in the order
+	 * of the collection, like the loops over the filter maps before the
+	 * index was introduced.
+	 */
+	private static List<TestFilter> linearWalk(List<TestFilter> filters, String value) {
+		List<TestFilter> result = new ArrayList<>();
+		for (TestFilter filter : filters) {
+			if (filter._reference.matcher(value).matches()) {
+				result.add(filter);
+			}
+		}
+		return result;
+	}
+
+	private void verify(List<TestFilter> filters, FilterIndex<TestFilter> index, String value) {
+		List<TestFilter> expected = linearWalk(filters, value);
+		// The first call evaluates the trie, the second one is memoized.
+		for (int i = 0; i < 2; i++) {
+			List<TestFilter> actual = index.getMatchingFilters(value);
+			_nChecks++;
+			if (!sameFilters(expected, actual)) {
+				_nFailures++;
+				System.out.println("FAILED: value=\"" + value + "\", expected=" + expected + ", actual=" + actual);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Compare the filters by identity and order.
+	 */
+	private static boolean sameFilters(List<TestFilter> expected, List<TestFilter> actual) {
+		if (expected.size() != actual.size()) {
+			return false;
+		}
+		for (int i = 0; i < expected.size(); i++) {
+			if (expected.get(i) != actual.get(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static List<TestFilter> newFilters(String... regularExpressions) {
+		List<TestFilter> filters = new ArrayList<>();
+		for (String regularExpression : regularExpressions) {
+			filters.add(new TestFilter(regularExpression));
+		}
+		return filters;
+	}
+
+	/**
+	 * Patterns whose literal prefixes overlap, so that matching filters are
+	 * found at different depths of the trie, in an order that differs from
+	 * the order of the collection.
+	 */
+	private void testHandWrittenPatterns() {
+		List<TestFilter> filters = newFilters(
+				".*",
+				"job_prod_.*",
+				"job_.*",
+				"job_prod_1",
+				"job_prod_[0-9]+",
+				"job_prod_1",
+				"j.*",
+				"job_?prod.*",
+				"jobs*_prod_1",
+				"job_(prod|test)_1",
+				"job_prod_1|other",
+				"other|job_prod_1",
+				"^job_prod_1$",
+				"job\\_prod\\_1",
+				"\\Qjob_prod_1\\E",
+				"job_prod_1(?:)",
+				"job_prod_\\d",
+				"job_pro{1,2}d_1",
+				"[j]ob_prod_1",
+				"job_prod_1.+",
+				"(?i)JOB_PROD_1",
+				"job_prod_1\n?",
+				"caf\u00e9.*",
+				"",
+				"a*",
+				"job_test_.*");
+		FilterIndex<TestFilter> index = new FilterIndex<>(filters);
+		String[] values = {
+				"job_prod_1",
+				"job_prod_12",
+				"job_prod_1x",
+				"job_prod_",
+				"job_test_1",
+				"jobprod_1",
+				"jobss_prod_1",
+				"job_proo_1",
+				"JOB_PROD_1",
+				"job_prod_1\n",
+				"job_prod_1\nx",
+				"caf\u00e9",
+				"caf\u00e9_job",
+				"other",
+				"",
+				"a",
+				"aaa",
+				"j",
+		};
+		for (String value : values) {
+			verify(filters, index, value);
+		}
+	}
+
+	/**
+	 * Many generated job name patterns of the forms that filter documents
+	 * use: literal names, prefixes, character classes, and alternatives.
+	 */
+	private void testGeneratedPatterns() {
+		Random random = new Random(4711);
+		List<TestFilter> filters = generatePatterns(random);
+		FilterIndex<TestFilter> index = new FilterIndex<>(filters);
+		for (String value : generateValues(random)) {
+			verify(filters, index, value);
+		}
+	}
+
+	/**
+	 * Look up more values than the index memoizes, so the memoized values
+	 * are cleared in between.
+	 */
+	private void testMemoizedValuesAreCleared() {
+		Random random = new Random(42);
+		List<TestFilter> filters = generatePatterns(random);
+		FilterIndex<TestFilter> index = new FilterIndex<>(filters);
+		for (int i = 0; i < 5000; i++) {
+			verify(filters, index, "team" + (i % 40) + "_app" + i);
+		}
+	}
+
+	private static List<TestFilter> generatePatterns(Random random) {
+		Set<String> regularExpressions = new LinkedHashSet<>();
+		while (regularExpressions.size() < N_PATTERNS) {
+			int team = random.nextInt(40);
+			int app = random.nextInt(100);
+			switch (random.nextInt(8)) {
+			case 0:
+			case 1:
+				regularExpressions.add("team" + team + "_app" + app);
+				break;
+			case 2:
+				regularExpressions.add("team" + team + "_.*");
+				break;
+			case 3:
+				regularExpressions.add("team" + team + "_app[0-9]*");
+				break;
+			case 4:
+				regularExpressions.add("team" + team + "_app" + app + ".*");
+				break;
+			case 5:
+				regularExpressions.add("team" + team + "_(app|svc)" + app);
+				break;
+			case 6:
+				regularExpressions.add("team[0-9]+_app" + app);
+				break;
+			default:
+				regularExpressions.add(".*_app" + app);
+				break;
+			}
+		}
+		List<TestFilter> filters = new ArrayList<>();
+		for (String regularExpression : regularExpressions) {
+			filters.add(new TestFilter(regularExpression));
+		}
+		return filters;
+	}
+
+	private static List<String> generateValues(Random random) {
+		List<String> values = new ArrayList<>();
+		for (int i = 0; i < N_VALUES; i++) {
+			int team = random.nextInt(45);
+			int app = random.nextInt(110);
+			values.add((random.nextBoolean() ? "team" + team + "_app" : "team" + team + "_svc") + app);
+		}
+		return values;
+	}
+
+	/**
+	 * Measure the lookup of the matching filters of 200 job names among 500
+	 * patterns: the linear walk, the index without memoized values, and the
+	 * memoized index.
+	 */
+	private static void benchmark() {
+		Random random = new Random(4711);
+		final List<TestFilter> filters = generatePatterns(random);
+		final List<String> values = generateValues(random);
+		final FilterIndex<TestFilter> memoized = new FilterIndex<>(filters);
+		int rounds = 200;
+		for (int warmup = 0; warmup < 2; warmup++) {
+			long start = System.nanoTime();
+			long n = 0;
+			for (int r = 0; r < rounds; r++) {
+				for (String value : values) {
+					n += linearWalk(filters, value).size();
+				}
+			}
+			long linear = System.nanoTime() - start;
+			start = System.nanoTime();
+			for (int r = 0; r < rounds; r++) {
+				FilterIndex<TestFilter> index = new FilterIndex<>(filters);
+				for (String value : values) {
+					n += index.getMatchingFilters(value).size();
+				}
+			}
+			long cold = System.nanoTime() - start;
+			start = System.nanoTime();
+			for (int r = 0; r < rounds; r++) {
+				for (String value : values) {
+					n += memoized.getMatchingFilters(value).size();
+				}
+			}
+			long warm = System.nanoTime() - start;
+			if (warmup == 1) {
+				long nLookups = (long)rounds * values.size();
+				System.out.println("FilterIndexTest benchmark: " + filters.size() + " patterns, " + values.size() + " values, " + n + " matches");
+				System.out.println("  linear walk:          " + (linear / nLookups) + " ns/lookup");
+				System.out.println("  index, not memoized:  " + (cold / nLookups) + " ns/lookup (including the build of the index)");
+				System.out.println("  index, memoized:      " + (warm / nLookups) + " ns/lookup");
+			}
+		}
+	}
+
+}